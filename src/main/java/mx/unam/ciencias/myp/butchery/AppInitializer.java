@@ -1,11 +1,18 @@
 package mx.unam.ciencias.myp.butchery;
 
+import mx.unam.ciencias.myp.butchery.model.domain.EventStore;
 import mx.unam.ciencias.myp.butchery.model.domain.Inventory;
+import mx.unam.ciencias.myp.butchery.model.domain.InventoryState;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.AsyncDispatcher;
 import mx.unam.ciencias.myp.butchery.model.patrones.observer.FileNotifier;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.LogArchive;
 import mx.unam.ciencias.myp.butchery.model.patrones.observer.ConsoleNotifier;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryEvent;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
 
 /**
  * Inicializador de la aplicación: configura recursos como el archivo de log
@@ -14,12 +21,32 @@ import java.io.IOException;
 public final class AppInitializer {
 
     private static final String LOG_FILE = "inventory_changes_log.txt";
+    private static final String CDC_FILE = "data/inventory_changes.cdc";
+    private static final String CHECKPOINT_DIR = "data/checkpoints";
+    private static final int CHECKPOINT_EVERY = 1000;
+    private static final int DISPATCH_CAPACITY = 1024;
+    private static final long COALESCE_WINDOW_MS = 100;
+    private static final int LOG_FLUSH_EVERY_EVENTS = 64;
+    private static final long LOG_FLUSH_INTERVAL_MS = 200;
+    private static final long LOG_SEGMENT_BYTES = 10L * 1024 * 1024;
+    private static final int LOG_RETAINED_SEGMENTS = 60;
 
     private AppInitializer() {}
 
     /**
      * Inicializa recursos de la aplicación. Trunca/crea el archivo de log
      * y registra observadores en el `Inventory`.
+     *
+     * <p>Las notificaciones se agrupan por venta, por carga de datos o por ventanas de
+     * {@value #COALESCE_WINDOW_MS} ms, se despachan de forma asíncrona y el log se confirma en grupo; el log
+     * rota por tamaño o por día y los segmentos cerrados se comprimen en segundo plano. Al terminar
+     * la aplicación un shutdown hook entrega los mensajes pendientes y cierra el log.</p>
+     *
+     * <p>Además, cada evento tipado se escribe en la bitácora binaria de captura de cambios
+     * ({@value #CDC_FILE}) para que otros procesos puedan seguirla. Esa bitácora es también el
+     * diario del {@link EventStore}: al arrancar se restaura el estado desde el último punto de
+     * control más la cola del diario; si la tabla {@code inventory} está vacía se reconstruye a partir
+     * de ese estado y, si no, se verifica contra él.</p>
      */
     public static void init() {
 
@@ -36,10 +63,47 @@ public final class AppInitializer {
         try {
             Inventory inv = Inventory.getInstance();
             inv.register(new ConsoleNotifier());
-            inv.register(new FileNotifier());
+            FileNotifier fileNotifier = new FileNotifier(LOG_FLUSH_EVERY_EVENTS, LOG_FLUSH_INTERVAL_MS, true);
+            fileNotifier.enableRotation(new LogArchive(Paths.get(LOG_FILE), LOG_SEGMENT_BYTES, true, LOG_RETAINED_SEGMENTS));
+            inv.register(fileNotifier);
+            inv.enableAsyncDispatch(DISPATCH_CAPACITY, AsyncDispatcher.OverflowPolicy.BLOCK);
+            inv.enableCoalescing(COALESCE_WINDOW_MS);
+            EventStore changeLog = new EventStore(Paths.get(CDC_FILE), Paths.get(CHECKPOINT_DIR), CHECKPOINT_EVERY);
+            restoreOrVerify(inv, changeLog);
+            inv.subscribe(InventoryEvent.class, changeLog);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                inv.disableCoalescing();
+                inv.disableAsyncDispatch();
+                inv.getObserverLanes().forEach(lane -> inv.removeObserver(lane.getObserver()));
+                fileNotifier.close();
+                inv.unsubscribe(InventoryEvent.class, changeLog);
+                try {
+                    changeLog.close();
+                } catch (IOException e) {
+                    System.err.println("No se pudo cerrar la bitácora de cambios: " + e.getMessage());
+                }
+            }, "inventory-shutdown"));
         } catch (Exception e) {
             System.err.println("No se pudieron registrar observadores: " + e.getMessage());
         }
         
     }
+
+    /**
+     * Reconstruye el inventario desde el diario si la tabla está vacía; en otro caso compara ambos y
+     * reporta las diferencias. Si el diario es nuevo, toma el inventario actual como línea base.
+     */
+    private static void restoreOrVerify(Inventory inv, EventStore store) throws IOException {
+        InventoryState journaled = store.getState();
+        if (journaled.isEmpty()) {
+            if (!inv.getInventory().isEmpty()) store.baseline(inv.snapshotState());
+            return;
+        }
+        if (inv.getInventory().isEmpty()) {
+            inv.rebuildFrom(journaled);
+            return;
+        }
+        List<String> differences = store.verify(inv.getInventory());
+        for (String d : differences) System.err.println("Inventario vs. diario: " + d);
+    }
 }
@@ -12,6 +12,7 @@ import java.sql.Statement;
  * <p>
  * 
  * Actualmente gestiona la creación de la tabla <strong>inventory</strong>, donde se almacena la información de los productos registrados en la carnicería, incluyendo su identificador, nombre, precio, cantidad en existencia y tipo.
+ * También crea <strong>product_labels</strong>, que guarda las categorías y etiquetas asociadas a cada producto, y <strong>product_lots</strong>, con los lotes (fecha de recepción, caducidad y cantidad restante) de los productos por peso, <strong>price_history</strong>, con las versiones de precio de cada producto y la fecha desde la que rigen, <strong>stock_movements</strong>, con cada cambio de existencias y su instante, <strong>ingested_sales</strong>, con los ids de las ventas recibidas en lote para no contarlas dos veces, y <strong>sales_rollups</strong>, con los acumulados de ventas por hora, día y mes.
  * </p>
  */
 public class DatabaseInitializer {
@@ -20,7 +21,7 @@ public class DatabaseInitializer {
      * Ejecuta la inicialización de la base de datos.
      *
      * <p>
-     * Este método abre una conexión a la base de datos, crea un {@link Statement} y ejecuta la sentencia SQL que define la tabla <strong>inventory</strong> si aún no está creada.
+     * Este método abre una conexión a la base de datos, crea un {@link Statement} y ejecuta las sentencias SQL que definen las tablas del sistema si aún no están creadas.
      * </p>
      * <p>
      * En caso de que ocurra algún error durante este proceso, se lanza una {@link RuntimeException} para indicar que la base de datos no pudo ser inicializada correctamente.
@@ -38,7 +39,61 @@ public class DatabaseInitializer {
                 "type TEXT NOT NULL" +
                 ");";
 
+            String sqlLabels = "CREATE TABLE IF NOT EXISTS product_labels (" +
+                "product_id TEXT NOT NULL, " +
+                "kind TEXT NOT NULL, " +
+                "label TEXT NOT NULL, " +
+                "PRIMARY KEY (product_id, kind, label)" +
+                ");";
+
+            String sqlLots = "CREATE TABLE IF NOT EXISTS product_lots (" +
+                "id INTEGER PRIMARY KEY, " +
+                "product_id TEXT NOT NULL, " +
+                "received_on TEXT NOT NULL, " +
+                "expires_on TEXT, " +
+                "quantity REAL NOT NULL" +
+                ");";
+
+            String sqlPrices = "CREATE TABLE IF NOT EXISTS price_history (" +
+                "product_id TEXT NOT NULL, " +
+                "effective_from INTEGER NOT NULL, " +
+                "price REAL NOT NULL, " +
+                "PRIMARY KEY (product_id, effective_from)" +
+                ");";
+
+            String sqlMovements = "CREATE TABLE IF NOT EXISTS stock_movements (" +
+                "product_id TEXT NOT NULL, " +
+                "at INTEGER NOT NULL, " +
+                "delta REAL NOT NULL" +
+                ");";
+
+            String sqlMovementsIndex = "CREATE INDEX IF NOT EXISTS idx_stock_movements_product " +
+                "ON stock_movements(product_id, at);";
+
+            String sqlIngested = "CREATE TABLE IF NOT EXISTS ingested_sales (" +
+                "client_id TEXT PRIMARY KEY, " +
+                "ingested_at INTEGER NOT NULL, " +
+                "total REAL NOT NULL" +
+                ");";
+
+            String sqlRollups = "CREATE TABLE IF NOT EXISTS sales_rollups (" +
+                "granularity TEXT NOT NULL, " +
+                "bucket_start TEXT NOT NULL, " +
+                "revenue REAL NOT NULL, " +
+                "sales INTEGER NOT NULL, " +
+                "kg REAL NOT NULL, " +
+                "units REAL NOT NULL, " +
+                "PRIMARY KEY (granularity, bucket_start)" +
+                ");";
+
             stmt.execute(sqlInventory);
+            stmt.execute(sqlLabels);
+            stmt.execute(sqlLots);
+            stmt.execute(sqlPrices);
+            stmt.execute(sqlMovements);
+            stmt.execute(sqlMovementsIndex);
+            stmt.execute(sqlIngested);
+            stmt.execute(sqlRollups);
 
         } catch (Exception e) {
 
@@ -3,9 +3,15 @@ package mx.unam.ciencias.myp.butchery.controller;
 import mx.unam.ciencias.myp.butchery.model.ModelFacade;
 import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
 import mx.unam.ciencias.myp.butchery.model.domain.Sale;
+import mx.unam.ciencias.myp.butchery.model.domain.SaleLines;
+import mx.unam.ciencias.myp.butchery.model.domain.StocktakeSession;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.PendingState;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleOutcome;
 import mx.unam.ciencias.myp.butchery.model.patrones.strategy.PercentageDiscount;
 import mx.unam.ciencias.myp.butchery.model.patrones.strategy.FrequentCustomerDiscount;
 import mx.unam.ciencias.myp.butchery.model.patrones.strategy.NoDiscount;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 
 /**
@@ -18,6 +24,7 @@ import java.util.List;
 public class ButcheryController {
     private ModelFacade model;
     private mx.unam.ciencias.myp.butchery.model.domain.Sale currentSale;
+    private StocktakeSession currentStocktake;
 
     /**
      * Crea un controlador con el modelo proporcionado.
@@ -53,8 +60,8 @@ public class ButcheryController {
         if (p == null) return "Invalid product selection.";
         double available = model.getStockByProduct(p);
         if (available < quantity) return String.format("Not enough stock. Available: %.2f", available);
-        currentSale.addProduct(p, quantity);
-        return null;
+        SaleOutcome outcome = currentSale.addProduct(p, quantity);
+        return outcome.isAccepted() ? null : outcome.getMessage();
     }
 
     /**
@@ -62,7 +69,7 @@ public class ButcheryController {
      */
     public double getCurrentSubtotal() {
         if (currentSale == null) return 0.0;
-        return currentSale.calculateTotalWithoutDiscount();
+        return currentSale.getSubtotal();
     }
 
     /**
@@ -86,6 +93,74 @@ public class ButcheryController {
         }
     }
 
+    /**
+     * Inicia una toma de inventario física que será administrada por el controlador.
+     */
+    public void beginStocktake() {
+        this.currentStocktake = model.beginStocktake();
+    }
+
+    /**
+     * Registra la cantidad contada de un producto en la toma de inventario en curso.
+     *
+     * @param name nombre del producto
+     * @param quantity cantidad contada
+     * @return mensaje de error o null si fue exitoso
+     */
+    public String countStock(String name, double quantity) {
+        if (currentStocktake == null) return "No active stocktake.";
+        try {
+            currentStocktake.count(name, quantity);
+        } catch (RuntimeException e) {
+            return e.getMessage();
+        }
+        return null;
+    }
+
+    /**
+     * Importa conteos en formato {@code nombre,cantidad} a la toma de inventario en curso.
+     *
+     * @param in fuente de los conteos
+     * @return número de conteos importados
+     * @throws IOException si no se puede leer la fuente
+     */
+    public int importStockCounts(Reader in) throws IOException {
+        if (currentStocktake == null) throw new IllegalStateException("No active stocktake.");
+        return currentStocktake.importCounts(in);
+    }
+
+    /**
+     * Devuelve las diferencias de la toma de inventario en curso.
+     */
+    public List<StocktakeSession.Variance> getStocktakeVariances() {
+        if (currentStocktake == null) return List.of();
+        return currentStocktake.getVariances();
+    }
+
+    /**
+     * Aplica las correcciones de la toma de inventario en curso y la limpia.
+     *
+     * @return mensaje con el resultado de la operación
+     */
+    public String applyStocktake() {
+        if (currentStocktake == null) return "No active stocktake.";
+        try {
+            int applied = model.applyStocktake(currentStocktake).size();
+            return "Stocktake applied. Adjusted products: " + applied;
+        } catch (RuntimeException e) {
+            return "Error applying stocktake: " + e.getMessage();
+        } finally {
+            currentStocktake = null;
+        }
+    }
+
+    /**
+     * Descarta la toma de inventario en curso sin aplicar cambios.
+     */
+    public void discardStocktake() {
+        currentStocktake = null;
+    }
+
     /**
      * El controlador le pide al modelo el inventario de productos.
      * @return lista de productos
@@ -131,6 +206,10 @@ public class ButcheryController {
      * Procesa una venta completa compuesta por varios items, aplica la estrategia de descuento
      * según si el cliente es frecuente o el porcentaje provisto, finaliza y procesa la venta.
      *
+     * <p>Antes de finalizar se revisa que haya existencias para toda la venta. Si aun así el modelo
+     * la rechaza (por ejemplo, porque otra caja vendió las mismas existencias un momento antes), la
+     * venta vuelve a quedar pendiente con sus productos, para poder corregirla o reintentarla.</p>
+     *
      * @param sale venta ya construida con items
      * @param isFrequent si es cliente frecuente
      * @param discountPercent porcentaje de descuento (0 si no aplica)
@@ -147,12 +226,21 @@ public class ButcheryController {
             sale.setStrategy(new NoDiscount());
         }
 
-        sale.applyDiscount();
-        sale.finalizeSale();
+        SaleLines lines = sale.getLines();
+        for (int i = 0; i < lines.size(); i++) {
+            Product p = lines.getProduct(i);
+            if (model.getStockByProduct(p) < lines.getQuantity(i))
+                return "Error processing sale: Insufficient stock for product: " + p.getName();
+        }
+
+        SaleOutcome outcome = sale.applyDiscount();
+        if (outcome.isAccepted()) outcome = sale.finalizeSale();
+        if (!outcome.isAccepted()) return "Error processing sale: " + outcome.getMessage();
 
         try {
             model.processSale(sale);
         } catch (RuntimeException e) {
+            sale.setState(PendingState.INSTANCE);
             return "Error processing sale: " + e.getMessage();
         }
 
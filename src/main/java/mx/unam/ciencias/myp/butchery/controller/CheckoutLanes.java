@@ -0,0 +1,238 @@
+package mx.unam.ciencias.myp.butchery.controller;
+
+import mx.unam.ciencias.myp.butchery.model.ModelFacade;
+import mx.unam.ciencias.myp.butchery.model.domain.Sale;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleOutcome;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Administrador de cajas (sesiones de cobro) concurrentes.
+ *
+ * <p>Cada caja abierta recibe un id y su propia {@link Sale} en curso, aislada de las demás. Las
+ * operaciones sobre una caja toman el candado de esa caja, así que su venta solo la toca un hilo a
+ * la vez, mientras que cajas distintas avanzan en paralelo; todas comparten la misma
+ * {@link ModelFacade}, que serializa solo el descuento de existencias de cada venta.</p>
+ *
+ * <p>Las cajas que no se usan durante el tiempo de inactividad configurado se cierran y su venta
+ * en curso se cancela. La revisión corre en segundo plano y también puede pedirse con
+ * {@link #evictIdle()}.</p>
+ */
+public class CheckoutLanes implements AutoCloseable {
+
+    private final ButcheryController controller;
+    private final ModelFacade model;
+    private final long idleTimeoutNanos;
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicLong evicted = new AtomicLong();
+    private final ScheduledExecutorService sweeper;
+
+    /**
+     * Crea el administrador.
+     *
+     * @param model             fachada compartida por todas las cajas
+     * @param idleTimeoutMillis tiempo sin uso tras el que una caja se cierra; 0 desactiva el cierre automático
+     */
+    public CheckoutLanes(ModelFacade model, long idleTimeoutMillis) {
+        if (model == null) throw new IllegalArgumentException("model cannot be null");
+        if (idleTimeoutMillis < 0) throw new IllegalArgumentException("idleTimeoutMillis must be >= 0");
+        this.model = model;
+        this.controller = new ButcheryController(model);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        if (idleTimeoutMillis > 0) {
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "checkout-lane-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(1, idleTimeoutMillis / 2);
+            sweeper.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.sweeper = null;
+        }
+    }
+
+    /**
+     * Abre una caja con una venta vacía.
+     *
+     * @return id de la caja
+     */
+    public String open() {
+        String id = "lane-" + nextId.getAndIncrement();
+        lanes.put(id, new Lane());
+        return id;
+    }
+
+    /**
+     * Agrega un producto a la venta de una caja si hay existencias suficientes.
+     *
+     * @param laneId   id de la caja
+     * @param product  producto a agregar
+     * @param quantity cantidad a agregar
+     * @return mensaje de error, o {@code null} si se agregó
+     * @throws IllegalArgumentException si la caja no existe o ya se cerró
+     */
+    public String addProduct(String laneId, Product product, double quantity) {
+        Lane lane = acquire(laneId);
+        try {
+            double available = model.getStockByProduct(product);
+            Double inBasket = lane.sale.getItems().get(product);
+            double requested = (inBasket == null ? 0.0 : inBasket) + quantity;
+            if (available < requested) return String.format("Not enough stock. Available: %.2f", available);
+            SaleOutcome outcome = lane.sale.addProduct(product, quantity);
+            return outcome.isAccepted() ? null : outcome.getMessage();
+        } finally {
+            release(lane);
+        }
+    }
+
+    /**
+     * @param laneId id de la caja
+     * @return subtotal (sin descuento) de la venta de la caja
+     * @throws IllegalArgumentException si la caja no existe o ya se cerró
+     */
+    public double getSubtotal(String laneId) {
+        Lane lane = acquire(laneId);
+        try {
+            return lane.sale.getSubtotal();
+        } finally {
+            release(lane);
+        }
+    }
+
+    /**
+     * Cobra la venta de una caja y deja la caja abierta con una venta nueva. Si la venta no se pudo
+     * registrar (por ejemplo, porque otra caja se llevó las existencias), la caja conserva la venta
+     * pendiente con sus productos para corregirla o reintentarla.
+     *
+     * @param laneId          id de la caja
+     * @param isFrequent      si es cliente frecuente
+     * @param discountPercent porcentaje de descuento (0 si no aplica)
+     * @return mensaje con el resultado de la operación
+     * @throws IllegalArgumentException si la caja no existe o ya se cerró
+     */
+    public String finish(String laneId, boolean isFrequent, double discountPercent) {
+        Lane lane = acquire(laneId);
+        try {
+            String result = controller.performSale(lane.sale, isFrequent, discountPercent);
+            if (lane.sale.getStatus() == SaleStatus.PAID) lane.sale = new Sale();
+            return result;
+        } finally {
+            release(lane);
+        }
+    }
+
+    /**
+     * Cancela la venta en curso de una caja y cierra la caja.
+     *
+     * @param laneId id de la caja
+     * @return {@code true} si la caja existía
+     */
+    public boolean close(String laneId) {
+        Lane lane = lanes.get(laneId);
+        if (lane == null) return false;
+        lane.lock.lock();
+        try {
+            if (lane.closed) return false;
+            closeLane(laneId, lane);
+            return true;
+        } finally {
+            lane.lock.unlock();
+        }
+    }
+
+    /**
+     * Cierra las cajas que llevan más del tiempo de inactividad sin usarse. Las cajas ocupadas en
+     * ese momento no se tocan.
+     *
+     * @return número de cajas cerradas
+     */
+    public int evictIdle() {
+        if (idleTimeoutNanos == 0) return 0;
+        long now = System.nanoTime();
+        int count = 0;
+        for (Map.Entry<String, Lane> e : lanes.entrySet()) {
+            Lane lane = e.getValue();
+            if (now - lane.lastUsed < idleTimeoutNanos || !lane.lock.tryLock()) continue;
+            try {
+                if (!lane.closed && now - lane.lastUsed >= idleTimeoutNanos) {
+                    closeLane(e.getKey(), lane);
+                    evicted.incrementAndGet();
+                    count++;
+                }
+            } finally {
+                lane.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return ids de las cajas abiertas.
+     */
+    public List<String> getOpenLanes() {
+        return new ArrayList<>(lanes.keySet());
+    }
+
+    /**
+     * @return número de cajas cerradas por inactividad.
+     */
+    public long getEvictedCount() {
+        return evicted.get();
+    }
+
+    /**
+     * Cierra todas las cajas, cancelando sus ventas, y detiene la revisión de inactividad.
+     */
+    @Override
+    public void close() {
+        if (sweeper != null) sweeper.shutdownNow();
+        for (String id : getOpenLanes()) close(id);
+    }
+
+    private Lane acquire(String laneId) {
+        Lane lane = lanes.get(laneId);
+        if (lane != null) {
+            lane.lock.lock();
+            if (!lane.closed) return lane;
+            lane.lock.unlock();
+        }
+        throw new IllegalArgumentException("Unknown or closed lane: " + laneId);
+    }
+
+    private void release(Lane lane) {
+        lane.lastUsed = System.nanoTime();
+        lane.lock.unlock();
+    }
+
+    /**
+     * Debe llamarse con el candado de la caja tomado.
+     */
+    private void closeLane(String laneId, Lane lane) {
+        lane.closed = true;
+        lane.sale.cancelSale();
+        lanes.remove(laneId, lane);
+    }
+
+    /**
+     * Caja abierta: su venta en curso y el candado que la confina a un hilo a la vez.
+     */
+    private static final class Lane {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private Sale sale = new Sale();
+        private volatile long lastUsed = System.nanoTime();
+        private boolean closed;
+    }
+}
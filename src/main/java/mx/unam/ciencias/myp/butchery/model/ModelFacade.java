@@ -1,14 +1,34 @@
 package mx.unam.ciencias.myp.butchery.model;
 
 import mx.unam.ciencias.myp.butchery.model.domain.Inventory;
+import mx.unam.ciencias.myp.butchery.model.domain.InventoryQuery;
+import mx.unam.ciencias.myp.butchery.model.domain.Lot;
+import mx.unam.ciencias.myp.butchery.model.domain.RevenueRollup;
 import mx.unam.ciencias.myp.butchery.model.domain.Sale;
+import mx.unam.ciencias.myp.butchery.model.domain.SaleIngestor;
+import mx.unam.ciencias.myp.butchery.model.domain.SaleLineStore;
+import mx.unam.ciencias.myp.butchery.model.domain.SaleSpillStore;
+import mx.unam.ciencias.myp.butchery.model.domain.SaleLines;
 import mx.unam.ciencias.myp.butchery.model.domain.SalesHistory;
+import mx.unam.ciencias.myp.butchery.model.domain.SalesReportEngine;
+import mx.unam.ciencias.myp.butchery.model.domain.StocktakeSession;
+import mx.unam.ciencias.myp.butchery.model.domain.TagQuery;
+import mx.unam.ciencias.myp.butchery.model.domain.TopSellers;
 import mx.unam.ciencias.myp.butchery.model.patrones.factory.*;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.NotificationCoalescer;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleStatus;
 import mx.unam.ciencias.myp.butchery.model.patrones.strategy.IDiscountStrategy;
 import mx.unam.ciencias.myp.butchery.model.patrones.strategy.PercentageDiscount;
 import mx.unam.ciencias.myp.butchery.model.patrones.strategy.NoDiscount;
+import mx.unam.ciencias.myp.butchery.util.SpaceSaving;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Fachada que expone las funcionalidades del modelo de la carnicería.
@@ -17,15 +37,29 @@ import java.util.Map;
  * @author Luis
  */
 public class ModelFacade {
-    private Inventory inventory;
-    private SalesHistory salesHistory;
+    private static final int INGEST_CHUNK_SIZE = 100;
+    private static final int TOP_SELLERS_CAPACITY = 64;
+    private static final int TOP_SELLERS_HOURS = 24;
+    private static final int RECENT_SALES_IN_MEMORY = 1000;
+    private static final int SPILL_SEGMENT_SIZE = 500;
+    private static final int SPILL_CACHED_SEGMENTS = 8;
+
+    private final Inventory inventory;
+    private final SalesHistory salesHistory;
+    private final TopSellers topSellers;
+    private SaleIngestor ingestor;
+    private SalesReportEngine reportEngine;
+    private final ReadWriteLock reportLock = new ReentrantReadWriteLock();
+    private int reportParallelism = Runtime.getRuntime().availableProcessors();
 
     /**
      * Crea una nueva instancia de la fachada del modelo.
      */
     public ModelFacade() {
         inventory = Inventory.getInstance();
-        salesHistory = new SalesHistory();
+        salesHistory = new SalesHistory(RevenueRollup.persistent(),
+                new SaleSpillStore(SPILL_SEGMENT_SIZE, SPILL_CACHED_SEGMENTS), RECENT_SALES_IN_MEMORY);
+        topSellers = new TopSellers(TOP_SELLERS_CAPACITY, Duration.ofHours(1), TOP_SELLERS_HOURS);
     }
 
     /**
@@ -57,9 +91,78 @@ public class ModelFacade {
         inventory.addStockByProductName(name, quantity);
     }
 
+    /**
+     * Recibe un lote de un producto vendido por peso.
+     *
+     * @param name      El nombre del producto.
+     * @param quantity  La cantidad recibida en kg. Debe ser un valor positivo.
+     * @param expiresOn La fecha de caducidad del lote, o {@code null} si no se conoce.
+     * @throws IllegalArgumentException si el producto no existe, no se vende por peso o la cantidad no es positiva.
+     */
+    public void receiveLot(String name, double quantity, LocalDate expiresOn) {
+        inventory.receiveLot(name, quantity, expiresOn);
+    }
+
+    /**
+     * Obtiene los lotes vivos de un producto en orden de consumo (el más antiguo primero).
+     *
+     * @param name El nombre del producto.
+     * @return Lista de lotes; vacía si el producto no existe o no tiene lotes.
+     */
+    public List<Lot> getLots(String name) {
+        Product p = findProductByName(name);
+        if (p == null) return List.of();
+        return inventory.getLots(p);
+    }
+
+    /**
+     * Obtiene el lote de un producto con la caducidad más próxima.
+     *
+     * @param name El nombre del producto.
+     * @return El lote, o {@code null} si el producto no existe o no tiene lotes.
+     */
+    public Lot getNextToExpire(String name) {
+        Product p = findProductByName(name);
+        if (p == null) return null;
+        return inventory.getNextToExpire(p);
+    }
+
+    /**
+     * Obtiene los lotes de todo el catálogo que caducan dentro de los próximos días.
+     *
+     * @param days Número de días a partir de hoy.
+     * @return Lista de lotes ordenada por fecha de caducidad.
+     */
+    public List<Lot> getLotsExpiringWithin(int days) {
+        return inventory.getLotsExpiringWithin(days);
+    }
+
+    /**
+     * Inicia una toma de inventario física con una foto de las existencias actuales.
+     *
+     * @return La sesión de conteo.
+     */
+    public StocktakeSession beginStocktake() {
+        return inventory.beginStocktake();
+    }
+
+    /**
+     * Aplica en una sola transacción las correcciones de una toma de inventario.
+     *
+     * @param session La sesión de conteo.
+     * @return Las diferencias aplicadas.
+     * @throws IllegalStateException si la sesión ya fue aplicada.
+     */
+    public List<StocktakeSession.Variance> applyStocktake(StocktakeSession session) {
+        return inventory.applyStocktake(session);
+    }
+
     /**
      * Actualiza el nombre de un producto en el inventario.
      *
+     * <p>Los agregados de ventas se llevan por id, así que sólo cambia el nombre con que reportan
+     * al producto; sus ventas anteriores siguen sumando en la misma entrada.</p>
+     *
      * @param currentName El nombre actual del producto.
      * @param newName     El nuevo nombre que se asignará al producto.
      * @throws IllegalArgumentException si no se encuentra el producto con el nombre actual
@@ -67,6 +170,9 @@ public class ModelFacade {
      */
     public void updateProductName(String currentName, String newName) {
         inventory.updateProductName(currentName, newName);
+        String id = inventory.getProductByName(newName).getId();
+        salesHistory.getLineStore().rename(id, newName);
+        topSellers.rename(id, newName);
     }
 
     /**
@@ -80,6 +186,54 @@ public class ModelFacade {
         inventory.updateProductPrice(name, newPrice);
     }
 
+    /**
+     * Programa un cambio de precio que entrará en vigor en la fecha indicada.
+     *
+     * @param name          El nombre del producto.
+     * @param newPrice      El precio nuevo.
+     * @param effectiveFrom La fecha y hora desde la que rige el precio; si ya pasó, el cambio es inmediato.
+     * @throws IllegalArgumentException si el producto no existe o el precio es negativo.
+     */
+    public void schedulePriceChange(String name, double newPrice, LocalDateTime effectiveFrom) {
+        inventory.schedulePriceChange(name, newPrice, effectiveFrom);
+    }
+
+    /**
+     * Obtiene el precio que tenía (o tendrá) un producto en una fecha dada.
+     *
+     * @param name El nombre del producto.
+     * @param time La fecha y hora consultada.
+     * @return El precio vigente en esa fecha, o NaN si el producto no existe o no tenía precio entonces.
+     */
+    public double getPriceAt(String name, LocalDateTime time) {
+        Product p = findProductByName(name);
+        if (p == null) return Double.NaN;
+        return inventory.getPriceAt(p, time);
+    }
+
+    /**
+     * Obtiene las existencias que tenía un producto en una fecha dada.
+     *
+     * @param name El nombre del producto.
+     * @param time La fecha y hora consultada.
+     * @return Las existencias en esa fecha, o 0.0 si el producto no existe.
+     */
+    public double getStockAsOf(String name, LocalDateTime time) {
+        Product p = findProductByName(name);
+        if (p == null) return 0.0;
+        return inventory.getStockAsOf(p, time);
+    }
+
+    /**
+     * Obtiene las existencias que tenían todos los productos en una fecha dada.
+     *
+     * @param time La fecha y hora consultada.
+     * @return Las existencias por producto en esa fecha.
+     */
+    public Map<Product, Double> getStockAsOf(LocalDateTime time) {
+        return inventory.getStockAsOf(time);
+    }
+
     /**
      * Obtiene el stock de un producto por su nombre.
      *
@@ -140,6 +294,7 @@ public class ModelFacade {
      */
     public void seedSampleData() {
 
+        NotificationCoalescer.Scope scope = inventory.openNotificationScope("Sample data");
         try {
 
             String id1 = java.util.UUID.randomUUID().toString();
@@ -158,8 +313,16 @@ public class ModelFacade {
             inventory.addProductByUnit(id4, "Chorizo", 40.0);
             inventory.addStockByProductName("Chorizo", 50.0);
 
+            inventory.addCategory("Carne de res - Bistec", "res");
+            inventory.addCategory("Cerdo - Lomo", "cerdo");
+            inventory.addCategory("Pollo entero", "pollo");
+            inventory.addCategory("Chorizo", "cerdo");
+            inventory.addTag("Chorizo", "embutido");
+
         } catch (IllegalArgumentException e) {
             // Si ya existen, ignorar para permitir múltiples ejecuciones
+        } finally {
+            scope.close();
         }
     }
 
@@ -188,12 +351,115 @@ public class ModelFacade {
     }
 
     /**
-     * Registra una venta en el historial de ventas.
+     * Agrega una categoría a un producto identificado por su nombre.
+     *
+     * @param name     El nombre del producto.
+     * @param category La categoría a asociar (por ejemplo "cerdo").
+     * @throws IllegalArgumentException si el producto no existe o la categoría es vacía.
+     */
+    public void addCategoryToProduct(String name, String category) {
+        inventory.addCategory(name, category);
+    }
+
+    /**
+     * Quita una categoría de un producto identificado por su nombre.
+     *
+     * @param name     El nombre del producto.
+     * @param category La categoría a quitar.
+     * @return {@code true} si el producto tenía la categoría.
+     */
+    public boolean removeCategoryFromProduct(String name, String category) {
+        return inventory.removeCategory(name, category);
+    }
+
+    /**
+     * Agrega una etiqueta a un producto identificado por su nombre.
+     *
+     * @param name El nombre del producto.
+     * @param tag  La etiqueta a asociar (por ejemplo "promocion").
+     * @throws IllegalArgumentException si el producto no existe o la etiqueta es vacía.
+     */
+    public void addTagToProduct(String name, String tag) {
+        inventory.addTag(name, tag);
+    }
+
+    /**
+     * Quita una etiqueta de un producto identificado por su nombre.
+     *
+     * @param name El nombre del producto.
+     * @param tag  La etiqueta a quitar.
+     * @return {@code true} si el producto tenía la etiqueta.
+     */
+    public boolean removeTagFromProduct(String name, String tag) {
+        return inventory.removeTag(name, tag);
+    }
+
+    /**
+     * Obtiene las categorías de un producto.
+     *
+     * @param p El producto.
+     * @return Las categorías del producto.
+     */
+    public Set<String> getCategories(Product p) {
+        return inventory.getCategories(p);
+    }
+
+    /**
+     * Obtiene las etiquetas de un producto.
+     *
+     * @param p El producto.
+     * @return Las etiquetas del producto.
+     */
+    public Set<String> getTags(Product p) {
+        return inventory.getTags(p);
+    }
+
+    /**
+     * Filtra el inventario con una consulta de categorías y etiquetas.
+     *
+     * @param query Consulta compuesta con AND/OR/NOT, por ejemplo
+     *              {@code TagQuery.category("cerdo").and(TagQuery.tag("promocion"))}.
+     * @return Lista de productos que cumplen la consulta.
+     */
+    public List<Product> findProducts(TagQuery query) {
+        return inventory.findProducts(query);
+    }
+
+    /**
+     * Filtra el inventario por rangos de precio y existencias.
+     *
+     * @param query Consulta por rangos, por ejemplo
+     *              {@code InventoryQuery.create().priceAbove(200).stockBelow(5)}.
+     * @return Lista de productos que cumplen la consulta.
+     */
+    public List<Product> findProducts(InventoryQuery query) {
+        return inventory.findProducts(query);
+    }
+
+    /**
+     * Registra una venta en el historial de ventas y en el tablero de productos más vendidos.
      *
      * @param sale La venta a registrar.
      */
     public void recordSale(Sale sale) {
         salesHistory.addSale(sale);
+        topSellers.record(sale);
+    }
+
+    /**
+     * Obtiene los productos más vendidos en las últimas 24 horas.
+     *
+     * <p>Las estimaciones vienen de un resumen de memoria fija: nunca quedan por debajo del valor
+     * real y lo exceden a lo más en el error de cada entrada.</p>
+     *
+     * @param measure Medida por la que se ordenan (ingreso o cantidad).
+     * @param k       Número de productos.
+     * @return Nombre, estimación y error de los {@code k} productos, de mayor a menor.
+     * @throws IllegalArgumentException si la medida es {@code null} o {@code k} no es positivo.
+     */
+    public List<SpaceSaving.Entry<String>> getTopSellers(TopSellers.Measure measure, int k) {
+        if (measure == null) throw new IllegalArgumentException("measure cannot be null");
+        return topSellers.top(measure, k);
     }
 
     /**
@@ -206,7 +472,7 @@ public class ModelFacade {
     }
 
     /**
-     * Obtiene el ingreso total generado por todas las ventas.
+     * Obtiene el ingreso total generado por todas las ventas, incluidas las de ejecuciones anteriores.
      *
      * @return Ingreso total.
      */
@@ -214,33 +480,138 @@ public class ModelFacade {
         return salesHistory.getTotalRevenue();
     }
 
+    /**
+     * Obtiene los acumulados de las ventas hechas en una ventana de tiempo.
+     *
+     * @param from Inicio de la ventana (inclusivo).
+     * @param to   Fin de la ventana (exclusivo).
+     * @return Ingreso, número de ventas, kilos y piezas vendidos en la ventana.
+     * @throws IllegalArgumentException si algún extremo es {@code null} o la ventana está invertida.
+     */
+    public RevenueRollup.Totals getSalesSummary(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null) throw new IllegalArgumentException("from and to cannot be null");
+        if (to.isBefore(from)) throw new IllegalArgumentException("to must not be before from");
+        return salesHistory.summarize(from, to);
+    }
+
+    /**
+     * Suma una medida de las ventas por producto en una ventana de tiempo.
+     *
+     * @param measure Medida a sumar (cantidad, ingreso, descuento o número de líneas).
+     * @param from    Inicio de la ventana (inclusivo), o {@code null} para no acotar.
+     * @param to      Fin de la ventana (exclusivo), o {@code null} para no acotar.
+     * @return Suma por nombre de producto, solo de los productos vendidos en la ventana.
+     * @throws IllegalArgumentException si la medida es {@code null}.
+     */
+    public Map<String, Double> getSalesByProduct(SaleLineStore.Measure measure, LocalDateTime from, LocalDateTime to) {
+        if (measure == null) throw new IllegalArgumentException("measure cannot be null");
+        return salesHistory.getLineStore().sumByProduct(measure, from, to);
+    }
+
+    /**
+     * Genera el reporte de todas las ventas del historial (ingreso por producto, kilos por corte,
+     * piezas por producto y tamaño promedio de canasta), agregándolas en paralelo.
+     *
+     * @return Reporte de ventas.
+     */
+    public SalesReportEngine.SalesReport getSalesReport() {
+        reportLock.readLock().lock();
+        try {
+            return getReportEngine().run(salesHistory.getSales());
+        } finally {
+            reportLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cambia el número de hilos con que se generan los reportes de ventas. Por omisión se usan todos
+     * los procesadores disponibles. Espera a que terminen los reportes en curso antes de detener los
+     * hilos anteriores.
+     *
+     * @param parallelism Número de hilos. Debe ser positivo.
+     * @throws IllegalArgumentException si el número de hilos no es positivo.
+     */
+    public void setReportParallelism(int parallelism) {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+        reportLock.writeLock().lock();
+        try {
+            if (reportEngine != null) {
+                reportEngine.close();
+                reportEngine = null;
+            }
+            reportParallelism = parallelism;
+        } finally {
+            reportLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Crea el motor la primera vez que se usa. Debe llamarse con el candado de lectura de los reportes tomado.
+     */
+    private synchronized SalesReportEngine getReportEngine() {
+        if (reportEngine == null) reportEngine = new SalesReportEngine(reportParallelism);
+        return reportEngine;
+    }
+
     /**
      * Procesa una venta ya finalizada: valida stock, reduce cantidades y registra en historial.
+     *
+     * <p>La validación y el descuento de existencias se hacen con el inventario bloqueado, así que
+     * varias cajas pueden procesar ventas al mismo tiempo sin que dos de ellas vendan las mismas
+     * existencias ni quede una venta descontada a medias.</p>
+     *
      * @param sale venta cuyo estado debe ser Paid (finalizada)
      * @throws IllegalStateException si no hay stock suficiente o la venta no está finalizada
      */
     public void processSale(Sale sale) {
         if (sale == null) throw new IllegalArgumentException("sale cannot be null");
 
-        String stateName = sale.getState().getClass().getSimpleName();
-        if (!"PaidState".equals(stateName)) {
+        if (sale.getStatus() != SaleStatus.PAID) {
             throw new IllegalStateException("Sale must be finalized before processing.");
         }
 
-        for (Map.Entry<Product, Double> e : sale.getItems().entrySet()) {
-            Product p = e.getKey();
-            double qty = e.getValue();
-            double available = inventory.getStock(p);
-            if (available < qty) {
-                throw new IllegalStateException("Insufficient stock for product: " + p.getName());
+        SaleLines lines = sale.getLines();
+        synchronized (inventory) {
+            for (int i = 0; i < lines.size(); i++) {
+                Product p = lines.getProduct(i);
+                double qty = lines.getQuantity(i);
+                double available = inventory.getStock(p);
+                if (available < qty) {
+                    throw new IllegalStateException("Insufficient stock for product: " + p.getName());
+                }
             }
-        }
 
-        for (Map.Entry<Product, Double> e : sale.getItems().entrySet()) {
-            inventory.reduceStock(e.getKey(), e.getValue());
+            NotificationCoalescer.Scope scope = inventory.openNotificationScope("Sale");
+            try {
+                for (int i = 0; i < lines.size(); i++) {
+                    inventory.reduceStock(lines.getProduct(i), lines.getQuantity(i));
+                }
+            } finally {
+                scope.close();
+            }
         }
 
-        salesHistory.addSale(sale);
+        recordSale(sale);
+    }
+
+    /**
+     * Recibe un lote de ventas registradas sin conexión, cada una con el id que le asignó su caja.
+     *
+     * <p>Las ventas ya recibidas se reconocen por su id y no vuelven a aplicarse, así que un lote
+     * puede reenviarse sin riesgo. Las existencias se validan para todo el lote y las ventas
+     * aceptadas se aplican en transacciones por bloques.</p>
+     *
+     * @param sales ventas pagadas, en el orden en que se registraron
+     * @return resultado de cada venta
+     */
+    public SaleIngestor.Report ingestSales(List<Sale> sales) {
+        if (sales == null) throw new IllegalArgumentException("sales cannot be null");
+        return getIngestor().ingest(sales);
+    }
+
+    private synchronized SaleIngestor getIngestor() {
+        if (ingestor == null) ingestor = new SaleIngestor(inventory, this::recordSale, INGEST_CHUNK_SIZE);
+        return ingestor;
     }
 
     /**
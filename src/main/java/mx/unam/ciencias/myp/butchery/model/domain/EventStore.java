@@ -0,0 +1,261 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByWeight;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.ChangeLogWriter;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryEvent;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryEventCodec;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryListener;
+import mx.unam.ciencias.myp.butchery.util.MappedLog;
+import mx.unam.ciencias.myp.butchery.util.MappedLogReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Almacén de eventos del inventario (modo de fuente de eventos).
+ *
+ * <p>Cada {@link InventoryEvent} se registra en una bitácora binaria ({@link MappedLog}) y se aplica
+ * a una réplica en memoria ({@link InventoryState}). Cada cierto número de eventos se escribe en
+ * segundo plano un punto de control con la réplica completa. Al abrir el almacén se carga el punto
+ * de control más reciente y solo se reproducen los eventos posteriores a él.</p>
+ *
+ * <p>Con el historial se puede reconstruir el inventario ({@link Inventory#rebuildFrom}), auditar
+ * cómo se llegó a unas existencias ({@link #historyOf}) y verificar la tabla {@code inventory}
+ * contra los eventos ({@link #verify}).</p>
+ */
+public class EventStore implements InventoryListener<InventoryEvent>, Closeable {
+
+    private static final String CHECKPOINT_PREFIX = "checkpoint-";
+    private static final String CHECKPOINT_SUFFIX = ".bin";
+    private static final int RETAINED_CHECKPOINTS = 3;
+    private static final double EPSILON = 1e-6;
+
+    private final Path journal;
+    private final Path checkpointDir;
+    private final int checkpointEvery;
+    private final InventoryState state;
+    private final long replayed;
+    private final ChangeLogWriter writer;
+    private final ExecutorService checkpointer;
+    private int sinceCheckpoint;
+
+    /**
+     * Abre el almacén: restaura el estado desde el último punto de control y la cola de la bitácora
+     * y queda listo para registrar eventos nuevos.
+     *
+     * @param journal         archivo de la bitácora
+     * @param checkpointDir   directorio de los puntos de control
+     * @param checkpointEvery número de eventos entre puntos de control
+     * @throws IOException si no se pueden leer o crear los archivos
+     */
+    public EventStore(Path journal, Path checkpointDir, int checkpointEvery) throws IOException {
+        if (checkpointEvery <= 0) throw new IllegalArgumentException("checkpointEvery must be > 0");
+        this.journal = journal;
+        this.checkpointDir = checkpointDir;
+        this.checkpointEvery = checkpointEvery;
+        Files.createDirectories(checkpointDir);
+
+        InventoryState restored = loadLatestCheckpoint(checkpointDir);
+        long checkpointSeq = restored.getSequence();
+        if (Files.exists(journal) && Files.size(journal) > 0) {
+            try (MappedLogReader reader = new MappedLogReader(journal, checkpointSeq + 1)) {
+                while (reader.poll((seq, ts, payload) -> restored.apply(InventoryEventCodec.decode(payload, ts), seq), 4096) > 0) {
+                    // reproduce la cola de la bitácora
+                }
+            }
+        }
+        this.state = restored;
+        this.replayed = restored.getSequence() - checkpointSeq;
+        this.writer = new ChangeLogWriter(new MappedLog(journal));
+        this.checkpointer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "inventory-checkpoint");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Registra el evento en la bitácora, lo aplica a la réplica y, si toca, programa un punto de control.
+     *
+     * @param event evento ocurrido
+     */
+    @Override
+    public synchronized void onEvent(InventoryEvent event) {
+        writer.onEvent(event);
+        state.apply(event, writer.getLog().getLastSequence());
+        if (++sinceCheckpoint >= checkpointEvery) scheduleCheckpoint();
+    }
+
+    /**
+     * Toma como línea base una foto del inventario en vivo. Se usa cuando el almacén empieza vacío
+     * pero el inventario ya tiene productos: la foto se guarda como punto de control en la secuencia
+     * actual de la bitácora.
+     *
+     * @param baseline foto del inventario
+     * @throws IOException si no se puede escribir el punto de control
+     */
+    public synchronized void baseline(InventoryState baseline) throws IOException {
+        InventoryState copy = baseline.copy();
+        copy.setSequence(writer.getLog().getLastSequence());
+        state.replaceWith(copy);
+        writeCheckpoint(copy);
+        sinceCheckpoint = 0;
+    }
+
+    /**
+     * @return copia del estado reconstruido.
+     */
+    public synchronized InventoryState getState() {
+        return state.copy();
+    }
+
+    /**
+     * @return número de eventos reproducidos al abrir el almacén (los posteriores al punto de control).
+     */
+    public long getReplayedCount() {
+        return replayed;
+    }
+
+    /**
+     * Lista, en orden, los eventos que afectaron a un producto.
+     *
+     * @param productId id del producto
+     * @return eventos del producto
+     * @throws IOException si no se puede leer la bitácora
+     */
+    public List<InventoryEvent> historyOf(String productId) throws IOException {
+        synchronized (this) {
+            writer.getLog().force();
+        }
+        List<InventoryEvent> out = new ArrayList<>();
+        try (MappedLogReader reader = new MappedLogReader(journal, 1)) {
+            while (reader.poll((seq, ts, payload) -> {
+                InventoryEvent e = InventoryEventCodec.decode(payload, ts);
+                if (productId.equals(e.getProductId())
+                        || (e instanceof InventoryEvent.StocktakeApplied && ((InventoryEvent.StocktakeApplied) e).adjusts(productId)))
+                    out.add(e);
+            }, 4096) > 0) {
+                // recorre toda la bitácora
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Compara las existencias del inventario con el estado reconstruido.
+     *
+     * @param stock existencias del inventario
+     * @return diferencias encontradas (vacía si coinciden)
+     */
+    public synchronized List<String> verify(Map<Product, Double> stock) {
+        List<String> out = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (Map.Entry<Product, Double> e : stock.entrySet()) {
+            Product p = e.getKey();
+            seen.add(p.getId());
+            InventoryState.ProductState s = state.get(p.getId());
+            if (s == null) {
+                out.add("Missing from journal: " + p.getName());
+                continue;
+            }
+            if (!s.getName().equals(p.getName()))
+                out.add("Name mismatch for " + p.getId() + ": table=" + p.getName() + " journal=" + s.getName());
+            if (s.isByWeight() != (p instanceof ProductByWeight))
+                out.add("Type mismatch for " + p.getName());
+            if (Math.abs(s.getStock() - e.getValue()) > EPSILON)
+                out.add("Stock mismatch for " + p.getName() + ": table=" + e.getValue() + " journal=" + s.getStock());
+        }
+        for (InventoryState.ProductState s : state.getProducts()) {
+            if (!seen.contains(s.getId())) out.add("Missing from table: " + s.getName());
+        }
+        return out;
+    }
+
+    /**
+     * Escribe un punto de control final y cierra la bitácora.
+     *
+     * @throws IOException si no se puede escribir o cerrar
+     */
+    @Override
+    public void close() throws IOException {
+        checkpointer.shutdown();
+        try {
+            checkpointer.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (sinceCheckpoint > 0) writeCheckpoint(state.copy());
+            writer.close();
+        }
+    }
+
+    private void scheduleCheckpoint() {
+        InventoryState snapshot = state.copy();
+        sinceCheckpoint = 0;
+        checkpointer.submit(() -> {
+            try {
+                writeCheckpoint(snapshot);
+            } catch (IOException e) {
+                System.err.println("Could not write inventory checkpoint: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Escribe un punto de control de forma atómica y elimina los más antiguos.
+     */
+    private void writeCheckpoint(InventoryState snapshot) throws IOException {
+        Path target = checkpointDir.resolve(String.format("%s%020d%s", CHECKPOINT_PREFIX, snapshot.getSequence(), CHECKPOINT_SUFFIX));
+        Path tmp = checkpointDir.resolve(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            snapshot.write(out);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        List<Path> all = listCheckpoints(checkpointDir);
+        for (int i = 0; i < all.size() - RETAINED_CHECKPOINTS; i++) Files.deleteIfExists(all.get(i));
+    }
+
+    /**
+     * Carga el punto de control más reciente que se pueda leer, o un estado vacío si no hay.
+     */
+    private static InventoryState loadLatestCheckpoint(Path dir) throws IOException {
+        List<Path> all = listCheckpoints(dir);
+        for (int i = all.size() - 1; i >= 0; i--) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(all.get(i))))) {
+                return InventoryState.read(in);
+            } catch (IOException e) {
+                System.err.println("Skipping unreadable checkpoint " + all.get(i).getFileName() + ": " + e.getMessage());
+            }
+        }
+        return new InventoryState();
+    }
+
+    private static List<Path> listCheckpoints(Path dir) throws IOException {
+        List<Path> out = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, CHECKPOINT_PREFIX + "*" + CHECKPOINT_SUFFIX)) {
+            for (Path p : ds) out.add(p);
+        }
+        Collections.sort(out);
+        return out;
+    }
+}
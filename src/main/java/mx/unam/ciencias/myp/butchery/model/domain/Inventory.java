@@ -1,11 +1,26 @@
 package mx.unam.ciencias.myp.butchery.model.domain;
 
+import mx.unam.ciencias.myp.butchery.DatabaseInitializer;
 import mx.unam.ciencias.myp.butchery.DatabaseManager;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.AsyncDispatcher;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryEvent;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryListener;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.NotificationCoalescer;
 import mx.unam.ciencias.myp.butchery.model.patrones.observer.Observer;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.ObserverLane;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.Subject;
 import mx.unam.ciencias.myp.butchery.model.patrones.factory.*;
+import mx.unam.ciencias.myp.butchery.util.RangeIndex;
 
 import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 /**
  * Gestiona el inventario de productos de la carnicería utilizando el patrón Singleton
@@ -18,17 +33,85 @@ import java.util.*;
  * </p>
  *
  * <p>
+ * Cada observador registrado recibe sus mensajes por su propio {@link ObserverLane}, así que un
+ * observador lento o que falla no detiene las modificaciones ni a los demás observadores; los que
+ * fallan o se atrasan repetidamente quedan en cuarentena. El registro es de copia en escritura.
+ * </p>
+ *
+ * <p>
  * Además, esta versión incorpora persistencia real mediante SQLite.
  * Al inicializarse, el inventario se carga desde la base de datos,
  * y cada operación relevante actualiza automáticamente la tabla correspondiente.
  * </p>
+ *
+ * <p>
+ * Cada producto recibe un ordinal entero estable (ligado a su id) que se usa como posición en los
+ * índices en memoria, como el {@link TagIndex} de categorías y etiquetas y los índices por rango
+ * de precio y de existencias que resuelven las {@link InventoryQuery}.
+ * </p>
+ *
+ * <p>
+ * Las existencias de los productos por peso se desglosan además en lotes ({@link Lot}) con fecha
+ * de recepción y de caducidad. Al vender se consume primero el lote más antiguo y el
+ * {@link LotTracker} responde qué lotes están próximos a caducar.
+ * </p>
+ *
+ * <p>
+ * Los precios se versionan en un {@link PriceHistory} por producto (tabla {@code price_history}),
+ * lo que permite consultar el precio vigente en cualquier fecha y programar cambios a futuro. La
+ * instancia de {@link Product} en inventario siempre refleja el precio vigente, así que la venta no
+ * consulta el historial.
+ * </p>
+ *
+ * <p>
+ * Cada cambio de existencias se registra con su instante en la {@link StockTimeline} del producto
+ * (tabla {@code stock_movements}), lo que permite consultar las existencias que había en cualquier
+ * fecha pasada.
+ * </p>
+ *
+ * <p>
+ * Cada modificación se emite como un {@link InventoryEvent} tipado. Los {@link InventoryListener}
+ * se suscriben solo a los tipos que les interesan y reciben los campos del evento; el texto para
+ * los {@link Observer} se genera únicamente si hay alguno registrado.
+ * </p>
+ *
+ * <p>
+ * Opcionalmente, un {@link NotificationCoalescer} agrupa los eventos dirigidos a los observadores
+ * dentro de una ventana de tiempo o de un alcance explícito ({@link #openNotificationScope(String)}),
+ * de modo que una venta de varias líneas produce un solo mensaje. Los {@link InventoryListener}
+ * siguen recibiendo cada evento por separado.
+ * </p>
+ *
+ * <p>
+ * Las operaciones públicas están sincronizadas sobre la instancia, por lo que el inventario puede
+ * compartirse entre varios hilos (por ejemplo, ventas en curso y una toma de inventario).
+ * </p>
  */
-public class Inventory {
+public class Inventory implements Subject {
+
+    private static final int LANE_CAPACITY = 1024;
+    private static final long LANE_TIMEOUT_MS = 500;
+    private static final int LANE_MAX_STRIKES = 5;
+    private static final long LANE_CLOSE_TIMEOUT_MS = 5000;
+
 
     private static Inventory instance;
     private final Map<Product, Double> stock;
 
-    private final List<Observer> observers;
+    private final List<ObserverLane> observers;
+    private final Map<Class<? extends InventoryEvent>, List<InventoryListener<?>>> listeners;
+    private volatile AsyncDispatcher dispatcher;
+    private volatile NotificationCoalescer coalescer;
+
+    private final Map<String, Integer> ordinals;
+    private final List<Product> productsByOrdinal;
+    private final TagIndex tagIndex;
+    private final RangeIndex priceIndex;
+    private final RangeIndex stockIndex;
+    private final LotTracker lots;
+    private final Map<String, PriceHistory> priceHistories;
+    private final Map<String, StockTimeline> timelines;
+    private long nextScheduledPriceChange = Long.MAX_VALUE;
 
     private final ProductFactory productFactory = new ProductFactory();
 
@@ -42,8 +125,18 @@ public class Inventory {
      */
     private Inventory() {
         this.stock = new HashMap<>();
-        this.observers = new ArrayList<>();
-
+        this.observers = new CopyOnWriteArrayList<>();
+        this.listeners = new ConcurrentHashMap<>();
+        this.ordinals = new HashMap<>();
+        this.productsByOrdinal = new ArrayList<>();
+        this.tagIndex = new TagIndex();
+        this.priceIndex = new RangeIndex();
+        this.stockIndex = new RangeIndex();
+        this.lots = new LotTracker();
+        this.priceHistories = new HashMap<>();
+        this.timelines = new HashMap<>();
+
+        DatabaseInitializer.initialize();
         loadFromDatabase();
     }
 
@@ -83,13 +176,193 @@ public class Inventory {
                 ProductFactory.ProductType type = typeStr.equals("BY_UNIT") ? ProductFactory.ProductType.BY_UNIT : ProductFactory.ProductType.BY_WEIGHT;
                 Product p = productFactory.createProduct(id, type, name, price);
                 stock.put(p, qty);
+                track(p);
             }
 
+            loadLabels(conn);
+            loadLots(conn);
+            loadPriceHistory(conn);
+            loadStockMovements(conn);
+
         } catch (Exception e) {
             throw new RuntimeException("Error loading inventory from DB", e);
         }
     }
 
+    /**
+     * Carga las categorías y etiquetas persistidas en el índice en memoria.
+     * Las filas de productos que ya no existen se ignoran.
+     */
+    private void loadLabels(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT product_id, kind, label FROM product_labels")) {
+
+            while (rs.next()) {
+                Integer ordinal = ordinals.get(rs.getString("product_id"));
+                if (ordinal == null || productsByOrdinal.get(ordinal) == null) continue;
+                tagIndex.add(TagIndex.Kind.valueOf(rs.getString("kind")), rs.getString("label"), ordinal);
+            }
+        }
+    }
+
+    /**
+     * Carga los lotes persistidos y los concilia con las existencias de la tabla {@code inventory},
+     * que sigue siendo la fuente de verdad: si los lotes suman menos, la diferencia se registra como
+     * un lote de apertura sin caducidad; si suman más, el excedente se consume en orden FIFO.
+     */
+    private void loadLots(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, product_id, received_on, expires_on, quantity FROM product_lots")) {
+
+            while (rs.next()) {
+                String expires = rs.getString("expires_on");
+                lots.restore(rs.getLong("id"), rs.getString("product_id"),
+                        LocalDate.parse(rs.getString("received_on")),
+                        expires == null ? null : LocalDate.parse(expires),
+                        rs.getDouble("quantity"));
+            }
+        }
+
+        List<Lot> changed = new ArrayList<>();
+        for (Map.Entry<Product, Double> e : stock.entrySet()) {
+            if (!(e.getKey() instanceof ProductByWeight)) continue;
+            String id = e.getKey().getId();
+            double diff = e.getValue() - lots.total(id);
+            if (diff > LotTracker.EPSILON) {
+                changed.add(lots.receive(id, diff, LocalDate.EPOCH, null));
+            } else if (diff < -LotTracker.EPSILON) {
+                changed.addAll(lots.consume(id, -diff));
+            }
+        }
+        persistLots(changed);
+    }
+
+    /**
+     * Carga el historial de precios. A los productos sin historial se les registra su precio actual
+     * como versión inicial. Después se aplican los cambios programados que ya entraron en vigor.
+     */
+    private void loadPriceHistory(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT product_id, effective_from, price FROM price_history")) {
+
+            while (rs.next()) {
+                String id = rs.getString("product_id");
+                if (!ordinals.containsKey(id)) continue;
+                priceHistories.computeIfAbsent(id, k -> new PriceHistory())
+                        .add(rs.getLong("effective_from"), rs.getDouble("price"));
+            }
+        }
+
+        for (Product p : stock.keySet()) {
+            if (!priceHistories.containsKey(p.getId())) recordPrice(p.getId(), 0L, getPrice(p));
+        }
+        refreshNextScheduledPriceChange(System.currentTimeMillis());
+        applyDuePriceChanges();
+    }
+
+    /**
+     * Carga los movimientos de existencias y los concilia con la tabla {@code inventory}: a un
+     * producto sin movimientos se le registra su existencia como saldo de apertura y, si el saldo de
+     * sus movimientos no coincide con la tabla, se registra un ajuste con la diferencia.
+     */
+    private void loadStockMovements(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT product_id, at, delta FROM stock_movements ORDER BY product_id, at, rowid")) {
+
+            while (rs.next()) {
+                String id = rs.getString("product_id");
+                if (!ordinals.containsKey(id)) continue;
+                timelines.computeIfAbsent(id, k -> new StockTimeline()).record(rs.getLong("at"), rs.getDouble("delta"));
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Product, Double> e : stock.entrySet()) {
+            StockTimeline timeline = timelines.get(e.getKey().getId());
+            double diff = e.getValue() - (timeline == null ? 0.0 : timeline.getBalance());
+            if (Math.abs(diff) > LotTracker.EPSILON)
+                recordMovement(conn, e.getKey().getId(), timeline == null ? 0L : now, diff);
+        }
+    }
+
+    /**
+     * Registra un movimiento de existencias en memoria y en la tabla {@code stock_movements}.
+     */
+    private void recordMovement(String productId, double delta) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            recordMovement(conn, productId, System.currentTimeMillis(), delta);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error recording stock movement", e);
+        }
+    }
+
+    /**
+     * Registra un movimiento usando la conexión (y la transacción, si la hay) indicada.
+     */
+    private void recordMovement(Connection conn, String productId, long at, double delta) throws SQLException {
+        insertMovement(conn, productId, at, delta);
+        applyMovement(productId, at, delta);
+    }
+
+    /**
+     * Escribe un movimiento en la tabla sin tocar la línea de tiempo en memoria, para las
+     * transacciones que aplican sus movimientos con {@link #applyMovement} hasta después del commit.
+     */
+    private static void insertMovement(Connection conn, String productId, long at, double delta) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("INSERT INTO stock_movements(product_id,at,delta) VALUES (?,?,?)")) {
+            ps.setString(1, productId);
+            ps.setLong(2, at);
+            ps.setDouble(3, delta);
+            ps.executeUpdate();
+        }
+    }
+
+    private void applyMovement(String productId, long at, double delta) {
+        timelines.computeIfAbsent(productId, k -> new StockTimeline()).record(at, delta);
+    }
+
+    /**
+     * Asigna un ordinal al producto si aún no lo tiene, o reemplaza la instancia asociada a su
+     * ordinal (por ejemplo tras un cambio de nombre o precio).
+     *
+     * @param p producto a registrar en los índices
+     * @return ordinal del producto
+     */
+    private int track(Product p) {
+        Integer ordinal = ordinals.get(p.getId());
+        if (ordinal == null) {
+            ordinal = productsByOrdinal.size();
+            ordinals.put(p.getId(), ordinal);
+            productsByOrdinal.add(p);
+        } else {
+            productsByOrdinal.set(ordinal, p);
+        }
+        tagIndex.addProduct(ordinal);
+        priceIndex.put(ordinal, getPrice(p));
+        stockIndex.put(ordinal, stock.getOrDefault(p, 0.0));
+        return ordinal;
+    }
+
+    /**
+     * Actualiza el índice de existencias tras un cambio de stock del producto.
+     */
+    private void indexStock(Product p) {
+        Integer ordinal = ordinals.get(p.getId());
+        if (ordinal != null) stockIndex.put(ordinal, stock.getOrDefault(p, 0.0));
+    }
+
+    /**
+     * Saca al producto de los índices en memoria. Su ordinal no se reutiliza.
+     */
+    private void untrack(Product p) {
+        Integer ordinal = ordinals.remove(p.getId());
+        if (ordinal == null) return;
+        productsByOrdinal.set(ordinal, null);
+        tagIndex.removeProduct(ordinal);
+        priceIndex.remove(ordinal);
+        stockIndex.remove(ordinal);
+    }
+
     /**
      * Inserta un nuevo producto en la base de datos.
      *
@@ -110,6 +383,17 @@ public class Inventory {
 
             ps.executeUpdate();
 
+            try (PreparedStatement orphans = conn.prepareStatement("DELETE FROM product_lots WHERE product_id=?");
+                 PreparedStatement oldPrices = conn.prepareStatement("DELETE FROM price_history WHERE product_id=?");
+                 PreparedStatement oldMovements = conn.prepareStatement("DELETE FROM stock_movements WHERE product_id=?")) {
+                orphans.setString(1, p.getId());
+                orphans.executeUpdate();
+                oldPrices.setString(1, p.getId());
+                oldPrices.executeUpdate();
+                oldMovements.setString(1, p.getId());
+                oldMovements.executeUpdate();
+            }
+
         } catch (Exception e) {
             throw new RuntimeException("Error inserting product", e);
         }
@@ -144,16 +428,155 @@ public class Inventory {
      */
     private void deleteFromDatabase(Product p) {
         try (Connection conn = DatabaseManager.getConnection();
-             PreparedStatement ps = conn.prepareStatement("DELETE FROM inventory WHERE id=?")) {
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM inventory WHERE id=?");
+             PreparedStatement labels = conn.prepareStatement("DELETE FROM product_labels WHERE product_id=?");
+             PreparedStatement lotRows = conn.prepareStatement("DELETE FROM product_lots WHERE product_id=?");
+             PreparedStatement priceRows = conn.prepareStatement("DELETE FROM price_history WHERE product_id=?");
+             PreparedStatement movementRows = conn.prepareStatement("DELETE FROM stock_movements WHERE product_id=?")) {
 
             ps.setString(1, p.getId());
             ps.executeUpdate();
+            labels.setString(1, p.getId());
+            labels.executeUpdate();
+            lotRows.setString(1, p.getId());
+            lotRows.executeUpdate();
+            priceRows.setString(1, p.getId());
+            priceRows.executeUpdate();
+            movementRows.setString(1, p.getId());
+            movementRows.executeUpdate();
 
         } catch (Exception e) {
             throw new RuntimeException("Error deleting product", e);
         }
     }
 
+    /**
+     * Inserta o elimina la asociación de una etiqueta con un producto en la base de datos.
+     *
+     * @param p     el producto
+     * @param kind  tipo de etiqueta
+     * @param label etiqueta normalizada
+     * @param add   {@code true} para insertar, {@code false} para eliminar
+     */
+    private void persistLabel(Product p, TagIndex.Kind kind, String label, boolean add) {
+        String sql = add
+                ? "INSERT OR IGNORE INTO product_labels(product_id,kind,label) VALUES (?,?,?)"
+                : "DELETE FROM product_labels WHERE product_id=? AND kind=? AND label=?";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, p.getId());
+            ps.setString(2, kind.name());
+            ps.setString(3, label);
+            ps.executeUpdate();
+
+        } catch (Exception e) {
+            throw new RuntimeException("Error updating product labels", e);
+        }
+    }
+
+    /**
+     * Persiste en una sola transacción los lotes modificados por una operación: los lotes vivos se
+     * insertan o actualizan y los agotados se eliminan, todo mediante sentencias por lotes (batch).
+     *
+     * @param changed lotes modificados
+     */
+    private void persistLots(List<Lot> changed) {
+        if (changed.isEmpty()) return;
+
+        try (Connection conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            persistLots(conn, changed);
+            conn.commit();
+
+        } catch (Exception e) {
+            throw new RuntimeException("Error updating product lots", e);
+        }
+    }
+
+    /**
+     * Agrega a la transacción en curso de {@code conn} las sentencias por lotes que guardan los
+     * lotes modificados. No hace commit.
+     */
+    private void persistLots(Connection conn, List<Lot> changed) throws SQLException {
+        String upsert = "INSERT OR REPLACE INTO product_lots(id,product_id,received_on,expires_on,quantity) VALUES (?,?,?,?,?)";
+
+        try (PreparedStatement save = conn.prepareStatement(upsert);
+             PreparedStatement delete = conn.prepareStatement("DELETE FROM product_lots WHERE id=?")) {
+
+            for (Lot lot : changed) {
+                if (lot.isDepleted()) {
+                    delete.setLong(1, lot.getId());
+                    delete.addBatch();
+                } else {
+                    save.setLong(1, lot.getId());
+                    save.setString(2, lot.getProductId());
+                    save.setString(3, lot.getReceivedOn().toString());
+                    save.setString(4, lot.getExpiresOn() == null ? null : lot.getExpiresOn().toString());
+                    save.setDouble(5, lot.getQuantity());
+                    save.addBatch();
+                }
+            }
+            save.executeBatch();
+            delete.executeBatch();
+        }
+    }
+
+    /**
+     * Registra una versión de precio en memoria y en la tabla {@code price_history}.
+     *
+     * @param productId id del producto
+     * @param from      instante (ms) desde el que rige el precio
+     * @param price     precio de la versión
+     */
+    private void recordPrice(String productId, long from, double price) {
+        priceHistories.computeIfAbsent(productId, k -> new PriceHistory()).add(from, price);
+        String sql = "INSERT OR REPLACE INTO price_history(product_id,effective_from,price) VALUES (?,?,?)";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, productId);
+            ps.setLong(2, from);
+            ps.setDouble(3, price);
+            ps.executeUpdate();
+
+        } catch (Exception e) {
+            throw new RuntimeException("Error recording price history", e);
+        }
+    }
+
+    /**
+     * Aplica los cambios de precio programados que ya entraron en vigor.
+     *
+     * <p>Mientras no llegue el siguiente cambio programado la verificación es una sola comparación,
+     * por lo que puede llamarse en cada lectura del inventario.</p>
+     */
+    private void applyDuePriceChanges() {
+        long now = System.currentTimeMillis();
+        if (now < nextScheduledPriceChange) return;
+
+        for (Map.Entry<String, PriceHistory> e : priceHistories.entrySet()) {
+            Integer ordinal = ordinals.get(e.getKey());
+            Product p = ordinal == null ? null : productsByOrdinal.get(ordinal);
+            if (p == null) continue;
+            double current = e.getValue().currentPrice(now);
+            if (!Double.isNaN(current) && Double.compare(current, getPrice(p)) != 0) applyPrice(p, current);
+        }
+        refreshNextScheduledPriceChange(now);
+    }
+
+    private void refreshNextScheduledPriceChange(long now) {
+        long next = Long.MAX_VALUE;
+        for (PriceHistory h : priceHistories.values()) next = Math.min(next, h.nextChangeAfter(now));
+        nextScheduledPriceChange = next;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
     /**
      * Obtiene el precio de un producto sin importar su tipo.
      *
@@ -171,13 +594,15 @@ public class Inventory {
      *
      * <p>Actualiza tanto la estructura interna como la base de datos SQLite.</p>
      */
-    public void addStockByUnit(Product product, Double quantity) {
+    public synchronized void addStockByUnit(Product product, Double quantity) {
         if (quantity <= 0) throw new IllegalArgumentException("Quantity must be > 0");
 
         stock.put(product, stock.getOrDefault(product, 0.0) + quantity);
         updateInDatabase(product);
+        indexStock(product);
+        recordMovement(product.getId(), quantity);
 
-        notifyObservers("Added to inventory: " + product.getName() + " | Quantity: " + quantity + " | Current total: " + stock.get(product));
+        emit(new InventoryEvent.StockAdded(product.getId(), product.getName(), false, quantity, stock.get(product), null));
     }
 
     /**
@@ -185,12 +610,46 @@ public class Inventory {
      *
      * <p>Actualiza tanto la estructura interna como la base de datos SQLite.</p>
      */
-    public void addStockByWeight(Product product, Double quantity) {
+    public synchronized void addStockByWeight(Product product, Double quantity) {
+        addStockByWeight(product, quantity, LocalDate.now(), null);
+    }
+
+    /**
+     * Agrega stock a un producto vendido por peso registrándolo como un lote nuevo.
+     *
+     * <p>Actualiza la estructura interna, el seguimiento de lotes y la base de datos SQLite.</p>
+     *
+     * @param product    producto por peso
+     * @param quantity   cantidad recibida en kg
+     * @param receivedOn fecha de recepción del lote
+     * @param expiresOn  fecha de caducidad del lote, o {@code null} si no se conoce
+     */
+    public synchronized void addStockByWeight(Product product, Double quantity, LocalDate receivedOn, LocalDate expiresOn) {
         if (quantity <= 0) throw new IllegalArgumentException("Quantity must be > 0");
         stock.put(product, stock.getOrDefault(product, 0.0) + quantity);
         updateInDatabase(product);
+        indexStock(product);
+        recordMovement(product.getId(), quantity);
+        if (product instanceof ProductByWeight) {
+            persistLots(List.of(lots.receive(product.getId(), quantity, receivedOn, expiresOn)));
+        }
+
+        emit(new InventoryEvent.StockAdded(product.getId(), product.getName(), true, quantity, stock.get(product), expiresOn));
+    }
 
-        notifyObservers("Added to inventory: " + product.getName() + " | Quantity (kg): " + quantity + " | Current total (kg): " + stock.get(product));
+    /**
+     * Recibe un lote de un producto por peso identificado por su nombre.
+     *
+     * @param name      nombre del producto
+     * @param quantity  cantidad recibida en kg
+     * @param expiresOn fecha de caducidad del lote, o {@code null} si no se conoce
+     * @throws IllegalArgumentException si el producto no existe o no se vende por peso
+     */
+    public synchronized void receiveLot(String name, double quantity, LocalDate expiresOn) {
+        Product p = getProductByName(name);
+        if (p == null) throw new IllegalArgumentException("Product not found: " + name);
+        if (!(p instanceof ProductByWeight)) throw new IllegalArgumentException("Lots are only tracked for products sold by weight: " + name);
+        addStockByWeight(p, quantity, LocalDate.now(), expiresOn);
     }
 
     /**
@@ -201,7 +660,7 @@ public class Inventory {
      * se interpreta como una actualización de precio, de acuerdo a tu implementación.
      * </p>
      */
-    public void addProductByUnit(String id, String name, double pricePerUnit) {
+    public synchronized void addProductByUnit(String id, String name, double pricePerUnit) {
 
         for (Product existing : stock.keySet()) {
             if (existing.getName().equalsIgnoreCase(name)) {
@@ -213,8 +672,11 @@ public class Inventory {
         Product p = productFactory.createProduct(id, ProductFactory.ProductType.BY_UNIT, name, pricePerUnit);
         stock.put(p, 0.0);
         insertIntoDatabase(p, 0.0);
+        track(p);
+        priceHistories.remove(id);
+        recordPrice(id, System.currentTimeMillis(), pricePerUnit);
 
-        notifyObservers("Product added: " + name + " | Price per unit: " + pricePerUnit);
+        emit(new InventoryEvent.ProductAdded(id, name, false, pricePerUnit));
     }
 
     /**
@@ -224,7 +686,7 @@ public class Inventory {
      * Si ya existe un producto con el mismo nombre, se actualiza su precio en lugar de lanzar una excepción.
      * </p>
      */
-    public void addProductByWeight(String id, String name, double pricePerKg) {
+    public synchronized void addProductByWeight(String id, String name, double pricePerKg) {
 
         for (Product existing : stock.keySet()) {
             if (existing.getName().equalsIgnoreCase(name)) {
@@ -238,14 +700,18 @@ public class Inventory {
 
         stock.put(p, 0.0);
         insertIntoDatabase(p, 0.0);
+        track(p);
+        priceHistories.remove(id);
+        recordPrice(id, System.currentTimeMillis(), pricePerKg);
 
-        notifyObservers("Product added: " + name + " | Price per kg: " + pricePerKg);
+        emit(new InventoryEvent.ProductAdded(id, name, true, pricePerKg));
     }
 
     /**
      * Obtiene un producto por nombre, o {@code null} si no existe.
      */
-    public Product getProductByName(String name) {
+    public synchronized Product getProductByName(String name) {
+        applyDuePriceChanges();
         for (Product p : stock.keySet())
             if (p.getName().equalsIgnoreCase(name)) return p;
         return null;
@@ -254,7 +720,7 @@ public class Inventory {
     /**
      * Agrega stock según el tipo de producto (unidad o peso).
      */
-    public void addStockByProductName(String name, Double quantity) {
+    public synchronized void addStockByProductName(String name, Double quantity) {
         Product p = getProductByName(name);
         if (p == null) throw new IllegalArgumentException("Product not found: " + name);
         if (p instanceof ProductByUnit) addStockByUnit(p, quantity);
@@ -266,7 +732,7 @@ public class Inventory {
      *
      * @throws IllegalArgumentException si el producto no existe o si el nuevo nombre ya está en uso
      */
-    public void updateProductName(String currentName, String newName) {
+    public synchronized void updateProductName(String currentName, String newName) {
         Product existing = getProductByName(currentName);
         if (existing == null) throw new IllegalArgumentException("Product not found: " + currentName);
 
@@ -285,20 +751,87 @@ public class Inventory {
 
         stock.put(newProd, qty);
         updateInDatabase(newProd);
+        track(newProd);
 
-        notifyObservers("Product renamed: " + currentName + " -> " + newName);
+        emit(new InventoryEvent.Renamed(existing.getId(), currentName, newName));
 
     }
 
     /**
-     * Actualiza el precio de un producto existente.
+     * Actualiza el precio de un producto existente a partir de este momento.
+     *
+     * <p>El precio anterior se conserva en el historial de precios.</p>
      */
+    public synchronized void updateProductPrice(String name, double newPrice) {
+        Product existing = getProductByName(name);
+        if (existing == null)
+            throw new IllegalArgumentException("Product not found: " + name);
+        if (newPrice < 0) throw new IllegalArgumentException("price must be >= 0");
+
+        recordPrice(existing.getId(), System.currentTimeMillis(), newPrice);
+        applyPrice(existing, newPrice);
+        refreshNextScheduledPriceChange(System.currentTimeMillis());
 
-    public void updateProductPrice(String name, double newPrice) {
+        emit(new InventoryEvent.PriceChanged(existing.getId(), existing.getName(), newPrice, null));
+    }
+
+    /**
+     * Programa un cambio de precio que entrará en vigor en la fecha indicada.
+     *
+     * <p>Si la fecha ya pasó, el cambio se aplica de inmediato.</p>
+     *
+     * @param name          nombre del producto
+     * @param newPrice      precio nuevo
+     * @param effectiveFrom fecha y hora desde la que rige el precio
+     * @throws IllegalArgumentException si el producto no existe o el precio es negativo
+     */
+    public synchronized void schedulePriceChange(String name, double newPrice, LocalDateTime effectiveFrom) {
         Product existing = getProductByName(name);
         if (existing == null)
             throw new IllegalArgumentException("Product not found: " + name);
+        if (newPrice < 0) throw new IllegalArgumentException("price must be >= 0");
+
+        long from = toMillis(effectiveFrom);
+        if (from <= System.currentTimeMillis()) {
+            updateProductPrice(name, newPrice);
+            return;
+        }
+        recordPrice(existing.getId(), from, newPrice);
+        nextScheduledPriceChange = Math.min(nextScheduledPriceChange, from);
+
+        emit(new InventoryEvent.PriceChanged(existing.getId(), existing.getName(), newPrice, effectiveFrom));
+    }
 
+    /**
+     * Devuelve el precio que tenía (o tendrá) un producto en una fecha dada.
+     *
+     * @param product producto consultado
+     * @param time    fecha y hora consultada
+     * @return precio vigente en esa fecha, o NaN si el producto no tenía precio registrado entonces
+     */
+    public synchronized double getPriceAt(Product product, LocalDateTime time) {
+        PriceHistory h = priceHistories.get(product.getId());
+        return h == null ? Double.NaN : h.priceAt(toMillis(time));
+    }
+
+    /**
+     * Devuelve el historial de precios de un producto.
+     *
+     * @param product producto consultado
+     * @return historial de precios, o {@code null} si el producto no está en inventario
+     */
+    public synchronized PriceHistory getPriceHistory(Product product) {
+        return priceHistories.get(product.getId());
+    }
+
+    /**
+     * Reemplaza la instancia del producto por una con el precio indicado y lo persiste en la tabla
+     * {@code inventory}. No toca el historial ni emite eventos: un cambio programado ya se anunció
+     * con su fecha al programarse, y volver a anunciarlo al entrar en vigor dejaría una versión de
+     * más en el historial reproducido desde el diario.
+     */
+    private void applyPrice(Product existing, double newPrice) {
+        String name = existing.getName();
         double qty = stock.get(existing);
         stock.remove(existing);
 
@@ -313,22 +846,25 @@ public class Inventory {
         stock.put(newProd, qty);
 
         updateInDatabase(newProd);
-
-        notifyObservers("Product price updated: " + name + " -> " + newPrice);
+        track(newProd);
     }
 
     /**
      * Elimina un producto por nombre tanto en memoria como en SQLite.
      * @return true si el producto existía y fue eliminado; false en caso contrario
      */
-    public boolean removeProductByName(String name) {
+    public synchronized boolean removeProductByName(String name) {
         Product p = getProductByName(name);
         if (p == null) return false;
 
         stock.remove(p);
         deleteFromDatabase(p);
+        untrack(p);
+        lots.removeProduct(p.getId());
+        priceHistories.remove(p.getId());
+        timelines.remove(p.getId());
 
-        notifyObservers("Product removed: " + name);
+        emit(new InventoryEvent.Removed(p.getId(), name));
         return true;
     }
 
@@ -336,10 +872,11 @@ public class Inventory {
      * 
      * Reduce del inventario la cantidad indicada de un producto.
      * <p>
-     * Este método valida que exista suficiente stock antes de descontar.
+     * Este método valida que exista suficiente stock antes de descontar. En productos por peso la
+     * cantidad se descuenta de los lotes empezando por el más antiguo.
      * </p>
      */
-    public void reduceStock(Product product, Double quantity) {
+    public synchronized void reduceStock(Product product, Double quantity) {
         if (quantity <= 0)throw new IllegalArgumentException("Quantity must be > 0");
 
         double current = stock.getOrDefault(product, 0.0);
@@ -348,12 +885,333 @@ public class Inventory {
 
         stock.put(product, current - quantity);
         updateInDatabase(product);
+        indexStock(product);
+        recordMovement(product.getId(), -quantity);
+        if (product instanceof ProductByWeight) {
+            persistLots(lots.consume(product.getId(), Math.min(quantity, lots.total(product.getId()))));
+        }
 
-        notifyObservers(
-                "Stock reduced: " + product.getName() +
-                " | Withdrawn: " + quantity +
-                " | Remaining: " + stock.get(product)
-        );
+        emit(new InventoryEvent.StockReduced(product.getId(), product.getName(), quantity, stock.get(product)));
+    }
+
+    /**
+     * Paso adicional que se ejecuta dentro de la transacción de {@link #reduceStockBatch}.
+     */
+    @FunctionalInterface
+    public interface TransactionStep {
+
+        /**
+         * @param conn conexión con la transacción abierta; no debe hacer commit
+         * @throws SQLException si el paso falla, lo que revierte toda la transacción
+         */
+        void run(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Descuenta las cantidades de varios productos en una sola transacción.
+     *
+     * <p>Primero se valida que alcancen las existencias de todos los productos; si alguno no
+     * alcanza no se descuenta nada. Las existencias, los lotes, los movimientos y lo que agregue
+     * {@code step} se escriben juntos; la memoria (existencias, lotes y líneas de tiempo) solo cambia
+     * si la transacción se confirma. Se emite un {@link InventoryEvent.StockReduced} por producto.</p>
+     *
+     * @param demand cantidad a descontar por producto
+     * @param step   paso adicional dentro de la misma transacción, o {@code null}
+     * @throws IllegalStateException si algún producto no tiene existencias suficientes
+     */
+    public synchronized void reduceStockBatch(Map<Product, Double> demand, TransactionStep step) {
+        for (Map.Entry<Product, Double> e : demand.entrySet()) {
+            if (e.getValue() <= 0) throw new IllegalArgumentException("Quantity must be > 0");
+            if (stock.getOrDefault(e.getKey(), 0.0) < e.getValue())
+                throw new IllegalStateException("Insufficient stock for: " + e.getKey().getName());
+        }
+
+        List<Lot> changedLots = new ArrayList<>();
+        for (Map.Entry<Product, Double> e : demand.entrySet()) {
+            if (e.getKey() instanceof ProductByWeight) {
+                String id = e.getKey().getId();
+                changedLots.addAll(lots.planConsume(id, Math.min(e.getValue(), lots.total(id))));
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement("UPDATE inventory SET stock=? WHERE id=?")) {
+
+            conn.setAutoCommit(false);
+            for (Map.Entry<Product, Double> e : demand.entrySet()) {
+                ps.setDouble(1, stock.get(e.getKey()) - e.getValue());
+                ps.setString(2, e.getKey().getId());
+                ps.addBatch();
+                insertMovement(conn, e.getKey().getId(), now, -e.getValue());
+            }
+            ps.executeBatch();
+            persistLots(conn, changedLots);
+            if (step != null) step.run(conn);
+            conn.commit();
+
+        } catch (Exception e) {
+            throw new RuntimeException("Error reducing stock in batch", e);
+        }
+
+        lots.apply(changedLots);
+        for (Map.Entry<Product, Double> e : demand.entrySet()) {
+            Product p = e.getKey();
+            applyMovement(p.getId(), now, -e.getValue());
+            stock.put(p, stock.get(p) - e.getValue());
+            indexStock(p);
+            emit(new InventoryEvent.StockReduced(p.getId(), p.getName(), e.getValue(), stock.get(p)));
+        }
+    }
+
+    /**
+     * Inicia una toma de inventario física con una foto de las existencias actuales.
+     *
+     * <p>Solo la foto se toma con el inventario bloqueado; los conteos posteriores se capturan en
+     * la sesión sin bloquear las ventas.</p>
+     *
+     * @return una sesión de conteo nueva
+     */
+    public synchronized StocktakeSession beginStocktake() {
+        return new StocktakeSession(stock);
+    }
+
+    /**
+     * Aplica las correcciones de una toma de inventario.
+     *
+     * <p>A cada producto con diferencia se le suma {@code contado - esperado} sobre sus existencias
+     * actuales (nunca por debajo de cero), de modo que las ventas ocurridas durante el conteo se
+     * conservan. Todas las correcciones, incluidos los lotes de productos por peso, se escriben en
+     * una sola transacción y solo se aplican en memoria si esta se confirma; se notifica un único
+     * evento de auditoría. Los productos eliminados
+     * después de iniciar la sesión se omiten.</p>
+     *
+     * @param session sesión de conteo a aplicar
+     * @return diferencias aplicadas
+     * @throws IllegalStateException si la sesión ya fue aplicada
+     */
+    public synchronized List<StocktakeSession.Variance> applyStocktake(StocktakeSession session) {
+        if (session.isApplied()) throw new IllegalStateException("Stocktake already applied");
+
+        List<StocktakeSession.Variance> applied = new ArrayList<>();
+        Map<Product, Double> corrected = new LinkedHashMap<>();
+        List<Lot> changedLots = new ArrayList<>();
+        double net = 0.0;
+
+        for (StocktakeSession.Variance v : session.getVariances()) {
+            Double current = stock.get(v.getProduct());
+            if (current == null) continue;
+            double target = Math.max(0.0, current + v.getDifference());
+            corrected.put(v.getProduct(), target);
+            net += target - current;
+            applied.add(v);
+
+            if (v.getProduct() instanceof ProductByWeight) {
+                String id = v.getProduct().getId();
+                double delta = target - current;
+                if (delta > LotTracker.EPSILON) {
+                    changedLots.add(lots.planReceive(id, delta, LocalDate.now(), null));
+                } else if (delta < -LotTracker.EPSILON) {
+                    changedLots.addAll(lots.planConsume(id, Math.min(-delta, lots.total(id))));
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement("UPDATE inventory SET stock=? WHERE id=?")) {
+
+            conn.setAutoCommit(false);
+            for (Map.Entry<Product, Double> e : corrected.entrySet()) {
+                ps.setDouble(1, e.getValue());
+                ps.setString(2, e.getKey().getId());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            persistLots(conn, changedLots);
+            for (Map.Entry<Product, Double> e : corrected.entrySet()) {
+                insertMovement(conn, e.getKey().getId(), now, e.getValue() - stock.get(e.getKey()));
+            }
+            conn.commit();
+
+        } catch (Exception e) {
+            throw new RuntimeException("Error applying stocktake", e);
+        }
+
+        lots.apply(changedLots);
+        for (Map.Entry<Product, Double> e : corrected.entrySet()) {
+            applyMovement(e.getKey().getId(), now, e.getValue() - stock.get(e.getKey()));
+            Product live = productsByOrdinal.get(ordinals.get(e.getKey().getId()));
+            stock.put(live, e.getValue());
+            indexStock(live);
+        }
+        session.markApplied();
+
+        String[] ids = new String[corrected.size()];
+        double[] totals = new double[corrected.size()];
+        int i = 0;
+        for (Map.Entry<Product, Double> e : corrected.entrySet()) {
+            ids[i] = e.getKey().getId();
+            totals[i++] = e.getValue();
+        }
+        emit(new InventoryEvent.StocktakeApplied(ids, totals, net, session.getStartedAt()));
+        return applied;
+    }
+
+    /**
+     * Toma una foto del inventario en vivo: productos, existencias e historial de precios.
+     *
+     * @return estado equivalente al inventario actual
+     */
+    public synchronized InventoryState snapshotState() {
+        InventoryState s = new InventoryState();
+        for (Map.Entry<Product, Double> e : stock.entrySet()) {
+            Product p = e.getKey();
+            PriceHistory prices = priceHistories.get(p.getId());
+            if (prices == null) {
+                prices = new PriceHistory();
+                prices.add(0L, getPrice(p));
+            }
+            s.put(p.getId(), p.getName(), p instanceof ProductByWeight, e.getValue(), prices.copy());
+        }
+        return s;
+    }
+
+    /**
+     * Reemplaza el inventario completo (memoria y SQLite) por un estado reconstruido de eventos.
+     *
+     * <p>Todo se escribe en una sola transacción. Las existencias de los productos por peso quedan
+     * en un único lote de apertura y se conservan las etiquetas de los productos que siguen
+     * existiendo. Los productos, precios, lotes y movimientos nuevos se preparan aparte y reemplazan
+     * a los de memoria solo después del commit, así que si la transacción falla el inventario en
+     * memoria queda igual que en SQLite. Se notifica un solo aviso.</p>
+     *
+     * @param state estado a restaurar
+     */
+    public synchronized void rebuildFrom(InventoryState state) {
+        Map<Product, Double> rebuilt = new LinkedHashMap<>();
+        Map<String, PriceHistory> rebuiltPrices = new HashMap<>();
+        List<Lot> openingLots = new ArrayList<>();
+
+        for (InventoryState.ProductState ps : state.getProducts()) {
+            double current = ps.getPrices().currentPrice(System.currentTimeMillis());
+            if (Double.isNaN(current)) current = ps.getPrices().size() > 0 ? ps.getPrices().getPrice(0) : 0.0;
+            Product p = productFactory.createProduct(ps.getId(),
+                    ps.isByWeight() ? ProductFactory.ProductType.BY_WEIGHT : ProductFactory.ProductType.BY_UNIT,
+                    ps.getName(), current);
+            rebuilt.put(p, ps.getStock());
+            rebuiltPrices.put(ps.getId(), ps.getPrices().copy());
+            if (ps.isByWeight() && ps.getStock() > LotTracker.EPSILON)
+                openingLots.add(lots.planReceive(ps.getId(), ps.getStock(), LocalDate.now(), null));
+        }
+        long now = System.currentTimeMillis();
+
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement clear = conn.createStatement();
+             PreparedStatement insert = conn.prepareStatement("INSERT INTO inventory(id,name,price,stock,type) VALUES (?,?,?,?,?)");
+             PreparedStatement price = conn.prepareStatement("INSERT OR REPLACE INTO price_history(product_id,effective_from,price) VALUES (?,?,?)")) {
+
+            conn.setAutoCommit(false);
+            clear.executeUpdate("DELETE FROM inventory");
+            clear.executeUpdate("DELETE FROM product_lots");
+            clear.executeUpdate("DELETE FROM price_history");
+            clear.executeUpdate("DELETE FROM stock_movements");
+            for (Map.Entry<Product, Double> e : rebuilt.entrySet()) {
+                Product p = e.getKey();
+                insert.setString(1, p.getId());
+                insert.setString(2, p.getName());
+                insert.setDouble(3, getPrice(p));
+                insert.setDouble(4, e.getValue());
+                insert.setString(5, p instanceof ProductByUnit ? "BY_UNIT" : "BY_WEIGHT");
+                insert.addBatch();
+                PriceHistory h = rebuiltPrices.get(p.getId());
+                for (int i = 0; i < h.size(); i++) {
+                    price.setString(1, p.getId());
+                    price.setLong(2, h.getEffectiveFrom(i));
+                    price.setDouble(3, h.getPrice(i));
+                    price.addBatch();
+                }
+            }
+            insert.executeBatch();
+            price.executeBatch();
+            persistLots(conn, openingLots);
+            for (Map.Entry<Product, Double> e : rebuilt.entrySet()) {
+                if (e.getValue() != 0.0) insertMovement(conn, e.getKey().getId(), now, e.getValue());
+            }
+            clear.executeUpdate("DELETE FROM product_labels WHERE product_id NOT IN (SELECT id FROM inventory)");
+            conn.commit();
+
+        } catch (Exception e) {
+            throw new RuntimeException("Error rebuilding inventory", e);
+        }
+
+        for (Product p : new ArrayList<>(stock.keySet())) {
+            lots.removeProduct(p.getId());
+            untrack(p);
+        }
+        stock.clear();
+        priceHistories.clear();
+        timelines.clear();
+        priceHistories.putAll(rebuiltPrices);
+        lots.apply(openingLots);
+        for (Map.Entry<Product, Double> e : rebuilt.entrySet()) {
+            stock.put(e.getKey(), e.getValue());
+            track(e.getKey());
+            if (e.getValue() != 0.0) applyMovement(e.getKey().getId(), now, e.getValue());
+        }
+        try (Connection conn = DatabaseManager.getConnection()) {
+            loadLabels(conn);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reloading product labels", e);
+        }
+        refreshNextScheduledPriceChange(System.currentTimeMillis());
+
+        int count = rebuilt.size();
+        long seq = state.getSequence();
+        emit(new InventoryEvent.Notice(() -> "Inventory rebuilt from journal: " + count + " products | Sequence: " + seq));
+    }
+
+    /**
+     * Devuelve las existencias que tenía un producto en una fecha.
+     *
+     * @param product producto consultado
+     * @param time    fecha y hora consultada (inclusiva)
+     * @return existencias en esa fecha; 0 si el producto no tenía movimientos entonces
+     */
+    public synchronized double getStockAsOf(Product product, LocalDateTime time) {
+        StockTimeline timeline = timelines.get(product.getId());
+        return timeline == null ? 0.0 : timeline.balanceAt(toMillis(time));
+    }
+
+    /**
+     * Devuelve las existencias que tenían todos los productos actuales en una fecha. Cada producto
+     * se resuelve de forma independiente, así que la consulta se reparte en paralelo.
+     *
+     * @param time fecha y hora consultada (inclusiva)
+     * @return existencias por producto en esa fecha
+     */
+    public synchronized Map<Product, Double> getStockAsOf(LocalDateTime time) {
+        long t = toMillis(time);
+        Product[] products = stock.keySet().toArray(new Product[0]);
+        double[] balances = new double[products.length];
+        IntStream.range(0, products.length).parallel().forEach(i -> {
+            StockTimeline timeline = timelines.get(products[i].getId());
+            balances[i] = timeline == null ? 0.0 : timeline.balanceAt(t);
+        });
+
+        Map<Product, Double> out = new LinkedHashMap<>();
+        for (int i = 0; i < products.length; i++) out.put(products[i], balances[i]);
+        return out;
+    }
+
+    /**
+     * Devuelve los movimientos de existencias de un producto.
+     *
+     * @param product producto consultado
+     * @return línea de tiempo del producto, o {@code null} si no tiene movimientos
+     */
+    public synchronized StockTimeline getStockTimeline(Product product) {
+        return timelines.get(product.getId());
     }
 
     /**
@@ -361,7 +1219,7 @@ public class Inventory {
      *
      * @return cantidad existente en inventario (o 0 si no está)
      */
-    public Double getStock(Product product) {
+    public synchronized Double getStock(Product product) {
         return stock.getOrDefault(product, 0.0);
     }
 
@@ -375,31 +1233,417 @@ public class Inventory {
     /**
      * Devuelve una lista de todos los productos registrados.
      */
-    public List<Product> getProducts() {
+    public synchronized List<Product> getProducts() {
+        applyDuePriceChanges();
         return new ArrayList<>(stock.keySet());
     }
 
     /**
      * Devuelve los productos ordenados alfabéticamente por su nombre.
      */
-    public List<Product> getProductsSortedByName() {
+    public synchronized List<Product> getProductsSortedByName() {
         List<Product> list = getProducts();
         list.sort(Comparator.comparing(Product::getName, String.CASE_INSENSITIVE_ORDER));
         return list;
     }
 
+    /**
+     * Agrega una categoría a un producto.
+     *
+     * @param name     nombre del producto
+     * @param category categoría a asociar
+     * @throws IllegalArgumentException si el producto no existe o la categoría es vacía
+     */
+    public synchronized void addCategory(String name, String category) {
+        addLabel(name, TagIndex.Kind.CATEGORY, category);
+    }
+
+    /**
+     * Quita una categoría de un producto.
+     *
+     * @return {@code true} si el producto tenía la categoría
+     * @throws IllegalArgumentException si el producto no existe
+     */
+    public synchronized boolean removeCategory(String name, String category) {
+        return removeLabel(name, TagIndex.Kind.CATEGORY, category);
+    }
+
+    /**
+     * Agrega una etiqueta (por ejemplo "promocion" o "marinado") a un producto.
+     *
+     * @param name nombre del producto
+     * @param tag  etiqueta a asociar
+     * @throws IllegalArgumentException si el producto no existe o la etiqueta es vacía
+     */
+    public synchronized void addTag(String name, String tag) {
+        addLabel(name, TagIndex.Kind.TAG, tag);
+    }
+
+    /**
+     * Quita una etiqueta de un producto.
+     *
+     * @return {@code true} si el producto tenía la etiqueta
+     * @throws IllegalArgumentException si el producto no existe
+     */
+    public synchronized boolean removeTag(String name, String tag) {
+        return removeLabel(name, TagIndex.Kind.TAG, tag);
+    }
+
+    private void addLabel(String name, TagIndex.Kind kind, String label) {
+        Product p = getProductByName(name);
+        if (p == null) throw new IllegalArgumentException("Product not found: " + name);
+        String key = TagIndex.normalize(label);
+        if (!tagIndex.add(kind, key, ordinals.get(p.getId()))) return;
+        persistLabel(p, kind, key, true);
+
+        String productName = p.getName();
+        emit(new InventoryEvent.Notice(() -> "Product labeled: " + productName + " | " + kind + ": " + key));
+    }
+
+    private boolean removeLabel(String name, TagIndex.Kind kind, String label) {
+        Product p = getProductByName(name);
+        if (p == null) throw new IllegalArgumentException("Product not found: " + name);
+        String key = TagIndex.normalize(label);
+        if (!tagIndex.remove(kind, key, ordinals.get(p.getId()))) return false;
+        persistLabel(p, kind, key, false);
+
+        String productName = p.getName();
+        emit(new InventoryEvent.Notice(() -> "Product unlabeled: " + productName + " | " + kind + ": " + key));
+        return true;
+    }
+
+    /**
+     * Devuelve las categorías de un producto.
+     *
+     * @param product producto consultado
+     * @return categorías ordenadas alfabéticamente (vacío si el producto no está en inventario)
+     */
+    public synchronized Set<String> getCategories(Product product) {
+        Integer ordinal = ordinals.get(product.getId());
+        return ordinal == null ? Collections.emptySet() : tagIndex.labelsOf(TagIndex.Kind.CATEGORY, ordinal);
+    }
+
+    /**
+     * Devuelve las etiquetas de un producto.
+     *
+     * @param product producto consultado
+     * @return etiquetas ordenadas alfabéticamente (vacío si el producto no está en inventario)
+     */
+    public synchronized Set<String> getTags(Product product) {
+        Integer ordinal = ordinals.get(product.getId());
+        return ordinal == null ? Collections.emptySet() : tagIndex.labelsOf(TagIndex.Kind.TAG, ordinal);
+    }
+
+    /**
+     * Devuelve los productos que cumplen una consulta de categorías y etiquetas.
+     *
+     * <p>La consulta se resuelve con operaciones sobre conjuntos de bits; solo se materializan
+     * los productos del resultado.</p>
+     *
+     * @param query consulta compuesta
+     * @return productos que cumplen la consulta, en orden de registro
+     */
+    public synchronized List<Product> findProducts(TagQuery query) {
+        applyDuePriceChanges();
+        List<Product> out = new ArrayList<>();
+        query.evaluate(tagIndex).forEach(ordinal -> {
+            Product p = productsByOrdinal.get(ordinal);
+            if (p != null) out.add(p);
+        });
+        return out;
+    }
+
+    /**
+     * Devuelve los productos que cumplen una consulta por rangos de precio y existencias.
+     *
+     * <p>Solo se recorre el índice más selectivo de la consulta; el resto de las condiciones se
+     * verifica sobre esos candidatos.</p>
+     *
+     * @param query consulta por rangos
+     * @return productos que cumplen la consulta
+     */
+    public synchronized List<Product> findProducts(InventoryQuery query) {
+        applyDuePriceChanges();
+        List<Product> out = new ArrayList<>();
+        query.execute(priceIndex, stockIndex, tagIndex,
+                ordinal -> isOfType(productsByOrdinal.get(ordinal), query.getType()),
+                ordinal -> {
+                    Product p = productsByOrdinal.get(ordinal);
+                    if (p != null) out.add(p);
+                });
+        return out;
+    }
+
+    private boolean isOfType(Product p, ProductFactory.ProductType type) {
+        if (p == null) return false;
+        return type == (p instanceof ProductByUnit
+                ? ProductFactory.ProductType.BY_UNIT : ProductFactory.ProductType.BY_WEIGHT);
+    }
+
+    /**
+     * Devuelve los lotes vivos de un producto por peso, del más antiguo al más reciente.
+     *
+     * @param product producto consultado
+     * @return lotes en orden FIFO (vacío si no tiene)
+     */
+    public synchronized List<Lot> getLots(Product product) {
+        return lots.lotsOf(product.getId());
+    }
+
+    /**
+     * Devuelve el lote del producto con la caducidad más próxima.
+     *
+     * @param product producto consultado
+     * @return el lote, o {@code null} si el producto no tiene lotes
+     */
+    public synchronized Lot getNextToExpire(Product product) {
+        return lots.nextToExpire(product.getId());
+    }
+
+    /**
+     * Lista los lotes de todo el catálogo que caducan dentro de los próximos días.
+     *
+     * @param days número de días a partir de hoy (0 para los que caducan hoy o ya caducaron)
+     * @return lotes ordenados por fecha de caducidad
+     */
+    public synchronized List<Lot> getLotsExpiringWithin(int days) {
+        if (days < 0) throw new IllegalArgumentException("days must be >= 0");
+        return lots.expiringOnOrBefore(LocalDate.now().plusDays(days));
+    }
+
+    /**
+     * Devuelve el índice de categorías y etiquetas del inventario.
+     */
+    public TagIndex getTagIndex() {
+        return tagIndex;
+    }
+
     /**
      * Registra un observador para recibir notificaciones de cambios.
      */
     public void register(Observer obs) {
-        observers.add(obs);
+        registerObserver(obs);
+    }
+
+    /**
+     * Registra un observador con un carril de entrega con la configuración por defecto.
+     * Registrar dos veces el mismo observador no tiene efecto.
+     *
+     * @param o observador que será agregado.
+     */
+    @Override
+    public void registerObserver(Observer o) {
+        registerObserver(o, LANE_CAPACITY, LANE_TIMEOUT_MS, LANE_MAX_STRIKES);
+    }
+
+    /**
+     * Registra un observador con un carril de entrega configurado.
+     *
+     * @param o             observador que será agregado
+     * @param capacity      capacidad de la cola de su carril
+     * @param timeoutMillis tiempo máximo esperado por entrega
+     * @param maxStrikes    problemas consecutivos que provocan la cuarentena
+     */
+    public synchronized void registerObserver(Observer o, int capacity, long timeoutMillis, int maxStrikes) {
+        if (o == null) throw new IllegalArgumentException("Observer must not be null");
+        if (laneOf(o) != null) return;
+        observers.add(new ObserverLane(o, capacity, timeoutMillis, maxStrikes));
+    }
+
+    /**
+     * Elimina un observador; los mensajes que ya tenía encolados se le entregan antes de cerrar su carril.
+     *
+     * @param o observador que será removido.
+     */
+    @Override
+    public void removeObserver(Observer o) {
+        ObserverLane lane;
+        synchronized (this) {
+            lane = laneOf(o);
+            if (lane == null) return;
+            observers.remove(lane);
+        }
+        lane.close(LANE_CLOSE_TIMEOUT_MS);
+    }
+
+    /**
+     * Devuelve los carriles de los observadores registrados, para consultar su estado y sus métricas.
+     *
+     * @return copia de la lista de carriles
+     */
+    public List<ObserverLane> getObserverLanes() {
+        return new ArrayList<>(observers);
+    }
+
+    /**
+     * Espera a que todos los observadores reciban los mensajes pendientes.
+     *
+     * @param timeout tiempo máximo de espera
+     * @param unit    unidad del tiempo
+     * @return {@code true} si todos los carriles quedaron vacíos a tiempo
+     * @throws InterruptedException si el hilo es interrumpido mientras espera
+     */
+    public boolean awaitObservers(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        AsyncDispatcher d = dispatcher;
+        if (d != null && !d.awaitIdle(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) return false;
+        for (ObserverLane lane : observers) {
+            if (!lane.awaitIdle(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) return false;
+        }
+        return true;
+    }
+
+    private ObserverLane laneOf(Observer o) {
+        for (ObserverLane lane : observers)
+            if (lane.getObserver() == o) return lane;
+        return null;
+    }
+
+    /**
+     * Suscribe un listener a un tipo de evento. Para recibir todos los eventos, suscríbase a
+     * {@code InventoryEvent.class}.
+     *
+     * @param type     clase del evento
+     * @param listener listener a suscribir
+     * @param <E>      tipo de evento
+     */
+    public <E extends InventoryEvent> void subscribe(Class<E> type, InventoryListener<? super E> listener) {
+        listeners.computeIfAbsent(type, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Cancela la suscripción de un listener a un tipo de evento.
+     *
+     * @param type     clase del evento
+     * @param listener listener a eliminar
+     * @return {@code true} si estaba suscrito
+     */
+    public boolean unsubscribe(Class<? extends InventoryEvent> type, InventoryListener<?> listener) {
+        List<InventoryListener<?>> list = listeners.get(type);
+        return list != null && list.remove(listener);
+    }
+
+    /**
+     * Entrega un evento a sus suscriptores tipados y, solo si hay observadores de texto, lo
+     * convierte en mensaje para ellos.
+     */
+    private void emit(InventoryEvent event) {
+        dispatch(listeners.get(event.getClass()), event);
+        dispatch(listeners.get(InventoryEvent.class), event);
+        if (observers.isEmpty()) return;
+        NotificationCoalescer c = coalescer;
+        if (c != null) c.offer(event);
+        else notifyObservers(event.render());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void dispatch(List<InventoryListener<?>> list, InventoryEvent event) {
+        if (list == null) return;
+        for (InventoryListener<?> l : list)
+            ((InventoryListener<InventoryEvent>) l).onEvent(event);
     }
 
     /**
      * Notifica a todos los observadores registrados con un mensaje.
+     *
+     * <p>Si el despacho asíncrono está activo, el mensaje solo se encola en el despachador; en otro
+     * caso se encola directamente en el carril de cada observador.</p>
      */
+    @Override
     public void notifyObservers(String msg) {
-        for (Observer o : observers)
-            o.update(msg);
+        AsyncDispatcher d = dispatcher;
+        if (d != null) {
+            d.publish(msg);
+            return;
+        }
+        deliver(msg);
+    }
+
+    /**
+     * Encola un mensaje en el carril de cada observador registrado.
+     */
+    private void deliver(String msg) {
+        for (ObserverLane lane : observers)
+            lane.offer(msg);
+    }
+
+    /**
+     * Activa el despacho asíncrono de notificaciones.
+     *
+     * <p>A partir de este momento las modificaciones del inventario solo encolan sus mensajes en un
+     * búfer circular acotado y no esperan a los observadores. Si ya estaba activo, el despachador
+     * anterior se vacía y se reemplaza.</p>
+     *
+     * @param capacity capacidad del búfer
+     * @param policy   comportamiento cuando el búfer está lleno
+     */
+    public synchronized void enableAsyncDispatch(int capacity, AsyncDispatcher.OverflowPolicy policy) {
+        AsyncDispatcher old = dispatcher;
+        dispatcher = new AsyncDispatcher(capacity, policy, this::deliver);
+        if (old != null) old.shutdown();
+    }
+
+    /**
+     * Desactiva el despacho asíncrono, entregando antes todos los mensajes pendientes.
+     */
+    public synchronized void disableAsyncDispatch() {
+        AsyncDispatcher old = dispatcher;
+        dispatcher = null;
+        if (old != null) old.shutdown();
+    }
+
+    /**
+     * Activa la agrupación de notificaciones para los observadores.
+     *
+     * <p>Los eventos ocurridos dentro de un alcance abierto con {@link #openNotificationScope(String)}
+     * se entregan como un solo mensaje al cerrarlo. Fuera de un alcance, si {@code windowMillis} es
+     * mayor a cero, los eventos se agrupan durante esa ventana. Si ya estaba activa, la etapa anterior
+     * entrega lo pendiente y se reemplaza.</p>
+     *
+     * @param windowMillis ventana de agrupación en milisegundos; 0 agrupa solo por alcance
+     */
+    public synchronized void enableCoalescing(long windowMillis) {
+        NotificationCoalescer old = coalescer;
+        coalescer = new NotificationCoalescer(this::notifyObservers, windowMillis);
+        if (old != null) old.close();
+    }
+
+    /**
+     * Desactiva la agrupación de notificaciones, entregando antes los eventos pendientes de la ventana.
+     */
+    public synchronized void disableCoalescing() {
+        NotificationCoalescer old = coalescer;
+        coalescer = null;
+        if (old != null) old.close();
+    }
+
+    /**
+     * Abre un alcance de agrupación (por ejemplo, "una venta" o "una entrega") en el hilo actual.
+     * Si la agrupación no está activa, el alcance no tiene efecto.
+     *
+     * @param label nombre del alcance, que encabeza el mensaje combinado
+     * @return el alcance, que debe cerrarse en un bloque {@code finally} del mismo hilo
+     */
+    public NotificationCoalescer.Scope openNotificationScope(String label) {
+        NotificationCoalescer c = coalescer;
+        return c == null ? NotificationCoalescer.NO_SCOPE : c.openScope(label);
+    }
+
+    /**
+     * Devuelve la etapa de agrupación activa, útil para consultar sus métricas.
+     *
+     * @return la etapa, o {@code null} si la agrupación no está activa
+     */
+    public NotificationCoalescer getCoalescer() {
+        return coalescer;
+    }
+
+    /**
+     * Devuelve el despachador asíncrono activo, útil para consultar sus métricas.
+     *
+     * @return el despachador, o {@code null} si las notificaciones son síncronas
+     */
+    public AsyncDispatcher getDispatcher() {
+        return dispatcher;
     }
 }
@@ -0,0 +1,167 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductFactory;
+import mx.unam.ciencias.myp.butchery.util.CompressedBitSet;
+import mx.unam.ciencias.myp.butchery.util.RangeIndex;
+
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * Consulta de inventario por rangos de precio y de existencias, opcionalmente restringida por tipo
+ * de producto y por una {@link TagQuery}.
+ *
+ * <p>Ejemplos:</p>
+ * <pre>
+ *     // cortes de más de 200 por kg con menos de 5 kg en existencia
+ *     InventoryQuery.create().type(ProductType.BY_WEIGHT).priceAbove(200).stockBelow(5);
+ *     // productos por unidad con precio entre 30 y 60
+ *     InventoryQuery.create().type(ProductType.BY_UNIT).priceBetween(30, 60);
+ * </pre>
+ *
+ * <p>Al ejecutarse, la consulta cuenta en O(log n) cuántos productos caen en cada rango, recorre
+ * únicamente el índice más selectivo y verifica el resto de las condiciones sobre esos candidatos.</p>
+ */
+public final class InventoryQuery {
+
+    private double priceLo = Double.NEGATIVE_INFINITY, priceHi = Double.POSITIVE_INFINITY;
+    private boolean priceLoInclusive = true, priceHiInclusive = true;
+    private double stockLo = Double.NEGATIVE_INFINITY, stockHi = Double.POSITIVE_INFINITY;
+    private boolean stockLoInclusive = true, stockHiInclusive = true;
+    private ProductFactory.ProductType type;
+    private TagQuery tags;
+
+    private InventoryQuery() {}
+
+    /**
+     * @return una consulta sin restricciones.
+     */
+    public static InventoryQuery create() {
+        return new InventoryQuery();
+    }
+
+    /**
+     * Restringe el precio al intervalo cerrado [min, max].
+     */
+    public InventoryQuery priceBetween(double min, double max) {
+        priceLo = min; priceLoInclusive = true;
+        priceHi = max; priceHiInclusive = true;
+        return this;
+    }
+
+    /**
+     * Restringe a productos con precio estrictamente mayor a {@code min}.
+     */
+    public InventoryQuery priceAbove(double min) {
+        priceLo = min; priceLoInclusive = false;
+        return this;
+    }
+
+    /**
+     * Restringe a productos con precio estrictamente menor a {@code max}.
+     */
+    public InventoryQuery priceBelow(double max) {
+        priceHi = max; priceHiInclusive = false;
+        return this;
+    }
+
+    /**
+     * Restringe las existencias al intervalo cerrado [min, max].
+     */
+    public InventoryQuery stockBetween(double min, double max) {
+        stockLo = min; stockLoInclusive = true;
+        stockHi = max; stockHiInclusive = true;
+        return this;
+    }
+
+    /**
+     * Restringe a productos con existencias estrictamente mayores a {@code min}.
+     */
+    public InventoryQuery stockAbove(double min) {
+        stockLo = min; stockLoInclusive = false;
+        return this;
+    }
+
+    /**
+     * Restringe a productos con existencias estrictamente menores a {@code max}.
+     */
+    public InventoryQuery stockBelow(double max) {
+        stockHi = max; stockHiInclusive = false;
+        return this;
+    }
+
+    /**
+     * Restringe a un tipo de producto.
+     */
+    public InventoryQuery type(ProductFactory.ProductType type) {
+        this.type = type;
+        return this;
+    }
+
+    /**
+     * Restringe a los productos que cumplen una consulta de categorías y etiquetas.
+     */
+    public InventoryQuery matching(TagQuery tags) {
+        this.tags = tags;
+        return this;
+    }
+
+    /**
+     * @return tipo de producto pedido, o {@code null} si no se restringe.
+     */
+    public ProductFactory.ProductType getType() {
+        return type;
+    }
+
+    /**
+     * Ejecuta la consulta sobre los índices del inventario.
+     *
+     * @param price  índice de precios
+     * @param stock  índice de existencias
+     * @param index  índice de etiquetas
+     * @param typeOf predicado que indica si un ordinal es del tipo pedido
+     * @param action acción que recibe cada ordinal que cumple todas las condiciones
+     */
+    void execute(RangeIndex price, RangeIndex stock, TagIndex index,
+                 IntPredicate typeOf, IntConsumer action) {
+
+        IntPredicate residual = ordinal -> inPrice(price.valueOf(ordinal))
+                && inStock(stock.valueOf(ordinal))
+                && (type == null || typeOf.test(ordinal));
+
+        CompressedBitSet tagged = tags == null ? null : tags.evaluate(index);
+        int priceCount = price.count(priceLo, priceLoInclusive, priceHi, priceHiInclusive);
+        int stockCount = stock.count(stockLo, stockLoInclusive, stockHi, stockHiInclusive);
+        int tagCount = tagged == null ? Integer.MAX_VALUE : tagged.cardinality();
+
+        if (tagCount <= priceCount && tagCount <= stockCount) {
+            tagged.forEach(ordinal -> { if (residual.test(ordinal)) action.accept(ordinal); });
+            return;
+        }
+
+        IntConsumer check = tagged == null
+                ? ordinal -> { if (residual.test(ordinal)) action.accept(ordinal); }
+                : ordinal -> { if (tagged.get(ordinal) && residual.test(ordinal)) action.accept(ordinal); };
+
+        if (priceCount <= stockCount) {
+            price.forEachInRange(priceLo, priceLoInclusive, priceHi, priceHiInclusive, check);
+        } else {
+            stock.forEachInRange(stockLo, stockLoInclusive, stockHi, stockHiInclusive, check);
+        }
+    }
+
+    private boolean inPrice(double v) {
+        return within(v, priceLo, priceLoInclusive, priceHi, priceHiInclusive);
+    }
+
+    private boolean inStock(double v) {
+        return within(v, stockLo, stockLoInclusive, stockHi, stockHiInclusive);
+    }
+
+    private static boolean within(double v, double lo, boolean loInclusive, double hi, boolean hiInclusive) {
+        if (Double.isNaN(v)) return false;
+        boolean aboveLo = loInclusive ? v >= lo : v > lo;
+        boolean belowHi = hiInclusive ? v <= hi : v < hi;
+        return aboveLo && belowHi;
+    }
+}
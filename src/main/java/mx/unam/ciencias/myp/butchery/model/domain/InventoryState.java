@@ -0,0 +1,230 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryEvent;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estado del inventario reconstruido a partir de sus eventos.
+ *
+ * <p>Guarda por producto su nombre, su tipo, sus existencias y su historial de precios, junto con
+ * el número de secuencia del último evento aplicado. Se alimenta con
+ * {@link #apply(InventoryEvent, long)} y puede escribirse y leerse en forma binaria para los
+ * puntos de control del {@link EventStore}.</p>
+ */
+public class InventoryState {
+
+    private static final int MAGIC = 0x494E5653;
+
+    private final Map<String, ProductState> products;
+    private long sequence;
+
+    /**
+     * Crea un estado vacío.
+     */
+    public InventoryState() {
+        this.products = new LinkedHashMap<>();
+        this.sequence = 0;
+    }
+
+    /**
+     * Aplica un evento al estado. Los eventos de productos desconocidos se ignoran.
+     *
+     * @param event    evento a aplicar
+     * @param sequence número de secuencia del evento
+     */
+    public void apply(InventoryEvent event, long sequence) {
+        this.sequence = sequence;
+        if (event instanceof InventoryEvent.ProductAdded) {
+            InventoryEvent.ProductAdded e = (InventoryEvent.ProductAdded) event;
+            ProductState p = new ProductState(e.getProductId(), e.getName(), e.isByWeight(), 0.0, new PriceHistory());
+            p.prices.add(e.getTimestamp(), e.getPrice());
+            products.put(p.id, p);
+            return;
+        }
+        if (event instanceof InventoryEvent.StocktakeApplied) {
+            InventoryEvent.StocktakeApplied e = (InventoryEvent.StocktakeApplied) event;
+            for (int i = 0; i < e.getAdjustmentCount(); i++) {
+                ProductState p = products.get(e.getProductId(i));
+                if (p != null) p.stock = e.getTotal(i);
+            }
+            return;
+        }
+
+        ProductState p = event.getProductId() == null ? null : products.get(event.getProductId());
+        if (p == null) return;
+
+        if (event instanceof InventoryEvent.StockAdded) {
+            p.stock = ((InventoryEvent.StockAdded) event).getTotal();
+        } else if (event instanceof InventoryEvent.StockReduced) {
+            p.stock = ((InventoryEvent.StockReduced) event).getRemaining();
+        } else if (event instanceof InventoryEvent.PriceChanged) {
+            InventoryEvent.PriceChanged e = (InventoryEvent.PriceChanged) event;
+            long from = e.isScheduled()
+                    ? e.getEffectiveFrom().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                    : e.getTimestamp();
+            p.prices.add(from, e.getNewPrice());
+        } else if (event instanceof InventoryEvent.Renamed) {
+            p.name = ((InventoryEvent.Renamed) event).getNewName();
+        } else if (event instanceof InventoryEvent.Removed) {
+            products.remove(p.id);
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un producto. Se usa al tomar una foto del inventario en vivo.
+     */
+    void put(String id, String name, boolean byWeight, double stock, PriceHistory prices) {
+        products.put(id, new ProductState(id, name, byWeight, stock, prices));
+    }
+
+    /**
+     * Reemplaza todo el contenido por el de otro estado.
+     */
+    void replaceWith(InventoryState other) {
+        products.clear();
+        products.putAll(other.products);
+        sequence = other.sequence;
+    }
+
+    void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * @return número de secuencia del último evento aplicado.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * @param id id del producto
+     * @return estado del producto, o {@code null} si no existe
+     */
+    public ProductState get(String id) {
+        return products.get(id);
+    }
+
+    /**
+     * @return productos del estado, en orden de alta.
+     */
+    public Collection<ProductState> getProducts() {
+        return Collections.unmodifiableCollection(products.values());
+    }
+
+    /**
+     * @return {@code true} si el estado no tiene productos.
+     */
+    public boolean isEmpty() {
+        return products.isEmpty();
+    }
+
+    /**
+     * @return copia independiente del estado.
+     */
+    public InventoryState copy() {
+        InventoryState c = new InventoryState();
+        c.sequence = sequence;
+        for (ProductState p : products.values())
+            c.products.put(p.id, new ProductState(p.id, p.name, p.byWeight, p.stock, p.prices.copy()));
+        return c;
+    }
+
+    /**
+     * Escribe el estado en formato binario.
+     *
+     * @param out destino
+     * @throws IOException si no se puede escribir
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeLong(sequence);
+        out.writeInt(products.size());
+        for (ProductState p : products.values()) {
+            out.writeUTF(p.id);
+            out.writeUTF(p.name);
+            out.writeBoolean(p.byWeight);
+            out.writeDouble(p.stock);
+            out.writeInt(p.prices.size());
+            for (int i = 0; i < p.prices.size(); i++) {
+                out.writeLong(p.prices.getEffectiveFrom(i));
+                out.writeDouble(p.prices.getPrice(i));
+            }
+        }
+    }
+
+    /**
+     * Lee un estado escrito con {@link #write(DataOutputStream)}.
+     *
+     * @param in origen
+     * @return el estado leído
+     * @throws IOException si no se puede leer o el formato no es válido
+     */
+    public static InventoryState read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("Not an inventory checkpoint");
+        InventoryState s = new InventoryState();
+        s.sequence = in.readLong();
+        int n = in.readInt();
+        for (int i = 0; i < n; i++) {
+            String id = in.readUTF();
+            String name = in.readUTF();
+            boolean byWeight = in.readBoolean();
+            double stock = in.readDouble();
+            PriceHistory prices = new PriceHistory();
+            int versions = in.readInt();
+            for (int v = 0; v < versions; v++) prices.add(in.readLong(), in.readDouble());
+            s.products.put(id, new ProductState(id, name, byWeight, stock, prices));
+        }
+        return s;
+    }
+
+    /**
+     * Estado de un producto.
+     */
+    public static final class ProductState {
+
+        private final String id;
+        private String name;
+        private final boolean byWeight;
+        private double stock;
+        private final PriceHistory prices;
+
+        ProductState(String id, String name, boolean byWeight, double stock, PriceHistory prices) {
+            this.id = id;
+            this.name = name;
+            this.byWeight = byWeight;
+            this.stock = stock;
+            this.prices = prices;
+        }
+
+        public String getId() { return id; }
+
+        public String getName() { return name; }
+
+        public boolean isByWeight() { return byWeight; }
+
+        public double getStock() { return stock; }
+
+        /**
+         * @return historial de precios del producto.
+         */
+        public PriceHistory getPrices() { return prices; }
+
+        /**
+         * @param time fecha consultada
+         * @return precio vigente en esa fecha, o NaN si aún no tenía precio
+         */
+        public double getPriceAt(LocalDateTime time) {
+            return prices.priceAt(time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+}
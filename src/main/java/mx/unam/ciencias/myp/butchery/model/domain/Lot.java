@@ -0,0 +1,80 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import java.time.LocalDate;
+
+/**
+ * Lote de un producto vendido por peso: una entrega recibida en cierta fecha, con una fecha de
+ * caducidad opcional y la cantidad (en kg) que aún queda de ella.
+ *
+ * <p>Los lotes los administra {@link LotTracker}; fuera del paquete solo pueden consultarse.</p>
+ */
+public class Lot {
+
+    private final long id;
+    private final String productId;
+    private final LocalDate receivedOn;
+    private final LocalDate expiresOn;
+    private double quantity;
+
+    /**
+     * Crea un lote.
+     *
+     * @param id         identificador del lote
+     * @param productId  id del producto al que pertenece
+     * @param receivedOn fecha de recepción
+     * @param expiresOn  fecha de caducidad, o {@code null} si no se conoce
+     * @param quantity   cantidad restante en kg
+     */
+    Lot(long id, String productId, LocalDate receivedOn, LocalDate expiresOn, double quantity) {
+        this.id = id;
+        this.productId = productId;
+        this.receivedOn = receivedOn;
+        this.expiresOn = expiresOn;
+        this.quantity = quantity;
+    }
+
+    /**
+     * @return identificador del lote.
+     */
+    public long getId() { return id; }
+
+    /**
+     * @return id del producto al que pertenece el lote.
+     */
+    public String getProductId() { return productId; }
+
+    /**
+     * @return fecha de recepción del lote.
+     */
+    public LocalDate getReceivedOn() { return receivedOn; }
+
+    /**
+     * @return fecha de caducidad, o {@code null} si el lote no tiene una registrada.
+     */
+    public LocalDate getExpiresOn() { return expiresOn; }
+
+    /**
+     * @return cantidad restante en kg.
+     */
+    public double getQuantity() { return quantity; }
+
+    void setQuantity(double quantity) {
+        this.quantity = quantity;
+    }
+
+    /**
+     * @return {@code true} si ya no queda cantidad en el lote.
+     */
+    public boolean isDepleted() {
+        return quantity <= LotTracker.EPSILON;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return String.format("Lot{id=%d, product='%s', received=%s, expires=%s, qty=%.3f}",
+                id, productId, receivedOn, expiresOn, quantity);
+    }
+}
@@ -0,0 +1,247 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+/**
+ * Seguimiento en memoria de los lotes de los productos vendidos por peso.
+ *
+ * <p>Por cada producto se mantienen dos vistas de sus lotes vivos:</p>
+ * <ul>
+ *     <li>un conjunto ordenado por fecha de recepción, para consumir primero lo más antiguo (FIFO);</li>
+ *     <li>un montículo mínimo por fecha de caducidad, para saber en O(1) cuál es el próximo a caducar.</li>
+ * </ul>
+ * <p>Además, un conjunto global ordenado por caducidad permite listar los lotes de todo el catálogo
+ * que caducan antes de cierta fecha sin revisar producto por producto.</p>
+ *
+ * <p>Esta clase no persiste nada: {@link Inventory} guarda en SQLite los lotes que cada operación
+ * devuelve como modificados. Para las operaciones que deben reflejarse en memoria solo si su
+ * transacción se confirma, {@link #planConsume} y {@link #planReceive} calculan los lotes
+ * resultantes sin modificar el seguimiento, y {@link #apply} los aplica después del commit.</p>
+ */
+public class LotTracker {
+
+    /** Cantidad por debajo de la cual un lote se considera agotado. */
+    static final double EPSILON = 1e-9;
+
+    private static final Comparator<Lot> FIFO =
+            Comparator.comparing(Lot::getReceivedOn).thenComparingLong(Lot::getId);
+
+    private static final Comparator<Lot> BY_EXPIRY =
+            Comparator.comparing(Lot::getExpiresOn, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparingLong(Lot::getId);
+
+    private final Map<String, TreeSet<Lot>> fifo;
+    private final Map<String, PriorityQueue<Lot>> expiryHeaps;
+    private final TreeSet<Lot> expiring;
+    private long nextId;
+
+    /**
+     * Crea un seguimiento vacío.
+     */
+    public LotTracker() {
+        this.fifo = new HashMap<>();
+        this.expiryHeaps = new HashMap<>();
+        this.expiring = new TreeSet<>(BY_EXPIRY);
+        this.nextId = 1;
+    }
+
+    /**
+     * Registra la recepción de un lote nuevo.
+     *
+     * @param productId  id del producto
+     * @param quantity   cantidad recibida (kg)
+     * @param receivedOn fecha de recepción
+     * @param expiresOn  fecha de caducidad, o {@code null}
+     * @return el lote creado
+     */
+    Lot receive(String productId, double quantity, LocalDate receivedOn, LocalDate expiresOn) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be > 0");
+        Lot lot = new Lot(nextId++, productId, receivedOn, expiresOn, quantity);
+        index(lot);
+        return lot;
+    }
+
+    /**
+     * Restaura un lote leído de la base de datos.
+     */
+    void restore(long id, String productId, LocalDate receivedOn, LocalDate expiresOn, double quantity) {
+        nextId = Math.max(nextId, id + 1);
+        if (quantity > EPSILON) index(new Lot(id, productId, receivedOn, expiresOn, quantity));
+    }
+
+    /**
+     * Consume la cantidad indicada de los lotes del producto, empezando por el más antiguo.
+     *
+     * @param productId id del producto
+     * @param quantity  cantidad a consumir (kg)
+     * @return los lotes modificados; los que quedaron agotados ya no están en el seguimiento
+     * @throws IllegalStateException si los lotes no alcanzan para cubrir la cantidad
+     */
+    List<Lot> consume(String productId, double quantity) {
+        TreeSet<Lot> lots = fifo.get(productId);
+        if (quantity > total(productId) + EPSILON)
+            throw new IllegalStateException("Insufficient lot quantity for product: " + productId);
+
+        List<Lot> touched = new ArrayList<>();
+        double remaining = quantity;
+        while (remaining > EPSILON && lots != null && !lots.isEmpty()) {
+            Lot oldest = lots.first();
+            double take = Math.min(oldest.getQuantity(), remaining);
+            oldest.setQuantity(oldest.getQuantity() - take);
+            remaining -= take;
+            touched.add(oldest);
+            if (oldest.isDepleted()) {
+                oldest.setQuantity(0.0);
+                unindex(oldest);
+            }
+        }
+        return touched;
+    }
+
+    /**
+     * Calcula el resultado de consumir la cantidad indicada, empezando por el lote más antiguo, sin
+     * modificar el seguimiento.
+     *
+     * @param productId id del producto
+     * @param quantity  cantidad a consumir (kg)
+     * @return copias de los lotes afectados con su cantidad final (0 si quedarían agotados)
+     * @throws IllegalStateException si los lotes no alcanzan para cubrir la cantidad
+     */
+    List<Lot> planConsume(String productId, double quantity) {
+        if (quantity > total(productId) + EPSILON)
+            throw new IllegalStateException("Insufficient lot quantity for product: " + productId);
+
+        List<Lot> planned = new ArrayList<>();
+        TreeSet<Lot> lots = fifo.get(productId);
+        if (lots == null) return planned;
+        double remaining = quantity;
+        for (Lot lot : lots) {
+            if (remaining <= EPSILON) break;
+            double take = Math.min(lot.getQuantity(), remaining);
+            remaining -= take;
+            Lot copy = new Lot(lot.getId(), productId, lot.getReceivedOn(), lot.getExpiresOn(), lot.getQuantity() - take);
+            if (copy.isDepleted()) copy.setQuantity(0.0);
+            planned.add(copy);
+        }
+        return planned;
+    }
+
+    /**
+     * Crea un lote nuevo sin agregarlo al seguimiento.
+     *
+     * @return el lote, con un id ya reservado
+     */
+    Lot planReceive(String productId, double quantity, LocalDate receivedOn, LocalDate expiresOn) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be > 0");
+        return new Lot(nextId++, productId, receivedOn, expiresOn, quantity);
+    }
+
+    /**
+     * Aplica lotes calculados con {@link #planConsume} o {@link #planReceive}: los lotes conocidos
+     * toman la cantidad calculada (y salen del seguimiento si quedan agotados) y los nuevos se agregan.
+     *
+     * @param planned lotes calculados
+     */
+    void apply(List<Lot> planned) {
+        for (Lot p : planned) {
+            Lot live = null;
+            TreeSet<Lot> lots = fifo.get(p.getProductId());
+            if (lots != null) {
+                for (Lot l : lots) {
+                    if (l.getId() == p.getId()) {
+                        live = l;
+                        break;
+                    }
+                }
+            }
+            if (live == null) {
+                if (!p.isDepleted()) index(p);
+            } else if (p.isDepleted()) {
+                live.setQuantity(0.0);
+                unindex(live);
+            } else {
+                live.setQuantity(p.getQuantity());
+            }
+        }
+    }
+
+    /**
+     * Elimina todos los lotes de un producto.
+     *
+     * @return los lotes eliminados
+     */
+    List<Lot> removeProduct(String productId) {
+        TreeSet<Lot> lots = fifo.remove(productId);
+        expiryHeaps.remove(productId);
+        if (lots == null) return Collections.emptyList();
+        expiring.removeAll(lots);
+        return new ArrayList<>(lots);
+    }
+
+    /**
+     * @param productId id del producto
+     * @return el lote vivo del producto con la caducidad más próxima, o {@code null} si no tiene lotes
+     */
+    public Lot nextToExpire(String productId) {
+        PriorityQueue<Lot> heap = expiryHeaps.get(productId);
+        return heap == null ? null : heap.peek();
+    }
+
+    /**
+     * Lista los lotes de todo el catálogo que caducan en o antes de la fecha límite.
+     *
+     * @param cutoff fecha límite (inclusiva)
+     * @return lotes ordenados por caducidad
+     */
+    public List<Lot> expiringOnOrBefore(LocalDate cutoff) {
+        Lot probe = new Lot(Long.MAX_VALUE, null, cutoff, cutoff, 0.0);
+        return new ArrayList<>(expiring.headSet(probe, true));
+    }
+
+    /**
+     * @param productId id del producto
+     * @return lotes vivos del producto en orden FIFO
+     */
+    public List<Lot> lotsOf(String productId) {
+        TreeSet<Lot> lots = fifo.get(productId);
+        return lots == null ? Collections.emptyList() : new ArrayList<>(lots);
+    }
+
+    /**
+     * @param productId id del producto
+     * @return suma de las cantidades de sus lotes vivos
+     */
+    public double total(String productId) {
+        TreeSet<Lot> lots = fifo.get(productId);
+        if (lots == null) return 0.0;
+        double sum = 0.0;
+        for (Lot l : lots) sum += l.getQuantity();
+        return sum;
+    }
+
+    private void index(Lot lot) {
+        fifo.computeIfAbsent(lot.getProductId(), k -> new TreeSet<>(FIFO)).add(lot);
+        expiryHeaps.computeIfAbsent(lot.getProductId(), k -> new PriorityQueue<>(BY_EXPIRY)).add(lot);
+        if (lot.getExpiresOn() != null) expiring.add(lot);
+    }
+
+    private void unindex(Lot lot) {
+        TreeSet<Lot> lots = fifo.get(lot.getProductId());
+        lots.remove(lot);
+        PriorityQueue<Lot> heap = expiryHeaps.get(lot.getProductId());
+        heap.remove(lot);
+        if (lots.isEmpty()) {
+            fifo.remove(lot.getProductId());
+            expiryHeaps.remove(lot.getProductId());
+        }
+        expiring.remove(lot);
+    }
+}
@@ -0,0 +1,154 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import java.util.Arrays;
+
+/**
+ * Historial de precios versionado de un producto.
+ *
+ * <p>Cada versión es un par (vigente desde, precio) guardado en arreglos primitivos paralelos
+ * ordenados por fecha. El precio vigente en un instante T se obtiene con una búsqueda binaria;
+ * además se guarda en caché la versión vigente y el instante en que deja de serlo, de modo que
+ * consultar el precio actual cuesta O(1) mientras no llegue el siguiente cambio programado.</p>
+ *
+ * <p>Los instantes se expresan en milisegundos desde la época Unix.</p>
+ */
+public class PriceHistory {
+
+    private long[] effectiveFrom;
+    private double[] prices;
+    private int size;
+
+    private int currentIndex;
+    private long currentSince;
+    private long currentUntil;
+
+    /**
+     * Crea un historial vacío.
+     */
+    public PriceHistory() {
+        this.effectiveFrom = new long[4];
+        this.prices = new double[4];
+        this.size = 0;
+        invalidate();
+    }
+
+    /**
+     * Agrega una versión de precio. Si ya existe una versión con el mismo instante, se reemplaza.
+     *
+     * @param from  instante desde el que rige el precio
+     * @param price precio de la versión
+     */
+    void add(long from, double price) {
+        if (price < 0) throw new IllegalArgumentException("price must be >= 0");
+        int i = Arrays.binarySearch(effectiveFrom, 0, size, from);
+        if (i >= 0) {
+            prices[i] = price;
+        } else {
+            int at = -i - 1;
+            if (size == effectiveFrom.length) {
+                effectiveFrom = Arrays.copyOf(effectiveFrom, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+            }
+            System.arraycopy(effectiveFrom, at, effectiveFrom, at + 1, size - at);
+            System.arraycopy(prices, at, prices, at + 1, size - at);
+            effectiveFrom[at] = from;
+            prices[at] = price;
+            size++;
+        }
+        invalidate();
+    }
+
+    /**
+     * @return copia independiente del historial.
+     */
+    PriceHistory copy() {
+        PriceHistory c = new PriceHistory();
+        c.effectiveFrom = Arrays.copyOf(effectiveFrom, Math.max(4, size));
+        c.prices = Arrays.copyOf(prices, Math.max(4, size));
+        c.size = size;
+        return c;
+    }
+
+    /**
+     * Devuelve el precio vigente en un instante.
+     *
+     * @param time instante consultado
+     * @return precio vigente, o NaN si el instante es anterior a la primera versión
+     */
+    public double priceAt(long time) {
+        int i = indexAt(time);
+        return i < 0 ? Double.NaN : prices[i];
+    }
+
+    /**
+     * Devuelve el precio vigente en {@code now} usando la versión en caché cuando sigue siendo válida.
+     *
+     * @param now instante actual
+     * @return precio vigente, o NaN si aún no rige ninguna versión
+     */
+    public double currentPrice(long now) {
+        if (now < currentSince || now >= currentUntil) {
+            currentIndex = indexAt(now);
+            currentSince = currentIndex < 0 ? Long.MIN_VALUE : effectiveFrom[currentIndex];
+            currentUntil = currentIndex + 1 < size ? effectiveFrom[currentIndex + 1] : Long.MAX_VALUE;
+        }
+        return currentIndex < 0 ? Double.NaN : prices[currentIndex];
+    }
+
+    /**
+     * @param now instante actual
+     * @return instante del siguiente cambio programado posterior a {@code now}, o {@link Long#MAX_VALUE} si no hay
+     */
+    public long nextChangeAfter(long now) {
+        int i = indexAt(now) + 1;
+        return i < size ? effectiveFrom[i] : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return número de versiones registradas.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i posición de la versión (0 es la más antigua)
+     * @return instante desde el que rige la versión
+     */
+    public long getEffectiveFrom(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("version " + i);
+        return effectiveFrom[i];
+    }
+
+    /**
+     * @param i posición de la versión (0 es la más antigua)
+     * @return precio de la versión
+     */
+    public double getPrice(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("version " + i);
+        return prices[i];
+    }
+
+    /**
+     * Última posición cuya fecha de vigencia es menor o igual a {@code time}; -1 si no hay.
+     */
+    private int indexAt(long time) {
+        int lo = 0, hi = size - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (effectiveFrom[mid] <= time) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private void invalidate() {
+        currentIndex = -1;
+        currentSince = Long.MAX_VALUE;
+        currentUntil = Long.MIN_VALUE;
+    }
+}
@@ -0,0 +1,366 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Acumulados de ventas por hora, día y mes.
+ *
+ * <p>Cada venta registrada suma su importe, una venta, los kilos y las piezas vendidas a la cubeta
+ * de su hora, de su día y de su mes, y a un total general. Consultar el total cuesta O(1) y
+ * consultar una ventana cuesta O(cubetas): la ventana se cubre con meses completos y solo las
+ * orillas se completan con días y horas.</p>
+ *
+ * <p>Si se crea con {@link #persistent()}, cada venta también se suma a la tabla
+ * {@code sales_rollups} y los acumulados se cargan de ahí al iniciar, así que sobreviven a un
+ * reinicio aunque las ventas no se conserven en memoria. En ese caso la memoria solo conserva las
+ * {@code bucketsInMemory} cubetas más recientes de cada granularidad: al pasar de ese número se
+ * descarta la más vieja, y las consultas que llegan antes de la cubeta más vieja en memoria leen
+ * esa parte de la tabla.</p>
+ */
+public class RevenueRollup {
+
+    /**
+     * Tamaño de una cubeta.
+     */
+    public enum Granularity {
+        HOUR, DAY, MONTH;
+
+        /**
+         * @param time instante cualquiera
+         * @return inicio de la cubeta que contiene al instante
+         */
+        public LocalDateTime truncate(LocalDateTime time) {
+            switch (this) {
+                case HOUR: return time.truncatedTo(ChronoUnit.HOURS);
+                case DAY: return time.truncatedTo(ChronoUnit.DAYS);
+                default: return time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            }
+        }
+
+        /**
+         * @param start inicio de una cubeta
+         * @return inicio de la cubeta siguiente
+         */
+        public LocalDateTime next(LocalDateTime start) {
+            switch (this) {
+                case HOUR: return start.plusHours(1);
+                case DAY: return start.plusDays(1);
+                default: return start.plusMonths(1);
+            }
+        }
+    }
+
+    /** Cubetas por granularidad que {@link #persistent()} conserva en memoria: un mes de horas. */
+    static final int DEFAULT_BUCKETS_IN_MEMORY = 24 * 31;
+    private static final int MAX_QUERY_KEYS = 500;
+
+    private final Map<Granularity, TreeMap<LocalDateTime, Totals>> buckets;
+    /** Por granularidad, inicio desde el cual toda cubeta con ventas está en memoria. */
+    private final Map<Granularity, LocalDateTime> horizon;
+    private final Totals total;
+    private final boolean persistent;
+    private final int bucketsInMemory;
+
+    /**
+     * Crea acumulados vacíos que solo viven en memoria.
+     */
+    public RevenueRollup() {
+        this(false, Integer.MAX_VALUE);
+    }
+
+    private RevenueRollup(boolean persistent, int bucketsInMemory) {
+        this.buckets = new EnumMap<>(Granularity.class);
+        this.horizon = new EnumMap<>(Granularity.class);
+        for (Granularity g : Granularity.values()) {
+            buckets.put(g, new TreeMap<>());
+            horizon.put(g, LocalDateTime.MIN);
+        }
+        this.total = new Totals();
+        this.persistent = persistent;
+        this.bucketsInMemory = bucketsInMemory;
+    }
+
+    /**
+     * Crea acumulados respaldados por la tabla {@code sales_rollups}, cargando los ya guardados, que
+     * conservan en memoria {@value #DEFAULT_BUCKETS_IN_MEMORY} cubetas por granularidad.
+     *
+     * @return los acumulados
+     */
+    public static RevenueRollup persistent() {
+        return persistent(DEFAULT_BUCKETS_IN_MEMORY);
+    }
+
+    /**
+     * Crea acumulados respaldados por la tabla {@code sales_rollups}, cargando las cubetas más
+     * recientes de cada granularidad y el total general.
+     *
+     * @param bucketsInMemory cubetas por granularidad que se conservan en memoria
+     * @return los acumulados
+     */
+    public static RevenueRollup persistent(int bucketsInMemory) {
+        if (bucketsInMemory <= 0) throw new IllegalArgumentException("bucketsInMemory must be > 0");
+        RevenueRollup rollup = new RevenueRollup(true, bucketsInMemory);
+        String newest = "SELECT bucket_start, revenue, sales, kg, units FROM sales_rollups " +
+                "WHERE granularity = ? ORDER BY bucket_start DESC LIMIT ?";
+        String sum = "SELECT SUM(revenue), SUM(sales), SUM(kg), SUM(units) FROM sales_rollups WHERE granularity = 'MONTH'";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(newest);
+             Statement stmt = conn.createStatement()) {
+
+            for (Granularity g : Granularity.values()) {
+                ps.setString(1, g.name());
+                ps.setInt(2, bucketsInMemory + 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    TreeMap<LocalDateTime, Totals> map = rollup.buckets.get(g);
+                    while (rs.next()) {
+                        LocalDateTime start = LocalDateTime.parse(rs.getString("bucket_start"));
+                        if (map.size() == bucketsInMemory) {
+                            rollup.horizon.put(g, g.next(start));
+                            break;
+                        }
+                        map.put(start, readTotals(rs));
+                    }
+                }
+            }
+            try (ResultSet rs = stmt.executeQuery(sum)) {
+                if (rs.next()) rollup.total.add(rs.getDouble(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading sales rollups", e);
+        }
+        return rollup;
+    }
+
+    /**
+     * Suma una venta a sus cubetas.
+     *
+     * @param at      instante de la venta
+     * @param revenue importe cobrado
+     * @param kg      kilos vendidos
+     * @param units   piezas vendidas
+     */
+    public synchronized void record(LocalDateTime at, double revenue, double kg, double units) {
+        if (persistent) persist(at, revenue, kg, units);
+        for (Granularity g : Granularity.values()) {
+            LocalDateTime start = g.truncate(at);
+            if (start.isBefore(horizon.get(g))) continue;
+            TreeMap<LocalDateTime, Totals> map = buckets.get(g);
+            map.computeIfAbsent(start, k -> new Totals()).add(revenue, 1, kg, units);
+            if (map.size() > bucketsInMemory) horizon.put(g, g.next(map.pollFirstEntry().getKey()));
+        }
+        total.add(revenue, 1, kg, units);
+    }
+
+    /**
+     * @return copia de los acumulados de todas las ventas.
+     */
+    public synchronized Totals getTotal() {
+        return total.copy();
+    }
+
+    /**
+     * @param granularity tamaño de las cubetas
+     * @return número de cubetas de esa granularidad que están en memoria
+     */
+    public synchronized int getBucketsInMemory(Granularity granularity) {
+        return buckets.get(granularity).size();
+    }
+
+    /**
+     * Acumula las ventas de una ventana, con resolución de una hora.
+     *
+     * @param from inicio de la ventana (inclusivo; se redondea al inicio de su hora)
+     * @param to   fin de la ventana (exclusivo; se redondea al inicio de su hora)
+     * @return acumulados de la ventana
+     */
+    public synchronized Totals summarize(LocalDateTime from, LocalDateTime to) {
+        Totals out = new Totals();
+        Map<Granularity, List<LocalDateTime>> stored = new EnumMap<>(Granularity.class);
+        LocalDateTime cursor = Granularity.HOUR.truncate(from);
+        LocalDateTime end = Granularity.HOUR.truncate(to);
+        while (cursor.isBefore(end)) {
+            Granularity step = Granularity.HOUR;
+            for (Granularity g : new Granularity[]{Granularity.MONTH, Granularity.DAY}) {
+                if (g.truncate(cursor).equals(cursor) && !g.next(cursor).isAfter(end)) {
+                    step = g;
+                    break;
+                }
+            }
+            if (cursor.isBefore(horizon.get(step))) {
+                stored.computeIfAbsent(step, g -> new ArrayList<>()).add(cursor);
+            } else {
+                Totals t = buckets.get(step).get(cursor);
+                if (t != null) out.add(t.revenue, t.count, t.kg, t.units);
+            }
+            cursor = step.next(cursor);
+        }
+        for (Map.Entry<Granularity, List<LocalDateTime>> e : stored.entrySet()) addStored(e.getKey(), e.getValue(), out);
+        return out;
+    }
+
+    /**
+     * Devuelve las cubetas de una granularidad dentro de una ventana.
+     *
+     * @param granularity tamaño de las cubetas
+     * @param from        inicio de la ventana (inclusivo)
+     * @param to          fin de la ventana (exclusivo)
+     * @return copias de las cubetas con ventas, ordenadas por su inicio
+     */
+    public synchronized SortedMap<LocalDateTime, Totals> getBuckets(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        SortedMap<LocalDateTime, Totals> out = new TreeMap<>();
+        LocalDateTime start = granularity.truncate(from);
+        LocalDateTime inMemory = horizon.get(granularity);
+        if (start.isBefore(inMemory)) {
+            out.putAll(loadStored(granularity, start, to.isBefore(inMemory) ? to : inMemory));
+            start = inMemory;
+        }
+        if (start.isBefore(to)) {
+            for (Map.Entry<LocalDateTime, Totals> e : buckets.get(granularity).subMap(start, to).entrySet())
+                out.put(e.getKey(), e.getValue().copy());
+        }
+        return out;
+    }
+
+    /**
+     * Suma a {@code out} las cubetas guardadas en la tabla con los inicios dados.
+     */
+    private static void addStored(Granularity granularity, List<LocalDateTime> starts, Totals out) {
+        try (Connection conn = DatabaseManager.getConnection()) {
+            for (int from = 0; from < starts.size(); from += MAX_QUERY_KEYS) {
+                List<LocalDateTime> batch = starts.subList(from, Math.min(starts.size(), from + MAX_QUERY_KEYS));
+                String sql = "SELECT SUM(revenue), SUM(sales), SUM(kg), SUM(units) FROM sales_rollups " +
+                        "WHERE granularity = ? AND bucket_start IN (" + String.join(",", Collections.nCopies(batch.size(), "?")) + ")";
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.setString(1, granularity.name());
+                    for (int i = 0; i < batch.size(); i++) ps.setString(i + 2, batch.get(i).toString());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        if (rs.next()) out.add(rs.getDouble(1), rs.getLong(2), rs.getDouble(3), rs.getDouble(4));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading sales rollups", e);
+        }
+    }
+
+    /**
+     * Lee de la tabla las cubetas de una granularidad con inicio en [from, to).
+     */
+    private static SortedMap<LocalDateTime, Totals> loadStored(Granularity granularity, LocalDateTime from, LocalDateTime to) {
+        String sql = "SELECT bucket_start, revenue, sales, kg, units FROM sales_rollups " +
+                "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ?";
+        SortedMap<LocalDateTime, Totals> out = new TreeMap<>();
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+
+            ps.setString(1, granularity.name());
+            ps.setString(2, from.toString());
+            ps.setString(3, to.toString());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.put(LocalDateTime.parse(rs.getString("bucket_start")), readTotals(rs));
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading sales rollups", e);
+        }
+        return out;
+    }
+
+    private static Totals readTotals(ResultSet rs) throws SQLException {
+        Totals t = new Totals();
+        t.add(rs.getDouble("revenue"), rs.getLong("sales"), rs.getDouble("kg"), rs.getDouble("units"));
+        return t;
+    }
+
+    private void persist(LocalDateTime at, double revenue, double kg, double units) {
+        String upsert = "INSERT INTO sales_rollups(granularity,bucket_start,revenue,sales,kg,units) VALUES (?,?,?,1,?,?) " +
+                "ON CONFLICT(granularity,bucket_start) DO UPDATE SET revenue=revenue+excluded.revenue, " +
+                "sales=sales+1, kg=kg+excluded.kg, units=units+excluded.units";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement(upsert)) {
+
+            conn.setAutoCommit(false);
+            for (Granularity g : Granularity.values()) {
+                ps.setString(1, g.name());
+                ps.setString(2, g.truncate(at).toString());
+                ps.setDouble(3, revenue);
+                ps.setDouble(4, kg);
+                ps.setDouble(5, units);
+                ps.addBatch();
+            }
+            ps.executeBatch();
+            conn.commit();
+
+        } catch (SQLException e) {
+            throw new RuntimeException("Error saving sales rollups", e);
+        }
+    }
+
+    /**
+     * Acumulados de un conjunto de ventas.
+     */
+    public static final class Totals {
+
+        private double revenue;
+        private long count;
+        private double kg;
+        private double units;
+
+        void add(double revenue, long count, double kg, double units) {
+            this.revenue += revenue;
+            this.count += count;
+            this.kg += kg;
+            this.units += units;
+        }
+
+        Totals copy() {
+            Totals c = new Totals();
+            c.add(revenue, count, kg, units);
+            return c;
+        }
+
+        /**
+         * @return importe cobrado.
+         */
+        public double getRevenue() { return revenue; }
+
+        /**
+         * @return número de ventas.
+         */
+        public long getCount() { return count; }
+
+        /**
+         * @return kilos vendidos.
+         */
+        public double getKg() { return kg; }
+
+        /**
+         * @return piezas vendidas.
+         */
+        public double getUnits() { return units; }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("Revenue: %.2f | Sales: %d | Kg: %.2f | Units: %.2f", revenue, count, kg, units);
+        }
+    }
+}
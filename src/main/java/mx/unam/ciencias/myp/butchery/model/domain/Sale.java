@@ -2,11 +2,13 @@ package mx.unam.ciencias.myp.butchery.model.domain;
 import mx.unam.ciencias.myp.butchery.model.patrones.state.ISaleState;
 
 import mx.unam.ciencias.myp.butchery.model.patrones.state.PendingState;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleOutcome;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleStatus;
 import mx.unam.ciencias.myp.butchery.model.patrones.strategy.IDiscountStrategy;
 import mx.unam.ciencias.myp.butchery.model.patrones.strategy.NoDiscount;
 
 import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
-import java.util.HashMap;
+import java.time.LocalDateTime;
 import java.util.Map;
 
 /**
@@ -14,6 +16,8 @@ import java.util.Map;
  * 
  * <p>Una venta mantiene una colección de productos con sus cantidades, un total acumulado, una estrategia de descuento configurable y un estado interno que determina las operaciones permitidas.</p>
  *
+ * <p>Las líneas se guardan en un {@link SaleLines} (arreglos primitivos paralelos con el precio unitario capturado al agregar cada línea), que también se expone como mapa de producto a cantidad.</p>
+ *
  * <p>Los patrones utilizados en esta clase son:</p>
  * <ul>
  *     <li><b>State:</b> controla las operaciones válidas según el estado de la venta (pendiente, pagada o cancelada).</li>
@@ -24,19 +28,33 @@ import java.util.Map;
 
 public class Sale {
 
-    private Map<Product, Double> items;
+    private final SaleLines items;
+    private final String clientId;
+    private LocalDateTime timestamp;
     private double total;
     private IDiscountStrategy strategy;
     private ISaleState state;
 
     /**
-     * Crea una nueva venta con estado pendiente, sin descuento y con un mapa vacío de productos.
+     * Crea una nueva venta con estado pendiente, sin descuento y sin líneas.
      */
     public Sale() {
-        this.items = new HashMap<>();
+        this(null);
+    }
+
+    /**
+     * Crea una nueva venta identificada por un id generado en la caja que la registró. El id permite
+     * reconocer la venta si se envía más de una vez (por ejemplo, al subir ventas hechas sin conexión).
+     *
+     * @param clientId id de la venta asignado por la caja, o {@code null}
+     */
+    public Sale(String clientId) {
+        this.clientId = clientId;
+        this.timestamp = LocalDateTime.now();
+        this.items = new SaleLines();
         this.total = 0.0;
         this.strategy = new NoDiscount();
-        this.state = new PendingState();
+        this.state = PendingState.INSTANCE;
     }
 
     /**
@@ -47,6 +65,47 @@ public class Sale {
         return items;
     }
 
+    /**
+     * Regresa las líneas de la venta con acceso posicional a producto, cantidad y precio unitario.
+     * @return líneas de la venta.
+     */
+    public SaleLines getLines() {
+        return items;
+    }
+
+    /**
+     * Regresa el subtotal (sin descuento) de la venta, que se mantiene al día con cada línea agregada o modificada.
+     * @return subtotal de la venta.
+     */
+    public double getSubtotal() {
+        return items.getSubtotal();
+    }
+
+    /**
+     * Regresa el id asignado a la venta por la caja que la registró.
+     * @return id de la venta, o {@code null} si no tiene.
+     */
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * Regresa el instante de la venta. Por omisión es el instante en que se creó.
+     * @return instante de la venta.
+     */
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Cambia el instante de la venta, por ejemplo para una venta registrada sin conexión que se recibe después.
+     * @param timestamp instante de la venta (no debe ser null).
+     */
+    public void setTimestamp(LocalDateTime timestamp) {
+        if (timestamp == null) throw new IllegalArgumentException("timestamp cannot be null");
+        this.timestamp = timestamp;
+    }
+
     /**
      * Regresa el total actual de la venta.
      *
@@ -96,6 +155,15 @@ public class Sale {
 
     }
 
+    /**
+     * Regresa el identificador del estado actual, útil para comparar el estado sin revisar su clase.
+     *
+     * @return identificador del estado, o {@code null} si el estado no corresponde a ninguno conocido.
+     */
+    public SaleStatus getStatus() {
+        return state.getStatus();
+    }
+
     /**
      * Cambia el estado interno de la venta.
      *
@@ -114,37 +182,41 @@ public class Sale {
      * @param product producto a agregar.
      * 
      * @param quantity cantidad asociada al producto.
+     * @return resultado de la operación.
      */
-    public void addProduct(Product product, double quantity) {
-        state.addProduct(this, product, quantity);
+    public SaleOutcome addProduct(Product product, double quantity) {
+        return state.tryAddProduct(this, product, quantity);
     }
 
     /**
      * Intenta aplicar un descuento a la venta.
      * 
      * <p>La validez de esta acción depende del estado interno de la venta.</p>
-     * 
+     *
+     * @return resultado de la operación.
      */
-    public void applyDiscount() {
-        state.applyDiscount(this);
+    public SaleOutcome applyDiscount() {
+        return state.tryApplyDiscount(this);
     }
 
     /**
      * Intenta finalizar la venta.
      * <p>El cambio a estado pagado solo es válido si la venta está pendiente.</p>
+     *
+     * @return resultado de la operación.
      */
-    public void finalizeSale() {
-        state.finalizeSale(this);
+    public SaleOutcome finalizeSale() {
+        return state.tryFinalizeSale(this);
     }
 
     /**
      * Intenta cancelar la venta.
      * <p>La validez de esta operación depende del estado actual.</p>
+     *
+     * @return resultado de la operación.
      */
-
-    public void cancelSale() {
-        state.cancelSale(this);
-    
+    public SaleOutcome cancelSale() {
+        return state.tryCancelSale(this);
     }
 
 
@@ -152,20 +224,12 @@ public class Sale {
     /**
      * Calcula el total sin aplicar ningún tipo de descuento.
      * 
-     * <p>Este método es utilizado por los estados para recalcular el monto base antes de aplicar la estrategia de descuento.</p>
+     * <p>Este método es utilizado por los estados para obtener el monto base antes de aplicar la estrategia de descuento. Cada línea se cobra con el precio unitario capturado al agregarla; el subtotal se mantiene al día con cada cambio en las líneas, así que la consulta cuesta O(1).</p>
      *
      * @return total bruto sin descuentos.
      */
     public double calculateTotalWithoutDiscount() {
-        double sum = 0.0;
-        for (Map.Entry<Product, Double> entry : items.entrySet()) {
-
-            Product product = entry.getKey();
-
-            double quantity = entry.getValue();
-            sum += product.calculatePrice(quantity);
-        }
-        return sum;
+        return items.getSubtotal();
     }
 
 }
\ No newline at end of file
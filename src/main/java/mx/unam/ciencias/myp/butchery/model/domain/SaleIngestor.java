@@ -0,0 +1,319 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.DatabaseManager;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.NotificationCoalescer;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleStatus;
+import mx.unam.ciencias.myp.butchery.util.BloomFilter;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Recepción en lote de ventas registradas sin conexión.
+ *
+ * <p>Cada venta trae un id generado por la caja ({@link Sale#getClientId()}). Los ids ya recibidos
+ * se guardan en la tabla {@code ingested_sales}; al frente de esa tabla hay un {@link BloomFilter}
+ * en memoria, de modo que un id nuevo (el caso común) se descarta sin consultar la base de datos y
+ * solo los posibles repetidos pasan a la verificación exacta. Reenviar un lote ya recibido no vuelve
+ * a descontar existencias.</p>
+ *
+ * <p>Las existencias se validan para el lote completo en el orden recibido: una venta se acepta si
+ * alcanza lo que queda después de las ventas aceptadas antes que ella. Las ventas aceptadas se
+ * aplican en transacciones de {@code chunkSize} ventas, cada una con el descuento de existencias
+ * y el registro de sus ids; después cada venta aceptada se entrega al registro de ventas dado (el
+ * historial y, desde la fachada, el tablero de más vendidos). El resultado de cada venta se
+ * devuelve en un {@link Report}.</p>
+ */
+public class SaleIngestor {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final int MIN_EXPECTED_IDS = 1024;
+
+    /**
+     * Resultado de una venta del lote.
+     */
+    public enum Status {
+        /** La venta se aplicó. */
+        ACCEPTED,
+        /** La venta ya se había recibido (antes o en el mismo lote). */
+        DUPLICATE,
+        /** No alcanzaron las existencias de algún producto. */
+        INSUFFICIENT_STOCK,
+        /** La venta no tiene id, no tiene líneas, tiene cantidades no positivas o no está pagada. */
+        INVALID,
+        /** La transacción de su bloque falló; la venta puede reenviarse. */
+        FAILED
+    }
+
+    private final Inventory inventory;
+    private final Consumer<Sale> recorder;
+    private final int chunkSize;
+    private BloomFilter seen;
+    private long exactChecks;
+
+    /**
+     * Crea el receptor y carga los ids ya recibidos.
+     *
+     * @param inventory inventario del que se descuentan las existencias
+     * @param recorder  registro al que se entrega cada venta aceptada (por ejemplo, {@link SalesHistory#addSale})
+     * @param chunkSize número de ventas por transacción
+     */
+    public SaleIngestor(Inventory inventory, Consumer<Sale> recorder, int chunkSize) {
+        if (recorder == null) throw new IllegalArgumentException("recorder cannot be null");
+        if (chunkSize <= 0) throw new IllegalArgumentException("chunkSize must be > 0");
+        this.inventory = inventory;
+        this.recorder = recorder;
+        this.chunkSize = chunkSize;
+        rebuildFilter();
+    }
+
+    /**
+     * Recibe un lote de ventas.
+     *
+     * @param sales ventas en el orden en que se registraron
+     * @return resultado de cada venta, en el mismo orden
+     */
+    public synchronized Report ingest(List<Sale> sales) {
+        Result[] results = new Result[sales.size()];
+        List<Integer> candidates = new ArrayList<>();
+        Set<String> inBatch = new HashSet<>();
+
+        for (int i = 0; i < sales.size(); i++) {
+            Sale sale = sales.get(i);
+            String id = sale == null ? null : sale.getClientId();
+            if (sale == null || id == null || id.isBlank()) {
+                results[i] = new Result(id, Status.INVALID, "Sale has no client id");
+            } else if (sale.getStatus() != SaleStatus.PAID) {
+                results[i] = new Result(id, Status.INVALID, "Sale is not paid");
+            } else if (sale.getLines().isEmpty()) {
+                results[i] = new Result(id, Status.INVALID, "Sale has no items");
+            } else if (!hasPositiveQuantities(sale.getLines())) {
+                results[i] = new Result(id, Status.INVALID, "Sale has non-positive quantities");
+            } else if (!inBatch.add(id) || isIngested(id)) {
+                results[i] = new Result(id, Status.DUPLICATE, "Sale already ingested");
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        synchronized (inventory) {
+            List<Integer> accepted = new ArrayList<>();
+            Map<Product, Double> reserved = new HashMap<>();
+            for (int i : candidates) {
+                Sale sale = sales.get(i);
+                String missing = reserve(sale.getLines(), reserved);
+                if (missing != null) {
+                    results[i] = new Result(sale.getClientId(), Status.INSUFFICIENT_STOCK, "Insufficient stock for product: " + missing);
+                } else {
+                    accepted.add(i);
+                }
+            }
+
+            for (int from = 0; from < accepted.size(); from += chunkSize) {
+                List<Integer> chunk = accepted.subList(from, Math.min(from + chunkSize, accepted.size()));
+                applyChunk(sales, chunk, results);
+            }
+        }
+        return new Report(results);
+    }
+
+    /**
+     * Consulta exacta (filtro de Bloom y, si hace falta, base de datos) de un id.
+     *
+     * @param clientId id de la venta
+     * @return {@code true} si la venta ya se recibió
+     */
+    public synchronized boolean isIngested(String clientId) {
+        if (!seen.mightContain(clientId)) return false;
+        exactChecks++;
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT 1 FROM ingested_sales WHERE client_id=?")) {
+            ps.setString(1, clientId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error checking ingested sale", e);
+        }
+    }
+
+    /**
+     * @return número de consultas a la base de datos hechas porque el filtro no pudo descartar el id.
+     */
+    public synchronized long getExactCheckCount() {
+        return exactChecks;
+    }
+
+    private static boolean hasPositiveQuantities(SaleLines lines) {
+        for (int j = 0; j < lines.size(); j++) {
+            if (!(lines.getQuantity(j) > 0)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Aparta las cantidades de una venta si alcanzan las existencias que quedan.
+     *
+     * @return nombre del primer producto que no alcanza, o {@code null} si se apartó todo
+     */
+    private String reserve(SaleLines lines, Map<Product, Double> reserved) {
+        for (int j = 0; j < lines.size(); j++) {
+            Product p = lines.getProduct(j);
+            double needed = reserved.getOrDefault(p, 0.0) + lines.getQuantity(j);
+            if (inventory.getStock(p) < needed) return p.getName();
+        }
+        for (int j = 0; j < lines.size(); j++) {
+            reserved.merge(lines.getProduct(j), lines.getQuantity(j), Double::sum);
+        }
+        return null;
+    }
+
+    private void applyChunk(List<Sale> sales, List<Integer> chunk, Result[] results) {
+        Map<Product, Double> demand = new LinkedHashMap<>();
+        for (int i : chunk) {
+            SaleLines lines = sales.get(i).getLines();
+            for (int j = 0; j < lines.size(); j++) demand.merge(lines.getProduct(j), lines.getQuantity(j), Double::sum);
+        }
+
+        long now = System.currentTimeMillis();
+        NotificationCoalescer.Scope scope = inventory.openNotificationScope("Offline sales");
+        try {
+            inventory.reduceStockBatch(demand, conn -> {
+                try (PreparedStatement ps = conn.prepareStatement("INSERT INTO ingested_sales(client_id,ingested_at,total) VALUES (?,?,?)")) {
+                    for (int i : chunk) {
+                        Sale sale = sales.get(i);
+                        ps.setString(1, sale.getClientId());
+                        ps.setLong(2, now);
+                        ps.setDouble(3, sale.getTotal());
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+            });
+        } catch (RuntimeException e) {
+            String reason = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            for (int i : chunk) results[i] = new Result(sales.get(i).getClientId(), Status.FAILED, reason);
+            return;
+        } finally {
+            scope.close();
+        }
+
+        for (int i : chunk) {
+            Sale sale = sales.get(i);
+            seen.add(sale.getClientId());
+            recorder.accept(sale);
+            results[i] = new Result(sale.getClientId(), Status.ACCEPTED, null);
+        }
+        if (seen.isSaturated()) rebuildFilter();
+    }
+
+    /**
+     * Crea el filtro con el doble de los ids guardados (al menos {@value #MIN_EXPECTED_IDS}) y los carga.
+     */
+    private void rebuildFilter() {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+
+            int count;
+            try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM ingested_sales")) {
+                count = rs.next() ? rs.getInt(1) : 0;
+            }
+            BloomFilter filter = new BloomFilter(Math.max(MIN_EXPECTED_IDS, count * 2), FALSE_POSITIVE_PROBABILITY);
+            try (ResultSet rs = stmt.executeQuery("SELECT client_id FROM ingested_sales")) {
+                while (rs.next()) filter.add(rs.getString(1));
+            }
+            this.seen = filter;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error loading ingested sale ids", e);
+        }
+    }
+
+    /**
+     * Resultado de una venta del lote.
+     */
+    public static final class Result {
+
+        private final String clientId;
+        private final Status status;
+        private final String message;
+
+        Result(String clientId, Status status, String message) {
+            this.clientId = clientId;
+            this.status = status;
+            this.message = message;
+        }
+
+        /**
+         * @return id de la venta, o {@code null} si no tenía.
+         */
+        public String getClientId() { return clientId; }
+
+        /**
+         * @return resultado de la venta.
+         */
+        public Status getStatus() { return status; }
+
+        /**
+         * @return motivo del rechazo, o {@code null} si se aceptó.
+         */
+        public String getMessage() { return message; }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return clientId + " | " + status + (message == null ? "" : " | " + message);
+        }
+    }
+
+    /**
+     * Resultados de un lote, en el orden en que se recibieron las ventas.
+     */
+    public static final class Report {
+
+        private final List<Result> results;
+        private final int[] counts;
+
+        Report(Result[] results) {
+            this.results = Collections.unmodifiableList(Arrays.asList(results));
+            this.counts = new int[Status.values().length];
+            for (Result r : results) counts[r.getStatus().ordinal()]++;
+        }
+
+        /**
+         * @return resultado de cada venta.
+         */
+        public List<Result> getResults() { return results; }
+
+        /**
+         * @param status resultado buscado
+         * @return número de ventas con ese resultado
+         */
+        public int count(Status status) { return counts[status.ordinal()]; }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Ingested " + results.size() + " sales");
+            for (Status s : Status.values()) sb.append(" | ").append(s).append(": ").append(count(s));
+            return sb.toString();
+        }
+    }
+}
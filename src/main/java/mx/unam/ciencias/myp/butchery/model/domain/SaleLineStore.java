@@ -0,0 +1,402 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Almacén columnar, de solo anexar, de las líneas de venta.
+ *
+ * <p>Cada línea se guarda como el ordinal de su producto, el instante de la venta en milisegundos y
+ * la cantidad, el precio unitario y el descuento en punto fijo ({@value #QUANTITY_SCALE} partes por
+ * kilo o pieza y {@value #MONEY_SCALE} por peso), en arreglos primitivos por columna repartidos en
+ * bloques de {@value #CHUNK_SIZE} líneas. Los productos se guardan una sola vez en un diccionario
+ * id → ordinal, así que el almacén no retiene las ventas ni los productos. Aparte se guarda el nombre
+ * actual de cada ordinal (el de su venta más reciente o el que se fije con {@link #rename}), que es
+ * el que se usa en los resultados; así un cambio de nombre no parte la historia de un producto.</p>
+ *
+ * <p>Cada bloque lleva el mínimo y el máximo de su instante y de su ordinal. Una consulta salta los
+ * bloques que no pueden tener líneas dentro de sus filtros y, en los bloques que caen completos
+ * dentro de la ventana de tiempo, omite la comparación por línea; el resto es un recorrido lineal
+ * sobre arreglos primitivos.</p>
+ *
+ * <p>Creado con un {@link SaleSpillStore}, el almacén conserva en memoria solo los
+ * {@code residentChunks} bloques más recientes: al llenarse uno más, el más viejo se escribe al
+ * archivo {@value #FILE_NAME} del directorio de segmentos y en memoria quedan solo sus estadísticas
+ * (unos cuantos bytes por bloque de {@value #CHUNK_SIZE} líneas). Las consultas que no pueden saltar
+ * un bloque escrito lo leen a través de una caché LRU de {@code cachedChunks} bloques.</p>
+ */
+public class SaleLineStore {
+
+    static final int CHUNK_SIZE = 4096;
+    static final long QUANTITY_SCALE = 1000;
+    static final long MONEY_SCALE = 100;
+    static final String FILE_NAME = "lines.col";
+    private static final int CHUNK_BYTES = CHUNK_SIZE * (Integer.BYTES + 4 * Long.BYTES);
+
+    /**
+     * Valor sumado por una consulta.
+     */
+    public enum Measure {
+        /** Cantidad vendida, en kilos o piezas según el producto. */
+        QUANTITY,
+        /** Importe cobrado: cantidad por precio unitario menos el descuento de la línea. */
+        REVENUE,
+        /** Descuento de la línea. */
+        DISCOUNT,
+        /** Número de líneas. */
+        LINES
+    }
+
+    /** Ordinal por id de producto. */
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    /** Nombre actual por ordinal. */
+    private final List<String> names = new ArrayList<>();
+    /** Estadísticas de todos los bloques; los que siguen en memoria son el propio {@link Chunk}. */
+    private final List<Stats> chunks = new ArrayList<>();
+    private final SaleSpillStore spill;
+    private final int residentChunks;
+    private final Map<Integer, Chunk> cache;
+    private int spilledChunks;
+    private long size;
+    private long scannedChunks;
+    private long skippedChunks;
+    private long chunkLoads;
+
+    /**
+     * Crea un almacén que conserva todos sus bloques en memoria.
+     */
+    public SaleLineStore() {
+        this(null, Integer.MAX_VALUE, 1);
+    }
+
+    /**
+     * Crea un almacén que escribe sus bloques viejos junto a los segmentos de ventas.
+     *
+     * @param spill          segmentos de ventas en cuyo directorio se escriben los bloques, o {@code null} para conservarlos todos en memoria
+     * @param residentChunks bloques más recientes que siempre se conservan en memoria
+     * @param cachedChunks   bloques escritos que se conservan en memoria tras leerse
+     */
+    public SaleLineStore(SaleSpillStore spill, int residentChunks, int cachedChunks) {
+        if (residentChunks <= 0) throw new IllegalArgumentException("residentChunks must be > 0");
+        if (cachedChunks <= 0) throw new IllegalArgumentException("cachedChunks must be > 0");
+        this.spill = spill;
+        this.residentChunks = residentChunks;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Chunk> eldest) {
+                return size() > cachedChunks;
+            }
+        };
+    }
+
+    /**
+     * Anexa las líneas de una venta. El descuento de la venta (subtotal menos total) se reparte entre
+     * sus líneas en proporción a su importe.
+     *
+     * @param sale venta a anexar
+     */
+    public synchronized void append(Sale sale) {
+        SaleLines lines = sale.getLines();
+        if (lines.isEmpty()) return;
+        long at = toMillis(sale.getTimestamp());
+        double subtotal = lines.getSubtotal();
+        double discount = Math.max(0.0, subtotal - sale.getTotal());
+
+        for (int i = 0; i < lines.size(); i++) {
+            Product product = lines.getProduct(i);
+            Integer ordinal = ordinals.get(product.getId());
+            if (ordinal == null) {
+                ordinal = names.size();
+                ordinals.put(product.getId(), ordinal);
+                names.add(product.getName());
+            } else {
+                names.set(ordinal, product.getName());
+            }
+            double lineDiscount = subtotal > 0 ? discount * lines.getLineTotal(i) / subtotal : 0.0;
+            tail().add(ordinal, at,
+                    Math.round(lines.getQuantity(i) * QUANTITY_SCALE),
+                    Math.round(lines.getUnitPrice(i) * MONEY_SCALE),
+                    Math.round(lineDiscount * MONEY_SCALE));
+            size++;
+        }
+    }
+
+    /**
+     * Cambia el nombre con que aparece un producto en los resultados, sin tocar sus líneas.
+     *
+     * @param productId id del producto
+     * @param name      nombre nuevo
+     */
+    public synchronized void rename(String productId, String name) {
+        Integer ordinal = ordinals.get(productId);
+        if (ordinal != null) names.set(ordinal, name);
+    }
+
+    /**
+     * Suma una medida por producto en una ventana de tiempo.
+     *
+     * @param measure medida a sumar
+     * @param from    inicio de la ventana (inclusivo), o {@code null} para no acotar
+     * @param to      fin de la ventana (exclusivo), o {@code null} para no acotar
+     * @return suma por nombre actual de producto, en el orden en que los productos aparecieron; solo
+     * productos con líneas en la ventana
+     */
+    public synchronized Map<String, Double> sumByProduct(Measure measure, LocalDateTime from, LocalDateTime to) {
+        long lo = from == null ? Long.MIN_VALUE : toMillis(from);
+        long hi = to == null ? Long.MAX_VALUE : toMillis(to);
+        long[] sums = new long[names.size()];
+        long[] counts = new long[names.size()];
+
+        for (int i = 0; i < chunks.size(); i++) {
+            Stats st = chunks.get(i);
+            if (st.maxTime < lo || st.minTime >= hi) {
+                skippedChunks++;
+                continue;
+            }
+            scannedChunks++;
+            Chunk c = chunk(i);
+            boolean whole = c.minTime >= lo && c.maxTime < hi;
+            for (int r = 0; r < c.size; r++) {
+                if (!whole && (c.time[r] < lo || c.time[r] >= hi)) continue;
+                sums[c.product[r]] += c.value(measure, r);
+                counts[c.product[r]]++;
+            }
+        }
+
+        Map<String, Double> out = new LinkedHashMap<>();
+        for (int p = 0; p < sums.length; p++) {
+            if (counts[p] > 0) out.merge(names.get(p), scale(measure, sums[p]), Double::sum);
+        }
+        return out;
+    }
+
+    /**
+     * Suma una medida de un producto en una ventana de tiempo.
+     *
+     * @param measure medida a sumar
+     * @param product nombre actual del producto
+     * @param from    inicio de la ventana (inclusivo), o {@code null} para no acotar
+     * @param to      fin de la ventana (exclusivo), o {@code null} para no acotar
+     * @return suma de la medida; 0 si el producto no tiene líneas
+     */
+    public synchronized double sum(Measure measure, String product, LocalDateTime from, LocalDateTime to) {
+        int p = names.indexOf(product);
+        if (p < 0) return 0.0;
+        long lo = from == null ? Long.MIN_VALUE : toMillis(from);
+        long hi = to == null ? Long.MAX_VALUE : toMillis(to);
+        long sum = 0;
+
+        for (int i = 0; i < chunks.size(); i++) {
+            Stats st = chunks.get(i);
+            if (st.maxTime < lo || st.minTime >= hi || p < st.minProduct || p > st.maxProduct) {
+                skippedChunks++;
+                continue;
+            }
+            scannedChunks++;
+            Chunk c = chunk(i);
+            boolean whole = c.minTime >= lo && c.maxTime < hi;
+            for (int r = 0; r < c.size; r++) {
+                if (c.product[r] != p || (!whole && (c.time[r] < lo || c.time[r] >= hi))) continue;
+                sum += c.value(measure, r);
+            }
+        }
+        return scale(measure, sum);
+    }
+
+    /**
+     * @return número de líneas guardadas.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    /**
+     * @return número de bloques.
+     */
+    public synchronized int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * @return número de bloques cuyas columnas están en memoria: los recientes más los de la caché.
+     */
+    public synchronized int getChunksInMemory() {
+        return chunks.size() - spilledChunks + cache.size();
+    }
+
+    /**
+     * @return número de veces que se leyó un bloque del disco por no estar en la caché.
+     */
+    public synchronized long getChunkLoadCount() {
+        return chunkLoads;
+    }
+
+    /**
+     * @return número de bloques recorridos por las consultas hechas hasta ahora.
+     */
+    public synchronized long getScannedChunkCount() {
+        return scannedChunks;
+    }
+
+    /**
+     * @return número de bloques que las consultas hechas hasta ahora saltaron por sus estadísticas.
+     */
+    public synchronized long getSkippedChunkCount() {
+        return skippedChunks;
+    }
+
+    private Chunk tail() {
+        if (chunks.isEmpty() || chunks.get(chunks.size() - 1).size == CHUNK_SIZE) {
+            if (spill != null && chunks.size() - spilledChunks >= residentChunks) spillOldest();
+            chunks.add(new Chunk());
+        }
+        return (Chunk) chunks.get(chunks.size() - 1);
+    }
+
+    private Chunk chunk(int i) {
+        if (i >= spilledChunks) return (Chunk) chunks.get(i);
+        Chunk c = cache.get(i);
+        if (c == null) {
+            c = readChunk(i);
+            cache.put(i, c);
+            chunkLoads++;
+        }
+        return c;
+    }
+
+    /**
+     * Escribe el bloque residente más viejo (siempre lleno) y deja en su lugar solo sus estadísticas.
+     */
+    private void spillOldest() {
+        int i = spilledChunks;
+        Chunk c = (Chunk) chunks.get(i);
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+        buffer.asIntBuffer().put(c.product);
+        buffer.position(CHUNK_SIZE * Integer.BYTES);
+        LongBuffer longs = buffer.asLongBuffer();
+        longs.put(c.time).put(c.quantity).put(c.price).put(c.discount);
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(spill.resolve(FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long offset = (long) i * CHUNK_BYTES;
+            while (buffer.hasRemaining()) offset += channel.write(buffer, offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        chunks.set(i, c.stats());
+        spilledChunks++;
+    }
+
+    private Chunk readChunk(int i) {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+        try (FileChannel channel = FileChannel.open(spill.resolve(FILE_NAME), StandardOpenOption.READ)) {
+            long offset = (long) i * CHUNK_BYTES;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, offset);
+                if (read < 0) throw new IOException("Truncated line chunk " + i);
+                offset += read;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.flip();
+        Chunk c = new Chunk();
+        buffer.asIntBuffer().get(c.product);
+        buffer.position(CHUNK_SIZE * Integer.BYTES);
+        LongBuffer longs = buffer.asLongBuffer();
+        longs.get(c.time).get(c.quantity).get(c.price).get(c.discount);
+        Stats st = chunks.get(i);
+        c.size = st.size;
+        c.minTime = st.minTime;
+        c.maxTime = st.maxTime;
+        c.minProduct = st.minProduct;
+        c.maxProduct = st.maxProduct;
+        return c;
+    }
+
+    private static double scale(Measure measure, long sum) {
+        switch (measure) {
+            case QUANTITY: return (double) sum / QUANTITY_SCALE;
+            case LINES: return sum;
+            default: return (double) sum / MONEY_SCALE;
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Estadísticas de un bloque: su número de líneas y el rango de instantes y ordinales que contiene.
+     */
+    private static class Stats {
+
+        int size;
+        long minTime = Long.MAX_VALUE;
+        long maxTime = Long.MIN_VALUE;
+        int minProduct = Integer.MAX_VALUE;
+        int maxProduct = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Bloque de líneas: una columna por atributo, además de sus estadísticas.
+     */
+    private static final class Chunk extends Stats {
+
+        private final int[] product = new int[CHUNK_SIZE];
+        private final long[] time = new long[CHUNK_SIZE];
+        private final long[] quantity = new long[CHUNK_SIZE];
+        private final long[] price = new long[CHUNK_SIZE];
+        private final long[] discount = new long[CHUNK_SIZE];
+
+        /**
+         * @return copia de las estadísticas, sin las columnas.
+         */
+        Stats stats() {
+            Stats st = new Stats();
+            st.size = size;
+            st.minTime = minTime;
+            st.maxTime = maxTime;
+            st.minProduct = minProduct;
+            st.maxProduct = maxProduct;
+            return st;
+        }
+
+        void add(int p, long at, long qty, long unitPrice, long disc) {
+            product[size] = p;
+            time[size] = at;
+            quantity[size] = qty;
+            price[size] = unitPrice;
+            discount[size] = disc;
+            size++;
+            minTime = Math.min(minTime, at);
+            maxTime = Math.max(maxTime, at);
+            minProduct = Math.min(minProduct, p);
+            maxProduct = Math.max(maxProduct, p);
+        }
+
+        /**
+         * Valor de una línea en la escala de su medida (milésimas para cantidad, centavos para dinero).
+         */
+        long value(Measure measure, int r) {
+            switch (measure) {
+                case QUANTITY: return quantity[r];
+                case REVENUE: return Math.round((double) quantity[r] * price[r] / QUANTITY_SCALE) - discount[r];
+                case DISCOUNT: return discount[r];
+                default: return 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Líneas de una venta guardadas en arreglos paralelos.
+ *
+ * <p>Cada línea ocupa la misma posición en tres arreglos: el producto, la cantidad y el precio
+ * unitario capturado al agregar la línea. Un índice de direccionamiento abierto (sondeo lineal)
+ * guarda, por producto, la posición de su línea, de modo que agregar un producto repetido suma a
+ * su línea sin crear nodos ni valores envueltos. Los arreglos crecen al doble, así que una venta
+ * de cientos de líneas hace solo unas cuantas asignaciones.</p>
+ *
+ * <p>El importe de cada línea se guarda en un cuarto arreglo y el subtotal se mantiene al día con cada
+ * cambio mediante una suma compensada (Kahan-Neumaier), así que leerlo cuesta O(1) y no acumula
+ * error aunque haya muchas líneas con kilos fraccionarios.</p>
+ *
+ * <p>La clase es además una vista {@link Map} de producto a cantidad, para el código que trabaja
+ * con el mapa de la venta. Las líneas conservan el orden en que se agregaron.</p>
+ *
+ * <p>Unas líneas selladas ({@link #seal()}) ya no se pueden cambiar: cualquier escritura lanza
+ * {@link UnsupportedOperationException}.</p>
+ */
+public class SaleLines extends AbstractMap<Product, Double> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private Product[] products;
+    private double[] quantities;
+    private double[] unitPrices;
+    private double[] lineTotals;
+    private int size;
+
+    private double subtotal;
+    private double compensation;
+    private boolean sealed;
+
+    /** Posición de la línea más uno por ranura; 0 indica ranura vacía. Su tamaño es potencia de dos. */
+    private int[] index;
+
+    /**
+     * Crea un conjunto de líneas vacío.
+     */
+    public SaleLines() {
+        this.products = new Product[INITIAL_CAPACITY];
+        this.quantities = new double[INITIAL_CAPACITY];
+        this.unitPrices = new double[INITIAL_CAPACITY];
+        this.lineTotals = new double[INITIAL_CAPACITY];
+        this.index = new int[INITIAL_CAPACITY * 2];
+        this.size = 0;
+    }
+
+    /**
+     * Suma una cantidad a la línea del producto, creando la línea si no existe. Al crearla se
+     * captura el precio unitario vigente del producto.
+     *
+     * @param product  producto vendido
+     * @param quantity cantidad a sumar
+     * @return posición de la línea
+     */
+    public int add(Product product, double quantity) {
+        int line = indexOf(product);
+        if (line >= 0) {
+            setQuantity(line, quantities[line] + quantity);
+            return line;
+        }
+        return append(product, quantity);
+    }
+
+    /**
+     * @param product producto buscado
+     * @return posición de su línea, o -1 si no está en la venta
+     */
+    public int indexOf(Object product) {
+        if (product == null) return -1;
+        int mask = index.length - 1;
+        for (int slot = spread(product.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+            int entry = index[slot];
+            if (entry == 0) return -1;
+            if (products[entry - 1].equals(product)) return entry - 1;
+        }
+    }
+
+    /**
+     * @param line posición de la línea
+     * @return producto de la línea
+     */
+    public Product getProduct(int line) {
+        check(line);
+        return products[line];
+    }
+
+    /**
+     * @param line posición de la línea
+     * @return cantidad de la línea
+     */
+    public double getQuantity(int line) {
+        check(line);
+        return quantities[line];
+    }
+
+    /**
+     * @param line posición de la línea
+     * @return precio unitario (por pieza o por kg) capturado al agregar la línea
+     */
+    public double getUnitPrice(int line) {
+        check(line);
+        return unitPrices[line];
+    }
+
+    /**
+     * @param line posición de la línea
+     * @return importe de la línea (cantidad por precio unitario)
+     */
+    public double getLineTotal(int line) {
+        check(line);
+        return lineTotals[line];
+    }
+
+    /**
+     * @return suma de los importes de todas las líneas, sin descuento.
+     */
+    public double getSubtotal() {
+        return subtotal + compensation;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Double get(Object key) {
+        int line = indexOf(key);
+        return line < 0 ? null : quantities[line];
+    }
+
+    /**
+     * Reemplaza la cantidad de la línea del producto, creándola si no existe.
+     *
+     * @param product  producto vendido
+     * @param quantity nueva cantidad
+     * @return cantidad anterior, o {@code null} si el producto no estaba en la venta
+     */
+    @Override
+    public Double put(Product product, Double quantity) {
+        if (product == null || quantity == null) throw new IllegalArgumentException("product and quantity cannot be null");
+        int line = indexOf(product);
+        if (line < 0) {
+            append(product, quantity);
+            return null;
+        }
+        double old = quantities[line];
+        setQuantity(line, quantity);
+        return old;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Double remove(Object key) {
+        int line = indexOf(key);
+        if (line < 0) return null;
+        double old = quantities[line];
+        removeLine(line);
+        return old;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        checkWritable();
+        Arrays.fill(products, 0, size, null);
+        Arrays.fill(index, 0);
+        size = 0;
+        subtotal = 0.0;
+        compensation = 0.0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Set<Map.Entry<Product, Double>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<Product, Double>> iterator() {
+                return new LineIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Impide cualquier cambio posterior a las líneas.
+     */
+    void seal() {
+        sealed = true;
+    }
+
+    private void checkWritable() {
+        if (sealed) throw new UnsupportedOperationException("Sale lines are read-only");
+    }
+
+    private int append(Product product, double quantity) {
+        checkWritable();
+        if (product == null) throw new IllegalArgumentException("product cannot be null");
+        if (size == products.length) {
+            int capacity = size * 2;
+            products = Arrays.copyOf(products, capacity);
+            quantities = Arrays.copyOf(quantities, capacity);
+            unitPrices = Arrays.copyOf(unitPrices, capacity);
+            lineTotals = Arrays.copyOf(lineTotals, capacity);
+            index = new int[capacity * 2];
+            for (int i = 0; i < size; i++) insertIndex(i);
+        }
+        products[size] = product;
+        quantities[size] = quantity;
+        unitPrices[size] = product.calculatePrice(1.0);
+        lineTotals[size] = quantity * unitPrices[size];
+        accumulate(lineTotals[size]);
+        insertIndex(size);
+        return size++;
+    }
+
+    private void setQuantity(int line, double quantity) {
+        checkWritable();
+        double total = quantity * unitPrices[line];
+        accumulate(total - lineTotals[line]);
+        quantities[line] = quantity;
+        lineTotals[line] = total;
+    }
+
+    /**
+     * Suma compensada de Neumaier: {@code compensation} guarda los bits de orden bajo que se
+     * pierden al sumar a {@code subtotal}.
+     */
+    private void accumulate(double value) {
+        double t = subtotal + value;
+        if (Math.abs(subtotal) >= Math.abs(value)) compensation += (subtotal - t) + value;
+        else compensation += (value - t) + subtotal;
+        subtotal = t;
+    }
+
+    private void removeLine(int line) {
+        checkWritable();
+        accumulate(-lineTotals[line]);
+        int moved = size - line - 1;
+        System.arraycopy(products, line + 1, products, line, moved);
+        System.arraycopy(quantities, line + 1, quantities, line, moved);
+        System.arraycopy(unitPrices, line + 1, unitPrices, line, moved);
+        System.arraycopy(lineTotals, line + 1, lineTotals, line, moved);
+        products[--size] = null;
+        if (size == 0) {
+            subtotal = 0.0;
+            compensation = 0.0;
+        }
+        Arrays.fill(index, 0);
+        for (int i = 0; i < size; i++) insertIndex(i);
+    }
+
+    private void insertIndex(int line) {
+        int mask = index.length - 1;
+        int slot = spread(products[line].hashCode()) & mask;
+        while (index[slot] != 0) slot = (slot + 1) & mask;
+        index[slot] = line + 1;
+    }
+
+    private void check(int line) {
+        if (line < 0 || line >= size) throw new IndexOutOfBoundsException("line " + line);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Recorre las líneas en orden; cada entrada escribe su valor directamente en la línea.
+     */
+    private final class LineIterator implements Iterator<Map.Entry<Product, Double>> {
+
+        private int next;
+        private int last = -1;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public Map.Entry<Product, Double> next() {
+            if (next >= size) throw new NoSuchElementException();
+            last = next++;
+            int line = last;
+            return new AbstractMap.SimpleEntry<>(products[line], quantities[line]) {
+                @Override
+                public Double setValue(Double value) {
+                    setQuantity(line, value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) throw new IllegalStateException();
+            removeLine(last);
+            next = last;
+            last = -1;
+        }
+    }
+}
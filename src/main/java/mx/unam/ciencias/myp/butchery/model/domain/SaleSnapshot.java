@@ -0,0 +1,115 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.ISaleState;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleOutcome;
+import mx.unam.ciencias.myp.butchery.model.patrones.strategy.IDiscountStrategy;
+
+import java.time.LocalDateTime;
+
+/**
+ * Copia de solo lectura de una venta ya cerrada, reconstruida desde un segmento en disco.
+ *
+ * <p>La copia conserva el id de caja, el instante, el estado, el total cobrado y las líneas con su
+ * precio unitario capturado, pero no la estrategia de descuento ni los objetos de producto
+ * originales. Por eso no se puede volver a operar: los cambios de estado devuelven
+ * {@link SaleOutcome#REJECTED}, los setters, {@link #getStrategy()} y cualquier cambio a las líneas
+ * lanzan {@link UnsupportedOperationException}, y {@link #getTotal()} siempre es el total original.</p>
+ */
+public final class SaleSnapshot extends Sale {
+
+    /**
+     * Crea la copia; las líneas se agregan con {@link #addLine} antes de {@link #seal()}.
+     *
+     * @param clientId  id de la venta asignado por la caja, o {@code null}
+     * @param timestamp instante de la venta
+     * @param state     estado de la venta
+     * @param total     total cobrado
+     */
+    SaleSnapshot(String clientId, LocalDateTime timestamp, ISaleState state, double total) {
+        super(clientId);
+        super.setTimestamp(timestamp);
+        super.setState(state);
+        super.setTotal(total);
+    }
+
+    void addLine(Product product, double quantity) {
+        getLines().add(product, quantity);
+    }
+
+    void seal() {
+        getLines().seal();
+    }
+
+    /**
+     * @throws UnsupportedOperationException siempre: la copia no guarda la estrategia, su total ya la incluye.
+     */
+    @Override
+    public IDiscountStrategy getStrategy() {
+        throw new UnsupportedOperationException("A spilled sale does not keep its discount strategy");
+    }
+
+    /**
+     * @throws UnsupportedOperationException siempre.
+     */
+    @Override
+    public void setStrategy(IDiscountStrategy strategy) {
+        throw new UnsupportedOperationException("A spilled sale is read-only");
+    }
+
+    /**
+     * @throws UnsupportedOperationException siempre.
+     */
+    @Override
+    public void setTotal(double total) {
+        throw new UnsupportedOperationException("A spilled sale is read-only");
+    }
+
+    /**
+     * @throws UnsupportedOperationException siempre.
+     */
+    @Override
+    public void setTimestamp(LocalDateTime timestamp) {
+        throw new UnsupportedOperationException("A spilled sale is read-only");
+    }
+
+    /**
+     * @throws UnsupportedOperationException siempre.
+     */
+    @Override
+    public void setState(ISaleState state) {
+        throw new UnsupportedOperationException("A spilled sale is read-only");
+    }
+
+    /**
+     * @return siempre {@link SaleOutcome#REJECTED}.
+     */
+    @Override
+    public SaleOutcome addProduct(Product product, double quantity) {
+        return SaleOutcome.REJECTED;
+    }
+
+    /**
+     * @return siempre {@link SaleOutcome#REJECTED}.
+     */
+    @Override
+    public SaleOutcome applyDiscount() {
+        return SaleOutcome.REJECTED;
+    }
+
+    /**
+     * @return siempre {@link SaleOutcome#REJECTED}.
+     */
+    @Override
+    public SaleOutcome finalizeSale() {
+        return SaleOutcome.REJECTED;
+    }
+
+    /**
+     * @return siempre {@link SaleOutcome#REJECTED}.
+     */
+    @Override
+    public SaleOutcome cancelSale() {
+        return SaleOutcome.REJECTED;
+    }
+}
@@ -0,0 +1,294 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByUnit;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByWeight;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.CanceledState;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.ISaleState;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.PaidState;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.PendingState;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Segmentos en disco con las ventas que ya no caben en memoria.
+ *
+ * <p>Cada segmento guarda exactamente {@code segmentSize} ventas en un archivo binario compacto:
+ * primero la tabla de productos distintos del segmento (id, nombre, tipo y precio unitario
+ * capturado) y luego cada venta con su id de caja, instante, estado, total y líneas, que apuntan a
+ * la tabla por índice. La venta {@code i} está en el segmento {@code i / segmentSize}.</p>
+ *
+ * <p>Los segmentos no cambian después de escritos. Los leídos recientemente se conservan en una
+ * caché LRU de {@code cachedSegments} segmentos. Al leer, cada venta se reconstruye como un
+ * {@link SaleSnapshot} de solo lectura con su estado, su total y sus líneas; la estrategia de
+ * descuento no se guarda (el total ya la incluye), así que la copia no permite recalcular nada.</p>
+ *
+ * <p>{@link #close()} borra los segmentos. Si el almacén creó su propio directorio temporal, lo borra
+ * completo y, por si el proceso termina sin cerrarlo, registra al crearlo un único gancho de salida
+ * que hace lo mismo.</p>
+ */
+public class SaleSpillStore implements AutoCloseable {
+
+    private Path directory;
+    private Thread cleanup;
+    private final int segmentSize;
+    private int segmentCount;
+    private final Set<String> extraFiles = new HashSet<>();
+    private final Map<Integer, List<Sale>> cache;
+    private long loads;
+
+    /**
+     * Crea el almacén en un directorio temporal nuevo, que se crea al escribir el primer segmento.
+     *
+     * @param segmentSize    ventas por segmento
+     * @param cachedSegments número de segmentos que se conservan en memoria tras leerse
+     */
+    public SaleSpillStore(int segmentSize, int cachedSegments) {
+        this(null, segmentSize, cachedSegments);
+    }
+
+    /**
+     * Crea el almacén.
+     *
+     * @param directory      directorio donde se escriben los segmentos, o {@code null} para usar uno temporal
+     * @param segmentSize    ventas por segmento
+     * @param cachedSegments número de segmentos que se conservan en memoria tras leerse
+     */
+    public SaleSpillStore(Path directory, int segmentSize, int cachedSegments) {
+        if (segmentSize <= 0) throw new IllegalArgumentException("segmentSize must be > 0");
+        if (cachedSegments <= 0) throw new IllegalArgumentException("cachedSegments must be > 0");
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Sale>> eldest) {
+                return size() > cachedSegments;
+            }
+        };
+    }
+
+    /**
+     * Escribe un segmento nuevo.
+     *
+     * @param sales exactamente {@code segmentSize} ventas, las más viejas primero
+     */
+    public synchronized void write(List<Sale> sales) {
+        if (sales.size() != segmentSize) throw new IllegalArgumentException("A segment holds exactly " + segmentSize + " sales");
+        Path file = directory().resolve(segmentName(segmentCount));
+
+        Map<String, Integer> productIndex = new LinkedHashMap<>();
+        List<Product> products = new ArrayList<>();
+        List<Double> prices = new ArrayList<>();
+        for (Sale sale : sales) {
+            SaleLines lines = sale.getLines();
+            for (int i = 0; i < lines.size(); i++) {
+                Product p = lines.getProduct(i);
+                String key = productKey(p, lines.getUnitPrice(i));
+                if (productIndex.putIfAbsent(key, products.size()) == null) {
+                    products.add(p);
+                    prices.add(lines.getUnitPrice(i));
+                }
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(products.size());
+            for (int j = 0; j < products.size(); j++) {
+                Product p = products.get(j);
+                out.writeUTF(p.getId() == null ? "" : p.getId());
+                out.writeUTF(p.getName() == null ? "" : p.getName());
+                out.writeBoolean(p instanceof ProductByWeight);
+                out.writeDouble(prices.get(j));
+            }
+            out.writeInt(sales.size());
+            for (Sale sale : sales) {
+                LocalDateTime at = sale.getTimestamp();
+                out.writeBoolean(sale.getClientId() != null);
+                if (sale.getClientId() != null) out.writeUTF(sale.getClientId());
+                out.writeLong(at.toEpochSecond(ZoneOffset.UTC));
+                out.writeInt(at.getNano());
+                out.writeByte(sale.getStatus() == null ? -1 : sale.getStatus().ordinal());
+                out.writeDouble(sale.getTotal());
+                SaleLines lines = sale.getLines();
+                out.writeInt(lines.size());
+                for (int i = 0; i < lines.size(); i++) {
+                    out.writeInt(productIndex.get(productKey(lines.getProduct(i), lines.getUnitPrice(i))));
+                    out.writeDouble(lines.getQuantity(i));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        segmentCount++;
+    }
+
+    /**
+     * Lee un segmento, de la caché si está ahí.
+     *
+     * @param index número del segmento
+     * @return ventas del segmento, no modificable
+     */
+    public synchronized List<Sale> read(int index) {
+        if (index < 0 || index >= segmentCount) throw new IndexOutOfBoundsException("segment " + index);
+        List<Sale> sales = cache.get(index);
+        if (sales == null) {
+            sales = load(directory.resolve(segmentName(index)));
+            cache.put(index, sales);
+            loads++;
+        }
+        return sales;
+    }
+
+    /**
+     * @return número de segmentos escritos.
+     */
+    public synchronized int getSegmentCount() {
+        return segmentCount;
+    }
+
+    /**
+     * @return ventas por segmento.
+     */
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * @return número de veces que se leyó un segmento del disco por no estar en la caché.
+     */
+    public synchronized long getLoadCount() {
+        return loads;
+    }
+
+    /**
+     * Borra los segmentos escritos y los archivos auxiliares y vacía la caché; si el directorio es
+     * temporal, lo borra también.
+     */
+    @Override
+    public synchronized void close() {
+        cache.clear();
+        if (cleanup != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(cleanup);
+            } catch (IllegalStateException ignored) {
+                // el proceso ya está terminando; el gancho borra lo mismo
+            }
+            cleanup = null;
+            deleteTree(directory);
+            directory = null;
+        } else if (directory != null) {
+            List<String> names = new ArrayList<>(extraFiles);
+            for (int i = 0; i < segmentCount; i++) names.add(segmentName(i));
+            for (String name : names) {
+                try {
+                    Files.deleteIfExists(directory.resolve(name));
+                } catch (IOException ignored) {
+                    // el archivo queda huérfano en el directorio del llamador
+                }
+            }
+        }
+        extraFiles.clear();
+        segmentCount = 0;
+    }
+
+    /**
+     * Da la ruta de un archivo auxiliar en el directorio de los segmentos, que {@link #close()}
+     * borra junto con ellos.
+     *
+     * @param name nombre del archivo
+     * @return ruta del archivo
+     */
+    synchronized Path resolve(String name) {
+        extraFiles.add(name);
+        return directory().resolve(name);
+    }
+
+    private static String segmentName(int index) {
+        return String.format("sales-%06d.seg", index);
+    }
+
+    private static String productKey(Product p, double unitPrice) {
+        return p.getId() + '\u0000' + p.getName() + '\u0000' + (p instanceof ProductByWeight) + '\u0000' + unitPrice;
+    }
+
+    private static List<Sale> load(Path file) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            Product[] products = new Product[in.readInt()];
+            for (int j = 0; j < products.length; j++) {
+                String id = in.readUTF();
+                String name = in.readUTF();
+                boolean byWeight = in.readBoolean();
+                double price = in.readDouble();
+                products[j] = byWeight ? new ProductByWeight(id, name, price) : new ProductByUnit(id, name, price);
+            }
+
+            int count = in.readInt();
+            List<Sale> sales = new ArrayList<>(count);
+            for (int s = 0; s < count; s++) {
+                String clientId = in.readBoolean() ? in.readUTF() : null;
+                LocalDateTime at = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+                int status = in.readByte();
+                ISaleState state = status == SaleStatus.PAID.ordinal() ? PaidState.INSTANCE
+                        : status == SaleStatus.CANCELED.ordinal() ? CanceledState.INSTANCE
+                        : PendingState.INSTANCE;
+                SaleSnapshot sale = new SaleSnapshot(clientId, at, state, in.readDouble());
+                int lines = in.readInt();
+                for (int i = 0; i < lines; i++) {
+                    Product p = products[in.readInt()];
+                    sale.addLine(p, in.readDouble());
+                }
+                sale.seal();
+                sales.add(sale);
+            }
+            return Collections.unmodifiableList(sales);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path directory() {
+        try {
+            if (directory == null) {
+                Path temp = Files.createTempDirectory("butchery-sales-");
+                directory = temp;
+                cleanup = new Thread(() -> deleteTree(temp), "sales-spill-cleanup");
+                Runtime.getRuntime().addShutdownHook(cleanup);
+            } else {
+                Files.createDirectories(directory);
+            }
+            return directory;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Borra un directorio y los archivos que contiene; los que no se puedan borrar se dejan.
+     */
+    private static void deleteTree(Path dir) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        } catch (IOException ignored) {
+            // el sistema limpia el directorio temporal
+        }
+    }
+}
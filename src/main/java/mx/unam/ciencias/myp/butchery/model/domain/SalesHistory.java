@@ -1,48 +1,177 @@
 package mx.unam.ciencias.myp.butchery.model.domain;
 
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByWeight;
+
+import java.time.LocalDateTime;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * Clase que mantiene el historial de ventas realizadas.
- * 
+ *
+ * <p>Es segura para hilos: varias cajas pueden registrar ventas al mismo tiempo.</p>
+ *
+ * <p>Cada venta registrada se suma a un {@link RevenueRollup} con su instante, así que el ingreso
+ * total y el de una ventana de tiempo se consultan sin recorrer las ventas. Sus líneas también se
+ * anexan a un {@link SaleLineStore} columnar, sobre el que se hacen las consultas por producto.</p>
+ *
+ * <p>Con un {@link SaleSpillStore}, el historial solo conserva en memoria las ventas más recientes:
+ * cuando hay {@code window} ventas más un segmento completo, las más viejas se escriben a disco.
+ * {@link #getSales()} sigue devolviendo todas las ventas, leyendo las del disco a través de la caché
+ * de segmentos conforme se recorren. El almacén de líneas escribe también sus bloques viejos en el
+ * directorio de los segmentos, así que con acumulados persistentes, que solo conservan sus cubetas
+ * recientes, la memoria del historial no crece con el número de ventas.</p>
+ *
  * @author Luis
  */
 public class SalesHistory {
 
+    private static final int LINE_CHUNKS_IN_MEMORY = 2;
+    private static final int LINE_CHUNKS_CACHED = 2;
+
     private final List<Sale> sales;
+    private final RevenueRollup rollup;
+    private final SaleLineStore lines;
+    private final SaleSpillStore spill;
+    private final int window;
 
+    /**
+     * Crea un historial vacío con acumulados solo en memoria.
+     */
     public SalesHistory() {
+        this(new RevenueRollup());
+    }
+
+    /**
+     * Crea un historial vacío que suma sus ventas a los acumulados dados.
+     * @param rollup acumulados de ventas (por ejemplo, {@link RevenueRollup#persistent()})
+     */
+    public SalesHistory(RevenueRollup rollup) {
+        this(rollup, null, 0);
+    }
+
+    /**
+     * Crea un historial vacío que conserva en memoria solo las ventas recientes.
+     * @param rollup acumulados de ventas (por ejemplo, {@link RevenueRollup#persistent()})
+     * @param spill  segmentos donde se escriben las ventas viejas, o {@code null} para conservar todas en memoria
+     * @param window número de ventas recientes que siempre se conservan en memoria
+     */
+    public SalesHistory(RevenueRollup rollup, SaleSpillStore spill, int window) {
+        if (rollup == null) throw new IllegalArgumentException("rollup cannot be null");
+        if (window < 0) throw new IllegalArgumentException("window must be >= 0");
         this.sales = new ArrayList<>();
+        this.rollup = rollup;
+        this.lines = spill == null ? new SaleLineStore() : new SaleLineStore(spill, LINE_CHUNKS_IN_MEMORY, LINE_CHUNKS_CACHED);
+        this.spill = spill;
+        this.window = window;
     }
 
     /**
      * Añade una venta al historial.
      * @param sale venta finalizada a agregar (no debe ser null)
      */
-    public void addSale(Sale sale) {
+    public synchronized void addSale(Sale sale) {
         if (sale == null) throw new IllegalArgumentException("sale cannot be null");
         sales.add(sale);
+
+        double kg = 0.0;
+        double units = 0.0;
+        SaleLines saleLines = sale.getLines();
+        for (int i = 0; i < saleLines.size(); i++) {
+            if (saleLines.getProduct(i) instanceof ProductByWeight) kg += saleLines.getQuantity(i);
+            else units += saleLines.getQuantity(i);
+        }
+        rollup.record(sale.getTimestamp(), sale.getTotal(), kg, units);
+        lines.append(sale);
+
+        if (spill != null && sales.size() >= window + spill.getSegmentSize()) {
+            List<Sale> oldest = sales.subList(0, spill.getSegmentSize());
+            spill.write(oldest);
+            oldest.clear();
+        }
     }
 
     /**
-     * Devuelve una lista no modificable con las ventas registradas.
+     * Devuelve una vista no modificable de las ventas registradas, de la más vieja a la más reciente.
+     * Las ventas registradas después de la llamada no aparecen en la vista.
      * @return lista de ventas
      */
-    public List<Sale> getSales() {
-        return Collections.unmodifiableList(sales);
+    public synchronized List<Sale> getSales() {
+        int spilled = spill == null ? 0 : spill.getSegmentCount();
+        if (spilled == 0) return Collections.unmodifiableList(new ArrayList<>(sales));
+        return new SpilledSales(spill, spilled, new ArrayList<>(sales));
     }
 
     /**
-     * Calcula los ingresos totales acumulados en el historial.
+     * @return número de ventas registradas, en memoria y en disco.
+     */
+    public synchronized int getSaleCount() {
+        int spilled = spill == null ? 0 : spill.getSegmentCount() * spill.getSegmentSize();
+        return spilled + sales.size();
+    }
+
+    /**
+     * Devuelve los ingresos totales acumulados. Si los acumulados son persistentes, incluyen las
+     * ventas registradas antes del último reinicio.
      * @return suma de totales de ventas
      */
     public double getTotalRevenue() {
-        double sum = 0.0;
-        for (Sale s : sales) {
-            sum += s.getTotal();
+        return rollup.getTotal().getRevenue();
+    }
+
+    /**
+     * Acumula las ventas de una ventana de tiempo, con resolución de una hora.
+     * @param from inicio de la ventana (inclusivo)
+     * @param to   fin de la ventana (exclusivo)
+     * @return ingreso, número de ventas, kilos y piezas de la ventana
+     */
+    public RevenueRollup.Totals summarize(LocalDateTime from, LocalDateTime to) {
+        return rollup.summarize(from, to);
+    }
+
+    /**
+     * @return acumulados por hora, día y mes de las ventas registradas.
+     */
+    public RevenueRollup getRollup() {
+        return rollup;
+    }
+
+    /**
+     * @return almacén columnar con las líneas de las ventas registradas.
+     */
+    public SaleLineStore getLineStore() {
+        return lines;
+    }
+
+    /**
+     * Ventas escritas a disco seguidas de las que estaban en memoria al crear la vista.
+     */
+    private static final class SpilledSales extends AbstractList<Sale> implements RandomAccess {
+
+        private final SaleSpillStore spill;
+        private final int segments;
+        private final List<Sale> recent;
+
+        SpilledSales(SaleSpillStore spill, int segments, List<Sale> recent) {
+            this.spill = spill;
+            this.segments = segments;
+            this.recent = recent;
+        }
+
+        @Override
+        public Sale get(int index) {
+            int spilled = segments * spill.getSegmentSize();
+            if (index < 0 || index >= spilled + recent.size()) throw new IndexOutOfBoundsException("index " + index);
+            if (index >= spilled) return recent.get(index - spilled);
+            return spill.read(index / spill.getSegmentSize()).get(index % spill.getSegmentSize());
+        }
+
+        @Override
+        public int size() {
+            return segments * spill.getSegmentSize() + recent.size();
         }
-        return sum;
     }
 }
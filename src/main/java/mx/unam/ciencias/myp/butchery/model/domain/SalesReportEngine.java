@@ -0,0 +1,277 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByWeight;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Motor de reportes de ventas en paralelo.
+ *
+ * <p>Divide la lista de ventas a la mitad hasta llegar a tramos de a lo más el umbral de la corrida
+ * y los agrega en un {@link ForkJoinPool} con el paralelismo configurado. Cada tramo acumula en su
+ * propio {@link Partial}, con arreglos primitivos indexados por el ordinal del producto; los
+ * ordinales se reparten por id de producto en la corrida con un mapa concurrente. Cada tramo
+ * recuerda además el nombre con que apareció cada producto en su venta más reciente, y el reporte
+ * usa ese nombre, así que un producto renombrado no se parte en dos. Las mezclas suman campo por
+ * campo y conservan el nombre más reciente, así que son asociativas y el resultado no depende de
+ * cómo se dividió la lista.</p>
+ */
+public class SalesReportEngine implements AutoCloseable {
+
+    private static final int MIN_CHUNK = 512;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea un motor que usa todos los procesadores disponibles.
+     */
+    public SalesReportEngine() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Crea un motor con un paralelismo dado.
+     *
+     * @param parallelism número de hilos del motor
+     */
+    public SalesReportEngine(int parallelism) {
+        if (parallelism <= 0) throw new IllegalArgumentException("parallelism must be > 0");
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * @return número de hilos del motor.
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Agrega un conjunto de ventas.
+     *
+     * @param sales ventas a agregar; la lista no debe cambiar durante la corrida
+     * @return reporte de las ventas
+     */
+    public SalesReport run(List<Sale> sales) {
+        if (sales == null) throw new IllegalArgumentException("sales cannot be null");
+        Dictionary dictionary = new Dictionary();
+        int threshold = Math.max(MIN_CHUNK, sales.size() / (pool.getParallelism() * CHUNKS_PER_THREAD) + 1);
+        Partial total = pool.invoke(new Chunk(sales, 0, sales.size(), threshold, dictionary));
+        return new SalesReport(total, dictionary.size());
+    }
+
+    /**
+     * Detiene los hilos del motor.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    /**
+     * Ordinales, por id, de los productos vistos en una corrida, repartidos entre hilos.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+
+        int ordinalOf(String productId) {
+            Integer ordinal = ordinals.get(productId);
+            return ordinal != null ? ordinal : assign(productId);
+        }
+
+        private synchronized int assign(String productId) {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal != null) return ordinal;
+            ordinal = ordinals.size();
+            ordinals.put(productId, ordinal);
+            return ordinal;
+        }
+
+        synchronized int size() {
+            return ordinals.size();
+        }
+    }
+
+    /**
+     * Tramo [from, to) de la lista de ventas.
+     */
+    private static final class Chunk extends RecursiveTask<Partial> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<Sale> sales;
+        private final int from;
+        private final int to;
+        private final int threshold;
+        private final Dictionary dictionary;
+
+        Chunk(List<Sale> sales, int from, int to, int threshold, Dictionary dictionary) {
+            this.sales = sales;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= threshold) {
+                Partial partial = new Partial();
+                for (int i = from; i < to; i++) partial.add(sales.get(i), i, dictionary);
+                return partial;
+            }
+            int mid = (from + to) >>> 1;
+            Chunk left = new Chunk(sales, from, mid, threshold, dictionary);
+            Chunk right = new Chunk(sales, mid, to, threshold, dictionary);
+            left.fork();
+            Partial r = right.compute();
+            return left.join().merge(r);
+        }
+    }
+
+    /**
+     * Acumulado de un tramo de ventas.
+     */
+    private static final class Partial {
+
+        private long sales;
+        private long lines;
+        private double revenue;
+        private double[] revenueByProduct = new double[16];
+        private double[] kgByProduct = new double[16];
+        private double[] unitsByProduct = new double[16];
+        /** Nombre de cada producto en la venta más reciente del tramo que lo incluye, y la posición de esa venta. */
+        private String[] names = new String[16];
+        private int[] namedAt = new int[16];
+
+        void add(Sale sale, int index, Dictionary dictionary) {
+            SaleLines saleLines = sale.getLines();
+            double subtotal = saleLines.getSubtotal();
+            double ratio = subtotal > 0 ? sale.getTotal() / subtotal : 0.0;
+
+            sales++;
+            lines += saleLines.size();
+            revenue += sale.getTotal();
+            for (int i = 0; i < saleLines.size(); i++) {
+                Product product = saleLines.getProduct(i);
+                int p = dictionary.ordinalOf(product.getId());
+                ensure(p + 1);
+                name(p, product.getName(), index);
+                revenueByProduct[p] += saleLines.getLineTotal(i) * ratio;
+                if (saleLines.getProduct(i) instanceof ProductByWeight) kgByProduct[p] += saleLines.getQuantity(i);
+                else unitsByProduct[p] += saleLines.getQuantity(i);
+            }
+        }
+
+        Partial merge(Partial other) {
+            sales += other.sales;
+            lines += other.lines;
+            revenue += other.revenue;
+            ensure(other.revenueByProduct.length);
+            for (int p = 0; p < other.revenueByProduct.length; p++) {
+                revenueByProduct[p] += other.revenueByProduct[p];
+                kgByProduct[p] += other.kgByProduct[p];
+                unitsByProduct[p] += other.unitsByProduct[p];
+                if (other.names[p] != null) name(p, other.names[p], other.namedAt[p]);
+            }
+            return this;
+        }
+
+        private void name(int p, String name, int index) {
+            if (names[p] == null || index >= namedAt[p]) {
+                names[p] = name;
+                namedAt[p] = index;
+            }
+        }
+
+        private void ensure(int length) {
+            if (length <= revenueByProduct.length) return;
+            int n = Math.max(length, revenueByProduct.length * 2);
+            revenueByProduct = Arrays.copyOf(revenueByProduct, n);
+            kgByProduct = Arrays.copyOf(kgByProduct, n);
+            unitsByProduct = Arrays.copyOf(unitsByProduct, n);
+            names = Arrays.copyOf(names, n);
+            namedAt = Arrays.copyOf(namedAt, n);
+        }
+    }
+
+    /**
+     * Resultado de una corrida del motor.
+     */
+    public static final class SalesReport {
+
+        private final long sales;
+        private final long lines;
+        private final double revenue;
+        private final Map<String, Double> revenueByProduct = new LinkedHashMap<>();
+        private final Map<String, Double> kgByProduct = new LinkedHashMap<>();
+        private final Map<String, Double> unitsByProduct = new LinkedHashMap<>();
+
+        SalesReport(Partial total, int products) {
+            this.sales = total.sales;
+            this.lines = total.lines;
+            this.revenue = total.revenue;
+            for (int p = 0; p < products && p < total.names.length; p++) {
+                String name = total.names[p];
+                if (name == null) continue;
+                revenueByProduct.merge(name, total.revenueByProduct[p], Double::sum);
+                if (total.kgByProduct[p] > 0) kgByProduct.merge(name, total.kgByProduct[p], Double::sum);
+                if (total.unitsByProduct[p] > 0) unitsByProduct.merge(name, total.unitsByProduct[p], Double::sum);
+            }
+        }
+
+        /**
+         * @return número de ventas.
+         */
+        public long getSaleCount() { return sales; }
+
+        /**
+         * @return ingreso total.
+         */
+        public double getTotalRevenue() { return revenue; }
+
+        /**
+         * @return promedio de líneas por venta, o 0 si no hay ventas.
+         */
+        public double getAverageBasketSize() { return sales == 0 ? 0.0 : (double) lines / sales; }
+
+        /**
+         * @return importe promedio por venta, o 0 si no hay ventas.
+         */
+        public double getAverageTicket() { return sales == 0 ? 0.0 : revenue / sales; }
+
+        /**
+         * @return ingreso por nombre actual de producto, con el descuento de cada venta repartido entre sus líneas.
+         */
+        public Map<String, Double> getRevenueByProduct() { return Collections.unmodifiableMap(revenueByProduct); }
+
+        /**
+         * @return kilos vendidos por nombre de corte (solo productos por peso).
+         */
+        public Map<String, Double> getKgByProduct() { return Collections.unmodifiableMap(kgByProduct); }
+
+        /**
+         * @return piezas vendidas por nombre de producto (solo productos por pieza).
+         */
+        public Map<String, Double> getUnitsByProduct() { return Collections.unmodifiableMap(unitsByProduct); }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("Sales: %d | Revenue: %.2f | Avg basket: %.2f lines | Avg ticket: %.2f",
+                    sales, revenue, getAverageBasketSize(), getAverageTicket());
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import java.util.Arrays;
+
+/**
+ * Movimientos de existencias de un producto ordenados en el tiempo.
+ *
+ * <p>Cada movimiento es un par (instante, cambio) guardado en arreglos primitivos paralelos. Cada
+ * {@value #CHECKPOINT_INTERVAL} movimientos se guarda además el saldo acumulado hasta ese punto.
+ * Consultar el saldo en un instante T cuesta una búsqueda binaria para ubicar el último movimiento
+ * anterior o igual a T y una suma de, a lo más, {@value #CHECKPOINT_INTERVAL} cambios a partir del
+ * saldo guardado más cercano.</p>
+ *
+ * <p>Los instantes se expresan en milisegundos desde la época Unix. Si un movimiento llega con un
+ * instante anterior al último (por ejemplo, por un ajuste del reloj), se registra en el instante
+ * del último para conservar el orden.</p>
+ */
+public class StockTimeline {
+
+    /** Número de movimientos entre saldos guardados. */
+    public static final int CHECKPOINT_INTERVAL = 64;
+
+    private long[] times;
+    private double[] deltas;
+    private double[] checkpoints;
+    private int size;
+    private double balance;
+
+    /**
+     * Crea una línea de tiempo vacía (saldo 0).
+     */
+    public StockTimeline() {
+        this.times = new long[8];
+        this.deltas = new double[8];
+        this.checkpoints = new double[1];
+        this.size = 0;
+        this.balance = 0.0;
+    }
+
+    /**
+     * Registra un movimiento.
+     *
+     * @param time  instante del movimiento
+     * @param delta cambio en las existencias (positivo entra, negativo sale)
+     */
+    void record(long time, double delta) {
+        if (size > 0 && time < times[size - 1]) time = times[size - 1];
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            deltas = Arrays.copyOf(deltas, size * 2);
+        }
+        times[size] = time;
+        deltas[size] = delta;
+        size++;
+        balance += delta;
+        if (size % CHECKPOINT_INTERVAL == 0) {
+            int cp = size / CHECKPOINT_INTERVAL - 1;
+            if (cp == checkpoints.length) checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+            checkpoints[cp] = balance;
+        }
+    }
+
+    /**
+     * Devuelve el saldo después de todos los movimientos ocurridos hasta un instante.
+     *
+     * @param time instante consultado (inclusivo)
+     * @return existencias en ese instante; 0 si es anterior al primer movimiento
+     */
+    public double balanceAt(long time) {
+        int last = upperBound(time) - 1;
+        if (last < 0) return 0.0;
+        if (last == size - 1) return balance;
+        int cp = (last + 1) / CHECKPOINT_INTERVAL;
+        double sum = cp == 0 ? 0.0 : checkpoints[cp - 1];
+        for (int i = cp * CHECKPOINT_INTERVAL; i <= last; i++) sum += deltas[i];
+        return sum;
+    }
+
+    /**
+     * @return saldo actual.
+     */
+    public double getBalance() {
+        return balance;
+    }
+
+    /**
+     * @return número de movimientos registrados.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i posición del movimiento (0 es el más antiguo)
+     * @return instante del movimiento
+     */
+    public long getTime(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("movement " + i);
+        return times[i];
+    }
+
+    /**
+     * @param i posición del movimiento (0 es el más antiguo)
+     * @return cambio en las existencias
+     */
+    public double getDelta(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException("movement " + i);
+        return deltas[i];
+    }
+
+    /**
+     * Primera posición cuyo instante es mayor que {@code time}.
+     */
+    private int upperBound(long time) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] <= time) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,182 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Sesión de conteo físico (toma de inventario).
+ *
+ * <p>Al iniciarse guarda una foto de las existencias del {@link Inventory}. Los conteos se capturan
+ * uno por uno o se importan en bloque sin tocar el inventario, así que las ventas siguen su curso
+ * mientras se cuenta. Al aplicar la sesión con {@link Inventory#applyStocktake(StocktakeSession)},
+ * a cada producto contado se le suma la diferencia entre lo contado y la foto; de esta forma las
+ * ventas ocurridas durante el conteo no se pierden.</p>
+ */
+public class StocktakeSession {
+
+    private static final double EPSILON = 1e-9;
+
+    private final LocalDateTime startedAt;
+    private final Map<String, Product> productsByName;
+    private final Map<Product, Double> expected;
+    private final Map<Product, Double> counted;
+    private boolean applied;
+
+    /**
+     * Crea una sesión a partir de una foto de las existencias.
+     *
+     * @param snapshot copia de las existencias al iniciar la sesión
+     */
+    StocktakeSession(Map<Product, Double> snapshot) {
+        this.startedAt = LocalDateTime.now();
+        this.expected = new HashMap<>(snapshot);
+        this.productsByName = new HashMap<>();
+        for (Product p : snapshot.keySet()) productsByName.put(p.getName().toLowerCase(Locale.ROOT), p);
+        this.counted = new LinkedHashMap<>();
+        this.applied = false;
+    }
+
+    /**
+     * Registra la cantidad contada de un producto. Un segundo conteo del mismo producto reemplaza al anterior.
+     *
+     * @param name     nombre del producto (sin distinguir mayúsculas)
+     * @param quantity cantidad contada
+     * @throws IllegalArgumentException si el producto no estaba en el inventario al iniciar la sesión o la cantidad es negativa
+     * @throws IllegalStateException    si la sesión ya fue aplicada
+     */
+    public void count(String name, double quantity) {
+        if (applied) throw new IllegalStateException("Stocktake already applied");
+        if (quantity < 0) throw new IllegalArgumentException("Quantity must be >= 0");
+        Product p = productsByName.get(name.trim().toLowerCase(Locale.ROOT));
+        if (p == null) throw new IllegalArgumentException("Product not found: " + name);
+        counted.put(p, quantity);
+    }
+
+    /**
+     * Importa conteos en formato {@code nombre,cantidad}, una línea por producto.
+     * Se ignoran las líneas vacías y las que empiezan con {@code #}.
+     *
+     * @param in fuente de los conteos
+     * @return número de conteos importados
+     * @throws IOException              si no se puede leer la fuente
+     * @throws IllegalArgumentException si alguna línea es inválida (el mensaje indica el número de línea)
+     */
+    public int importCounts(Reader in) throws IOException {
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        int imported = 0;
+        int lineNo = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNo++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+            int comma = trimmed.lastIndexOf(',');
+            if (comma <= 0) throw new IllegalArgumentException("Invalid stocktake line " + lineNo + ": " + line);
+            try {
+                count(trimmed.substring(0, comma), Double.parseDouble(trimmed.substring(comma + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid quantity on stocktake line " + lineNo + ": " + line);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Stocktake line " + lineNo + ": " + e.getMessage());
+            }
+            imported++;
+        }
+        return imported;
+    }
+
+    /**
+     * Lista las diferencias entre lo contado y las existencias registradas al iniciar la sesión.
+     * Los productos contados sin diferencia no aparecen.
+     *
+     * @return diferencias en el orden en que se contaron los productos
+     */
+    public List<Variance> getVariances() {
+        List<Variance> out = new ArrayList<>();
+        for (Map.Entry<Product, Double> e : counted.entrySet()) {
+            double exp = expected.get(e.getKey());
+            if (Math.abs(e.getValue() - exp) > EPSILON) out.add(new Variance(e.getKey(), exp, e.getValue()));
+        }
+        return out;
+    }
+
+    /**
+     * @return conteos capturados hasta ahora.
+     */
+    public Map<Product, Double> getCounts() {
+        return Collections.unmodifiableMap(counted);
+    }
+
+    /**
+     * @return fecha y hora en que inició la sesión.
+     */
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    /**
+     * @return {@code true} si la sesión ya fue aplicada al inventario.
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+
+    void markApplied() {
+        this.applied = true;
+    }
+
+    /**
+     * Diferencia entre la cantidad esperada y la contada de un producto.
+     */
+    public static class Variance {
+
+        private final Product product;
+        private final double expected;
+        private final double counted;
+
+        Variance(Product product, double expected, double counted) {
+            this.product = product;
+            this.expected = expected;
+            this.counted = counted;
+        }
+
+        /**
+         * @return producto contado.
+         */
+        public Product getProduct() { return product; }
+
+        /**
+         * @return existencias registradas al iniciar la sesión.
+         */
+        public double getExpected() { return expected; }
+
+        /**
+         * @return cantidad contada.
+         */
+        public double getCounted() { return counted; }
+
+        /**
+         * @return ajuste a aplicar (positivo si sobra, negativo si falta).
+         */
+        public double getDifference() { return counted - expected; }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("%s | Expected: %.2f | Counted: %.2f | Difference: %+.2f",
+                    product.getName(), expected, counted, getDifference());
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.util.CompressedBitSet;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Índice en memoria de categorías y etiquetas de los productos del inventario.
+ *
+ * <p>Cada categoría o etiqueta apunta a un {@link CompressedBitSet} sobre los ordinales de los
+ * productos que la tienen, de modo que un filtrado como "cerdo y en promoción, pero no marinado"
+ * se resuelve con operaciones de conjuntos en lugar de revisar producto por producto.</p>
+ *
+ * <p>Las modificaciones solo las realiza {@link Inventory}; el resto del sistema consulta el
+ * índice a través de {@link TagQuery}.</p>
+ */
+public class TagIndex {
+
+    /**
+     * Tipos de etiqueta soportados por el índice.
+     */
+    public enum Kind {
+        CATEGORY,
+        TAG
+    }
+
+    private final Map<Kind, Map<String, CompressedBitSet>> labels;
+    private final CompressedBitSet universe;
+
+    /**
+     * Crea un índice vacío.
+     */
+    public TagIndex() {
+        this.labels = new HashMap<>();
+        for (Kind k : Kind.values()) labels.put(k, new HashMap<>());
+        this.universe = new CompressedBitSet();
+    }
+
+    /**
+     * Normaliza una etiqueta para que las búsquedas no distingan mayúsculas ni espacios sobrantes.
+     *
+     * @param label etiqueta capturada
+     * @return etiqueta normalizada
+     * @throws IllegalArgumentException si la etiqueta es nula o vacía
+     */
+    public static String normalize(String label) {
+        if (label == null || label.isBlank()) throw new IllegalArgumentException("label cannot be empty");
+        return label.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Registra un ordinal como producto vivo del inventario.
+     */
+    void addProduct(int ordinal) {
+        universe.set(ordinal);
+    }
+
+    /**
+     * Quita un ordinal del universo y de todas las etiquetas.
+     */
+    void removeProduct(int ordinal) {
+        universe.clear(ordinal);
+        for (Map<String, CompressedBitSet> byLabel : labels.values()) {
+            byLabel.values().forEach(bits -> bits.clear(ordinal));
+            byLabel.values().removeIf(CompressedBitSet::isEmpty);
+        }
+    }
+
+    /**
+     * Asocia una etiqueta a un producto.
+     * @return {@code true} si la asociación no existía
+     */
+    boolean add(Kind kind, String label, int ordinal) {
+        CompressedBitSet bits = labels.get(kind).computeIfAbsent(normalize(label), k -> new CompressedBitSet());
+        if (bits.get(ordinal)) return false;
+        bits.set(ordinal);
+        return true;
+    }
+
+    /**
+     * Quita una etiqueta de un producto.
+     * @return {@code true} si la asociación existía
+     */
+    boolean remove(Kind kind, String label, int ordinal) {
+        String key = normalize(label);
+        CompressedBitSet bits = labels.get(kind).get(key);
+        if (bits == null || !bits.get(ordinal)) return false;
+        bits.clear(ordinal);
+        if (bits.isEmpty()) labels.get(kind).remove(key);
+        return true;
+    }
+
+    /**
+     * Devuelve el conjunto de productos con la etiqueta dada.
+     *
+     * @param kind  tipo de etiqueta
+     * @param label etiqueta buscada
+     * @return copia del conjunto de ordinales (vacío si la etiqueta no existe)
+     */
+    public CompressedBitSet lookup(Kind kind, String label) {
+        CompressedBitSet bits = labels.get(kind).get(normalize(label));
+        return bits == null ? new CompressedBitSet() : bits.copy();
+    }
+
+    /**
+     * @return copia del conjunto de todos los productos vivos.
+     */
+    public CompressedBitSet universe() {
+        return universe.copy();
+    }
+
+    /**
+     * Devuelve las etiquetas de un tipo que tiene un producto.
+     *
+     * @param kind    tipo de etiqueta
+     * @param ordinal ordinal del producto
+     * @return etiquetas ordenadas alfabéticamente
+     */
+    public Set<String> labelsOf(Kind kind, int ordinal) {
+        Set<String> out = new TreeSet<>();
+        for (Map.Entry<String, CompressedBitSet> e : labels.get(kind).entrySet()) {
+            if (e.getValue().get(ordinal)) out.add(e.getKey());
+        }
+        return out;
+    }
+
+    /**
+     * @param kind tipo de etiqueta
+     * @return todas las etiquetas de ese tipo que tienen al menos un producto.
+     */
+    public Set<String> labels(Kind kind) {
+        return Collections.unmodifiableSet(new TreeSet<>(labels.get(kind).keySet()));
+    }
+}
@@ -0,0 +1,92 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.util.CompressedBitSet;
+
+import java.util.function.Function;
+
+/**
+ * Consulta compuesta sobre las categorías y etiquetas del inventario.
+ *
+ * <p>Las consultas se construyen a partir de {@link #category(String)}, {@link #tag(String)} y
+ * {@link #all()}, y se combinan con {@link #and}, {@link #or}, {@link #andNot} y {@link #not()}.
+ * Al evaluarse contra un {@link TagIndex} el resultado es un conjunto de ordinales obtenido
+ * únicamente con álgebra de conjuntos.</p>
+ *
+ * <pre>
+ *     TagQuery q = TagQuery.category("cerdo").and(TagQuery.tag("promocion")).andNot(TagQuery.tag("marinado"));
+ * </pre>
+ */
+public final class TagQuery {
+
+    private final Function<TagIndex, CompressedBitSet> evaluator;
+
+    private TagQuery(Function<TagIndex, CompressedBitSet> evaluator) {
+        this.evaluator = evaluator;
+    }
+
+    /**
+     * @param category categoría buscada
+     * @return consulta con los productos de esa categoría
+     */
+    public static TagQuery category(String category) {
+        String key = TagIndex.normalize(category);
+        return new TagQuery(index -> index.lookup(TagIndex.Kind.CATEGORY, key));
+    }
+
+    /**
+     * @param tag etiqueta buscada
+     * @return consulta con los productos que tienen esa etiqueta
+     */
+    public static TagQuery tag(String tag) {
+        String key = TagIndex.normalize(tag);
+        return new TagQuery(index -> index.lookup(TagIndex.Kind.TAG, key));
+    }
+
+    /**
+     * @return consulta con todos los productos del inventario.
+     */
+    public static TagQuery all() {
+        return new TagQuery(TagIndex::universe);
+    }
+
+    /**
+     * @param other otra consulta
+     * @return productos que cumplen ambas consultas
+     */
+    public TagQuery and(TagQuery other) {
+        return new TagQuery(index -> evaluate(index).and(other.evaluate(index)));
+    }
+
+    /**
+     * @param other otra consulta
+     * @return productos que cumplen alguna de las dos consultas
+     */
+    public TagQuery or(TagQuery other) {
+        return new TagQuery(index -> evaluate(index).or(other.evaluate(index)));
+    }
+
+    /**
+     * @param other consulta a excluir
+     * @return productos que cumplen esta consulta pero no {@code other}
+     */
+    public TagQuery andNot(TagQuery other) {
+        return new TagQuery(index -> evaluate(index).andNot(other.evaluate(index)));
+    }
+
+    /**
+     * @return productos del inventario que no cumplen esta consulta.
+     */
+    public TagQuery not() {
+        return new TagQuery(index -> index.universe().andNot(evaluate(index)));
+    }
+
+    /**
+     * Evalúa la consulta contra un índice.
+     *
+     * @param index índice de etiquetas
+     * @return conjunto de ordinales que cumplen la consulta
+     */
+    public CompressedBitSet evaluate(TagIndex index) {
+        return evaluator.apply(index);
+    }
+}
@@ -0,0 +1,182 @@
+package mx.unam.ciencias.myp.butchery.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+import mx.unam.ciencias.myp.butchery.util.SpaceSaving;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Productos más vendidos en una ventana móvil, por ingreso y por cantidad.
+ *
+ * <p>La ventana se divide en {@code sliceCount} rebanadas de {@code sliceLength}; cada rebanada tiene un
+ * {@link SpaceSaving} por medida, con memoria fija de {@code capacity} contadores. Al pasar el
+ * tiempo las rebanadas viejas se reciclan, así que la memoria no depende del número de ventas.
+ * Consultar los primeros {@code k} junta a lo más {@code sliceCount × capacity} contadores.</p>
+ *
+ * <p>Al juntar las rebanadas, un producto ausente de una rebanada llena pudo haber pesado ahí hasta
+ * la cuenta mínima de esa rebanada; ese valor se suma a su estimación y a su error, de modo que la
+ * estimación nunca queda por debajo del valor real y {@link SpaceSaving.Entry#getGuaranteed()} nunca
+ * por encima.</p>
+ *
+ * <p>Los contadores se llevan por id de producto y los resultados se reportan con el nombre actual,
+ * el de la venta registrada más reciente o el dado en {@link #rename}; así un producto renombrado
+ * sigue sumando en una sola entrada.</p>
+ */
+public class TopSellers {
+
+    /**
+     * Medida por la que se ordenan los productos.
+     */
+    public enum Measure {
+        /** Importe cobrado, con el descuento de la venta repartido entre sus líneas. */
+        REVENUE,
+        /** Cantidad vendida, en kilos o piezas según el producto. */
+        QUANTITY
+    }
+
+    private final int capacity;
+    private final long sliceMillis;
+    private final SpaceSaving<String>[][] slices;
+    private final long[] sliceIds;
+    private final Map<String, String> names = new HashMap<>();
+
+    /**
+     * Crea el tablero vacío.
+     *
+     * @param capacity    contadores por rebanada y medida
+     * @param sliceLength duración de una rebanada
+     * @param sliceCount  número de rebanadas de la ventana
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TopSellers(int capacity, Duration sliceLength, int sliceCount) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        if (sliceLength == null || sliceLength.toMillis() <= 0) throw new IllegalArgumentException("sliceLength must be positive");
+        if (sliceCount <= 0) throw new IllegalArgumentException("sliceCount must be > 0");
+        this.capacity = capacity;
+        this.sliceMillis = sliceLength.toMillis();
+        this.slices = new SpaceSaving[Measure.values().length][sliceCount];
+        this.sliceIds = new long[sliceCount];
+        Arrays.fill(sliceIds, Long.MIN_VALUE);
+    }
+
+    /**
+     * Suma una venta pagada al tablero, en la rebanada de su instante. Las ventas más viejas que la
+     * ventana se ignoran.
+     *
+     * @param sale venta a registrar
+     */
+    public synchronized void record(Sale sale) {
+        SaleLines lines = sale.getLines();
+        if (lines.isEmpty()) return;
+        double subtotal = lines.getSubtotal();
+        double ratio = subtotal > 0 ? sale.getTotal() / subtotal : 0.0;
+
+        int slot = slotFor(sliceId(sale.getTimestamp()));
+        if (slot < 0) return;
+        for (int i = 0; i < lines.size(); i++) {
+            Product product = lines.getProduct(i);
+            String id = product.getId();
+            names.put(id, product.getName());
+            double revenue = lines.getLineTotal(i) * ratio;
+            double qty = lines.getQuantity(i);
+            if (revenue > 0) slices[Measure.REVENUE.ordinal()][slot].offer(id, revenue);
+            if (qty > 0) slices[Measure.QUANTITY.ordinal()][slot].offer(id, qty);
+        }
+    }
+
+    /**
+     * Cambia el nombre con que se reporta un producto ya registrado; si no hay ventas suyas no hace nada.
+     *
+     * @param productId id del producto
+     * @param name      nombre nuevo
+     */
+    public synchronized void rename(String productId, String name) {
+        names.computeIfPresent(productId, (id, old) -> name);
+    }
+
+    /**
+     * @param measure medida
+     * @param k       número de productos
+     * @return los {@code k} productos con mayor estimación en la ventana que termina ahora
+     */
+    public List<SpaceSaving.Entry<String>> top(Measure measure, int k) {
+        return top(measure, k, LocalDateTime.now());
+    }
+
+    /**
+     * @param measure medida
+     * @param k       número de productos
+     * @param now     fin de la ventana
+     * @return los {@code k} productos con mayor estimación en la ventana que termina en {@code now},
+     * de mayor a menor
+     */
+    public synchronized List<SpaceSaving.Entry<String>> top(Measure measure, int k, LocalDateTime now) {
+        if (k <= 0) throw new IllegalArgumentException("k must be > 0");
+        long newest = sliceId(now);
+        long oldest = newest - sliceIds.length + 1;
+
+        Map<String, double[]> merged = new HashMap<>();
+        double absentCount = 0.0;
+        for (int slot = 0; slot < sliceIds.length; slot++) {
+            if (sliceIds[slot] < oldest || sliceIds[slot] > newest) continue;
+            SpaceSaving<String> s = slices[measure.ordinal()][slot];
+            double min = s.getMinCount();
+            for (SpaceSaving.Entry<String> e : s.entries()) {
+                double[] acc = merged.computeIfAbsent(e.getKey(), key -> new double[3]);
+                acc[0] += e.getEstimate();
+                acc[1] += e.getError();
+                acc[2] += min;
+            }
+            absentCount += min;
+        }
+
+        List<SpaceSaving.Entry<String>> out = new ArrayList<>(merged.size());
+        for (Map.Entry<String, double[]> e : merged.entrySet()) {
+            double[] acc = e.getValue();
+            double missing = absentCount - acc[2];
+            out.add(new SpaceSaving.Entry<>(names.get(e.getKey()), acc[0] + missing, acc[1] + missing));
+        }
+        out.sort((a, b) -> Double.compare(b.getEstimate(), a.getEstimate()));
+        return out.size() > k ? new ArrayList<>(out.subList(0, k)) : out;
+    }
+
+    /**
+     * @param measure medida
+     * @param now     fin de la ventana
+     * @return cota del error de cualquier estimación en la ventana: la suma de las cotas de sus rebanadas
+     */
+    public synchronized double getErrorBound(Measure measure, LocalDateTime now) {
+        long newest = sliceId(now);
+        long oldest = newest - sliceIds.length + 1;
+        double bound = 0.0;
+        for (int slot = 0; slot < sliceIds.length; slot++) {
+            if (sliceIds[slot] >= oldest && sliceIds[slot] <= newest) bound += slices[measure.ordinal()][slot].getErrorBound();
+        }
+        return bound;
+    }
+
+    private long sliceId(LocalDateTime time) {
+        return Math.floorDiv(time.toInstant(ZoneOffset.UTC).toEpochMilli(), sliceMillis);
+    }
+
+    /**
+     * Devuelve la posición de la rebanada, reciclando la que ocupaba esa posición si es más vieja.
+     *
+     * @return posición, o -1 si la rebanada ya salió de la ventana
+     */
+    private int slotFor(long sliceId) {
+        int slot = (int) Math.floorMod(sliceId, (long) sliceIds.length);
+        if (sliceIds[slot] == sliceId) return slot;
+        if (sliceIds[slot] > sliceId) return -1;
+        sliceIds[slot] = sliceId;
+        for (Measure m : Measure.values()) slices[m.ordinal()][slot] = new SpaceSaving<>(capacity);
+        return slot;
+    }
+}
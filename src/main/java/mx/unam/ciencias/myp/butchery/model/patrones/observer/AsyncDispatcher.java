@@ -0,0 +1,418 @@
+package mx.unam.ciencias.myp.butchery.model.patrones.observer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Despachador asíncrono de notificaciones.
+ *
+ * <p>Quien publica solo copia el mensaje a un búfer circular acotado; un hilo dedicado lo vacía y
+ * entrega cada mensaje al destino configurado (normalmente, la lista de observadores del sujeto).
+ * Así, el tiempo de una modificación del inventario ya no depende de qué tan lentos sean los
+ * observadores.</p>
+ *
+ * <p>Cuando el búfer está lleno se aplica la {@link OverflowPolicy} elegida:</p>
+ * <ul>
+ *     <li>{@code BLOCK}: quien publica espera a que haya espacio;</li>
+ *     <li>{@code DROP}: el mensaje se descarta y se cuenta;</li>
+ *     <li>{@code SPILL}: el mensaje (y los siguientes, para conservar el orden) se escriben en un
+ *     archivo de desborde que el despachador procesa en cuanto vacía el búfer.</li>
+ * </ul>
+ *
+ * <p>Las métricas de profundidad (actual y máxima) y los contadores de mensajes publicados,
+ * entregados, descartados y desbordados pueden consultarse en cualquier momento.</p>
+ */
+public class AsyncDispatcher {
+
+    /**
+     * Comportamiento cuando el búfer está lleno.
+     */
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP,
+        SPILL
+    }
+
+    private static final String DEFAULT_SPILL_FILE = "inventory_dispatch_spill.txt";
+
+    private final String[] ring;
+    private final OverflowPolicy policy;
+    private final Consumer<String> sink;
+    private final Path spillFile;
+    private final Path drainingFile;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition idle = lock.newCondition();
+
+    private long head;
+    private long tail;
+    private int spillPending;
+    private BufferedWriter spillWriter;
+    private boolean running;
+    private boolean busy;
+
+    private long published;
+    private long delivered;
+    private long dropped;
+    private long spilled;
+    private int maxDepth;
+
+    private final Thread worker;
+
+    /**
+     * Crea e inicia un despachador que desborda, si es necesario, al archivo por defecto.
+     *
+     * @param capacity capacidad del búfer circular
+     * @param policy   comportamiento cuando el búfer está lleno
+     * @param sink     destino que recibe cada mensaje en el hilo despachador
+     */
+    public AsyncDispatcher(int capacity, OverflowPolicy policy, Consumer<String> sink) {
+        this(capacity, policy, sink, Paths.get(DEFAULT_SPILL_FILE));
+    }
+
+    /**
+     * Crea e inicia un despachador.
+     *
+     * @param capacity  capacidad del búfer circular
+     * @param policy    comportamiento cuando el búfer está lleno
+     * @param sink      destino que recibe cada mensaje en el hilo despachador
+     * @param spillFile archivo de desborde para la política {@code SPILL}
+     */
+    public AsyncDispatcher(int capacity, OverflowPolicy policy, Consumer<String> sink, Path spillFile) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        this.ring = new String[capacity];
+        this.policy = policy;
+        this.sink = sink;
+        this.spillFile = spillFile;
+        this.drainingFile = spillFile.resolveSibling(spillFile.getFileName() + ".draining");
+        this.running = true;
+        this.worker = new Thread(this::drainLoop, "inventory-dispatcher");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Publica un mensaje para entregarse de forma asíncrona.
+     *
+     * @param message mensaje a entregar
+     * @return {@code true} si el mensaje fue aceptado; {@code false} si se descartó
+     * @throws IllegalStateException si el despachador ya fue detenido
+     */
+    public boolean publish(String message) {
+        lock.lock();
+        try {
+            if (!running) throw new IllegalStateException("Dispatcher is shut down");
+            published++;
+
+            if (spillPending > 0 || depth() == ring.length) {
+                switch (policy) {
+                    case DROP:
+                        dropped++;
+                        return false;
+                    case SPILL:
+                        spill(message);
+                        return true;
+                    case BLOCK:
+                    default:
+                        while (depth() == ring.length && running) notFull.awaitUninterruptibly();
+                        if (depth() == ring.length) {
+                            dropped++;
+                            return false;
+                        }
+                }
+            }
+
+            ring[(int) (tail % ring.length)] = message;
+            tail++;
+            maxDepth = Math.max(maxDepth, depth());
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Espera a que todos los mensajes publicados hasta ahora hayan sido entregados.
+     *
+     * @param timeout tiempo máximo de espera
+     * @param unit    unidad del tiempo
+     * @return {@code true} si el despachador quedó ocioso antes del tiempo límite
+     * @throws InterruptedException si el hilo es interrumpido mientras espera
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (depth() > 0 || spillPending > 0 || busy) {
+                if (nanos <= 0) return false;
+                nanos = idle.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Detiene el despachador: deja de aceptar mensajes, entrega los pendientes (incluido el
+     * desborde) y espera a que el hilo termine.
+     */
+    public void shutdown() {
+        lock.lock();
+        try {
+            if (!running) return;
+            running = false;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Ciclo del hilo despachador.
+     */
+    private void drainLoop() {
+        while (true) {
+            List<String> batch = new ArrayList<>();
+            int drainingCount = 0;
+            lock.lock();
+            try {
+                while (depth() == 0 && spillPending == 0 && running) {
+                    busy = false;
+                    idle.signalAll();
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (depth() == 0 && spillPending == 0) {
+                    busy = false;
+                    idle.signalAll();
+                    return;
+                }
+                busy = true;
+                while (depth() > 0) {
+                    int slot = (int) (head % ring.length);
+                    batch.add(ring[slot]);
+                    ring[slot] = null;
+                    head++;
+                }
+                if (spillPending > 0) drainingCount = detachSpill();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (drainingCount > 0) batch.addAll(readSpill(drainingCount));
+
+            for (String message : batch) {
+                try {
+                    sink.accept(message);
+                } catch (RuntimeException e) {
+                    System.err.println("Observer failed: " + e.getMessage());
+                }
+            }
+
+            lock.lock();
+            try {
+                delivered += batch.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Escribe un mensaje en el archivo de desborde. Debe llamarse con el candado tomado.
+     */
+    private void spill(String message) {
+        try {
+            if (spillWriter == null) {
+                spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            }
+            spillWriter.write(message.replace("\\", "\\\\").replace("\n", "\\n"));
+            spillWriter.newLine();
+            spillPending++;
+            spilled++;
+            notEmpty.signal();
+        } catch (IOException e) {
+            dropped++;
+            System.err.println("Could not spill notification: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Cierra el archivo de desborde y lo aparta para leerlo sin el candado; los mensajes que se
+     * desborden mientras tanto van a un archivo nuevo. Debe llamarse con el candado tomado y el
+     * búfer vacío.
+     *
+     * @return número de mensajes apartados, o 0 si no se pudo apartar el archivo (se cuentan como descartados)
+     */
+    private int detachSpill() {
+        int count = spillPending;
+        spillPending = 0;
+        try {
+            spillWriter.close();
+            Files.move(spillFile, drainingFile, StandardCopyOption.REPLACE_EXISTING);
+            return count;
+        } catch (IOException e) {
+            dropped += count;
+            System.err.println("Could not read spill file: " + e.getMessage());
+            return 0;
+        } finally {
+            spillWriter = null;
+        }
+    }
+
+    /**
+     * Lee y borra el archivo apartado por {@link #detachSpill()}, sin el candado. Si la lectura
+     * falla, los mensajes que no se leyeron se cuentan como descartados y el despachador sigue.
+     */
+    private List<String> readSpill(int count) {
+        List<String> out = new ArrayList<>(count);
+        try {
+            try (BufferedReader reader = Files.newBufferedReader(drainingFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    out.add(unescape(line));
+                }
+            }
+            Files.deleteIfExists(drainingFile);
+        } catch (IOException e) {
+            System.err.println("Could not read spill file: " + e.getMessage());
+            lock.lock();
+            try {
+                dropped += count - out.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Revierte el escape de diagonales y saltos de línea aplicado al escribir el desborde.
+     */
+    private static String unescape(String line) {
+        StringBuilder sb = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                sb.append(next == 'n' ? '\n' : next);
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private int depth() {
+        return (int) (tail - head);
+    }
+
+    /**
+     * @return número de mensajes en el búfer en este momento.
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return depth() + spillPending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return profundidad máxima que ha alcanzado el búfer circular.
+     */
+    public int getMaxQueueDepth() {
+        lock.lock();
+        try {
+            return maxDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return capacidad del búfer circular.
+     */
+    public int getCapacity() {
+        return ring.length;
+    }
+
+    /**
+     * @return política de desborde configurada.
+     */
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * @return número de mensajes publicados.
+     */
+    public long getPublishedCount() {
+        lock.lock();
+        try {
+            return published;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return número de mensajes entregados al destino.
+     */
+    public long getDeliveredCount() {
+        lock.lock();
+        try {
+            return delivered;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return número de mensajes descartados por desborde.
+     */
+    public long getDroppedCount() {
+        lock.lock();
+        try {
+            return dropped;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return número de mensajes que pasaron por el archivo de desborde.
+     */
+    public long getSpilledCount() {
+        lock.lock();
+        try {
+            return spilled;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package mx.unam.ciencias.myp.butchery.model.patrones.observer;
+
+import mx.unam.ciencias.myp.butchery.util.MappedLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Suscriptor que escribe cada {@link InventoryEvent} en una {@link MappedLog} binaria.
+ *
+ * <p>Es la fuente de captura de cambios (CDC) del inventario: otros procesos, como reportes o una
+ * segunda caja, pueden seguirla con un {@link mx.unam.ciencias.myp.butchery.util.MappedLogReader} y
+ * decodificar los eventos con {@link InventoryEventCodec#decode}. Cada registro conserva el instante
+ * original del evento.</p>
+ */
+public class ChangeLogWriter implements InventoryListener<InventoryEvent>, Closeable {
+
+    private final MappedLog log;
+    private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+    /**
+     * @param log bitácora de destino
+     */
+    public ChangeLogWriter(MappedLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Codifica el evento y lo agrega a la bitácora.
+     *
+     * @param event evento ocurrido
+     */
+    @Override
+    public synchronized void onEvent(InventoryEvent event) {
+        scratch.clear();
+        scratch = InventoryEventCodec.encode(event, scratch);
+        scratch.flip();
+        log.append(event.getTimestamp(), scratch);
+    }
+
+    /**
+     * @return bitácora de destino.
+     */
+    public MappedLog getLog() {
+        return log;
+    }
+
+    /**
+     * Cierra la bitácora.
+     *
+     * @throws IOException si no se puede cerrar
+     */
+    @Override
+    public void close() throws IOException {
+        log.close();
+    }
+}
@@ -1,20 +1,98 @@
 package mx.unam.ciencias.myp.butchery.model.patrones.observer;
 
-import java.io.FileWriter;
-
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Observador encargado de registrar los cambios del sistema en un archivo de texto.
  *
  * <p>Este notifier se utiliza para dejar una evidencia persistente de los eventos relacionados con el inventario u otros elementos del sistema. Cada vez que el sujeto notifica un cambio, el mensaje recibido se escribe al final del archivo configurado.</p>
  *
+ * <p>El archivo se abre una sola vez (en la primera escritura) y se mantiene abierto. Cada mensaje
+ * solo se copia a un búfer en memoria; el búfer se escribe al archivo según la política de
+ * confirmación en grupo: cada N eventos, cada T milisegundos o cuando se llama a {@link #flush()}.
+ * Opcionalmente cada escritura se sincroniza con el disco, de modo que una sola sincronización
+ * cubre a todos los eventos del grupo. Con el constructor por defecto se escribe en cada evento.</p>
+ *
+ * <p>Si se le asigna un {@link LogArchive}, después de cada escritura se revisa si el archivo debe
+ * rotarse; la rotación solo cierra y renombra el archivo, y la compresión ocurre en segundo plano.</p>
+ *
  * <p>Forma parte de la implementación del patrón de diseño Observer.</p>
  */
 public class FileNotifier implements Observer {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     private String filename = "inventory_changes_log.txt";
 
+    private final int flushEveryEvents;
+    private final boolean fsync;
+    private final ByteBuffer buffer;
+    private final ScheduledExecutorService flusher;
+
+    private FileChannel channel;
+    private LogArchive archive;
+    private long activeBytes;
+    private LocalDateTime openedAt;
+    private int pendingEvents;
+    private boolean closed;
+
+    /**
+     * Crea un notifier que escribe cada mensaje en cuanto lo recibe.
+     */
+    public FileNotifier() {
+        this(1, 0, false);
+    }
+
+    /**
+     * Crea un notifier con confirmación en grupo sobre el archivo por defecto.
+     *
+     * @param flushEveryEvents    número de eventos que dispara una escritura
+     * @param flushIntervalMillis intervalo máximo entre escrituras; 0 para desactivarlo
+     * @param fsync               si cada escritura debe sincronizarse con el disco
+     */
+    public FileNotifier(int flushEveryEvents, long flushIntervalMillis, boolean fsync) {
+        if (flushEveryEvents <= 0) throw new IllegalArgumentException("flushEveryEvents must be > 0");
+        if (flushIntervalMillis < 0) throw new IllegalArgumentException("flushIntervalMillis must be >= 0");
+        this.flushEveryEvents = flushEveryEvents;
+        this.fsync = fsync;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        if (flushIntervalMillis > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "file-notifier-flush");
+                t.setDaemon(true);
+                return t;
+            });
+            this.flusher.scheduleWithFixedDelay(this::flushQuietly,
+                    flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Crea un notifier con confirmación en grupo sobre el archivo indicado.
+     *
+     * @param filename            archivo de log
+     * @param flushEveryEvents    número de eventos que dispara una escritura
+     * @param flushIntervalMillis intervalo máximo entre escrituras; 0 para desactivarlo
+     * @param fsync               si cada escritura debe sincronizarse con el disco
+     */
+    public FileNotifier(String filename, int flushEveryEvents, long flushIntervalMillis, boolean fsync) {
+        this(flushEveryEvents, flushIntervalMillis, fsync);
+        this.filename = filename;
+    }
 
     /**
      * 
@@ -23,15 +101,118 @@ public class FileNotifier implements Observer {
      * @param message mensaje que describe el evento ocurrido.
      */
     @Override
+    public synchronized void update(String message) {
+        if (closed) return;
+        try {
+            byte[] line = (message + "\n").getBytes(StandardCharsets.UTF_8);
+            if (line.length > buffer.remaining()) writeBuffer();
+            if (line.length > buffer.capacity()) {
+                ByteBuffer big = ByteBuffer.wrap(line);
+                FileChannel ch = openIfNeeded();
+                while (big.hasRemaining()) activeBytes += ch.write(big);
+            } else {
+                buffer.put(line);
+            }
+            if (++pendingEvents >= flushEveryEvents) flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Escribe en el archivo todos los mensajes pendientes y, si así se configuró, los sincroniza con el disco.
+     *
+     * @throws IOException si no se puede escribir el archivo
+     */
+    public synchronized void flush() throws IOException {
+        if (pendingEvents == 0 && buffer.position() == 0) return;
+        writeBuffer();
+        if (fsync && channel != null) channel.force(false);
+        pendingEvents = 0;
+        if (archive != null && channel != null && archive.shouldRotate(activeBytes, openedAt, LocalDateTime.now())) rotate();
+    }
+
+    /**
+     * Activa la rotación del archivo según las reglas del archivo de segmentos dado.
+     *
+     * @param archive archivo de segmentos que recibe los segmentos cerrados
+     */
+    public synchronized void enableRotation(LogArchive archive) {
+        this.archive = archive;
+    }
+
+    /**
+     * Cierra el archivo activo y lo entrega como segmento al archivo de segmentos.
+     * El siguiente mensaje abre un archivo nuevo.
+     *
+     * @throws IOException si no se puede cerrar o renombrar el archivo
+     */
+    public synchronized void rotate() throws IOException {
+        if (archive == null) throw new IllegalStateException("Rotation is not enabled");
+        writeBuffer();
+        if (channel == null) {
+            if (!Files.exists(Paths.get(filename))) return;
+            openIfNeeded();
+        }
+        if (activeBytes == 0) return;
+        channel.force(false);
+        channel.close();
+        channel = null;
+        archive.rotate(Paths.get(filename), openedAt, LocalDateTime.now());
+    }
 
-    public void update(String message) {
-        
-        try (FileWriter writer = new FileWriter(filename, true)) {
-            writer.write(message + "\n");
+    /**
+     * Escribe los mensajes pendientes y cierra el archivo. Las notificaciones posteriores se ignoran.
+     */
+    public synchronized void close() {
+        if (closed) return;
+        if (flusher != null) flusher.shutdown();
+        flushQuietly();
+        closed = true;
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+        if (archive != null) archive.close();
+    }
+
+    /**
+     * @return número de mensajes recibidos que aún no se confirman en el archivo.
+     */
+    public synchronized int getPendingEvents() {
+        return pendingEvents;
+    }
+
+    private synchronized void flushQuietly() {
+        try {
+            flush();
         } catch (IOException e) {
             e.printStackTrace();
         }
+    }
 
+    private void writeBuffer() throws IOException {
+        if (buffer.position() == 0) return;
+        buffer.flip();
+        FileChannel ch = openIfNeeded();
+        while (buffer.hasRemaining()) activeBytes += ch.write(buffer);
+        buffer.clear();
+    }
 
+    private FileChannel openIfNeeded() throws IOException {
+        if (channel == null) {
+            Path path = Paths.get(filename);
+            channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            activeBytes = channel.size();
+            openedAt = activeBytes > 0
+                    ? LocalDateTime.ofInstant(Files.getLastModifiedTime(path).toInstant(), ZoneId.systemDefault())
+                    : LocalDateTime.now();
+        }
+        return channel;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,327 @@
+package mx.unam.ciencias.myp.butchery.model.patrones.observer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Evento tipado emitido por el inventario.
+ *
+ * <p>Cada subclase lleva los datos del cambio en campos primitivos. El texto que reciben los
+ * {@link Observer} se genera solo cuando se llama a {@link #render()}, de modo que si nadie
+ * necesita el texto, el inventario no arma ninguna cadena.</p>
+ */
+public abstract class InventoryEvent {
+
+    private long timestamp;
+
+    /**
+     * Crea un evento con la hora actual.
+     */
+    protected InventoryEvent() {
+        this.timestamp = System.currentTimeMillis();
+    }
+
+    /**
+     * @return instante del evento, en milisegundos desde la época Unix.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * @return id del producto al que se refiere el evento, o {@code null} si no se refiere a uno solo.
+     */
+    public String getProductId() {
+        return null;
+    }
+
+    /**
+     * Restaura el instante original de un evento leído de una bitácora.
+     */
+    void restoreTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Genera la descripción en texto del evento, tal como la reciben los {@link Observer}.
+     *
+     * @return descripción del evento
+     */
+    public abstract String render();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return render();
+    }
+
+    /**
+     * Se agregó un producto nuevo al catálogo.
+     */
+    public static final class ProductAdded extends InventoryEvent {
+
+        private final String productId;
+        private final String name;
+        private final boolean byWeight;
+        private final double price;
+
+        public ProductAdded(String productId, String name, boolean byWeight, double price) {
+            this.productId = productId;
+            this.name = name;
+            this.byWeight = byWeight;
+            this.price = price;
+        }
+
+        @Override
+        public String getProductId() { return productId; }
+
+        public String getName() { return name; }
+
+        public boolean isByWeight() { return byWeight; }
+
+        public double getPrice() { return price; }
+
+        @Override
+        public String render() {
+            return "Product added: " + name + (byWeight ? " | Price per kg: " : " | Price per unit: ") + price;
+        }
+    }
+
+    /**
+     * Se agregaron existencias a un producto.
+     */
+    public static final class StockAdded extends InventoryEvent {
+
+        private final String productId;
+        private final String name;
+        private final boolean byWeight;
+        private final double quantity;
+        private final double total;
+        private final LocalDate expiresOn;
+
+        public StockAdded(String productId, String name, boolean byWeight, double quantity, double total, LocalDate expiresOn) {
+            this.productId = productId;
+            this.name = name;
+            this.byWeight = byWeight;
+            this.quantity = quantity;
+            this.total = total;
+            this.expiresOn = expiresOn;
+        }
+
+        @Override
+        public String getProductId() { return productId; }
+
+        public String getName() { return name; }
+
+        public boolean isByWeight() { return byWeight; }
+
+        public double getQuantity() { return quantity; }
+
+        public double getTotal() { return total; }
+
+        /**
+         * @return caducidad del lote recibido, o {@code null} si no aplica.
+         */
+        public LocalDate getExpiresOn() { return expiresOn; }
+
+        @Override
+        public String render() {
+            if (!byWeight) return "Added to inventory: " + name + " | Quantity: " + quantity + " | Current total: " + total;
+            return "Added to inventory: " + name + " | Quantity (kg): " + quantity + " | Current total (kg): " + total
+                    + (expiresOn == null ? "" : " | Expires: " + expiresOn);
+        }
+    }
+
+    /**
+     * Se retiraron existencias de un producto.
+     */
+    public static final class StockReduced extends InventoryEvent {
+
+        private final String productId;
+        private final String name;
+        private final double quantity;
+        private final double remaining;
+
+        public StockReduced(String productId, String name, double quantity, double remaining) {
+            this.productId = productId;
+            this.name = name;
+            this.quantity = quantity;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public String getProductId() { return productId; }
+
+        public String getName() { return name; }
+
+        public double getQuantity() { return quantity; }
+
+        public double getRemaining() { return remaining; }
+
+        @Override
+        public String render() {
+            return "Stock reduced: " + name + " | Withdrawn: " + quantity + " | Remaining: " + remaining;
+        }
+    }
+
+    /**
+     * Cambió el precio de un producto, o se programó un cambio a futuro.
+     */
+    public static final class PriceChanged extends InventoryEvent {
+
+        private final String productId;
+        private final String name;
+        private final double newPrice;
+        private final LocalDateTime effectiveFrom;
+
+        /**
+         * @param effectiveFrom fecha desde la que rige un cambio programado, o {@code null} si el cambio es inmediato
+         */
+        public PriceChanged(String productId, String name, double newPrice, LocalDateTime effectiveFrom) {
+            this.productId = productId;
+            this.name = name;
+            this.newPrice = newPrice;
+            this.effectiveFrom = effectiveFrom;
+        }
+
+        @Override
+        public String getProductId() { return productId; }
+
+        public String getName() { return name; }
+
+        public double getNewPrice() { return newPrice; }
+
+        /**
+         * @return {@code true} si el precio entrará en vigor más adelante.
+         */
+        public boolean isScheduled() { return effectiveFrom != null; }
+
+        public LocalDateTime getEffectiveFrom() { return effectiveFrom; }
+
+        @Override
+        public String render() {
+            if (effectiveFrom == null) return "Product price updated: " + name + " -> " + newPrice;
+            return "Product price scheduled: " + name + " -> " + newPrice + " | Effective from: " + effectiveFrom;
+        }
+    }
+
+    /**
+     * Se renombró un producto.
+     */
+    public static final class Renamed extends InventoryEvent {
+
+        private final String productId;
+        private final String oldName;
+        private final String newName;
+
+        public Renamed(String productId, String oldName, String newName) {
+            this.productId = productId;
+            this.oldName = oldName;
+            this.newName = newName;
+        }
+
+        @Override
+        public String getProductId() { return productId; }
+
+        public String getOldName() { return oldName; }
+
+        public String getNewName() { return newName; }
+
+        @Override
+        public String render() {
+            return "Product renamed: " + oldName + " -> " + newName;
+        }
+    }
+
+    /**
+     * Se eliminó un producto del catálogo.
+     */
+    public static final class Removed extends InventoryEvent {
+
+        private final String productId;
+        private final String name;
+
+        public Removed(String productId, String name) {
+            this.productId = productId;
+            this.name = name;
+        }
+
+        @Override
+        public String getProductId() { return productId; }
+
+        public String getName() { return name; }
+
+        @Override
+        public String render() {
+            return "Product removed: " + name;
+        }
+    }
+
+    /**
+     * Se aplicó una toma de inventario. Lleva, para cada producto corregido, sus existencias finales.
+     */
+    public static final class StocktakeApplied extends InventoryEvent {
+
+        private final String[] productIds;
+        private final double[] totals;
+        private final double netVariance;
+        private final LocalDateTime startedAt;
+
+        public StocktakeApplied(String[] productIds, double[] totals, double netVariance, LocalDateTime startedAt) {
+            if (productIds.length != totals.length) throw new IllegalArgumentException("productIds and totals must have the same length");
+            this.productIds = productIds.clone();
+            this.totals = totals.clone();
+            this.netVariance = netVariance;
+            this.startedAt = startedAt;
+        }
+
+        /**
+         * @return número de productos corregidos.
+         */
+        public int getAdjustmentCount() { return productIds.length; }
+
+        public String getProductId(int i) { return productIds[i]; }
+
+        /**
+         * @return existencias finales del i-ésimo producto corregido.
+         */
+        public double getTotal(int i) { return totals[i]; }
+
+        /**
+         * @return {@code true} si la toma corrigió al producto indicado.
+         */
+        public boolean adjusts(String productId) { return Arrays.asList(productIds).contains(productId); }
+
+        public double getNetVariance() { return netVariance; }
+
+        public LocalDateTime getStartedAt() { return startedAt; }
+
+        @Override
+        public String render() {
+            return "Stocktake applied: " + productIds.length + " adjustments | Net variance: " + netVariance
+                    + " | Started at: " + startedAt;
+        }
+    }
+
+    /**
+     * Cualquier otro aviso del inventario (por ejemplo, etiquetas). Su texto también se genera de
+     * forma perezosa.
+     */
+    public static final class Notice extends InventoryEvent {
+
+        private final Supplier<String> text;
+
+        public Notice(Supplier<String> text) {
+            this.text = text;
+        }
+
+        @Override
+        public String render() {
+            return text.get();
+        }
+    }
+}
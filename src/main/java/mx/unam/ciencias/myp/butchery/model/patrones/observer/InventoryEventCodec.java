@@ -0,0 +1,197 @@
+package mx.unam.ciencias.myp.butchery.model.patrones.observer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Codificación binaria de los {@link InventoryEvent}.
+ *
+ * <p>Cada evento se escribe como un byte con su tipo seguido de sus campos: los números en su
+ * representación binaria, las cadenas como longitud (short) más bytes UTF-8, las fechas como días
+ * desde la época y las fechas con hora como milisegundos en UTC. Un valor nulo se representa con
+ * {@link Long#MIN_VALUE}.</p>
+ */
+public final class InventoryEventCodec {
+
+    static final byte PRODUCT_ADDED = 1;
+    static final byte STOCK_ADDED = 2;
+    static final byte STOCK_REDUCED = 3;
+    static final byte PRICE_CHANGED = 4;
+    static final byte RENAMED = 5;
+    static final byte REMOVED = 6;
+    static final byte NOTICE = 7;
+    static final byte STOCKTAKE_APPLIED = 8;
+
+    private static final long NULL = Long.MIN_VALUE;
+
+    private InventoryEventCodec() {}
+
+    /**
+     * Codifica un evento.
+     *
+     * @param event evento a codificar
+     * @return bytes del evento
+     */
+    public static byte[] encode(InventoryEvent event) {
+        ByteBuffer out = ByteBuffer.allocate(64);
+        out = encode(event, out);
+        byte[] bytes = new byte[out.position()];
+        out.flip();
+        out.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Codifica un evento en un búfer, reemplazándolo por uno más grande si no cabe.
+     *
+     * @param event evento a codificar
+     * @param out   búfer de destino
+     * @return el búfer con el evento escrito a partir de su posición original
+     */
+    public static ByteBuffer encode(InventoryEvent event, ByteBuffer out) {
+        Writer w = new Writer(out);
+        if (event instanceof InventoryEvent.ProductAdded) {
+            InventoryEvent.ProductAdded e = (InventoryEvent.ProductAdded) event;
+            w.b(PRODUCT_ADDED).s(e.getProductId()).s(e.getName()).z(e.isByWeight()).d(e.getPrice());
+        } else if (event instanceof InventoryEvent.StockAdded) {
+            InventoryEvent.StockAdded e = (InventoryEvent.StockAdded) event;
+            w.b(STOCK_ADDED).s(e.getProductId()).s(e.getName()).z(e.isByWeight()).d(e.getQuantity()).d(e.getTotal())
+                    .l(e.getExpiresOn() == null ? NULL : e.getExpiresOn().toEpochDay());
+        } else if (event instanceof InventoryEvent.StockReduced) {
+            InventoryEvent.StockReduced e = (InventoryEvent.StockReduced) event;
+            w.b(STOCK_REDUCED).s(e.getProductId()).s(e.getName()).d(e.getQuantity()).d(e.getRemaining());
+        } else if (event instanceof InventoryEvent.PriceChanged) {
+            InventoryEvent.PriceChanged e = (InventoryEvent.PriceChanged) event;
+            w.b(PRICE_CHANGED).s(e.getProductId()).s(e.getName()).d(e.getNewPrice())
+                    .l(e.getEffectiveFrom() == null ? NULL : e.getEffectiveFrom().toInstant(ZoneOffset.UTC).toEpochMilli());
+        } else if (event instanceof InventoryEvent.Renamed) {
+            InventoryEvent.Renamed e = (InventoryEvent.Renamed) event;
+            w.b(RENAMED).s(e.getProductId()).s(e.getOldName()).s(e.getNewName());
+        } else if (event instanceof InventoryEvent.Removed) {
+            InventoryEvent.Removed e = (InventoryEvent.Removed) event;
+            w.b(REMOVED).s(e.getProductId()).s(e.getName());
+        } else if (event instanceof InventoryEvent.StocktakeApplied) {
+            InventoryEvent.StocktakeApplied e = (InventoryEvent.StocktakeApplied) event;
+            w.b(STOCKTAKE_APPLIED).d(e.getNetVariance())
+                    .l(e.getStartedAt().toInstant(ZoneOffset.UTC).toEpochMilli()).i(e.getAdjustmentCount());
+            for (int i = 0; i < e.getAdjustmentCount(); i++) w.s(e.getProductId(i)).d(e.getTotal(i));
+        } else {
+            w.b(NOTICE).s(event.render());
+        }
+        return w.out;
+    }
+
+    /**
+     * Decodifica un evento.
+     *
+     * @param in        búfer posicionado al inicio del evento
+     * @param timestamp instante original del evento
+     * @return el evento decodificado
+     * @throws IllegalArgumentException si el tipo de evento es desconocido
+     */
+    public static InventoryEvent decode(ByteBuffer in, long timestamp) {
+        byte type = in.get();
+        InventoryEvent event;
+        switch (type) {
+            case PRODUCT_ADDED:
+                event = new InventoryEvent.ProductAdded(str(in), str(in), in.get() != 0, in.getDouble());
+                break;
+            case STOCK_ADDED: {
+                String id = str(in), name = str(in);
+                boolean byWeight = in.get() != 0;
+                double qty = in.getDouble(), total = in.getDouble();
+                long day = in.getLong();
+                event = new InventoryEvent.StockAdded(id, name, byWeight, qty, total, day == NULL ? null : LocalDate.ofEpochDay(day));
+                break;
+            }
+            case STOCK_REDUCED:
+                event = new InventoryEvent.StockReduced(str(in), str(in), in.getDouble(), in.getDouble());
+                break;
+            case PRICE_CHANGED: {
+                String id = str(in), name = str(in);
+                double price = in.getDouble();
+                long from = in.getLong();
+                event = new InventoryEvent.PriceChanged(id, name, price,
+                        from == NULL ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(from), ZoneOffset.UTC));
+                break;
+            }
+            case RENAMED:
+                event = new InventoryEvent.Renamed(str(in), str(in), str(in));
+                break;
+            case REMOVED:
+                event = new InventoryEvent.Removed(str(in), str(in));
+                break;
+            case STOCKTAKE_APPLIED: {
+                double net = in.getDouble();
+                LocalDateTime startedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(in.getLong()), ZoneOffset.UTC);
+                int n = in.getInt();
+                String[] ids = new String[n];
+                double[] totals = new double[n];
+                for (int i = 0; i < n; i++) {
+                    ids[i] = str(in);
+                    totals[i] = in.getDouble();
+                }
+                event = new InventoryEvent.StocktakeApplied(ids, totals, net, startedAt);
+                break;
+            }
+            case NOTICE: {
+                String text = str(in);
+                event = new InventoryEvent.Notice(() -> text);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown event type: " + type);
+        }
+        event.restoreTimestamp(timestamp);
+        return event;
+    }
+
+    private static String str(ByteBuffer in) {
+        int len = Short.toUnsignedInt(in.getShort());
+        byte[] bytes = new byte[len];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Escritor que hace crecer el búfer cuando hace falta.
+     */
+    private static final class Writer {
+        ByteBuffer out;
+
+        Writer(ByteBuffer out) {
+            this.out = out;
+        }
+
+        private void ensure(int n) {
+            if (out.remaining() >= n) return;
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + n));
+            out.flip();
+            bigger.put(out);
+            out = bigger;
+        }
+
+        Writer b(byte v) { ensure(1); out.put(v); return this; }
+
+        Writer z(boolean v) { return b((byte) (v ? 1 : 0)); }
+
+        Writer d(double v) { ensure(8); out.putDouble(v); return this; }
+
+        Writer l(long v) { ensure(8); out.putLong(v); return this; }
+
+        Writer i(int v) { ensure(4); out.putInt(v); return this; }
+
+        Writer s(String v) {
+            byte[] bytes = v.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) throw new IllegalArgumentException("String too long to encode");
+            ensure(2 + bytes.length);
+            out.putShort((short) bytes.length);
+            out.put(bytes);
+            return this;
+        }
+    }
+}
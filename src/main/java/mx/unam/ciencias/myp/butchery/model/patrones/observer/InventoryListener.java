@@ -0,0 +1,21 @@
+package mx.unam.ciencias.myp.butchery.model.patrones.observer;
+
+/**
+ * Suscriptor de eventos tipados del inventario.
+ *
+ * <p>A diferencia de {@link Observer}, recibe el evento como objeto con sus campos, así que no
+ * necesita interpretar texto. Cada suscriptor se registra para un tipo de evento concreto (o para
+ * {@link InventoryEvent} si le interesan todos).</p>
+ *
+ * @param <E> tipo de evento que recibe
+ */
+@FunctionalInterface
+public interface InventoryListener<E extends InventoryEvent> {
+
+    /**
+     * Método llamado por el inventario cuando ocurre un evento del tipo suscrito.
+     *
+     * @param event evento ocurrido
+     */
+    void onEvent(E event);
+}
@@ -10,6 +10,8 @@ import java.util.List;
  * <p>Este notifier mantiene un registro interno de los eventos observados en una lista, permitiendo recuperar posteriormente todo el historial de mensajes generados.
  * Es útil para depuración, pruebas o para mostrar un registro acumulado dentro de la aplicación.</p>
  *
+ * <p>La lista no tiene límite; para procesos de larga duración conviene {@link RingBufferNotifier}, que conserva solo los mensajes más recientes.</p>
+ *
  * <p>Forma parte de la implementación del patrón de diseño Observer.</p>
  */
 public class ListNotifier implements Observer {
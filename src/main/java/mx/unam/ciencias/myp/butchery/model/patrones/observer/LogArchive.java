@@ -0,0 +1,451 @@
+package mx.unam.ciencias.myp.butchery.model.patrones.observer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archivo de segmentos cerrados del log de cambios.
+ *
+ * <p>Decide cuándo debe rotarse el archivo activo (por tamaño o por cambio de día), renombra el
+ * segmento cerrado y lo comprime en segundo plano, de modo que la rotación en el camino de los
+ * eventos cuesta solo un renombrado. Los segmentos viejos que exceden el límite de retención se
+ * eliminan.</p>
+ *
+ * <p>Cada segmento comprimido es una serie de miembros gzip independientes de
+ * {@value #BLOCK_LINES} líneas; el manifiesto guarda el desplazamiento de cada bloque, así que
+ * leer a partir de una línea solo descomprime desde el bloque que la contiene. El manifiesto
+ * también guarda el intervalo de tiempo de cada segmento para descartar segmentos completos al
+ * buscar en un rango de fechas.</p>
+ */
+public class LogArchive {
+
+    /** Número de líneas por bloque comprimido. */
+    public static final int BLOCK_LINES = 1000;
+
+    private static final DateTimeFormatter SEGMENT_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final String baseName;
+    private final Path manifestFile;
+    private final long maxSegmentBytes;
+    private final boolean daily;
+    private final int maxSegments;
+
+    private final List<Segment> segments;
+    private final ExecutorService compressor;
+    private final List<Future<?>> tasks;
+    private int sequence;
+
+    /**
+     * Crea el archivo de segmentos y carga su manifiesto si existe. Los segmentos que quedaron sin
+     * comprimir en una ejecución anterior se vuelven a programar.
+     *
+     * @param activeFile      archivo activo del log
+     * @param maxSegmentBytes tamaño a partir del cual se rota; 0 para no rotar por tamaño
+     * @param daily           si se rota al cambiar de día
+     * @param maxSegments     número máximo de segmentos cerrados que se conservan
+     */
+    public LogArchive(Path activeFile, long maxSegmentBytes, boolean daily, int maxSegments) {
+        if (maxSegmentBytes < 0) throw new IllegalArgumentException("maxSegmentBytes must be >= 0");
+        if (maxSegments <= 0) throw new IllegalArgumentException("maxSegments must be > 0");
+        Path parent = activeFile.toAbsolutePath().getParent();
+        String name = activeFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.directory = parent;
+        this.baseName = dot > 0 ? name.substring(0, dot) : name;
+        this.manifestFile = parent.resolve(baseName + ".manifest");
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.daily = daily;
+        this.maxSegments = maxSegments;
+        this.segments = new ArrayList<>();
+        this.tasks = new ArrayList<>();
+        this.compressor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "log-compressor");
+            t.setDaemon(true);
+            return t;
+        });
+        loadManifest();
+        for (Segment s : segments) {
+            if (!s.compressed) schedule(s);
+        }
+    }
+
+    /**
+     * Indica si el archivo activo debe rotarse.
+     *
+     * @param activeBytes tamaño actual del archivo activo
+     * @param openedAt    momento en que se abrió el archivo activo
+     * @param now         momento actual
+     * @return {@code true} si se excedió el tamaño o cambió el día
+     */
+    public boolean shouldRotate(long activeBytes, LocalDateTime openedAt, LocalDateTime now) {
+        if (activeBytes == 0) return false;
+        if (maxSegmentBytes > 0 && activeBytes >= maxSegmentBytes) return true;
+        return daily && now.toLocalDate().isAfter(openedAt.toLocalDate());
+    }
+
+    /**
+     * Cierra el archivo activo como un segmento: lo renombra, lo registra en el manifiesto y
+     * programa su compresión. El archivo activo ya debe estar cerrado.
+     *
+     * @param activeFile archivo activo del log
+     * @param openedAt   momento en que se abrió
+     * @param closedAt   momento en que se cerró
+     * @throws IOException si no se puede renombrar el archivo
+     */
+    public synchronized void rotate(Path activeFile, LocalDateTime openedAt, LocalDateTime closedAt) throws IOException {
+        String name = baseName + "-" + SEGMENT_STAMP.format(closedAt) + "-" + (++sequence) + ".txt";
+        Path target = directory.resolve(name);
+        Files.move(activeFile, target, StandardCopyOption.ATOMIC_MOVE);
+        Segment s = new Segment(name, openedAt, closedAt, 0, false, new long[0]);
+        segments.add(s);
+        writeManifest();
+        schedule(s);
+    }
+
+    /**
+     * @return copia de los segmentos registrados, del más antiguo al más reciente.
+     */
+    public synchronized List<Segment> getSegments() {
+        return new ArrayList<>(segments);
+    }
+
+    /**
+     * Busca las líneas que contienen un texto en los segmentos cuyo intervalo de tiempo se cruza con
+     * el rango dado. Los segmentos fuera del rango no se abren.
+     *
+     * @param needle texto a buscar
+     * @param from   inicio del rango, o {@code null}
+     * @param to     fin del rango, o {@code null}
+     * @param limit  número máximo de resultados
+     * @return líneas encontradas, en orden cronológico
+     * @throws IOException si no se puede leer algún segmento
+     */
+    public List<String> search(String needle, LocalDateTime from, LocalDateTime to, int limit) throws IOException {
+        List<String> out = new ArrayList<>();
+        for (Segment s : getSegments()) {
+            if (from != null && s.closedAt.isBefore(from)) continue;
+            if (to != null && s.openedAt.isAfter(to)) continue;
+            try (BufferedReader reader = open(s, 0)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.contains(needle)) {
+                        out.add(line);
+                        if (out.size() >= limit) return out;
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Lee líneas de un segmento a partir de una posición, descomprimiendo solo desde el bloque que la contiene.
+     *
+     * @param segment  segmento a leer
+     * @param fromLine primera línea (desde 0)
+     * @param maxLines número máximo de líneas
+     * @return líneas leídas
+     * @throws IOException si no se puede leer el segmento
+     */
+    public List<String> readLines(Segment segment, long fromLine, int maxLines) throws IOException {
+        if (fromLine < 0) throw new IllegalArgumentException("fromLine must be >= 0");
+        List<String> out = new ArrayList<>();
+        try (BufferedReader reader = open(segment, fromLine)) {
+            long skip = segment.compressed ? fromLine % BLOCK_LINES : fromLine;
+            String line;
+            while ((line = reader.readLine()) != null && out.size() < maxLines) {
+                if (skip > 0) {
+                    skip--;
+                    continue;
+                }
+                out.add(line);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Espera a que terminen las compresiones programadas.
+     *
+     * @param timeout tiempo máximo de espera
+     * @param unit    unidad del tiempo
+     * @return {@code true} si todas terminaron
+     * @throws InterruptedException si el hilo es interrumpido mientras espera
+     */
+    public boolean awaitCompression(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<Future<?>> pending;
+        synchronized (this) {
+            pending = new ArrayList<>(tasks);
+        }
+        for (Future<?> f : pending) {
+            long left = deadline - System.nanoTime();
+            if (left <= 0) return false;
+            try {
+                f.get(left, TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                System.err.println("Log compression failed: " + e.getCause().getMessage());
+            } catch (TimeoutException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Termina las compresiones pendientes y detiene el hilo compresor.
+     */
+    public void close() {
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void schedule(Segment s) {
+        tasks.removeIf(Future::isDone);
+        tasks.add(compressor.submit(() -> {
+            try {
+                compress(s);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    /**
+     * Comprime un segmento en bloques gzip independientes y aplica la retención.
+     */
+    private void compress(Segment s) throws IOException {
+        Path plain = directory.resolve(s.name);
+        if (!Files.exists(plain)) return;
+        String gzName = s.name + ".gz";
+        Path gz = directory.resolve(gzName);
+        List<Long> offsets = new ArrayList<>();
+        long lines = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(plain, StandardCharsets.UTF_8);
+             FileChannel out = FileChannel.open(gz, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream raw = Channels.newOutputStream(out);
+            BufferedWriter block = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (lines % BLOCK_LINES == 0) {
+                    if (block != null) block.close();
+                    offsets.add(out.position());
+                    block = new BufferedWriter(new OutputStreamWriter(
+                            new GZIPOutputStream(new NonClosingOutputStream(raw)), StandardCharsets.UTF_8));
+                }
+                block.write(line);
+                block.newLine();
+                lines++;
+            }
+            if (block != null) block.close();
+            out.force(false);
+        }
+
+        long[] blockOffsets = new long[offsets.size()];
+        for (int i = 0; i < blockOffsets.length; i++) blockOffsets[i] = offsets.get(i);
+
+        synchronized (this) {
+            int i = segments.indexOf(s);
+            if (i >= 0) {
+                segments.set(i, new Segment(gzName, s.openedAt, s.closedAt, lines, true, blockOffsets));
+                applyRetention();
+                writeManifest();
+            }
+        }
+        Files.deleteIfExists(plain);
+    }
+
+    /**
+     * Elimina los segmentos más antiguos que exceden el límite. Debe llamarse con el candado tomado.
+     */
+    private void applyRetention() throws IOException {
+        while (segments.size() > maxSegments) {
+            Segment oldest = segments.remove(0);
+            Files.deleteIfExists(directory.resolve(oldest.name));
+            if (!oldest.compressed) Files.deleteIfExists(directory.resolve(oldest.name + ".gz"));
+        }
+    }
+
+    private BufferedReader open(Segment s, long fromLine) throws IOException {
+        Path file = directory.resolve(s.name);
+        if (!s.compressed) return Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        int block = (int) Math.min(fromLine / BLOCK_LINES, Math.max(0, s.blockOffsets.length - 1));
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ);
+        if (s.blockOffsets.length == 0) {
+            ch.close();
+            return new BufferedReader(new StringReader(""));
+        }
+        ch.position(s.blockOffsets[block]);
+        InputStream in = new GZIPInputStream(Channels.newInputStream(ch));
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    private void loadManifest() {
+        if (!Files.exists(manifestFile)) return;
+        try (BufferedReader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                String[] f = line.split("\\|", -1);
+                long[] offsets = new long[0];
+                if (!f[5].isEmpty()) {
+                    String[] parts = f[5].split(",");
+                    offsets = new long[parts.length];
+                    for (int i = 0; i < parts.length; i++) offsets[i] = Long.parseLong(parts[i]);
+                }
+                Segment s = new Segment(f[0], LocalDateTime.parse(f[1]), LocalDateTime.parse(f[2]),
+                        Long.parseLong(f[3]), Boolean.parseBoolean(f[4]), offsets);
+                if (Files.exists(directory.resolve(s.name))) segments.add(s);
+                sequence++;
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Could not read log manifest: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reescribe el manifiesto de forma atómica. Debe llamarse con el candado tomado.
+     */
+    private void writeManifest() throws IOException {
+        Path tmp = directory.resolve(baseName + ".manifest.tmp");
+        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Segment s : segments) {
+                StringBuilder offsets = new StringBuilder();
+                for (int i = 0; i < s.blockOffsets.length; i++) {
+                    if (i > 0) offsets.append(',');
+                    offsets.append(s.blockOffsets[i]);
+                }
+                w.write(s.name + "|" + s.openedAt + "|" + s.closedAt + "|" + s.lines + "|" + s.compressed + "|" + offsets);
+                w.newLine();
+            }
+        }
+        Files.move(tmp, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Entrada del manifiesto: un segmento cerrado del log.
+     */
+    public static final class Segment {
+
+        private final String name;
+        private final LocalDateTime openedAt;
+        private final LocalDateTime closedAt;
+        private final long lines;
+        private final boolean compressed;
+        private final long[] blockOffsets;
+
+        Segment(String name, LocalDateTime openedAt, LocalDateTime closedAt, long lines,
+                boolean compressed, long[] blockOffsets) {
+            this.name = name;
+            this.openedAt = openedAt;
+            this.closedAt = closedAt;
+            this.lines = lines;
+            this.compressed = compressed;
+            this.blockOffsets = blockOffsets;
+        }
+
+        /**
+         * @return nombre del archivo del segmento.
+         */
+        public String getName() { return name; }
+
+        /**
+         * @return momento en que se abrió el segmento.
+         */
+        public LocalDateTime getOpenedAt() { return openedAt; }
+
+        /**
+         * @return momento en que se cerró el segmento.
+         */
+        public LocalDateTime getClosedAt() { return closedAt; }
+
+        /**
+         * @return número de líneas (solo se conoce una vez comprimido).
+         */
+        public long getLines() { return lines; }
+
+        /**
+         * @return {@code true} si el segmento ya está comprimido.
+         */
+        public boolean isCompressed() { return compressed; }
+
+        /**
+         * @return número de bloques gzip del segmento.
+         */
+        public int getBlockCount() { return blockOffsets.length; }
+
+        /**
+         * Dos entradas son iguales si se refieren al mismo segmento, aunque cambie su estado de compresión.
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Segment)) return false;
+            Segment other = (Segment) o;
+            return openedAt.equals(other.openedAt) && closedAt.equals(other.closedAt)
+                    && baseOf(name).equals(baseOf(other.name));
+        }
+
+        @Override
+        public int hashCode() {
+            return baseOf(name).hashCode();
+        }
+
+        private static String baseOf(String name) {
+            return name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+        }
+    }
+
+    /**
+     * Envoltura que evita que cerrar un bloque gzip cierre el canal del segmento.
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package mx.unam.ciencias.myp.butchery.model.patrones.observer;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Etapa que agrupa eventos del inventario antes de llegar a los observadores.
+ *
+ * <p>Los eventos se agrupan de dos formas:</p>
+ * <ul>
+ *     <li>por <em>alcance</em>: entre {@link #openScope(String)} y el {@code close()} del alcance
+ *     (por ejemplo, "una venta" o "una entrega"), los eventos del hilo que abrió el alcance se
+ *     guardan y al cerrarlo se entrega un solo mensaje combinado. Los alcances anidados se suman al
+ *     más externo;</li>
+ *     <li>por <em>ventana</em>: si se configuró una ventana mayor a cero, los eventos fuera de un
+ *     alcance se guardan y se entregan combinados cuando transcurre la ventana desde el primero.</li>
+ * </ul>
+ *
+ * <p>En el mensaje combinado, los movimientos de existencias de un mismo producto se suman en una
+ * sola entrada con su nivel final; los demás eventos conservan su texto. Un grupo de un solo evento
+ * se entrega con el texto original del evento.</p>
+ */
+public class NotificationCoalescer {
+
+    /**
+     * Alcance de agrupación abierto. Cerrarlo entrega los eventos agrupados.
+     */
+    public interface Scope extends AutoCloseable {
+
+        /**
+         * Cierra el alcance; si es el más externo, entrega el mensaje combinado.
+         */
+        @Override
+        void close();
+    }
+
+    /** Alcance que no agrupa nada, para cuando no hay etapa de agrupación. */
+    public static final Scope NO_SCOPE = () -> { };
+
+    private static final String WINDOW_LABEL = "Inventory changes";
+
+    private final Consumer<String> sink;
+    private final long windowMillis;
+    private final ThreadLocal<Frame> frames = new ThreadLocal<>();
+    private final List<InventoryEvent> window = new ArrayList<>();
+    private final ScheduledExecutorService timer;
+    private ScheduledFuture<?> pendingFlush;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong delivered = new AtomicLong();
+
+    /**
+     * Crea una etapa de agrupación.
+     *
+     * @param sink         destino de los mensajes (normalmente, la notificación a los observadores)
+     * @param windowMillis ventana de agrupación para eventos fuera de un alcance; 0 los entrega de inmediato
+     */
+    public NotificationCoalescer(Consumer<String> sink, long windowMillis) {
+        if (windowMillis < 0) throw new IllegalArgumentException("windowMillis must be >= 0");
+        this.sink = sink;
+        this.windowMillis = windowMillis;
+        if (windowMillis > 0) {
+            this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "inventory-coalescer");
+                t.setDaemon(true);
+                return t;
+            });
+        } else {
+            this.timer = null;
+        }
+    }
+
+    /**
+     * Recibe un evento y lo agrupa en el alcance abierto por el hilo actual, en la ventana, o lo
+     * entrega de inmediato.
+     *
+     * @param event evento recibido
+     */
+    public void offer(InventoryEvent event) {
+        received.incrementAndGet();
+        Frame frame = frames.get();
+        if (frame != null) {
+            frame.events.add(event);
+            return;
+        }
+        if (timer == null) {
+            deliver(null, List.of(event));
+            return;
+        }
+        synchronized (window) {
+            window.add(event);
+            if (pendingFlush == null) pendingFlush = timer.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Abre un alcance de agrupación en el hilo actual.
+     *
+     * @param label nombre del alcance, que encabeza el mensaje combinado (por ejemplo, "Sale")
+     * @return el alcance; debe cerrarse en el mismo hilo
+     */
+    public Scope openScope(String label) {
+        Frame frame = frames.get();
+        if (frame == null) {
+            frame = new Frame(label);
+            frames.set(frame);
+        }
+        frame.depth++;
+        Frame opened = frame;
+        return new Scope() {
+            private boolean closed;
+
+            @Override
+            public void close() {
+                if (closed) return;
+                closed = true;
+                if (--opened.depth > 0) return;
+                frames.remove();
+                if (!opened.events.isEmpty()) deliver(opened.label, opened.events);
+            }
+        };
+    }
+
+    /**
+     * Entrega de inmediato los eventos pendientes de la ventana.
+     */
+    public void flush() {
+        List<InventoryEvent> batch;
+        synchronized (window) {
+            if (pendingFlush != null) pendingFlush.cancel(false);
+            pendingFlush = null;
+            if (window.isEmpty()) return;
+            batch = new ArrayList<>(window);
+            window.clear();
+        }
+        deliver(WINDOW_LABEL, batch);
+    }
+
+    /**
+     * Entrega los eventos pendientes de la ventana y detiene el temporizador.
+     */
+    public void close() {
+        flush();
+        if (timer != null) timer.shutdown();
+    }
+
+    /**
+     * @return número de eventos recibidos.
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return número de mensajes entregados al destino.
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * @return ventana de agrupación en milisegundos.
+     */
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    private void deliver(String label, List<InventoryEvent> events) {
+        String message = events.size() == 1 ? events.get(0).render() : merge(label, events);
+        delivered.incrementAndGet();
+        try {
+            sink.accept(message);
+        } catch (RuntimeException e) {
+            System.err.println("Observer failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Combina varios eventos en un solo mensaje.
+     *
+     * @param label  encabezado del mensaje
+     * @param events eventos en el orden en que ocurrieron
+     * @return mensaje combinado
+     */
+    public static String merge(String label, List<InventoryEvent> events) {
+        Map<String, Object> entries = new LinkedHashMap<>();
+        int others = 0;
+        for (InventoryEvent e : events) {
+            if (e instanceof InventoryEvent.StockAdded) {
+                InventoryEvent.StockAdded a = (InventoryEvent.StockAdded) e;
+                movement(entries, a.getProductId(), a.getName()).add(a.getQuantity(), a.getTotal());
+            } else if (e instanceof InventoryEvent.StockReduced) {
+                InventoryEvent.StockReduced r = (InventoryEvent.StockReduced) e;
+                movement(entries, r.getProductId(), r.getName()).add(-r.getQuantity(), r.getRemaining());
+            } else {
+                entries.put("#" + others++, e);
+            }
+        }
+
+        StringBuilder sb = new StringBuilder(label == null ? WINDOW_LABEL : label)
+                .append(": ").append(events.size()).append(" changes");
+        for (Object entry : entries.values()) {
+            sb.append(" | ");
+            if (entry instanceof Movement) sb.append(entry);
+            else sb.append(((InventoryEvent) entry).render());
+        }
+        return sb.toString();
+    }
+
+    private static Movement movement(Map<String, Object> entries, String productId, String name) {
+        return (Movement) entries.computeIfAbsent("@" + productId, k -> new Movement(name));
+    }
+
+    /**
+     * Eventos agrupados en el alcance abierto por un hilo.
+     */
+    private static final class Frame {
+
+        private final String label;
+        private final List<InventoryEvent> events = new ArrayList<>();
+        private int depth;
+
+        Frame(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Suma de los movimientos de existencias de un producto.
+     */
+    private static final class Movement {
+
+        private final String name;
+        private double net;
+        private double level;
+
+        Movement(String name) {
+            this.name = name;
+        }
+
+        void add(double delta, double newLevel) {
+            net += delta;
+            level = newLevel;
+        }
+
+        @Override
+        public String toString() {
+            return "Stock " + name + ": " + (net >= 0 ? "+" : "") + net + " -> " + level;
+        }
+    }
+}
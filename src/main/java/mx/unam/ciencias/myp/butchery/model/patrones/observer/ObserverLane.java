@@ -0,0 +1,281 @@
+package mx.unam.ciencias.myp.butchery.model.patrones.observer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Carril de entrega propio de un observador.
+ *
+ * <p>Cada observador registrado en un sujeto recibe sus mensajes a través de una cola acotada y un
+ * hilo dedicado, de modo que un observador lento o que lanza excepciones no detiene al sujeto ni a
+ * los demás observadores.</p>
+ *
+ * <p>El carril cuenta los fallos (excepciones), las entregas que exceden el tiempo límite y los
+ * mensajes que no caben en la cola. Tras {@code maxStrikes} problemas consecutivos el observador
+ * queda en cuarentena: su cola se vacía y los mensajes siguientes se descartan hasta que se llame a
+ * {@link #release()}. Una entrega exitosa dentro del tiempo límite reinicia la cuenta.</p>
+ *
+ * <p>También mide la latencia de cada entrega (promedio y máxima).</p>
+ */
+public class ObserverLane {
+
+    /**
+     * Estado del carril.
+     */
+    public enum Status {
+        ACTIVE,
+        QUARANTINED,
+        CLOSED
+    }
+
+    private final Observer observer;
+    private final BlockingQueue<String> queue;
+    private final long timeoutNanos;
+    private final int maxStrikes;
+    private final Thread worker;
+    private final Object idleLock = new Object();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /** Marca de fin que se compara por identidad. */
+    private static final String CLOSE = new String("");
+
+    private volatile Status status = Status.ACTIVE;
+    private volatile long inFlightSince;
+    private volatile boolean inFlightFlagged;
+    private int strikes;
+
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * Crea e inicia el carril de un observador.
+     *
+     * @param observer      observador que recibe los mensajes
+     * @param capacity      capacidad de la cola del carril
+     * @param timeoutMillis tiempo máximo esperado por entrega
+     * @param maxStrikes    problemas consecutivos que provocan la cuarentena
+     */
+    public ObserverLane(Observer observer, int capacity, long timeoutMillis, int maxStrikes) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        if (timeoutMillis <= 0) throw new IllegalArgumentException("timeoutMillis must be > 0");
+        if (maxStrikes <= 0) throw new IllegalArgumentException("maxStrikes must be > 0");
+        this.observer = observer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        this.maxStrikes = maxStrikes;
+        this.worker = new Thread(this::run, "observer-lane-" + observer.getClass().getSimpleName());
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Encola un mensaje para el observador sin esperar.
+     *
+     * @param message mensaje a entregar
+     * @return {@code true} si el mensaje fue encolado; {@code false} si se descartó
+     */
+    public boolean offer(String message) {
+        if (status != Status.ACTIVE) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        long since = inFlightSince;
+        if (since != 0 && !inFlightFlagged && System.nanoTime() - since > timeoutNanos) {
+            inFlightFlagged = true;
+            timeouts.incrementAndGet();
+            strike();
+        }
+        pending.incrementAndGet();
+        if (!queue.offer(message)) {
+            pending.decrementAndGet();
+            dropped.incrementAndGet();
+            strike();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Saca al observador de la cuarentena y reinicia la cuenta de problemas.
+     */
+    public synchronized void release() {
+        if (status == Status.QUARANTINED) {
+            strikes = 0;
+            status = Status.ACTIVE;
+        }
+    }
+
+    /**
+     * Espera a que el carril entregue todos los mensajes encolados.
+     *
+     * @param timeout tiempo máximo de espera
+     * @param unit    unidad del tiempo
+     * @return {@code true} si la cola quedó vacía y no hay entrega en curso
+     * @throws InterruptedException si el hilo es interrumpido mientras espera
+     */
+    public boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (idleLock) {
+            while (pending.get() > 0) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return false;
+                TimeUnit.NANOSECONDS.timedWait(idleLock, left);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Deja de aceptar mensajes, entrega los pendientes y termina el hilo del carril.
+     *
+     * @param timeoutMillis tiempo máximo para terminar de entregar
+     */
+    public void close(long timeoutMillis) {
+        synchronized (this) {
+            if (status == Status.CLOSED) return;
+            status = Status.CLOSED;
+        }
+        try {
+            if (queue.offer(CLOSE, timeoutMillis, TimeUnit.MILLISECONDS)) worker.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            String message;
+            try {
+                message = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (message == CLOSE) return;
+            deliver(message);
+        }
+    }
+
+    private void deliver(String message) {
+        long start = System.nanoTime();
+        inFlightSince = start;
+        inFlightFlagged = false;
+        boolean ok = true;
+        try {
+            observer.update(message);
+        } catch (RuntimeException e) {
+            ok = false;
+            failures.incrementAndGet();
+            System.err.println("Observer " + observer.getClass().getSimpleName() + " failed: " + e.getMessage());
+        }
+        long elapsed = System.nanoTime() - start;
+        boolean flagged = inFlightFlagged;
+        inFlightSince = 0;
+
+        delivered.incrementAndGet();
+        totalLatencyNanos.addAndGet(elapsed);
+        maxLatencyNanos.accumulateAndGet(elapsed, Math::max);
+
+        if (!ok) {
+            strike();
+        } else if (elapsed > timeoutNanos) {
+            if (!flagged) {
+                timeouts.incrementAndGet();
+                strike();
+            }
+        } else {
+            synchronized (this) {
+                strikes = 0;
+            }
+        }
+        pending.decrementAndGet();
+        synchronized (idleLock) {
+            idleLock.notifyAll();
+        }
+    }
+
+    private synchronized void strike() {
+        if (status != Status.ACTIVE) return;
+        if (++strikes >= maxStrikes) {
+            status = Status.QUARANTINED;
+            int cleared = 0;
+            while (queue.poll() != null) cleared++;
+            pending.addAndGet(-cleared);
+            dropped.addAndGet(cleared);
+            System.err.println("Observer " + observer.getClass().getSimpleName() + " quarantined after " + strikes + " consecutive problems");
+            synchronized (idleLock) {
+                idleLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return observador del carril.
+     */
+    public Observer getObserver() {
+        return observer;
+    }
+
+    /**
+     * @return estado actual del carril.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return número de mensajes esperando en la cola.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return número de entregas realizadas (exitosas o no).
+     */
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * @return número de entregas en las que el observador lanzó una excepción.
+     */
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return número de entregas que excedieron el tiempo límite.
+     */
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return número de mensajes descartados por cola llena o cuarentena.
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * @return latencia promedio por entrega, en nanosegundos.
+     */
+    public long getAverageLatencyNanos() {
+        long n = delivered.get();
+        return n == 0 ? 0 : totalLatencyNanos.get() / n;
+    }
+
+    /**
+     * @return latencia máxima observada, en nanosegundos.
+     */
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+}
@@ -0,0 +1,136 @@
+package mx.unam.ciencias.myp.butchery.model.patrones.observer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Observador que conserva en memoria solo los mensajes más recientes.
+ *
+ * <p>A diferencia de {@link ListNotifier}, que acumula todos los mensajes, este notifier usa un
+ * búfer circular de capacidad fija: agregar un mensaje cuesta O(1) y, una vez lleno, cada mensaje
+ * nuevo reemplaza al más antiguo, así que la memoria no crece aunque el proceso corra por semanas.</p>
+ *
+ * <p>Escribir no usa candados: cada mensaje toma un número de secuencia y se guarda en su casilla
+ * junto con ese número. Las lecturas ({@link #snapshot()}, {@link #iterator()}) recorren las
+ * casillas sin bloquear a quien escribe y descartan las que fueron reemplazadas durante el
+ * recorrido.</p>
+ *
+ * <p>Opcionalmente se puede muestrear: con {@code sampleEvery = n} solo se guarda uno de cada n
+ * mensajes recibidos.</p>
+ */
+public class RingBufferNotifier implements Observer, Iterable<String> {
+
+    private final AtomicReferenceArray<Entry> ring;
+    private final int sampleEvery;
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong recorded = new AtomicLong();
+
+    /**
+     * Crea un notifier que guarda todos los mensajes recibidos.
+     *
+     * @param capacity número máximo de mensajes conservados
+     */
+    public RingBufferNotifier(int capacity) {
+        this(capacity, 1);
+    }
+
+    /**
+     * Crea un notifier con muestreo.
+     *
+     * @param capacity    número máximo de mensajes conservados
+     * @param sampleEvery se guarda uno de cada {@code sampleEvery} mensajes
+     */
+    public RingBufferNotifier(int capacity, int sampleEvery) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        if (sampleEvery <= 0) throw new IllegalArgumentException("sampleEvery must be > 0");
+        this.ring = new AtomicReferenceArray<>(capacity);
+        this.sampleEvery = sampleEvery;
+    }
+
+    /**
+     * Guarda el mensaje recibido, reemplazando al más antiguo si el búfer está lleno.
+     *
+     * @param message mensaje que indica el evento ocurrido.
+     */
+    @Override
+    public void update(String message) {
+        if (received.getAndIncrement() % sampleEvery != 0) return;
+        long seq = recorded.getAndIncrement();
+        ring.set((int) (seq % ring.length()), new Entry(seq, message));
+    }
+
+    /**
+     * Copia los mensajes conservados, del más antiguo al más reciente.
+     *
+     * @return lista con los mensajes
+     */
+    public List<String> snapshot() {
+        return recent(ring.length());
+    }
+
+    /**
+     * Copia los {@code n} mensajes más recientes, del más antiguo al más reciente.
+     *
+     * @param n número máximo de mensajes
+     * @return lista con los mensajes
+     */
+    public List<String> recent(int n) {
+        long end = recorded.get();
+        long start = Math.max(0, end - Math.min(n, ring.length()));
+        List<String> out = new ArrayList<>((int) (end - start));
+        for (long seq = start; seq < end; seq++) {
+            Entry e = ring.get((int) (seq % ring.length()));
+            if (e != null && e.seq == seq) out.add(e.message);
+        }
+        return out;
+    }
+
+    /**
+     * Itera sobre una copia de los mensajes conservados; las escrituras posteriores no la afectan.
+     */
+    @Override
+    public Iterator<String> iterator() {
+        return snapshot().iterator();
+    }
+
+    /**
+     * @return número de mensajes conservados en este momento.
+     */
+    public int size() {
+        return (int) Math.min(recorded.get(), ring.length());
+    }
+
+    /**
+     * @return capacidad del búfer.
+     */
+    public int getCapacity() {
+        return ring.length();
+    }
+
+    /**
+     * @return número total de mensajes recibidos, incluidos los no muestreados y los ya reemplazados.
+     */
+    public long getReceivedCount() {
+        return received.get();
+    }
+
+    /**
+     * @return número total de mensajes guardados, incluidos los ya reemplazados.
+     */
+    public long getRecordedCount() {
+        return recorded.get();
+    }
+
+    private static final class Entry {
+        final long seq;
+        final String message;
+
+        Entry(long seq, String message) {
+            this.seq = seq;
+            this.message = message;
+        }
+    }
+}
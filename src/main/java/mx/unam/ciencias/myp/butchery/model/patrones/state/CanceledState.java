@@ -12,11 +12,22 @@ import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
  */
 
 public class CanceledState implements ISaleState {
+
+    /** Instancia compartida; el estado no guarda datos de la venta. */
+    public static final CanceledState INSTANCE = new CanceledState();
+
     /**
-     * Muestra un mensaje indicando que la operación no está permitida debido a que la venta se encuentra cancelada.
+     * {@inheritDoc}
      */
-    private void reject() {
-        System.out.println("\nIt is not possible.");
+    @Override
+    public SaleStatus getStatus() {
+        return SaleStatus.CANCELED;
+    }
+    /**
+     * Toda operación sobre una venta cancelada se rechaza.
+     */
+    private SaleOutcome reject() {
+        return SaleOutcome.REJECTED;
     }
 
     /**
@@ -25,7 +36,7 @@ public class CanceledState implements ISaleState {
      */
     @Override
     public void addProduct(Sale sale, Product product, double quantity) {
-        reject();
+        tryAddProduct(sale, product, quantity);
     }
 
     /**
@@ -34,7 +45,7 @@ public class CanceledState implements ISaleState {
      */
     @Override
     public void applyDiscount(Sale sale) {
-        reject();
+        tryApplyDiscount(sale);
     }
 
     /**
@@ -44,7 +55,7 @@ public class CanceledState implements ISaleState {
     @Override
     public void finalizeSale(Sale sale) {
 
-        reject();
+        tryFinalizeSale(sale);
     }
 
     /**
@@ -54,6 +65,38 @@ public class CanceledState implements ISaleState {
     @Override
     
     public void cancelSale(Sale sale) {
-        reject();
+        tryCancelSale(sale);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryAddProduct(Sale sale, Product product, double quantity) {
+        return reject();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryApplyDiscount(Sale sale) {
+        return reject();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryFinalizeSale(Sale sale) {
+        return reject();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryCancelSale(Sale sale) {
+        return reject();
     }
 }
@@ -6,9 +6,61 @@ import mx.unam.ciencias.myp.butchery.model.domain.Sale;
  * Interfaz que define el comportamiento que deben implementar los distintos estados de una venta dentro del patrón State.
  *
  * <p>Cada estado es responsable de determinar qué operaciones están permitidas y cuáles deben ser rechazadas según la situación actual de la venta (pendiente, pagada o cancelada).</p>
+ *
+ * <p>Los métodos {@code try*} realizan la misma operación que su contraparte y devuelven un {@link SaleOutcome}. Sus implementaciones por omisión delegan en los métodos originales, de modo que un estado que solo implemente estos últimos sigue funcionando.</p>
  */
 public interface ISaleState {
 
+    /**
+     * Regresa el identificador de este estado.
+     * @return el identificador, o {@code null} si el estado no corresponde a ninguno de {@link SaleStatus}.
+     */
+    default SaleStatus getStatus() {
+        return null;
+    }
+
+    /**
+     * Intenta agregar un producto y regresa el resultado.
+     * @param sale     la venta sobre la cual se opera.
+     * @param product  el producto que se intenta agregar.
+     * @param quantity la cantidad del producto.
+     * @return resultado de la operación.
+     */
+    default SaleOutcome tryAddProduct(Sale sale, Product product, double quantity) {
+        addProduct(sale, product, quantity);
+        return SaleOutcome.ADDED;
+    }
+
+    /**
+     * Intenta aplicar el descuento y regresa el resultado.
+     * @param sale la venta sobre la cual se opera.
+     * @return resultado de la operación.
+     */
+    default SaleOutcome tryApplyDiscount(Sale sale) {
+        applyDiscount(sale);
+        return SaleOutcome.DISCOUNT_APPLIED;
+    }
+
+    /**
+     * Intenta finalizar la venta y regresa el resultado.
+     * @param sale la venta que se desea finalizar.
+     * @return resultado de la operación.
+     */
+    default SaleOutcome tryFinalizeSale(Sale sale) {
+        finalizeSale(sale);
+        return SaleOutcome.COMPLETED;
+    }
+
+    /**
+     * Intenta cancelar la venta y regresa el resultado.
+     * @param sale la venta que se desea cancelar.
+     * @return resultado de la operación.
+     */
+    default SaleOutcome tryCancelSale(Sale sale) {
+        cancelSale(sale);
+        return SaleOutcome.CANCELED;
+    }
+
     /**
      * Intenta agregar un producto a la venta según su estado actual.
      * @param sale    la venta sobre la cual se opera.
@@ -11,12 +11,22 @@ import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
  */
 public class PaidState implements ISaleState {
 
+    /** Instancia compartida; el estado no guarda datos de la venta. */
+    public static final PaidState INSTANCE = new PaidState();
+
     /**
-     * Muestra un mensaje indicando que la operación no está permitida debido a que la venta ya ha sido pagada.
+     * {@inheritDoc}
      */
-    private void reject() {
+    @Override
+    public SaleStatus getStatus() {
+        return SaleStatus.PAID;
+    }
 
-        System.out.println("\nIt is not possible.");
+    /**
+     * Toda operación sobre una venta pagada se rechaza.
+     */
+    private SaleOutcome reject() {
+        return SaleOutcome.REJECTED;
     }
 
     /**
@@ -26,7 +36,7 @@ public class PaidState implements ISaleState {
      */
     @Override
     public void addProduct(Sale sale, Product product, double quantity) {
-        reject();
+        tryAddProduct(sale, product, quantity);
     }
 
     /**
@@ -36,7 +46,7 @@ public class PaidState implements ISaleState {
      */
     @Override
     public void applyDiscount(Sale sale) {
-        reject();
+        tryApplyDiscount(sale);
     }
 
     /**
@@ -48,7 +58,7 @@ public class PaidState implements ISaleState {
     @Override
 
     public void finalizeSale(Sale sale) {
-        reject();
+        tryFinalizeSale(sale);
     }
     /**
      * Intento de cancelar una venta ya pagada.
@@ -56,7 +66,38 @@ public class PaidState implements ISaleState {
      */
     @Override
     public void cancelSale(Sale sale) {
-        reject();
+        tryCancelSale(sale);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryAddProduct(Sale sale, Product product, double quantity) {
+        return reject();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryApplyDiscount(Sale sale) {
+        return reject();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryFinalizeSale(Sale sale) {
+        return reject();
     }
 
-}
\ No newline at end of file
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryCancelSale(Sale sale) {
+        return reject();
+    }
+}
@@ -11,21 +11,41 @@ import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
  * Este es el único estado donde se permite alterar el contenido de la venta.</p>
  *
  * <p>Forma parte de la implementación del patrón State, que permite controlar el comportamiento de la venta según su estado interno.</p>
- * 
+ *
+ * <p>El estado no guarda datos de la venta, así que todas las ventas comparten {@link #INSTANCE}; las transiciones usan también las instancias compartidas de los demás estados y no imprimen nada: el resultado se regresa como {@link SaleOutcome}.</p>
  */
 public class PendingState implements ISaleState {
+
+    /** Instancia compartida. */
+    public static final PendingState INSTANCE = new PendingState();
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleStatus getStatus() {
+        return SaleStatus.PENDING;
+    }
+
     /**
      * Agrega un producto a la venta.
-     * <p>Si el producto ya existe en la venta, la cantidad se incrementa; de lo contrario, se agrega una nueva entrada al mapa de productos.</p>
+     * <p>Si el producto ya existe en la venta, la cantidad se incrementa; de lo contrario, se agrega una nueva línea con el precio unitario vigente.</p>
      * @param sale    la venta que se está modificando.
      * @param product el producto que se desea agregar.
      * @param quantity la cantidad a añadir.
      */
     @Override
     public void addProduct(Sale sale, Product product, double quantity) {
+        tryAddProduct(sale, product, quantity);
+    }
 
-        sale.getItems().put(product, sale.getItems().getOrDefault(product, 0.0) + quantity);
-        System.out.println("Producto agregado correctamente.");
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryAddProduct(Sale sale, Product product, double quantity) {
+        sale.getLines().add(product, quantity);
+        return SaleOutcome.ADDED;
     }
 
     /**
@@ -36,11 +56,19 @@ public class PendingState implements ISaleState {
      */
     @Override
     public void applyDiscount(Sale sale) {
+        tryApplyDiscount(sale);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryApplyDiscount(Sale sale) {
         double total = sale.calculateTotalWithoutDiscount();
         double newTotal = sale.getStrategy().applyDiscount(total);
 
         sale.setTotal(newTotal);
-        System.out.println("\nDiscount applied.");
+        return SaleOutcome.DISCOUNT_APPLIED;
     }
 
     /**
@@ -50,10 +78,16 @@ public class PendingState implements ISaleState {
      */
     @Override
     public void finalizeSale(Sale sale) {
+        tryFinalizeSale(sale);
+    }
 
-        sale.setState(new PaidState());
-        System.out.println("\nSale completed.");
-
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryFinalizeSale(Sale sale) {
+        sale.setState(PaidState.INSTANCE);
+        return SaleOutcome.COMPLETED;
     }
 
     /**
@@ -65,8 +99,15 @@ public class PendingState implements ISaleState {
     @Override
 
     public void cancelSale(Sale sale) {
-        sale.setState(new CanceledState());
-        System.out.println("\nCanceling...");
+        tryCancelSale(sale);
+    }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SaleOutcome tryCancelSale(Sale sale) {
+        sale.setState(CanceledState.INSTANCE);
+        return SaleOutcome.CANCELED;
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package mx.unam.ciencias.myp.butchery.model.patrones.state;
+
+/**
+ * Resultado de una operación sobre una venta.
+ *
+ * <p>Los estados devuelven el resultado en lugar de imprimirlo; quien opera la venta (por ejemplo,
+ * la vista) decide si muestra el mensaje asociado.</p>
+ */
+public enum SaleOutcome {
+    /** Se agregó el producto. */
+    ADDED(true, "Producto agregado correctamente."),
+    /** Se aplicó la estrategia de descuento. */
+    DISCOUNT_APPLIED(true, "Discount applied."),
+    /** La venta pasó a pagada. */
+    COMPLETED(true, "Sale completed."),
+    /** La venta pasó a cancelada. */
+    CANCELED(true, "Canceling..."),
+    /** El estado actual no permite la operación. */
+    REJECTED(false, "It is not possible.");
+
+    private final boolean accepted;
+    private final String message;
+
+    SaleOutcome(boolean accepted, String message) {
+        this.accepted = accepted;
+        this.message = message;
+    }
+
+    /**
+     * @return {@code true} si la operación se realizó.
+     */
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    /**
+     * @return mensaje para mostrar al usuario.
+     */
+    public String getMessage() {
+        return message;
+    }
+}
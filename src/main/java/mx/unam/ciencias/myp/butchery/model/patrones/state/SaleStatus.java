@@ -0,0 +1,16 @@
+package mx.unam.ciencias.myp.butchery.model.patrones.state;
+
+/**
+ * Identificador del estado de una venta.
+ *
+ * <p>Permite consultar en qué estado está una venta con una comparación de referencias, sin
+ * revisar la clase del objeto estado.</p>
+ */
+public enum SaleStatus {
+    /** La venta está abierta y puede modificarse. */
+    PENDING,
+    /** La venta fue pagada. */
+    PAID,
+    /** La venta fue cancelada. */
+    CANCELED
+}
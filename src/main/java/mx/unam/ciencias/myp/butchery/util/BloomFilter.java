@@ -0,0 +1,115 @@
+package mx.unam.ciencias.myp.butchery.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Filtro de Bloom sobre cadenas.
+ *
+ * <p>Responde si una cadena <em>podría</em> haberse agregado: un "no" es definitivo y un "sí" puede
+ * ser un falso positivo, con la probabilidad elegida al crearlo mientras no se exceda el número de
+ * elementos esperado. Sirve para evitar la consulta exacta (por ejemplo, a la base de datos) en el
+ * caso común de un elemento nuevo.</p>
+ *
+ * <p>Los {@code k} índices de cada cadena se obtienen por doble hashing a partir de un hash de 64
+ * bits (FNV-1a sobre los bytes UTF-8, con mezcla final), y los bits se guardan en un arreglo de
+ * {@code long}. El filtro no crece: si se agregan más elementos de los esperados la probabilidad
+ * de falso positivo sube, y {@link #isSaturated()} indica cuándo conviene reconstruirlo más grande.</p>
+ */
+public class BloomFilter {
+
+    private final long[] bits;
+    private final int bitCount;
+    private final int hashes;
+    private final int expected;
+    private int added;
+
+    /**
+     * Crea un filtro vacío.
+     *
+     * @param expectedElements       número de elementos esperado
+     * @param falsePositiveProbability probabilidad de falso positivo buscada (entre 0 y 1, exclusivo)
+     */
+    public BloomFilter(int expectedElements, double falsePositiveProbability) {
+        if (expectedElements <= 0) throw new IllegalArgumentException("expectedElements must be > 0");
+        if (falsePositiveProbability <= 0 || falsePositiveProbability >= 1)
+            throw new IllegalArgumentException("falsePositiveProbability must be in (0, 1)");
+        double ln2 = Math.log(2);
+        long m = (long) Math.ceil(-expectedElements * Math.log(falsePositiveProbability) / (ln2 * ln2));
+        this.bitCount = (int) Math.max(64, Math.min(m, Integer.MAX_VALUE - 63));
+        this.hashes = Math.max(1, (int) Math.round((double) bitCount / expectedElements * ln2));
+        this.bits = new long[(bitCount + 63) >>> 6];
+        this.expected = expectedElements;
+    }
+
+    /**
+     * Agrega una cadena al filtro.
+     *
+     * @param value cadena a agregar
+     */
+    public void add(String value) {
+        long h = hash(value);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+        added++;
+    }
+
+    /**
+     * @param value cadena consultada
+     * @return {@code false} si la cadena seguro no se agregó; {@code true} si podría haberse agregado
+     */
+    public boolean mightContain(String value) {
+        long h = hash(value);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return número de cadenas agregadas.
+     */
+    public int getAddedCount() {
+        return added;
+    }
+
+    /**
+     * @return {@code true} si ya se agregaron más cadenas de las esperadas y la probabilidad de
+     * falso positivo supera la elegida.
+     */
+    public boolean isSaturated() {
+        return added > expected;
+    }
+
+    /**
+     * @return número de bits del filtro.
+     */
+    public int getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * @return número de funciones hash por elemento.
+     */
+    public int getHashCount() {
+        return hashes;
+    }
+
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
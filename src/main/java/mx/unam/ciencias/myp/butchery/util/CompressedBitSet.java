@@ -0,0 +1,242 @@
+package mx.unam.ciencias.myp.butchery.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto de bits comprimido sobre enteros no negativos (ordinales).
+ *
+ * <p>Solo se guardan las palabras de 64 bits que contienen al menos un bit encendido, en un arreglo
+ * ordenado de llaves (índice de palabra) paralelo a un arreglo de palabras. Las operaciones de
+ * conjunto ({@link #and}, {@link #or}, {@link #andNot}) mezclan ambos arreglos en un solo recorrido,
+ * por lo que su costo depende del número de palabras ocupadas y no del tamaño del universo.</p>
+ */
+public class CompressedBitSet {
+
+    private int[] keys;
+    private long[] words;
+    private int size;
+
+    /**
+     * Crea un conjunto vacío.
+     */
+    public CompressedBitSet() {
+        this(4);
+    }
+
+    private CompressedBitSet(int capacity) {
+        this.keys = new int[Math.max(capacity, 1)];
+        this.words = new long[Math.max(capacity, 1)];
+        this.size = 0;
+    }
+
+    /**
+     * Enciende el bit indicado.
+     * @param bit ordinal a agregar (debe ser mayor o igual a cero)
+     */
+    public void set(int bit) {
+        if (bit < 0) throw new IllegalArgumentException("bit must be >= 0");
+        int key = bit >>> 6;
+        int i = Arrays.binarySearch(keys, 0, size, key);
+        if (i >= 0) {
+            words[i] |= 1L << bit;
+            return;
+        }
+        insertAt(-i - 1, key, 1L << bit);
+    }
+
+    /**
+     * Apaga el bit indicado. Si la palabra que lo contiene queda vacía, se elimina.
+     * @param bit ordinal a quitar
+     */
+    public void clear(int bit) {
+        if (bit < 0) return;
+        int i = Arrays.binarySearch(keys, 0, size, bit >>> 6);
+        if (i < 0) return;
+        words[i] &= ~(1L << bit);
+        if (words[i] == 0L) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(words, i + 1, words, i, size - i - 1);
+            size--;
+        }
+    }
+
+    /**
+     * Indica si el bit está encendido.
+     * @param bit ordinal a consultar
+     * @return {@code true} si pertenece al conjunto
+     */
+    public boolean get(int bit) {
+        if (bit < 0) return false;
+        int i = Arrays.binarySearch(keys, 0, size, bit >>> 6);
+        return i >= 0 && (words[i] & (1L << bit)) != 0L;
+    }
+
+    /**
+     * @return número de bits encendidos.
+     */
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < size; i++) count += Long.bitCount(words[i]);
+        return count;
+    }
+
+    /**
+     * @return {@code true} si no hay ningún bit encendido.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Intersección de este conjunto con otro. Ninguno de los operandos se modifica.
+     * @param other el otro conjunto
+     * @return un conjunto nuevo con los bits presentes en ambos
+     */
+    public CompressedBitSet and(CompressedBitSet other) {
+        CompressedBitSet out = new CompressedBitSet(Math.min(size, other.size));
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            int a = keys[i], b = other.keys[j];
+            if (a < b) i++;
+            else if (a > b) j++;
+            else {
+                long w = words[i++] & other.words[j++];
+                if (w != 0L) out.append(a, w);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Unión de este conjunto con otro. Ninguno de los operandos se modifica.
+     * @param other el otro conjunto
+     * @return un conjunto nuevo con los bits presentes en cualquiera de los dos
+     */
+    public CompressedBitSet or(CompressedBitSet other) {
+        CompressedBitSet out = new CompressedBitSet(size + other.size);
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            int a = keys[i], b = other.keys[j];
+            if (a < b) out.append(a, words[i++]);
+            else if (a > b) out.append(b, other.words[j++]);
+            else out.append(a, words[i++] | other.words[j++]);
+        }
+        while (i < size) { out.append(keys[i], words[i]); i++; }
+        while (j < other.size) { out.append(other.keys[j], other.words[j]); j++; }
+        return out;
+    }
+
+    /**
+     * Diferencia de este conjunto menos otro. Ninguno de los operandos se modifica.
+     * @param other conjunto cuyos bits se quitan
+     * @return un conjunto nuevo con los bits de este conjunto que no están en {@code other}
+     */
+    public CompressedBitSet andNot(CompressedBitSet other) {
+        CompressedBitSet out = new CompressedBitSet(size);
+        int i = 0, j = 0;
+        while (i < size) {
+            int a = keys[i];
+            while (j < other.size && other.keys[j] < a) j++;
+            long w = words[i++];
+            if (j < other.size && other.keys[j] == a) w &= ~other.words[j];
+            if (w != 0L) out.append(a, w);
+        }
+        return out;
+    }
+
+    /**
+     * @return una copia independiente de este conjunto.
+     */
+    public CompressedBitSet copy() {
+        CompressedBitSet out = new CompressedBitSet(size);
+        System.arraycopy(keys, 0, out.keys, 0, size);
+        System.arraycopy(words, 0, out.words, 0, size);
+        out.size = size;
+        return out;
+    }
+
+    /**
+     * Recorre los bits encendidos en orden ascendente.
+     * @param action acción que recibe cada ordinal
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            long w = words[i];
+            int base = keys[i] << 6;
+            while (w != 0L) {
+                action.accept(base + Long.numberOfTrailingZeros(w));
+                w &= w - 1;
+            }
+        }
+    }
+
+    /**
+     * @return los ordinales encendidos en orden ascendente.
+     */
+    public int[] toArray() {
+        int[] out = new int[cardinality()];
+        int[] pos = {0};
+        forEach(bit -> out[pos[0]++] = bit);
+        return out;
+    }
+
+    /**
+     * Agrega una palabra al final; solo es válido cuando {@code key} es mayor que cualquier llave existente.
+     */
+    private void append(int key, long word) {
+        ensureCapacity(size + 1);
+        keys[size] = key;
+        words[size] = word;
+        size++;
+    }
+
+    private void insertAt(int index, int key, long word) {
+        ensureCapacity(size + 1);
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(words, index, words, index + 1, size - index);
+        keys[index] = key;
+        words[index] = word;
+        size++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= keys.length) return;
+        int newCapacity = Math.max(capacity, keys.length * 2);
+        keys = Arrays.copyOf(keys, newCapacity);
+        words = Arrays.copyOf(words, newCapacity);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompressedBitSet)) return false;
+        CompressedBitSet that = (CompressedBitSet) o;
+        if (size != that.size) return false;
+        for (int i = 0; i < size; i++) {
+            if (keys[i] != that.keys[i] || words[i] != that.words[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode() {
+        int h = 1;
+        for (int i = 0; i < size; i++) h = 31 * h + keys[i] * 17 + Long.hashCode(words[i]);
+        return h;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+}
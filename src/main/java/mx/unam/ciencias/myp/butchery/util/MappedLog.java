@@ -0,0 +1,199 @@
+package mx.unam.ciencias.myp.butchery.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Bitácora binaria de solo anexado escrita sobre un archivo mapeado en memoria.
+ *
+ * <p>El archivo empieza con un encabezado de {@value #FILE_HEADER} bytes (número mágico y versión)
+ * seguido de registros alineados a 8 bytes con el formato:</p>
+ * <pre>
+ *   int  longitud de la carga
+ *   int  CRC32 de (secuencia, instante, carga)
+ *   long número de secuencia (empieza en 1 y crece de uno en uno)
+ *   long instante en milisegundos
+ *   byte[] carga
+ * </pre>
+ *
+ * <p>La longitud se escribe al final: mientras valga 0, el registro no existe para los lectores. Un
+ * registro cuya suma de verificación no coincide se considera incompleto. Así un
+ * {@link MappedLogReader}, en este proceso o en otro, puede seguir la bitácora sin candados.</p>
+ *
+ * <p>Cuando el mapeo se llena, el archivo crece al doble y se vuelve a mapear. Al abrir un archivo
+ * existente se recorren sus registros para recuperar la última secuencia; lo que siga al último
+ * registro válido se descarta.</p>
+ */
+public class MappedLog implements Closeable {
+
+    /** Número mágico del archivo ("INVL"). */
+    static final int MAGIC = 0x494E564C;
+    static final int VERSION = 1;
+    static final int FILE_HEADER = 16;
+    static final int RECORD_HEADER = 24;
+
+    private static final int DEFAULT_CAPACITY = 1 << 20;
+
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private int position;
+    private long lastSequence;
+
+    /**
+     * Abre o crea una bitácora con la capacidad inicial por defecto.
+     *
+     * @param file archivo de la bitácora
+     * @throws IOException si no se puede abrir o mapear el archivo
+     */
+    public MappedLog(Path file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Abre o crea una bitácora.
+     *
+     * @param file            archivo de la bitácora
+     * @param initialCapacity tamaño inicial del mapeo en bytes
+     * @throws IOException si no se puede abrir o mapear el archivo, o si no es una bitácora válida
+     */
+    public MappedLog(Path file, int initialCapacity) throws IOException {
+        if (initialCapacity < FILE_HEADER + RECORD_HEADER)
+            throw new IllegalArgumentException("initialCapacity too small");
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long existing = channel.size();
+        int capacity = (int) Math.max(initialCapacity, existing);
+        this.map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        if (existing == 0) {
+            map.putInt(0, MAGIC);
+            map.putInt(4, VERSION);
+            this.position = FILE_HEADER;
+            this.lastSequence = 0;
+        } else {
+            if (map.getInt(0) != MAGIC) {
+                channel.close();
+                throw new IOException("Not a change log: " + file);
+            }
+            recover();
+        }
+    }
+
+    /**
+     * Agrega un registro con el instante actual.
+     *
+     * @param payload contenido del registro
+     * @return número de secuencia asignado
+     */
+    public long append(byte[] payload) {
+        return append(System.currentTimeMillis(), ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Agrega un registro.
+     *
+     * @param timestamp instante del registro en milisegundos
+     * @param payload   contenido del registro, desde su posición hasta su límite
+     * @return número de secuencia asignado
+     * @throws IllegalStateException si el archivo no puede crecer
+     */
+    public synchronized long append(long timestamp, ByteBuffer payload) {
+        int length = payload.remaining();
+        int size = align(RECORD_HEADER + length);
+        ensureCapacity(position + size + 4);
+
+        long seq = lastSequence + 1;
+        int at = position;
+        map.putLong(at + 8, seq);
+        map.putLong(at + 16, timestamp);
+        ByteBuffer dst = map.duplicate();
+        dst.position(at + RECORD_HEADER);
+        dst.put(payload.duplicate());
+
+        map.putInt(at + 4, checksum(map, at, length));
+        map.putInt(at, length);
+
+        position = at + size;
+        lastSequence = seq;
+        return seq;
+    }
+
+    /**
+     * @return número de secuencia del último registro escrito, o 0 si la bitácora está vacía.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    /**
+     * Fuerza al disco los registros escritos.
+     */
+    public synchronized void force() {
+        map.force();
+    }
+
+    /**
+     * Fuerza los registros al disco y cierra el archivo.
+     *
+     * @throws IOException si no se puede cerrar el archivo
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        map.force();
+        channel.close();
+    }
+
+    /**
+     * Calcula el CRC32 de la secuencia, el instante y la carga del registro que empieza en {@code at}.
+     */
+    static int checksum(ByteBuffer buf, int at, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer view = buf.duplicate();
+        view.position(at + 8).limit(at + RECORD_HEADER + length);
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    static int align(int size) {
+        return (size + 7) & ~7;
+    }
+
+    /**
+     * Recorre los registros existentes hasta el último válido y limpia lo que sigue.
+     */
+    private void recover() {
+        int at = FILE_HEADER;
+        long seq = 0;
+        int capacity = map.capacity();
+        while (at + RECORD_HEADER <= capacity) {
+            int length = map.getInt(at);
+            if (length <= 0 || at + RECORD_HEADER + length > capacity) break;
+            if (map.getLong(at + 8) != seq + 1 || map.getInt(at + 4) != checksum(map, at, length)) break;
+            seq++;
+            at += align(RECORD_HEADER + length);
+        }
+        for (int i = at; i < capacity; i += 8) {
+            if (i + 8 <= capacity) map.putLong(i, 0L);
+            else for (int j = i; j < capacity; j++) map.put(j, (byte) 0);
+        }
+        this.position = at;
+        this.lastSequence = seq;
+    }
+
+    private void ensureCapacity(long needed) {
+        if (needed <= map.capacity()) return;
+        if (needed > Integer.MAX_VALUE) throw new IllegalStateException("Change log is full");
+        long capacity = Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * map.capacity()));
+        try {
+            map.force();
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not grow change log", e);
+        }
+    }
+}
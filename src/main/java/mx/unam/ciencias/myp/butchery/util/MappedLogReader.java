@@ -0,0 +1,134 @@
+package mx.unam.ciencias.myp.butchery.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lector que sigue una {@link MappedLog} a partir de un número de secuencia.
+ *
+ * <p>Mapea el archivo en solo lectura y entrega cada registro como una vista de solo lectura sobre
+ * el mapeo, sin copiar la carga. Cuando no hay registros nuevos, {@link #poll} regresa de
+ * inmediato; quien lo usa decide si reintentar en un ciclo activo o esperar. Si el escritor hizo
+ * crecer el archivo, el lector vuelve a mapearlo.</p>
+ */
+public class MappedLogReader implements Closeable {
+
+    /**
+     * Receptor de los registros leídos.
+     */
+    @FunctionalInterface
+    public interface RecordHandler {
+
+        /**
+         * Recibe un registro. La vista de la carga solo es válida durante la llamada.
+         *
+         * @param sequence  número de secuencia
+         * @param timestamp instante en milisegundos
+         * @param payload   vista de solo lectura de la carga
+         */
+        void onRecord(long sequence, long timestamp, ByteBuffer payload);
+    }
+
+    private final FileChannel channel;
+    private MappedByteBuffer map;
+    private int position;
+    private long nextSequence;
+
+    /**
+     * Abre un lector que entregará los registros a partir de {@code fromSequence}.
+     *
+     * @param file         archivo de la bitácora
+     * @param fromSequence primera secuencia a entregar (1 para leer desde el inicio)
+     * @throws IOException si no se puede abrir el archivo o no es una bitácora válida
+     */
+    public MappedLogReader(Path file, long fromSequence) throws IOException {
+        if (fromSequence < 1) throw new IllegalArgumentException("fromSequence must be >= 1");
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (map.capacity() < MappedLog.FILE_HEADER || map.getInt(0) != MappedLog.MAGIC) {
+            channel.close();
+            throw new IOException("Not a change log: " + file);
+        }
+        this.position = MappedLog.FILE_HEADER;
+        this.nextSequence = 1;
+        while (nextSequence < fromSequence && skip()) {
+            // avanza hasta la secuencia pedida
+        }
+    }
+
+    /**
+     * Entrega los registros disponibles, hasta un máximo.
+     *
+     * @param handler    receptor de los registros
+     * @param maxRecords número máximo de registros a entregar
+     * @return número de registros entregados
+     * @throws IOException si no se puede volver a mapear el archivo
+     */
+    public int poll(RecordHandler handler, int maxRecords) throws IOException {
+        int n = 0;
+        while (n < maxRecords) {
+            int length = available();
+            if (length < 0) break;
+            ByteBuffer payload = map.duplicate();
+            payload.position(position + MappedLog.RECORD_HEADER).limit(position + MappedLog.RECORD_HEADER + length);
+            handler.onRecord(map.getLong(position + 8), map.getLong(position + 16), payload.slice().asReadOnlyBuffer());
+            advance(length);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * @return siguiente número de secuencia que entregará el lector.
+     */
+    public long getNextSequence() {
+        return nextSequence;
+    }
+
+    /**
+     * Cierra el archivo.
+     *
+     * @throws IOException si no se puede cerrar
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean skip() throws IOException {
+        int length = available();
+        if (length < 0) return false;
+        advance(length);
+        return true;
+    }
+
+    private void advance(int length) {
+        position += MappedLog.align(MappedLog.RECORD_HEADER + length);
+        nextSequence++;
+    }
+
+    /**
+     * Longitud de la carga del registro en la posición actual, o -1 si aún no hay un registro completo.
+     */
+    private int available() throws IOException {
+        if (position + MappedLog.RECORD_HEADER > map.capacity() && !remap()) return -1;
+        int length = map.getInt(position);
+        if (length <= 0) return -1;
+        if (position + MappedLog.RECORD_HEADER + length > map.capacity() && !remap()) return -1;
+        if (map.getLong(position + 8) != nextSequence) return -1;
+        if (map.getInt(position + 4) != MappedLog.checksum(map, position, length)) return -1;
+        return length;
+    }
+
+    private boolean remap() throws IOException {
+        long size = channel.size();
+        if (size <= map.capacity()) return false;
+        map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        return true;
+    }
+}
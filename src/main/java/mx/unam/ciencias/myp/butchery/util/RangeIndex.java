@@ -0,0 +1,169 @@
+package mx.unam.ciencias.myp.butchery.util;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Índice secundario ordenado de un atributo numérico por ordinal.
+ *
+ * <p>Mantiene los pares (valor, ordinal) en arreglos primitivos paralelos ordenados por valor,
+ * más un arreglo directo ordinal → valor. Con ello:</p>
+ * <ul>
+ *     <li>contar cuántos ordinales caen en un rango cuesta dos búsquedas binarias (O(log n)),</li>
+ *     <li>recorrer un rango cuesta O(log n + k), con k el número de resultados,</li>
+ *     <li>actualizar un valor cuesta una búsqueda binaria y un desplazamiento con {@code System.arraycopy}.</li>
+ * </ul>
+ */
+public class RangeIndex {
+
+    private double[] values;
+    private int[] ordinals;
+    private int size;
+
+    private double[] byOrdinal;
+
+    /**
+     * Crea un índice vacío.
+     */
+    public RangeIndex() {
+        this.values = new double[16];
+        this.ordinals = new int[16];
+        this.size = 0;
+        this.byOrdinal = new double[16];
+        Arrays.fill(byOrdinal, Double.NaN);
+    }
+
+    /**
+     * Asigna (o reemplaza) el valor de un ordinal.
+     *
+     * @param ordinal ordinal del elemento
+     * @param value   nuevo valor (no puede ser NaN)
+     */
+    public void put(int ordinal, double value) {
+        if (Double.isNaN(value)) throw new IllegalArgumentException("value cannot be NaN");
+        double old = valueOf(ordinal);
+        if (!Double.isNaN(old)) {
+            if (Double.compare(old, value) == 0) return;
+            removeEntry(old, ordinal);
+        }
+        ensureOrdinal(ordinal);
+        byOrdinal[ordinal] = value;
+
+        int pos = position(value, ordinal);
+        int at = -pos - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            ordinals = Arrays.copyOf(ordinals, size * 2);
+        }
+        System.arraycopy(values, at, values, at + 1, size - at);
+        System.arraycopy(ordinals, at, ordinals, at + 1, size - at);
+        values[at] = value;
+        ordinals[at] = ordinal;
+        size++;
+    }
+
+    /**
+     * Quita un ordinal del índice.
+     * @param ordinal ordinal a quitar
+     */
+    public void remove(int ordinal) {
+        double old = valueOf(ordinal);
+        if (Double.isNaN(old)) return;
+        removeEntry(old, ordinal);
+        byOrdinal[ordinal] = Double.NaN;
+    }
+
+    /**
+     * @param ordinal ordinal consultado
+     * @return valor indexado, o NaN si el ordinal no está en el índice
+     */
+    public double valueOf(int ordinal) {
+        if (ordinal < 0 || ordinal >= byOrdinal.length) return Double.NaN;
+        return byOrdinal[ordinal];
+    }
+
+    /**
+     * @return número de ordinales indexados.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Cuenta cuántos ordinales tienen un valor dentro del rango.
+     *
+     * @param lo          límite inferior
+     * @param loInclusive si el límite inferior es inclusivo
+     * @param hi          límite superior
+     * @param hiInclusive si el límite superior es inclusivo
+     * @return número de ordinales en el rango
+     */
+    public int count(double lo, boolean loInclusive, double hi, boolean hiInclusive) {
+        int from = firstIndex(lo, !loInclusive);
+        int to = firstIndex(hi, hiInclusive);
+        return Math.max(0, to - from);
+    }
+
+    /**
+     * Recorre, en orden ascendente de valor, los ordinales cuyo valor cae dentro del rango.
+     *
+     * @param lo          límite inferior
+     * @param loInclusive si el límite inferior es inclusivo
+     * @param hi          límite superior
+     * @param hiInclusive si el límite superior es inclusivo
+     * @param action      acción que recibe cada ordinal
+     */
+    public void forEachInRange(double lo, boolean loInclusive, double hi, boolean hiInclusive, IntConsumer action) {
+        int from = firstIndex(lo, !loInclusive);
+        int to = firstIndex(hi, hiInclusive);
+        for (int i = from; i < to; i++) action.accept(ordinals[i]);
+    }
+
+    /**
+     * Devuelve la primera posición cuyo valor es mayor o igual a {@code v}
+     * (o estrictamente mayor si {@code after} es verdadero).
+     */
+    private int firstIndex(double v, boolean after) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = Double.compare(values[mid], v);
+            if (c < 0 || (after && c == 0)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Búsqueda binaria por (valor, ordinal). Regresa la posición si existe o
+     * {@code -(punto de inserción) - 1} si no.
+     */
+    private int position(double value, int ordinal) {
+        int lo = 0, hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = Double.compare(values[mid], value);
+            if (c == 0) c = Integer.compare(ordinals[mid], ordinal);
+            if (c < 0) lo = mid + 1;
+            else if (c > 0) hi = mid - 1;
+            else return mid;
+        }
+        return -lo - 1;
+    }
+
+    private void removeEntry(double value, int ordinal) {
+        int pos = position(value, ordinal);
+        if (pos < 0) return;
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        System.arraycopy(ordinals, pos + 1, ordinals, pos, size - pos - 1);
+        size--;
+    }
+
+    private void ensureOrdinal(int ordinal) {
+        if (ordinal < 0) throw new IllegalArgumentException("ordinal must be >= 0");
+        if (ordinal < byOrdinal.length) return;
+        int old = byOrdinal.length;
+        byOrdinal = Arrays.copyOf(byOrdinal, Math.max(ordinal + 1, old * 2));
+        Arrays.fill(byOrdinal, old, byOrdinal.length, Double.NaN);
+    }
+}
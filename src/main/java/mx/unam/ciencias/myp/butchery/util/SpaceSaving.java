@@ -0,0 +1,199 @@
+package mx.unam.ciencias.myp.butchery.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Resumen Space-Saving de los elementos más pesados de un flujo.
+ *
+ * <p>Guarda a lo más {@code capacity} contadores. Un elemento ya contado suma su peso a su contador;
+ * uno nuevo, con el resumen lleno, reemplaza al contador más bajo y hereda su cuenta como error.
+ * Así cada estimación sobrestima el peso real a lo más en su error, y el error de cualquier
+ * elemento es como máximo {@code peso total / capacity}: todo elemento con peso mayor a esa cota
+ * está en el resumen.</p>
+ *
+ * <p>Los contadores se mantienen ordenados por cuenta, así que agregar cuesta O(log capacity) y
+ * obtener los {@code k} primeros cuesta O(k).</p>
+ *
+ * @param <K> tipo de los elementos
+ */
+public class SpaceSaving<K> {
+
+    private static final Comparator<Counter<?>> BY_COUNT = Comparator
+            .<Counter<?>>comparingDouble(c -> c.count)
+            .thenComparingLong(c -> c.seq);
+
+    private final int capacity;
+    private final Map<K, Counter<K>> counters;
+    private final TreeSet<Counter<K>> ordered;
+    private double totalWeight;
+    private long nextSeq;
+
+    /**
+     * Crea un resumen vacío.
+     *
+     * @param capacity número máximo de contadores
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0");
+        this.capacity = capacity;
+        this.counters = new HashMap<>();
+        this.ordered = new TreeSet<>(BY_COUNT);
+    }
+
+    /**
+     * Suma un peso a un elemento.
+     *
+     * @param key    elemento
+     * @param weight peso a sumar (positivo)
+     */
+    public void offer(K key, double weight) {
+        if (!(weight > 0)) throw new IllegalArgumentException("weight must be > 0");
+        totalWeight += weight;
+
+        Counter<K> c = counters.get(key);
+        if (c != null) {
+            ordered.remove(c);
+            c.count += weight;
+        } else if (counters.size() < capacity) {
+            c = new Counter<>(key, weight, 0.0);
+            counters.put(key, c);
+        } else {
+            Counter<K> min = ordered.pollFirst();
+            counters.remove(min.key);
+            c = new Counter<>(key, min.count + weight, min.count);
+            counters.put(key, c);
+        }
+        c.seq = nextSeq++;
+        ordered.add(c);
+    }
+
+    /**
+     * @param k número de elementos
+     * @return los {@code k} elementos con mayor estimación, de mayor a menor
+     */
+    public List<Entry<K>> top(int k) {
+        List<Entry<K>> out = new ArrayList<>(Math.min(k, counters.size()));
+        Iterator<Counter<K>> it = ordered.descendingIterator();
+        while (out.size() < k && it.hasNext()) {
+            Counter<K> c = it.next();
+            out.add(new Entry<>(c.key, c.count, c.error));
+        }
+        return out;
+    }
+
+    /**
+     * @return los contadores del resumen, sin orden.
+     */
+    public Collection<Entry<K>> entries() {
+        List<Entry<K>> out = new ArrayList<>(counters.size());
+        for (Counter<K> c : counters.values()) out.add(new Entry<>(c.key, c.count, c.error));
+        return out;
+    }
+
+    /**
+     * @return cuenta más baja del resumen si está lleno (lo más que puede pesar un elemento ausente), o 0.
+     */
+    public double getMinCount() {
+        return counters.size() < capacity ? 0.0 : ordered.first().count;
+    }
+
+    /**
+     * @return cota del error de cualquier estimación: peso total entre la capacidad.
+     */
+    public double getErrorBound() {
+        return totalWeight / capacity;
+    }
+
+    /**
+     * @return peso total recibido.
+     */
+    public double getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * @return número máximo de contadores.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return {@code true} si no se ha recibido ningún peso.
+     */
+    public boolean isEmpty() {
+        return counters.isEmpty();
+    }
+
+    private static final class Counter<K> {
+
+        private final K key;
+        private double count;
+        private final double error;
+        private long seq;
+
+        Counter(K key, double count, double error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Estimación del peso de un elemento.
+     *
+     * @param <K> tipo de los elementos
+     */
+    public static final class Entry<K> {
+
+        private final K key;
+        private final double estimate;
+        private final double error;
+
+        /**
+         * @param key      elemento
+         * @param estimate peso estimado (nunca menor al real)
+         * @param error    lo más que la estimación puede exceder al peso real
+         */
+        public Entry(K key, double estimate, double error) {
+            this.key = key;
+            this.estimate = estimate;
+            this.error = error;
+        }
+
+        /**
+         * @return elemento.
+         */
+        public K getKey() { return key; }
+
+        /**
+         * @return peso estimado; nunca menor al real.
+         */
+        public double getEstimate() { return estimate; }
+
+        /**
+         * @return lo más que la estimación puede exceder al peso real.
+         */
+        public double getError() { return error; }
+
+        /**
+         * @return peso que el elemento tiene con seguridad.
+         */
+        public double getGuaranteed() { return estimate - error; }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("%s: %.2f (±%.2f)", key, estimate, error);
+        }
+    }
+}
@@ -4,6 +4,9 @@ import mx.unam.ciencias.myp.butchery.controller.ButcheryController;
 import mx.unam.ciencias.myp.butchery.model.patrones.factory.*;
 import mx.unam.ciencias.myp.butchery.model.domain.Sale;
 
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 import java.util.Scanner;
 
@@ -91,7 +94,8 @@ public class ConsoleView {
             System.out.println("4. Modify product (name/price)");
             System.out.println("5. Delete product");
             System.out.println("6. Seed sample data (test)");
-            System.out.println("7. Back to Main Menu");
+            System.out.println("7. Physical stocktake");
+            System.out.println("8. Back to Main Menu");
 
             String line = readLine("Choose option:");
             int opt;
@@ -123,6 +127,9 @@ public class ConsoleView {
                     seedSampleData();
                     break;
                 case 7:
+                    stocktake();
+                    break;
+                case 8:
                     System.out.println("Returning to Main Menu...");
                     return;
                 default:
@@ -131,6 +138,57 @@ public class ConsoleView {
         }
     }
 
+    /**
+     * Menú de toma de inventario física.
+     * La vista le pide al controlador iniciar la sesión, registrar conteos y aplicar las correcciones.
+     */
+    public void stocktake() {
+        controller.beginStocktake();
+        while (true) {
+            System.out.println("=============================================================================================================");
+            System.out.println("Physical stocktake:\n");
+            System.out.println("1. Count product");
+            System.out.println("2. Import counts from file (name,quantity)");
+            System.out.println("3. Show variances");
+            System.out.println("4. Apply corrections");
+            System.out.println("5. Discard stocktake");
+
+            int opt = readInt("Choose option:");
+            switch (opt) {
+                case 1: {
+                    String name = readLine("Product name:");
+                    double qty = readDouble("Counted quantity:");
+                    String err = controller.countStock(name, qty);
+                    if (err != null) System.out.println(err);
+                    break;
+                }
+                case 2: {
+                    String path = readLine("File path:");
+                    try (Reader in = new FileReader(path)) {
+                        System.out.println("Imported counts: " + controller.importStockCounts(in));
+                    } catch (IOException | RuntimeException e) {
+                        System.out.println("Error importing counts: " + e.getMessage());
+                    }
+                    break;
+                }
+                case 3:
+                    List<?> variances = controller.getStocktakeVariances();
+                    if (variances.isEmpty()) System.out.println("No variances.");
+                    variances.forEach(v -> System.out.println("- " + v));
+                    break;
+                case 4:
+                    System.out.println(controller.applyStocktake());
+                    return;
+                case 5:
+                    controller.discardStocktake();
+                    System.out.println("Stocktake discarded.");
+                    return;
+                default:
+                    System.out.println("Invalid option!");
+            }
+        }
+    }
+
     /**
      * La vista le pide al controlador agregar stock a un producto.
      */
@@ -0,0 +1,143 @@
+package mx.unam.ciencias.myp.butchery.test.controller;
+
+import mx.unam.ciencias.myp.butchery.controller.CheckoutLanes;
+import mx.unam.ciencias.myp.butchery.model.ModelFacade;
+import mx.unam.ciencias.myp.butchery.model.domain.Sale;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByUnit;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link CheckoutLanes}.
+ * <p>
+ * Se verifica que cada caja tenga su propia venta aunque varias cobren al mismo tiempo y que las cajas inactivas se cierren.
+ * </p>
+ *
+ * <p>Se utiliza un stub de {@link ModelFacade} para no depender del inventario persistente.</p>
+ */
+public class CheckoutLanesTest {
+
+    /**
+     * Stub de {@link ModelFacade} con existencias ilimitadas que registra las ventas procesadas.
+     */
+    static class ModelFacadeStub extends ModelFacade {
+
+        private final List<Sale> processed = new CopyOnWriteArrayList<>();
+
+        @Override
+        public double getStockByProduct(Product p) {
+            return 1_000_000.0;
+        }
+
+        @Override
+        public void processSale(Sale sale) {
+            processed.add(sale);
+        }
+    }
+
+    /**
+     * Verifica que varias cajas cobrando en paralelo no mezclen sus ventas.
+     */
+    @Test
+    public void testLanesAreIsolatedUnderConcurrency() throws Exception {
+        ModelFacadeStub model = new ModelFacadeStub();
+        Product huevo = new ProductByUnit("1", "Huevo", 3.0);
+        List<String> errors = new CopyOnWriteArrayList<>();
+
+        try (CheckoutLanes lanes = new CheckoutLanes(model, 0)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 1; t <= 4; t++) {
+                String lane = lanes.open();
+                int units = t;
+                Thread thread = new Thread(() -> {
+                    for (int sale = 0; sale < 50; sale++) {
+                        for (int i = 0; i < units; i++) lanes.addProduct(lane, huevo, 1.0);
+                        if (lanes.getSubtotal(lane) != 3.0 * units) errors.add(lane + " subtotal " + lanes.getSubtotal(lane));
+                        lanes.finish(lane, false, 0.0);
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) thread.join();
+            assertEquals(4, lanes.getOpenLanes().size());
+        }
+
+        assertTrue(errors.isEmpty(), errors.toString());
+        assertEquals(200, model.processed.size());
+        double revenue = model.processed.stream().mapToDouble(Sale::getTotal).sum();
+        assertEquals(50 * 3.0 * (1 + 2 + 3 + 4), revenue, 0.0001);
+    }
+
+    /**
+     * Verifica que una caja sin uso se cierre, que su venta se cancele y que ya no acepte operaciones.
+     */
+    @Test
+    public void testIdleLanesAreEvicted() throws Exception {
+        ModelFacadeStub model = new ModelFacadeStub();
+        try (CheckoutLanes lanes = new CheckoutLanes(model, 20)) {
+            String lane = lanes.open();
+            assertNull(lanes.addProduct(lane, new ProductByUnit("1", "Huevo", 3.0), 2.0));
+
+            long deadline = System.currentTimeMillis() + 2000;
+            while (!lanes.getOpenLanes().isEmpty() && System.currentTimeMillis() < deadline) Thread.sleep(5);
+
+            assertTrue(lanes.getOpenLanes().isEmpty());
+            assertEquals(1, lanes.getEvictedCount());
+            assertThrows(IllegalArgumentException.class, () -> lanes.getSubtotal(lane));
+        }
+    }
+
+    /**
+     * Verifica que si el modelo rechaza la venta (otra caja se llevó las existencias), la caja
+     * conserve la venta pendiente y pueda cobrarla después.
+     */
+    @Test
+    public void testRejectedSaleKeepsBasket() {
+        List<Sale> processed = new CopyOnWriteArrayList<>();
+        double[] stock = {5.0};
+        boolean[] lostRace = {true};
+        ModelFacade model = new ModelFacade() {
+            @Override
+            public double getStockByProduct(Product p) {
+                return stock[0];
+            }
+
+            @Override
+            public void processSale(Sale sale) {
+                if (lostRace[0]) {
+                    lostRace[0] = false;
+                    throw new IllegalStateException("Insufficient stock for product: " + sale.getLines().getProduct(0).getName());
+                }
+                processed.add(sale);
+            }
+        };
+        Product huevo = new ProductByUnit("1", "Huevo", 3.0);
+
+        try (CheckoutLanes lanes = new CheckoutLanes(model, 0)) {
+            String lane = lanes.open();
+            assertNull(lanes.addProduct(lane, huevo, 4.0));
+
+            assertTrue(lanes.finish(lane, false, 0.0).startsWith("Error"));
+            assertEquals(12.0, lanes.getSubtotal(lane), 0.0001);
+
+            stock[0] = 2.0;
+            assertTrue(lanes.finish(lane, false, 0.0).startsWith("Error"));
+            assertEquals(12.0, lanes.getSubtotal(lane), 0.0001);
+            assertTrue(processed.isEmpty());
+
+            stock[0] = 5.0;
+            assertTrue(lanes.finish(lane, false, 0.0).startsWith("Registered"));
+            assertEquals(0.0, lanes.getSubtotal(lane), 0.0001);
+        }
+
+        assertEquals(1, processed.size());
+        assertEquals(12.0, processed.get(0).getTotal(), 0.0001);
+    }
+}
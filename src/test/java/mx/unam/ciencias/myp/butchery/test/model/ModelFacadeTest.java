@@ -5,6 +5,8 @@ import mx.unam.ciencias.myp.butchery.DatabaseManager;
 import mx.unam.ciencias.myp.butchery.model.ModelFacade;
 
 import mx.unam.ciencias.myp.butchery.model.domain.Sale;
+import mx.unam.ciencias.myp.butchery.model.domain.SaleIngestor;
+import mx.unam.ciencias.myp.butchery.model.domain.TopSellers;
 
 import mx.unam.ciencias.myp.butchery.model.patrones.factory.*;
 
@@ -157,6 +159,28 @@ public class ModelFacadeTest {
 
     }
 
+    /**
+     * Verifica que una venta procesada aparezca en el tablero de productos más vendidos.
+     */
+    @Test
+    public void testProcessSaleFeedsTopSellers() {
+        ModelFacade model = new ModelFacade();
+        model.addProductByUnit("336", "Chorizo", 40.0);
+        model.addStockToProduct("Chorizo", 10.0);
+
+        Sale sale = new Sale();
+        sale.addProduct(model.findProductByName("Chorizo"), 3.0);
+        sale.setTotal(sale.getSubtotal());
+        sale.setState(new PaidState());
+        model.processSale(sale);
+
+        var byQuantity = model.getTopSellers(TopSellers.Measure.QUANTITY, 5);
+        assertEquals(1, byQuantity.size());
+        assertEquals("Chorizo", byQuantity.get(0).getKey());
+        assertEquals(3.0, byQuantity.get(0).getEstimate(), 0.0001);
+        assertEquals(120.0, model.getTopSellers(TopSellers.Measure.REVENUE, 1).get(0).getEstimate(), 0.0001);
+    }
+
     /**
      * Verifica que la obtención de productos por índice en una lista ordenada funcione correctamente.
      */
@@ -174,7 +198,72 @@ public class ModelFacadeTest {
         assertNull(model.getProductByIndex(10));
     }
 
-}
+    /**
+     * Verifica que un lote de ventas sin conexión valide existencias para todo el lote, descarte los
+     * repetidos y que reenviarlo no vuelva a descontar existencias.
+     */
+    @Test
+    public void testIngestSalesIsIdempotent() {
+        ModelFacade model = new ModelFacade();
+        model.addProductByUnit("334", "Cecina", 5.0);
+        model.addStockToProduct("Cecina", 5.0);
+        Product p = model.findProductByName("Cecina");
+        String batch = java.util.UUID.randomUUID().toString();
+
+        java.util.List<Sale> sales = java.util.List.of(
+                paidSale(batch + "-a", p, 2.0),
+                paidSale(batch + "-a", p, 2.0),
+                paidSale(batch + "-b", p, 4.0),
+                paidSale(batch + "-c", p, 3.0),
+                new Sale(batch + "-d"));
+
+        SaleIngestor.Report report = model.ingestSales(sales);
+        assertEquals(SaleIngestor.Status.ACCEPTED, report.getResults().get(0).getStatus());
+        assertEquals(SaleIngestor.Status.DUPLICATE, report.getResults().get(1).getStatus());
+        assertEquals(SaleIngestor.Status.INSUFFICIENT_STOCK, report.getResults().get(2).getStatus());
+        assertEquals(SaleIngestor.Status.ACCEPTED, report.getResults().get(3).getStatus());
+        assertEquals(SaleIngestor.Status.INVALID, report.getResults().get(4).getStatus());
+        assertEquals(0.0, model.getStockByName("Cecina"), 0.0001);
+        assertEquals(2, model.getSalesHistory().size());
+        assertEquals(5.0, model.getTopSellers(TopSellers.Measure.QUANTITY, 1).get(0).getEstimate(), 0.0001);
+
+        SaleIngestor.Report retry = model.ingestSales(sales.subList(0, 4));
+        assertEquals(3, retry.count(SaleIngestor.Status.DUPLICATE));
+        assertEquals(1, retry.count(SaleIngestor.Status.INSUFFICIENT_STOCK));
+        assertEquals(2, model.getSalesHistory().size());
+    }
 
+    /**
+     * Verifica que cambiar el paralelismo de los reportes mientras otros hilos los generan no
+     * detenga un motor que todavía está en uso.
+     */
+    @Test
+    public void testReportParallelismChangesDuringReports() throws Exception {
+        ModelFacade model = new ModelFacade();
+        java.util.List<Throwable> errors = new java.util.concurrent.CopyOnWriteArrayList<>();
+        java.util.List<Thread> reporters = new java.util.ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            Thread reporter = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 2000; i++) model.getSalesReport();
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+            reporters.add(reporter);
+            reporter.start();
+        }
+        for (int i = 0; i < 2000; i++) model.setReportParallelism(1 + i % 3);
+        for (Thread reporter : reporters) reporter.join();
 
+        assertTrue(errors.isEmpty(), errors.toString());
+        assertEquals(0, model.getSalesReport().getSaleCount() - model.getSalesHistory().size());
+    }
 
+    private static Sale paidSale(String clientId, Product p, double quantity) {
+        Sale sale = new Sale(clientId);
+        sale.addProduct(p, quantity);
+        sale.setState(PaidState.INSTANCE);
+        return sale;
+    }
+}
@@ -0,0 +1,69 @@
+package mx.unam.ciencias.myp.butchery.test.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.domain.EventStore;
+import mx.unam.ciencias.myp.butchery.model.domain.InventoryState;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link EventStore} e {@link InventoryState}.
+ * <p>
+ * Se verifica que el estado reconstruido refleje los eventos registrados, que al reabrir el almacén solo se reproduzcan los eventos posteriores al último punto de control y que el historial de un producto se pueda auditar.
+ * </p>
+ */
+public class EventStoreTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Verifica que al reabrir se restaure el mismo estado reproduciendo solo la cola posterior al punto de control.
+     */
+    @Test
+    public void testRestoreFromCheckpointReplaysOnlyTail() throws Exception {
+        Path journal = dir.resolve("journal.cdc");
+        Path checkpoints = dir.resolve("checkpoints");
+
+        try (EventStore store = new EventStore(journal, checkpoints, 4)) {
+            store.onEvent(new InventoryEvent.ProductAdded("1", "Bistec", true, 180.0));
+            store.onEvent(new InventoryEvent.ProductAdded("2", "Salchicha", false, 12.0));
+            store.onEvent(new InventoryEvent.StockAdded("1", "Bistec", true, 10.0, 10.0, null));
+            store.onEvent(new InventoryEvent.StockAdded("2", "Salchicha", false, 20.0, 20.0, null));
+            store.onEvent(new InventoryEvent.StockReduced("1", "Bistec", 2.5, 7.5));
+            store.onEvent(new InventoryEvent.Renamed("2", "Salchicha", "Salchicha de pavo"));
+            store.onEvent(new InventoryEvent.PriceChanged("1", "Bistec", 190.0, null));
+            store.onEvent(new InventoryEvent.StocktakeApplied(new String[]{"2"}, new double[]{18.0}, -2.0, LocalDateTime.now()));
+            store.onEvent(new InventoryEvent.ProductAdded("3", "Tocino", true, 150.0));
+            store.onEvent(new InventoryEvent.Removed("3", "Tocino"));
+        }
+
+        try (EventStore store = new EventStore(journal, checkpoints, 4)) {
+            InventoryState state = store.getState();
+            assertEquals(0, store.getReplayedCount());
+            assertEquals(10, state.getSequence());
+            assertEquals(2, state.getProducts().size());
+            assertEquals(7.5, state.get("1").getStock(), 0.0001);
+            assertEquals(190.0, state.get("1").getPriceAt(LocalDateTime.now().plusSeconds(1)), 0.0001);
+            assertEquals("Salchicha de pavo", state.get("2").getName());
+            assertEquals(18.0, state.get("2").getStock(), 0.0001);
+            assertNull(state.get("3"));
+
+            store.onEvent(new InventoryEvent.StockReduced("1", "Bistec", 0.5, 7.0));
+        }
+
+        try (EventStore store = new EventStore(journal, checkpoints, 100)) {
+            assertEquals(7.0, store.getState().get("1").getStock(), 0.0001);
+
+            List<InventoryEvent> history = store.historyOf("2");
+            assertEquals(4, history.size());
+            assertTrue(history.get(3) instanceof InventoryEvent.StocktakeApplied);
+        }
+    }
+}
@@ -2,11 +2,26 @@ package mx.unam.ciencias.myp.butchery.test.model.domain;
 import mx.unam.ciencias.myp.butchery.DatabaseManager;
 
 import mx.unam.ciencias.myp.butchery.model.domain.Inventory;
+import mx.unam.ciencias.myp.butchery.model.domain.InventoryQuery;
+import mx.unam.ciencias.myp.butchery.model.domain.InventoryState;
+import mx.unam.ciencias.myp.butchery.model.domain.StocktakeSession;
+import mx.unam.ciencias.myp.butchery.model.domain.TagQuery;
 import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
 
 import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByUnit;
 import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByWeight;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductFactory;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryEvent;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryListener;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.ListNotifier;
 import org.junit.jupiter.api.*;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -140,5 +155,348 @@ public class InventoryTest {
         assertTrue(inv.removeProductByName("Pechuga"));
         assertNull(inv.getProductByName("Pechuga"));
     }
-}
 
+    /**
+     * Verifica que las consultas por categoría y etiqueta se compongan correctamente con AND, OR y NOT.
+     */
+    @Test
+    public void testFindProductsByCategoryAndTag() {
+        Inventory inv = Inventory.getInstance();
+        inv.addProductByWeight("10", "Lomo", 130.0);
+        inv.addProductByWeight("11", "Costilla adobada", 120.0);
+        inv.addProductByWeight("12", "Bistec", 150.0);
+
+        inv.addCategory("Lomo", "Cerdo");
+        inv.addCategory("Costilla adobada", "cerdo");
+        inv.addCategory("Bistec", "res");
+        inv.addTag("Costilla adobada", "marinado");
+        inv.addTag("Bistec", "promocion");
+
+        assertEquals(2, inv.findProducts(TagQuery.category("cerdo")).size());
+
+        var pork = inv.findProducts(TagQuery.category("cerdo").andNot(TagQuery.tag("marinado")));
+        assertEquals(1, pork.size());
+        assertEquals("Lomo", pork.get(0).getName());
+
+        assertEquals(2, inv.findProducts(TagQuery.tag("marinado").or(TagQuery.tag("promocion"))).size());
+        assertEquals(1, inv.findProducts(TagQuery.category("cerdo").not()).size());
+    }
+
+    /**
+     * Verifica que las etiquetas sobrevivan a un cambio de nombre y desaparezcan al eliminar el producto.
+     */
+    @Test
+    public void testLabelsFollowProductLifecycle() {
+        Inventory inv = Inventory.getInstance();
+        inv.addProductByUnit("13", "Chorizo", 40.0);
+        inv.addTag("Chorizo", "embutido");
+        inv.updateProductName("Chorizo", "Chorizo rojo");
+
+        Product p = inv.getProductByName("Chorizo rojo");
+        assertTrue(inv.getTags(p).contains("embutido"));
+
+        inv.removeProductByName("Chorizo rojo");
+        assertTrue(inv.findProducts(TagQuery.tag("embutido")).isEmpty());
+    }
+
+    /**
+     * Verifica que las consultas por rango de precio y existencias se mantengan al día tras cambios de stock y precio.
+     */
+    @Test
+    public void testFindProductsByPriceAndStockRanges() {
+        Inventory inv = Inventory.getInstance();
+        inv.addProductByWeight("20", "Filete", 250.0);
+        inv.addProductByWeight("21", "Arrachera", 220.0);
+        inv.addProductByUnit("22", "Hamburguesa", 35.0);
+        inv.addStockByProductName("Filete", 3.0);
+        inv.addStockByProductName("Arrachera", 8.0);
+        inv.addStockByProductName("Hamburguesa", 40.0);
+
+        InventoryQuery lowPremium = InventoryQuery.create()
+                .type(ProductFactory.ProductType.BY_WEIGHT).priceAbove(200).stockBelow(5);
+        var result = inv.findProducts(lowPremium);
+        assertEquals(1, result.size());
+        assertEquals("Filete", result.get(0).getName());
+
+        inv.reduceStock(inv.getProductByName("Arrachera"), 4.0);
+        assertEquals(2, inv.findProducts(lowPremium).size());
+
+        InventoryQuery units = InventoryQuery.create().type(ProductFactory.ProductType.BY_UNIT).priceBetween(30, 60);
+        assertEquals(1, inv.findProducts(units).size());
+        inv.updateProductPrice("Hamburguesa", 65.0);
+        assertTrue(inv.findProducts(units).isEmpty());
+    }
+
+    /**
+     * Verifica que la venta de un producto por peso consuma primero el lote más antiguo y que el próximo a caducar se actualice.
+     */
+    @Test
+    public void testReduceStockConsumesOldestLotFirst() {
+        Inventory inv = Inventory.getInstance();
+        inv.addProductByWeight("30", "Pierna", 140.0);
+        Product p = inv.getProductByName("Pierna");
+        LocalDate today = LocalDate.now();
+
+        inv.addStockByWeight(p, 4.0, today.minusDays(2), today.plusDays(5));
+        inv.addStockByWeight(p, 6.0, today, today.plusDays(3));
+
+        assertEquals(today.plusDays(3), inv.getNextToExpire(p).getExpiresOn());
+
+        inv.reduceStock(p, 5.0);
+
+        var lots = inv.getLots(p);
+        assertEquals(1, lots.size());
+        assertEquals(5.0, lots.get(0).getQuantity(), 0.0001);
+        assertEquals(today, lots.get(0).getReceivedOn());
+        assertEquals(5.0, inv.getStock(p), 0.0001);
+    }
+
+    /**
+     * Verifica que la consulta de lotes por caducidad abarque todo el catálogo y respete la fecha límite.
+     */
+    @Test
+    public void testLotsExpiringWithin() {
+        Inventory inv = Inventory.getInstance();
+        inv.addProductByWeight("31", "Molida", 120.0);
+        inv.addProductByWeight("32", "Chuleta", 130.0);
+        LocalDate today = LocalDate.now();
+
+        inv.addStockByWeight(inv.getProductByName("Molida"), 2.0, today, today.plusDays(1));
+        inv.addStockByWeight(inv.getProductByName("Chuleta"), 3.0, today, today.plusDays(2));
+        inv.addStockByWeight(inv.getProductByName("Chuleta"), 3.0, today, today.plusDays(10));
+
+        assertEquals(1, inv.getLotsExpiringWithin(1).size());
+        assertEquals(2, inv.getLotsExpiringWithin(2).size());
+        assertEquals(3, inv.getLotsExpiringWithin(30).size());
+    }
+
+    /**
+     * Verifica que si la transacción de un descuento en lote falla, los lotes, las existencias y la
+     * línea de tiempo en memoria queden como estaban, y que un reintento consuma los lotes una sola vez.
+     */
+    @Test
+    public void testFailedBatchLeavesLotsAndTimelinesUnchanged() {
+        Inventory inv = Inventory.getInstance();
+        inv.addProductByWeight("35", "Lomo", 160.0);
+        Product lomo = inv.getProductByName("Lomo");
+        LocalDate today = LocalDate.now();
+        inv.addStockByWeight(lomo, 3.0, today.minusDays(1), null);
+        inv.addStockByWeight(lomo, 4.0, today, null);
+        int movements = inv.getStockTimeline(lomo).size();
+
+        assertThrows(RuntimeException.class, () -> inv.reduceStockBatch(java.util.Map.of(lomo, 5.0), conn -> {
+            throw new java.sql.SQLException("forced failure");
+        }));
+
+        assertEquals(7.0, inv.getStock(lomo), 0.0001);
+        assertEquals(2, inv.getLots(lomo).size());
+        assertEquals(3.0, inv.getLots(lomo).get(0).getQuantity(), 0.0001);
+        assertEquals(movements, inv.getStockTimeline(lomo).size());
+        assertEquals(7.0, inv.getStockTimeline(lomo).getBalance(), 0.0001);
+
+        inv.reduceStockBatch(java.util.Map.of(lomo, 5.0), null);
+        assertEquals(1, inv.getLots(lomo).size());
+        assertEquals(2.0, inv.getLots(lomo).get(0).getQuantity(), 0.0001);
+        assertEquals(2.0, inv.getStockTimeline(lomo).getBalance(), 0.0001);
+    }
+
+    /**
+     * Verifica que una toma de inventario liste las diferencias contra la foto inicial y que al aplicarse conserve las ventas ocurridas durante el conteo.
+     */
+    @Test
+    public void testStocktakeAppliesVariancesOverLiveSales() throws Exception {
+        Inventory inv = Inventory.getInstance();
+        inv.addProductByUnit("40", "Salchicha", 20.0);
+        inv.addProductByWeight("41", "Tocino", 180.0);
+        inv.addStockByProductName("Salchicha", 10.0);
+        inv.addStockByProductName("Tocino", 5.0);
+
+        StocktakeSession session = inv.beginStocktake();
+        session.count("salchicha", 8.0);
+        session.importCounts(new StringReader("# conteo mensual\nTocino,5.5\n"));
+
+        assertEquals(2, session.getVariances().size());
+
+        inv.reduceStock(inv.getProductByName("Salchicha"), 1.0);
+        inv.applyStocktake(session);
+
+        assertEquals(7.0, inv.getStock(inv.getProductByName("Salchicha")), 0.0001);
+        Product tocino = inv.getProductByName("Tocino");
+        assertEquals(5.5, inv.getStock(tocino), 0.0001);
+        assertEquals(5.5, inv.getLots(tocino).stream().mapToDouble(l -> l.getQuantity()).sum(), 0.0001);
+        assertThrows(IllegalStateException.class, () -> inv.applyStocktake(session));
+    }
+
+    /**
+     * Verifica que los cambios de precio conserven las versiones anteriores y que un cambio programado no afecte el precio vigente antes de su fecha.
+     */
+    @Test
+    public void testPriceHistoryKeepsPreviousVersions() throws Exception {
+        Inventory inv = Inventory.getInstance();
+        inv.addProductByWeight("50", "Sirloin", 200.0);
+        LocalDateTime beforeChange = LocalDateTime.now();
+        Thread.sleep(5);
+        inv.updateProductPrice("Sirloin", 220.0);
+
+        Product p = inv.getProductByName("Sirloin");
+        assertEquals(200.0, inv.getPriceAt(p, beforeChange), 0.0001);
+        assertEquals(220.0, inv.getPriceAt(p, LocalDateTime.now()), 0.0001);
+
+        LocalDateTime monday = LocalDateTime.now().plusDays(3);
+        inv.schedulePriceChange("Sirloin", 250.0, monday);
+
+        assertEquals(220.0, ((ProductByWeight) inv.getProductByName("Sirloin")).getPricePerKg(), 0.0001);
+        assertEquals(250.0, inv.getPriceAt(p, monday.plusHours(1)), 0.0001);
+        assertEquals(3, inv.getPriceHistory(p).size());
+    }
+
+    /**
+     * Verifica que un cambio programado se anuncie una sola vez, al programarse, y que el estado
+     * reproducido desde los eventos no gane una versión de precio de más cuando entra en vigor.
+     */
+    @Test
+    public void testScheduledPriceIsJournaledOnce() throws Exception {
+        Inventory inv = Inventory.getInstance();
+        List<InventoryEvent> events = new ArrayList<>();
+        InventoryListener<InventoryEvent> listener = events::add;
+        inv.subscribe(InventoryEvent.class, listener);
+        try {
+            inv.addProductByWeight("51", "Picaña", 300.0);
+            inv.schedulePriceChange("Picaña", 320.0, LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(200)));
+            Thread.sleep(300);
+            assertEquals(320.0, ((ProductByWeight) inv.getProductByName("Picaña")).getPricePerKg(), 0.0001);
+        } finally {
+            assertTrue(inv.unsubscribe(InventoryEvent.class, listener));
+        }
+
+        long priceEvents = events.stream().filter(e -> e instanceof InventoryEvent.PriceChanged).count();
+        assertEquals(1, priceEvents);
+
+        InventoryState state = new InventoryState();
+        for (int i = 0; i < events.size(); i++) state.apply(events.get(i), i + 1);
+        assertEquals(2, state.get("51").getPrices().size());
+        assertEquals(inv.getPriceHistory(inv.getProductByName("Picaña")).size(), state.get("51").getPrices().size());
+    }
+
+    /**
+     * Verifica que un listener suscrito a un tipo de evento reciba solo ese tipo, con sus campos, y que deje de recibirlos al cancelar la suscripción.
+     */
+    @Test
+    public void testTypedSubscriptionsReceiveOnlyTheirType() {
+        Inventory inv = Inventory.getInstance();
+        List<InventoryEvent.StockReduced> reduced = new ArrayList<>();
+        InventoryListener<InventoryEvent.StockReduced> listener = reduced::add;
+        inv.subscribe(InventoryEvent.StockReduced.class, listener);
+        try {
+            inv.addProductByUnit("60", "Chorizo", 30.0);
+            Product p = inv.getProductByName("Chorizo");
+            inv.addStockByUnit(p, 10.0);
+            inv.reduceStock(p, 4.0);
+
+            assertEquals(1, reduced.size());
+            InventoryEvent.StockReduced e = reduced.get(0);
+            assertEquals("60", e.getProductId());
+            assertEquals(4.0, e.getQuantity(), 0.0001);
+            assertEquals(6.0, e.getRemaining(), 0.0001);
+            assertEquals("Stock reduced: Chorizo | Withdrawn: 4.0 | Remaining: 6.0", e.render());
+        } finally {
+            assertTrue(inv.unsubscribe(InventoryEvent.StockReduced.class, listener));
+        }
+        inv.reduceStock(inv.getProductByName("Chorizo"), 1.0);
+        assertEquals(1, reduced.size());
+    }
+
+    /**
+     * Verifica que un observador registrado con {@code registerObserver} reciba los mensajes por su carril y que deje de recibirlos al eliminarlo.
+     */
+    @Test
+    public void testRegisterAndRemoveObserver() throws Exception {
+        Inventory inv = Inventory.getInstance();
+        ListNotifier notifier = new ListNotifier();
+        inv.registerObserver(notifier);
+        try {
+            inv.addProductByUnit("61", "Longaniza", 40.0);
+            assertTrue(inv.awaitObservers(5, TimeUnit.SECONDS));
+            assertEquals(List.of("Product added: Longaniza | Price per unit: 40.0"), notifier.getLog());
+        } finally {
+            inv.removeObserver(notifier);
+        }
+        inv.removeProductByName("Longaniza");
+        assertEquals(1, notifier.getLog().size());
+    }
+
+    /**
+     * Verifica que el inventario pueda reconstruirse a partir de una foto de su estado.
+     */
+    @Test
+    public void testRebuildFromState() {
+        Inventory inv = Inventory.getInstance();
+        inv.addProductByWeight("62", "Cecina", 280.0);
+        inv.addProductByUnit("63", "Chistorra", 55.0);
+        inv.addStockByProductName("Cecina", 4.0);
+        inv.addStockByProductName("Chistorra", 9.0);
+        InventoryState state = inv.snapshotState();
+
+        inv.removeProductByName("Cecina");
+        inv.reduceStock(inv.getProductByName("Chistorra"), 9.0);
+        inv.rebuildFrom(state);
+
+        Product cecina = inv.getProductByName("Cecina");
+        assertTrue(cecina instanceof ProductByWeight);
+        assertEquals(4.0, inv.getStock(cecina), 0.0001);
+        assertEquals(4.0, inv.getLots(cecina).stream().mapToDouble(l -> l.getQuantity()).sum(), 0.0001);
+        assertEquals(9.0, inv.getStock(inv.getProductByName("Chistorra")), 0.0001);
+        assertEquals(280.0, ((ProductByWeight) cecina).getPricePerKg(), 0.0001);
+    }
+
+    /**
+     * Verifica que si la transacción de una reconstrucción falla, el inventario en memoria, sus
+     * lotes y sus líneas de tiempo queden como estaban.
+     */
+    @Test
+    public void testFailedRebuildLeavesInventoryUnchanged() {
+        Inventory inv = Inventory.getInstance();
+        inv.addProductByWeight("65", "Arrachera", 320.0);
+        Product arrachera = inv.getProductByName("Arrachera");
+        inv.addStockByWeight(arrachera, 6.0, LocalDate.now(), null);
+        int movements = inv.getStockTimeline(arrachera).size();
+
+        InventoryState state = new InventoryState();
+        state.apply(new InventoryEvent.ProductAdded("66", "Suadero", true, 150.0), 1);
+        state.apply(new InventoryEvent.ProductAdded("67", "Suadero", true, 150.0), 2);
+        assertThrows(RuntimeException.class, () -> inv.rebuildFrom(state));
+
+        assertSame(arrachera, inv.getProductByName("Arrachera"));
+        assertNull(inv.getProductByName("Suadero"));
+        assertEquals(6.0, inv.getStock(arrachera), 0.0001);
+        assertEquals(1, inv.getLots(arrachera).size());
+        assertEquals(movements, inv.getStockTimeline(arrachera).size());
+        assertEquals(6.0, inv.getStockTimeline(arrachera).getBalance(), 0.0001);
+    }
+
+    /**
+     * Verifica las consultas de existencias en una fecha pasada, incluso después de más movimientos
+     * que el intervalo entre saldos guardados de la línea de tiempo.
+     */
+    @Test
+    public void testStockAsOf() throws Exception {
+        Inventory inv = Inventory.getInstance();
+        inv.addProductByUnit("64", "Longaniza", 40.0);
+        Product longaniza = inv.getProductByName("Longaniza");
+        LocalDateTime before = LocalDateTime.now();
+        Thread.sleep(5);
+
+        inv.addStockByProductName("Longaniza", 100.0);
+        for (int i = 0; i < 70; i++) inv.reduceStock(longaniza, 1.0);
+        Thread.sleep(5);
+        LocalDateTime middle = LocalDateTime.now();
+        Thread.sleep(5);
+        inv.reduceStock(longaniza, 10.0);
+
+        assertEquals(0.0, inv.getStockAsOf(longaniza, before), 0.0001);
+        assertEquals(30.0, inv.getStockAsOf(longaniza, middle), 0.0001);
+        assertEquals(20.0, inv.getStockAsOf(longaniza, LocalDateTime.now()), 0.0001);
+        assertEquals(30.0, inv.getStockAsOf(middle).get(longaniza), 0.0001);
+        assertEquals(72, inv.getStockTimeline(longaniza).size());
+    }
+}
@@ -0,0 +1,84 @@
+package mx.unam.ciencias.myp.butchery.test.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.domain.Sale;
+import mx.unam.ciencias.myp.butchery.model.domain.SaleLineStore;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByUnit;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByWeight;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link SaleLineStore}.
+ * <p>
+ * Se verifica que las sumas por producto coincidan con las ventas anexadas y que los bloques fuera de la ventana se salten.
+ * </p>
+ */
+public class SaleLineStoreTest {
+
+    /**
+     * Verifica las sumas por producto y por ventana, el reparto del descuento y el salto de bloques.
+     */
+    @Test
+    public void testGroupByProductSkipsChunksOutsideWindow() {
+        SaleLineStore store = new SaleLineStore();
+        Product bistec = new ProductByWeight("1", "Bistec", 150.0);
+        Product huevo = new ProductByUnit("2", "Huevo", 3.5);
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        for (int i = 0; i < 10_000; i++) {
+            Sale s = new Sale();
+            s.addProduct(bistec, 0.5);
+            s.addProduct(huevo, 2.0);
+            s.setTotal(s.getSubtotal() * 0.9);
+            s.setTimestamp(start.plusMinutes(i));
+            store.append(s);
+        }
+        assertEquals(20_000, store.size());
+
+        Map<String, Double> all = store.sumByProduct(SaleLineStore.Measure.QUANTITY, null, null);
+        assertEquals(5_000.0, all.get("Bistec"), 0.0001);
+        assertEquals(20_000.0, all.get("Huevo"), 0.0001);
+
+        Map<String, Double> revenue = store.sumByProduct(SaleLineStore.Measure.REVENUE, null, null);
+        assertEquals(10_000 * 82.0 * 0.9, revenue.get("Bistec") + revenue.get("Huevo"), 1.0);
+
+        long skippedBefore = store.getSkippedChunkCount();
+        LocalDateTime from = start.plusMinutes(9_000);
+        Map<String, Double> lastHours = store.sumByProduct(SaleLineStore.Measure.LINES, from, start.plusMinutes(9_100));
+        assertEquals(100.0, lastHours.get("Huevo"), 0.0001);
+        assertTrue(store.getSkippedChunkCount() - skippedBefore >= store.getChunkCount() - 2);
+
+        assertEquals(50.0, store.sum(SaleLineStore.Measure.QUANTITY, "Bistec", from, start.plusMinutes(9_100)), 0.0001);
+        assertEquals(0.0, store.sum(SaleLineStore.Measure.QUANTITY, "Chuleta", null, null));
+    }
+
+    /**
+     * Verifica que un producto renombrado siga sumando en una sola entrada, con su nombre actual.
+     */
+    @Test
+    public void testRenamedProductKeepsOneEntry() {
+        SaleLineStore store = new SaleLineStore();
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        Sale before = new Sale();
+        before.addProduct(new ProductByWeight("7", "Costilla", 120.0), 1.0);
+        before.setTimestamp(start);
+        store.append(before);
+        Sale after = new Sale();
+        after.addProduct(new ProductByWeight("7", "Costilla de res", 120.0), 2.0);
+        after.setTimestamp(start.plusMinutes(1));
+        store.append(after);
+
+        Map<String, Double> qty = store.sumByProduct(SaleLineStore.Measure.QUANTITY, null, null);
+        assertEquals(1, qty.size());
+        assertEquals(3.0, qty.get("Costilla de res"), 0.0001);
+
+        store.rename("7", "Costillar");
+        assertEquals(3.0, store.sum(SaleLineStore.Measure.QUANTITY, "Costillar", null, null), 0.0001);
+        assertEquals(0.0, store.sum(SaleLineStore.Measure.QUANTITY, "Costilla de res", null, null));
+    }
+}
@@ -1,5 +1,6 @@
 package mx.unam.ciencias.myp.butchery.test.model.domain;
 import mx.unam.ciencias.myp.butchery.model.domain.Sale;
+import mx.unam.ciencias.myp.butchery.model.domain.SaleLines;
 
 import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
 
@@ -99,6 +100,48 @@ public class SaleTest {
 
     }
 
+    /**
+     * Verifica que los productos repetidos se sumen en su línea, que las líneas conserven su orden al
+     * crecer los arreglos y que cada línea guarde el precio unitario capturado al agregarla.
+     */
+    @Test
+    public void testLinesMergeRepeatedProducts() {
+        for (int i = 0; i < 20; i++) {
+            sale.addProduct(new ProductByUnit(String.valueOf(i), "Producto " + i, i), 1.0);
+        }
+        sale.addProduct(new ProductByUnit("3", "Producto 3", 99.0), 2.0);
+
+        SaleLines lines = sale.getLines();
+        assertEquals(20, lines.size());
+        assertEquals(3.0, sale.getItems().get(new ProductByUnit("3", "Producto 3", 3.0)), 0.0001);
+        assertEquals(3.0, lines.getUnitPrice(3), 0.0001);
+        assertEquals(9.0, lines.getLineTotal(3), 0.0001);
+        assertEquals("Producto 19", lines.getProduct(19).getName());
+
+        sale.getItems().remove(new ProductByUnit("0", "Producto 0", 0.0));
+        assertEquals(19, lines.size());
+        assertEquals(4, lines.indexOf(new ProductByUnit("5", "Producto 5", 5.0)));
+    }
+
+    /**
+     * Verifica que el subtotal se mantenga al día con cada cambio y no acumule error con muchas
+     * líneas de kilos fraccionarios.
+     */
+    @Test
+    public void testRunningSubtotal() {
+        for (int i = 0; i < 1000; i++) {
+            sale.getItems().put(new ProductByWeight(String.valueOf(i), "Corte " + i, 0.1), 0.1);
+        }
+        assertEquals(10.0, sale.getSubtotal(), 1e-12);
+
+        sale.getItems().put(new ProductByWeight("0", "Corte 0", 0.1), 10.1);
+        assertEquals(11.0, sale.getSubtotal(), 1e-12);
+        assertEquals(1.01, sale.getLines().getLineTotal(0), 1e-12);
+
+        sale.getItems().clear();
+        assertEquals(0.0, sale.getSubtotal(), 0.0);
+    }
+
     /**
      * Implementación mínima de {@link ISaleState} utilizada como estado ficticio para validar el comportamiento de asignación de estado dentro de las pruebas.
      * 
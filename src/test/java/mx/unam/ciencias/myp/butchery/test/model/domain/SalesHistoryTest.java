@@ -1,9 +1,29 @@
 package mx.unam.ciencias.myp.butchery.test.model.domain;
 
+import mx.unam.ciencias.myp.butchery.DatabaseInitializer;
+import mx.unam.ciencias.myp.butchery.DatabaseManager;
+import mx.unam.ciencias.myp.butchery.model.domain.RevenueRollup;
 import mx.unam.ciencias.myp.butchery.model.domain.Sale;
+import mx.unam.ciencias.myp.butchery.model.domain.SaleLineStore;
+import mx.unam.ciencias.myp.butchery.model.domain.SaleSnapshot;
+import mx.unam.ciencias.myp.butchery.model.domain.SaleSpillStore;
 import mx.unam.ciencias.myp.butchery.model.domain.SalesHistory;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByUnit;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByWeight;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleOutcome;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -83,5 +103,163 @@ public class SalesHistoryTest {
 
     }
 
+    /**
+     * Verifica que los acumulados por ventana combinen cubetas de mes, día y hora, y que separen kilos de piezas.
+     */
+    @Test
+    public void testSummarizeWindowsAcrossBuckets() {
+        LocalDateTime[] times = {
+                LocalDateTime.of(2025, 1, 31, 23, 10),
+                LocalDateTime.of(2025, 2, 3, 9, 0),
+                LocalDateTime.of(2025, 2, 20, 18, 45),
+                LocalDateTime.of(2025, 3, 1, 0, 30)
+        };
+        for (LocalDateTime t : times) {
+            Sale s = new Sale();
+            s.addProduct(new ProductByWeight("1", "Bistec", 100.0), 1.5);
+            s.addProduct(new ProductByUnit("2", "Huevo", 3.0), 2.0);
+            s.setTotal(156.0);
+            s.setTimestamp(t);
+            history.addSale(s);
+        }
+
+        RevenueRollup.Totals all = history.summarize(LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 4, 1, 0, 0));
+        assertEquals(4, all.getCount());
+        assertEquals(624.0, all.getRevenue(), 0.0001);
+        assertEquals(6.0, all.getKg(), 0.0001);
+        assertEquals(8.0, all.getUnits(), 0.0001);
+        assertEquals(624.0, history.getTotalRevenue(), 0.0001);
+
+        RevenueRollup.Totals window = history.summarize(LocalDateTime.of(2025, 1, 31, 23, 0), LocalDateTime.of(2025, 2, 20, 18, 0));
+        assertEquals(2, window.getCount());
+        assertEquals(312.0, window.getRevenue(), 0.0001);
+
+        assertEquals(3, history.getRollup().getBuckets(RevenueRollup.Granularity.MONTH,
+                LocalDateTime.of(2025, 1, 15, 0, 0), LocalDateTime.of(2025, 12, 1, 0, 0)).size());
+    }
+
+    /**
+     * Verifica que con un disco de respaldo solo las ventas recientes queden en memoria, que la lista
+     * completa se recorra en orden, que las ventas leídas del disco sean de solo lectura y que los
+     * segmentos leídos se sirvan de la caché.
+     */
+    @Test
+    public void testOldSalesSpillToDisk(@TempDir Path dir) {
+        try (SaleSpillStore spill = new SaleSpillStore(dir, 5, 2)) {
+            SalesHistory bounded = new SalesHistory(new RevenueRollup(), spill, 10);
+            for (int i = 0; i < 53; i++) {
+                Sale s = new Sale("sale-" + i);
+                s.addProduct(new ProductByUnit("2", "Huevo", 3.0), i + 1.0);
+                s.setTotal(3.0 * (i + 1));
+                s.finalizeSale();
+                bounded.addSale(s);
+            }
+
+            assertEquals(8, spill.getSegmentCount());
+            assertEquals(53, bounded.getSaleCount());
+            List<Sale> all = bounded.getSales();
+            assertEquals(IntStream.range(0, 53).mapToObj(i -> "sale-" + i).collect(Collectors.toList()),
+                    all.stream().map(Sale::getClientId).collect(Collectors.toList()));
+            assertEquals(3.0 * 53 * 54 / 2, all.stream().mapToDouble(Sale::getTotal).sum(), 0.0001);
+            assertEquals(4.0, all.get(3).getItems().values().iterator().next(), 0.0001);
+            assertEquals(bounded.getTotalRevenue(), all.stream().mapToDouble(Sale::getTotal).sum(), 0.0001);
+            assertThrows(UnsupportedOperationException.class, () -> all.add(makeSale(1.0)));
+
+
+            long loads = spill.getLoadCount();
+            all.get(39);
+            all.get(38);
+            assertEquals(loads, spill.getLoadCount());
+            all.get(0);
+            assertEquals(loads + 1, spill.getLoadCount());
+
+            Sale spilled = all.get(3);
+            assertTrue(spilled instanceof SaleSnapshot);
+            assertEquals(SaleStatus.PAID, spilled.getStatus());
+            assertEquals(SaleOutcome.REJECTED, spilled.addProduct(new ProductByUnit("2", "Huevo", 3.0), 1.0));
+            assertEquals(SaleOutcome.REJECTED, spilled.applyDiscount());
+            assertThrows(UnsupportedOperationException.class, () -> spilled.setTotal(0.0));
+            assertThrows(UnsupportedOperationException.class, spilled::getStrategy);
+            assertThrows(UnsupportedOperationException.class, () -> spilled.getItems().clear());
+            assertThrows(UnsupportedOperationException.class,
+                    () -> spilled.getItems().entrySet().iterator().next().setValue(9.0));
+            assertEquals(12.0, spilled.getTotal(), 0.0001);
+            assertFalse(all.get(50) instanceof SaleSnapshot);
+        }
+    }
+
+    /**
+     * Verifica que cerrar el almacén borre los segmentos que escribió.
+     */
+    @Test
+    public void testClosingSpillStoreDeletesSegments(@TempDir Path dir) throws IOException {
+        SaleSpillStore spill = new SaleSpillStore(dir, 5, 2);
+        SalesHistory bounded = new SalesHistory(new RevenueRollup(), spill, 5);
+        for (int i = 0; i < 20; i++) {
+            Sale s = new Sale("sale-" + i);
+            s.addProduct(new ProductByUnit("2", "Huevo", 3.0), 1.0);
+            s.finalizeSale();
+            bounded.addSale(s);
+        }
+        assertEquals(3, spill.getSegmentCount());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(3, files.count());
+        }
+
+        spill.close();
+        assertEquals(0, spill.getSegmentCount());
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    /**
+     * Verifica que, con segmentos en disco y acumulados persistentes, las cubetas y los bloques de
+     * líneas en memoria no crezcan con el número de ventas y que las consultas sigan viendo todo.
+     */
+    @Test
+    public void testSpilledHistoryKeepsMemoryBounded(@TempDir Path dir) throws Exception {
+        DatabaseInitializer.initialize();
+        deleteRollups1999();
+        try (SaleSpillStore spill = new SaleSpillStore(dir, 20, 2)) {
+            RevenueRollup rollup = RevenueRollup.persistent(24);
+            SalesHistory bounded = new SalesHistory(rollup, spill, 40);
+            LocalDateTime start = LocalDateTime.of(1999, 1, 1, 0, 0);
+            for (int i = 0; i < 600; i++) {
+                Sale s = new Sale("sale-" + i);
+                for (int j = 0; j < 50; j++) s.addProduct(new ProductByUnit("p" + j, "Producto " + j, 2.0), 1.0);
+                s.setTotal(100.0);
+                s.finalizeSale();
+                s.setTimestamp(start.plusHours(i));
+                bounded.addSale(s);
+            }
+
+            assertEquals(28, spill.getSegmentCount());
+            assertEquals(24, rollup.getBucketsInMemory(RevenueRollup.Granularity.HOUR));
+            assertEquals(24, rollup.getBucketsInMemory(RevenueRollup.Granularity.DAY));
+            SaleLineStore lines = bounded.getLineStore();
+            assertEquals(8, lines.getChunkCount());
+            assertEquals(2, lines.getChunksInMemory());
 
-}
\ No newline at end of file
+            assertEquals(600.0, lines.sum(SaleLineStore.Measure.QUANTITY, "Producto 7", null, null), 0.0001);
+            assertEquals(120.0, lines.sum(SaleLineStore.Measure.REVENUE, "Producto 0", start, start.plusHours(60)), 0.0001);
+            assertTrue(lines.getChunksInMemory() <= 4);
+
+            RevenueRollup.Totals all = rollup.summarize(start, start.plusHours(600));
+            assertEquals(600, all.getCount());
+            assertEquals(60000.0, all.getRevenue(), 0.0001);
+            assertEquals(5, rollup.summarize(start.plusHours(3), start.plusHours(8)).getCount());
+            assertEquals(3, rollup.getBuckets(RevenueRollup.Granularity.HOUR, start, start.plusHours(3)).size());
+            assertEquals(24, rollup.getBucketsInMemory(RevenueRollup.Granularity.HOUR));
+        } finally {
+            deleteRollups1999();
+        }
+    }
+
+    private static void deleteRollups1999() throws Exception {
+        try (var conn = DatabaseManager.getConnection();
+             var stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM sales_rollups WHERE bucket_start LIKE '1999-%';");
+        }
+    }
+}
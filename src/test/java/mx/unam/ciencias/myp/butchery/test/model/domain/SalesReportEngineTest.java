@@ -0,0 +1,83 @@
+package mx.unam.ciencias.myp.butchery.test.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.domain.Sale;
+import mx.unam.ciencias.myp.butchery.model.domain.SalesReportEngine;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByUnit;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByWeight;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link SalesReportEngine}.
+ * <p>
+ * Se verifica que el reporte sea el mismo sin importar el paralelismo con que se genere.
+ * </p>
+ */
+public class SalesReportEngineTest {
+
+    /**
+     * Verifica que un hilo y cuatro hilos produzcan los mismos totales, y que estos sean los esperados.
+     */
+    @Test
+    public void testReportIndependentOfParallelism() {
+        Product bistec = new ProductByWeight("1", "Bistec", 150.0);
+        Product arrachera = new ProductByWeight("2", "Arrachera", 300.0);
+        Product huevo = new ProductByUnit("3", "Huevo", 3.0);
+        List<Sale> sales = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            Sale s = new Sale();
+            s.addProduct(i % 2 == 0 ? bistec : arrachera, 1.0);
+            if (i % 4 == 0) s.addProduct(huevo, 10.0);
+            s.setTotal(s.getSubtotal());
+            sales.add(s);
+        }
+
+        SalesReportEngine.SalesReport single;
+        SalesReportEngine.SalesReport parallel;
+        try (SalesReportEngine one = new SalesReportEngine(1);
+             SalesReportEngine four = new SalesReportEngine(4)) {
+            single = one.run(sales);
+            parallel = four.run(sales);
+        }
+
+        assertEquals(20_000, parallel.getSaleCount());
+        assertEquals(1.25, parallel.getAverageBasketSize(), 0.0001);
+        assertEquals(10_000 * 150.0 + 10_000 * 300.0 + 5_000 * 30.0, parallel.getTotalRevenue(), 0.01);
+        assertEquals(10_000.0, parallel.getKgByProduct().get("Arrachera"), 0.0001);
+        assertEquals(50_000.0, parallel.getUnitsByProduct().get("Huevo"), 0.0001);
+        assertFalse(parallel.getKgByProduct().containsKey("Huevo"));
+
+        assertEquals(single.getTotalRevenue(), parallel.getTotalRevenue(), 0.01);
+        for (String name : single.getRevenueByProduct().keySet()) {
+            assertEquals(single.getRevenueByProduct().get(name), parallel.getRevenueByProduct().get(name), 0.01);
+        }
+    }
+
+    /**
+     * Verifica que las ventas de un producto con dos nombres se reporten juntas bajo el más reciente.
+     */
+    @Test
+    public void testRenamedProductReportedOnceUnderLatestName() {
+        Product before = new ProductByWeight("7", "Costilla", 100.0);
+        Product after = new ProductByWeight("7", "Costilla de res", 100.0);
+        List<Sale> sales = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Sale s = new Sale();
+            s.addProduct(i < 4_000 ? before : after, 1.0);
+            s.setTotal(s.getSubtotal());
+            sales.add(s);
+        }
+
+        try (SalesReportEngine engine = new SalesReportEngine(4)) {
+            SalesReportEngine.SalesReport report = engine.run(sales);
+            assertEquals(1, report.getRevenueByProduct().size());
+            assertEquals(500_000.0, report.getRevenueByProduct().get("Costilla de res"), 0.0001);
+            assertEquals(5_000.0, report.getKgByProduct().get("Costilla de res"), 0.0001);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package mx.unam.ciencias.myp.butchery.test.model.domain;
+
+import mx.unam.ciencias.myp.butchery.model.domain.Sale;
+import mx.unam.ciencias.myp.butchery.model.domain.TopSellers;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.Product;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByUnit;
+import mx.unam.ciencias.myp.butchery.model.patrones.factory.ProductByWeight;
+import mx.unam.ciencias.myp.butchery.util.SpaceSaving;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link TopSellers}.
+ * <p>
+ * Se verifica el orden por ingreso y por cantidad, y que las ventas fuera de la ventana dejen de contar.
+ * </p>
+ */
+public class TopSellersTest {
+
+    private static Sale sale(LocalDateTime at, Product product, double quantity) {
+        Sale s = new Sale();
+        s.addProduct(product, quantity);
+        s.setTotal(s.getSubtotal());
+        s.setTimestamp(at);
+        return s;
+    }
+
+    /**
+     * Verifica que el ingreso y la cantidad ordenen distinto y que la ventana móvil olvide las ventas viejas.
+     */
+    @Test
+    public void testTopByMeasureInRollingWindow() {
+        TopSellers board = new TopSellers(8, Duration.ofHours(1), 24);
+        Product bistec = new ProductByWeight("1", "Bistec", 200.0);
+        Product huevo = new ProductByUnit("2", "Huevo", 3.0);
+        LocalDateTime start = LocalDateTime.of(2025, 5, 1, 8, 0);
+
+        board.record(sale(start, bistec, 2.0));
+        board.record(sale(start.plusHours(3), huevo, 30.0));
+        board.record(sale(start.plusHours(5), bistec, 1.0));
+
+        LocalDateTime now = start.plusHours(6);
+        List<SpaceSaving.Entry<String>> byRevenue = board.top(TopSellers.Measure.REVENUE, 2, now);
+        assertEquals("Bistec", byRevenue.get(0).getKey());
+        assertEquals(600.0, byRevenue.get(0).getEstimate(), 0.0001);
+        assertEquals(90.0, byRevenue.get(1).getEstimate(), 0.0001);
+
+        List<SpaceSaving.Entry<String>> byQuantity = board.top(TopSellers.Measure.QUANTITY, 1, now);
+        assertEquals("Huevo", byQuantity.get(0).getKey());
+        assertEquals(30.0, byQuantity.get(0).getEstimate(), 0.0001);
+
+        List<SpaceSaving.Entry<String>> later = board.top(TopSellers.Measure.REVENUE, 2, start.plusHours(24));
+        assertEquals(2, later.size());
+        assertEquals(200.0, later.get(0).getEstimate(), 0.0001);
+        assertEquals(0.0, later.get(0).getError(), 0.0001);
+
+        board.record(sale(start, huevo, 1.0));
+        board.record(sale(start.plusHours(30), huevo, 1.0));
+        assertEquals(1, board.top(TopSellers.Measure.QUANTITY, 5, start.plusHours(30)).size());
+    }
+
+    /**
+     * Verifica que un producto renombrado siga contando en una sola entrada, con su nombre actual.
+     */
+    @Test
+    public void testRenamedProductKeepsOneEntry() {
+        TopSellers board = new TopSellers(8, Duration.ofHours(1), 24);
+        LocalDateTime start = LocalDateTime.of(2025, 5, 1, 8, 0);
+        board.record(sale(start, new ProductByWeight("7", "Costilla", 100.0), 1.0));
+        board.record(sale(start.plusHours(1), new ProductByWeight("7", "Costilla de res", 100.0), 2.0));
+
+        List<SpaceSaving.Entry<String>> top = board.top(TopSellers.Measure.QUANTITY, 5, start.plusHours(2));
+        assertEquals(1, top.size());
+        assertEquals("Costilla de res", top.get(0).getKey());
+        assertEquals(3.0, top.get(0).getEstimate(), 0.0001);
+
+        board.rename("7", "Costillar");
+        assertEquals("Costillar", board.top(TopSellers.Measure.QUANTITY, 5, start.plusHours(2)).get(0).getKey());
+    }
+}
@@ -0,0 +1,147 @@
+package mx.unam.ciencias.myp.butchery.test.model.patrones.observer;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.AsyncDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link AsyncDispatcher}.
+ * <p>
+ * Se verifica que los mensajes se entreguen en orden en el hilo despachador y que cada política de desborde (descartar o desbordar a disco) se comporte como se espera cuando el destino es lento.
+ * </p>
+ */
+public class AsyncDispatcherTest {
+
+    private static final Path SPILL = Paths.get("test_dispatch_spill.txt");
+
+    /**
+     * Elimina el archivo de desborde de las pruebas.
+     */
+    @AfterEach
+    public void cleanup() throws Exception {
+        Files.deleteIfExists(SPILL);
+    }
+
+    /**
+     * Verifica que todos los mensajes se entreguen en el orden en que se publicaron.
+     */
+    @Test
+    public void testDeliversInOrder() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        AsyncDispatcher d = new AsyncDispatcher(4, AsyncDispatcher.OverflowPolicy.BLOCK, received::add);
+
+        for (int i = 0; i < 100; i++) d.publish("m" + i);
+        assertTrue(d.awaitIdle(5, TimeUnit.SECONDS));
+        d.shutdown();
+
+        assertEquals(100, received.size());
+        assertEquals("m0", received.get(0));
+        assertEquals("m99", received.get(99));
+        assertEquals(100, d.getDeliveredCount());
+    }
+
+    /**
+     * Verifica que con la política {@code DROP} los mensajes sobrantes se descarten y se cuenten mientras el destino está bloqueado.
+     */
+    @Test
+    public void testDropPolicyCountsDroppedMessages() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        AsyncDispatcher d = new AsyncDispatcher(2, AsyncDispatcher.OverflowPolicy.DROP, m -> {
+            awaitQuietly(release);
+            received.add(m);
+        });
+
+        d.publish("first");
+        Thread.sleep(50);
+        d.publish("a");
+        d.publish("b");
+        assertFalse(d.publish("c"));
+
+        release.countDown();
+        assertTrue(d.awaitIdle(5, TimeUnit.SECONDS));
+        d.shutdown();
+
+        assertEquals(1, d.getDroppedCount());
+        assertEquals(List.of("first", "a", "b"), received);
+    }
+
+    /**
+     * Verifica que con la política {@code SPILL} los mensajes sobrantes pasen por disco y se entreguen sin perder el orden.
+     */
+    @Test
+    public void testSpillPolicyPreservesOrder() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        AsyncDispatcher d = new AsyncDispatcher(2, AsyncDispatcher.OverflowPolicy.SPILL, m -> {
+            awaitQuietly(release);
+            received.add(m);
+        }, SPILL);
+
+        d.publish("first");
+        Thread.sleep(50);
+        for (int i = 0; i < 5; i++) d.publish("m" + i);
+        assertTrue(d.getSpilledCount() > 0);
+
+        release.countDown();
+        assertTrue(d.awaitIdle(5, TimeUnit.SECONDS));
+        d.shutdown();
+
+        assertEquals(List.of("first", "m0", "m1", "m2", "m3", "m4"), received);
+        assertFalse(Files.exists(SPILL));
+    }
+
+    /**
+     * Verifica que si el desborde no se puede leer, sus mensajes se cuenten como descartados y el
+     * despachador siga entregando los siguientes.
+     */
+    @Test
+    public void testUnreadableSpillIsDroppedAndDispatcherKeepsRunning(@TempDir Path dir) throws Exception {
+        Path spill = dir.resolve("spill.txt");
+        Path draining = dir.resolve("spill.txt.draining");
+        Files.createDirectories(draining);
+        Files.createFile(draining.resolve("blocker"));
+
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> received = new CopyOnWriteArrayList<>();
+        AsyncDispatcher d = new AsyncDispatcher(2, AsyncDispatcher.OverflowPolicy.SPILL, m -> {
+            awaitQuietly(release);
+            received.add(m);
+        }, spill);
+
+        d.publish("first");
+        Thread.sleep(50);
+        for (int i = 0; i < 5; i++) d.publish("m" + i);
+        long spilled = d.getSpilledCount();
+        assertTrue(spilled > 0);
+
+        release.countDown();
+        assertTrue(d.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(spilled, d.getDroppedCount());
+
+        d.publish("after");
+        assertTrue(d.awaitIdle(5, TimeUnit.SECONDS));
+        d.shutdown();
+        assertEquals("after", received.get(received.size() - 1));
+        assertEquals(7 - spilled, received.size());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
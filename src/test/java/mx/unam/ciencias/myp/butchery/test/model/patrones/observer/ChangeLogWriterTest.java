@@ -0,0 +1,62 @@
+package mx.unam.ciencias.myp.butchery.test.model.patrones.observer;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.ChangeLogWriter;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryEvent;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryEventCodec;
+import mx.unam.ciencias.myp.butchery.util.MappedLog;
+import mx.unam.ciencias.myp.butchery.util.MappedLogReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link ChangeLogWriter} e {@link InventoryEventCodec}.
+ * <p>
+ * Se verifica que los eventos escritos en la bitácora binaria se lean de vuelta con los mismos campos, el mismo texto y el mismo instante.
+ * </p>
+ */
+public class ChangeLogWriterTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Verifica que cada tipo de evento sobreviva la codificación y decodificación.
+     */
+    @Test
+    public void testEventsRoundTripThroughLog() throws Exception {
+        Path file = dir.resolve("changes.cdc");
+        List<InventoryEvent> written = List.of(
+                new InventoryEvent.ProductAdded("1", "Arrachera", true, 320.0),
+                new InventoryEvent.StockAdded("1", "Arrachera", true, 5.0, 5.0, LocalDate.of(2026, 1, 15)),
+                new InventoryEvent.StockReduced("1", "Arrachera", 1.5, 3.5),
+                new InventoryEvent.PriceChanged("1", "Arrachera", 350.0, LocalDateTime.of(2026, 2, 1, 8, 0)),
+                new InventoryEvent.Renamed("1", "Arrachera", "Arrachera marinada"),
+                new InventoryEvent.Removed("1", "Arrachera marinada"),
+                new InventoryEvent.Notice(() -> "Stocktake applied: 2 adjustments"));
+
+        try (ChangeLogWriter writer = new ChangeLogWriter(new MappedLog(file))) {
+            for (InventoryEvent e : written) writer.onEvent(e);
+        }
+
+        List<InventoryEvent> read = new ArrayList<>();
+        try (MappedLogReader reader = new MappedLogReader(file, 1)) {
+            reader.poll((seq, ts, payload) -> read.add(InventoryEventCodec.decode(payload, ts)), 100);
+        }
+
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(written.get(i).getClass(), read.get(i).getClass());
+            assertEquals(written.get(i).render(), read.get(i).render());
+            assertEquals(written.get(i).getTimestamp(), read.get(i).getTimestamp());
+        }
+        assertEquals(LocalDate.of(2026, 1, 15), ((InventoryEvent.StockAdded) read.get(1)).getExpiresOn());
+    }
+}
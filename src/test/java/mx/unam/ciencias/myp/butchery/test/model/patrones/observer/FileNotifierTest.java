@@ -78,6 +78,28 @@ public class FileNotifierTest {
         assertTrue(contenido.contains("Mensaje 2"));
     }
 
+    /**
+     * Verifica que con confirmación en grupo los mensajes se retengan en memoria hasta completar el grupo o llamar a {@link FileNotifier#flush()}.
+     */
+    @Test
+    public void testGroupCommitBuffersUntilFlush() throws Exception {
+
+        FileNotifier notifier = new FileNotifier(TEST_FILE, 3, 0, true);
+
+        notifier.update("Mensaje 1");
+        notifier.update("Mensaje 2");
+        assertEquals(2, notifier.getPendingEvents());
+        assertFalse(Files.exists(Paths.get(TEST_FILE)));
+
+        notifier.update("Mensaje 3");
+        assertEquals(0, notifier.getPendingEvents());
+        assertTrue(Files.readString(Paths.get(TEST_FILE)).contains("Mensaje 3"));
+
+        notifier.update("Mensaje 4");
+        notifier.close();
+        assertTrue(Files.readString(Paths.get(TEST_FILE)).contains("Mensaje 4"));
+    }
+
     /**
      * Clase auxiliar que permite cambiar dinámicamente el nombre del archivo utilizado por
      * {@link FileNotifier}, usando reflexión para modificar el atributo privado {@code filename}.
@@ -0,0 +1,76 @@
+package mx.unam.ciencias.myp.butchery.test.model.patrones.observer;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.FileNotifier;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.LogArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link LogArchive} junto con la rotación de {@link FileNotifier}.
+ * <p>
+ * Se verifica que el log rote al exceder el tamaño, que los segmentos cerrados se compriman y se registren en el manifiesto, que se respete la retención y que los segmentos comprimidos puedan consultarse.
+ * </p>
+ */
+public class LogArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Verifica que el log rote por tamaño, que los segmentos se compriman y que se conserven solo los más recientes.
+     */
+    @Test
+    public void testRotatesCompressesAndRetains() throws Exception {
+        Path active = dir.resolve("changes.txt");
+        LogArchive archive = new LogArchive(active, 100, false, 2);
+        FileNotifier notifier = new FileNotifier(active.toString(), 1, 0, false);
+        notifier.enableRotation(archive);
+
+        for (int i = 0; i < 40; i++) notifier.update("Evento numero " + i);
+        assertTrue(archive.awaitCompression(10, TimeUnit.SECONDS));
+
+        List<LogArchive.Segment> segments = archive.getSegments();
+        assertEquals(2, segments.size());
+        for (LogArchive.Segment s : segments) {
+            assertTrue(s.isCompressed());
+            assertTrue(s.getName().endsWith(".gz"));
+            assertTrue(Files.exists(dir.resolve(s.getName())));
+        }
+        assertTrue(Files.exists(dir.resolve("changes.manifest")));
+
+        assertEquals(List.of("Evento numero 35"), archive.search("numero 35", null, null, 10));
+        assertTrue(archive.search("numero 0", null, null, 10).isEmpty());
+        assertTrue(archive.search("Evento", null, LocalDateTime.now().minusDays(1), 10).isEmpty());
+        notifier.close();
+    }
+
+    /**
+     * Verifica que un segmento grande se lea desde una línea intermedia usando sus bloques comprimidos.
+     */
+    @Test
+    public void testReadLinesSeeksToBlock() throws Exception {
+        Path active = dir.resolve("changes.txt");
+        LogArchive archive = new LogArchive(active, 0, false, 5);
+        FileNotifier notifier = new FileNotifier(active.toString(), 500, 0, false);
+        notifier.enableRotation(archive);
+
+        for (int i = 0; i < 2500; i++) notifier.update("linea " + i);
+        notifier.rotate();
+        assertTrue(archive.awaitCompression(10, TimeUnit.SECONDS));
+
+        LogArchive.Segment segment = archive.getSegments().get(0);
+        assertEquals(2500, segment.getLines());
+        assertEquals(3, segment.getBlockCount());
+        assertEquals(List.of("linea 2100", "linea 2101"), archive.readLines(segment, 2100, 2));
+        assertFalse(Files.exists(active));
+        notifier.close();
+    }
+}
@@ -0,0 +1,73 @@
+package mx.unam.ciencias.myp.butchery.test.model.patrones.observer;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.InventoryEvent;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.NotificationCoalescer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link NotificationCoalescer}.
+ * <p>
+ * Se verifica que un alcance entregue un solo mensaje combinado al cerrarse, que un evento suelto conserve su texto y que la ventana agrupe los eventos fuera de un alcance.
+ * </p>
+ */
+public class NotificationCoalescerTest {
+
+    /**
+     * Verifica que los eventos de un alcance (incluidos los de alcances anidados) se entreguen en un
+     * solo mensaje con los movimientos de cada producto sumados.
+     */
+    @Test
+    public void testScopeDeliversOneMergedMessage() {
+        List<String> received = new CopyOnWriteArrayList<>();
+        NotificationCoalescer coalescer = new NotificationCoalescer(received::add, 0);
+
+        try (NotificationCoalescer.Scope sale = coalescer.openScope("Sale")) {
+            coalescer.offer(new InventoryEvent.StockReduced("1", "Arrachera", 2.0, 8.0));
+            try (NotificationCoalescer.Scope inner = coalescer.openScope("Line")) {
+                coalescer.offer(new InventoryEvent.StockReduced("2", "Chorizo", 3.0, 7.0));
+            }
+            coalescer.offer(new InventoryEvent.StockReduced("1", "Arrachera", 1.0, 7.0));
+            assertTrue(received.isEmpty());
+        }
+
+        assertEquals(1, received.size());
+        assertEquals("Sale: 3 changes | Stock Arrachera: -3.0 -> 7.0 | Stock Chorizo: -3.0 -> 7.0", received.get(0));
+        assertEquals(3, coalescer.getReceivedCount());
+        assertEquals(1, coalescer.getDeliveredCount());
+    }
+
+    /**
+     * Verifica que sin alcance ni ventana cada evento se entregue de inmediato con su texto original.
+     */
+    @Test
+    public void testSingleEventKeepsOriginalText() {
+        List<String> received = new CopyOnWriteArrayList<>();
+        NotificationCoalescer coalescer = new NotificationCoalescer(received::add, 0);
+        InventoryEvent removed = new InventoryEvent.Removed("1", "Arrachera");
+        coalescer.offer(removed);
+
+        assertEquals(List.of(removed.render()), received);
+    }
+
+    /**
+     * Verifica que la ventana agrupe los eventos fuera de un alcance y que {@code close()} entregue lo pendiente.
+     */
+    @Test
+    public void testWindowGroupsEvents() throws Exception {
+        List<String> received = new CopyOnWriteArrayList<>();
+        NotificationCoalescer coalescer = new NotificationCoalescer(received::add, 10_000);
+        coalescer.offer(new InventoryEvent.StockAdded("1", "Pollo", false, 5.0, 5.0, null));
+        coalescer.offer(new InventoryEvent.Renamed("1", "Pollo", "Pollo entero"));
+        assertTrue(received.isEmpty());
+
+        coalescer.close();
+        assertEquals(1, received.size());
+        assertTrue(received.get(0).startsWith("Inventory changes: 2 changes | Stock Pollo: +5.0 -> 5.0"));
+        assertTrue(received.get(0).endsWith("Product renamed: Pollo -> Pollo entero"));
+    }
+}
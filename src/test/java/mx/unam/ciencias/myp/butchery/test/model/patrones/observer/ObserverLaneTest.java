@@ -0,0 +1,85 @@
+package mx.unam.ciencias.myp.butchery.test.model.patrones.observer;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.ListNotifier;
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.ObserverLane;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link ObserverLane}.
+ * <p>
+ * Se verifica que el carril entregue los mensajes en orden, que un observador que falla repetidamente quede en cuarentena y pueda liberarse, y que un observador bloqueado no detenga a quien publica.
+ * </p>
+ */
+public class ObserverLaneTest {
+
+    /**
+     * Verifica la entrega ordenada y las métricas de latencia.
+     */
+    @Test
+    public void testDeliversInOrderAndMeasuresLatency() throws Exception {
+        ListNotifier notifier = new ListNotifier();
+        ObserverLane lane = new ObserverLane(notifier, 16, 1000, 3);
+
+        lane.offer("A");
+        lane.offer("B");
+        assertTrue(lane.awaitIdle(5, TimeUnit.SECONDS));
+        lane.close(1000);
+
+        assertEquals(List.of("A", "B"), notifier.getLog());
+        assertEquals(2, lane.getDeliveredCount());
+        assertTrue(lane.getMaxLatencyNanos() >= lane.getAverageLatencyNanos());
+    }
+
+    /**
+     * Verifica que tras varios fallos consecutivos el observador quede en cuarentena y que al liberarlo vuelva a recibir mensajes.
+     */
+    @Test
+    public void testFailingObserverIsQuarantined() throws Exception {
+        ObserverLane lane = new ObserverLane(m -> {
+            if (m.startsWith("bad")) throw new IllegalStateException("boom");
+        }, 16, 1000, 2);
+
+        lane.offer("bad 1");
+        lane.offer("bad 2");
+        assertTrue(lane.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(ObserverLane.Status.QUARANTINED, lane.getStatus());
+        assertEquals(2, lane.getFailureCount());
+        assertFalse(lane.offer("ok"));
+
+        lane.release();
+        assertTrue(lane.offer("ok"));
+        assertTrue(lane.awaitIdle(5, TimeUnit.SECONDS));
+        assertEquals(ObserverLane.Status.ACTIVE, lane.getStatus());
+        lane.close(1000);
+    }
+
+    /**
+     * Verifica que un observador bloqueado no detenga a quien publica y que, al llenarse su cola, quede en cuarentena.
+     */
+    @Test
+    public void testStuckObserverDoesNotBlockPublisher() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ObserverLane lane = new ObserverLane(m -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 2, 10, 2);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) lane.offer("m" + i);
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(ObserverLane.Status.QUARANTINED, lane.getStatus());
+        assertTrue(lane.getDroppedCount() > 0);
+
+        release.countDown();
+        lane.close(1000);
+    }
+}
@@ -0,0 +1,60 @@
+package mx.unam.ciencias.myp.butchery.test.model.patrones.observer;
+
+import mx.unam.ciencias.myp.butchery.model.patrones.observer.RingBufferNotifier;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link RingBufferNotifier}.
+ * <p>
+ * Se verifica que el búfer conserve solo los mensajes más recientes en orden, que las copias no cambien con escrituras posteriores y que el muestreo guarde uno de cada n mensajes.
+ * </p>
+ */
+public class RingBufferNotifierTest {
+
+    /**
+     * Verifica que al llenarse el búfer se descarten los mensajes más antiguos.
+     */
+    @Test
+    public void testKeepsMostRecentMessages() {
+        RingBufferNotifier notifier = new RingBufferNotifier(3);
+        for (int i = 1; i <= 5; i++) notifier.update("Mensaje " + i);
+
+        assertEquals(List.of("Mensaje 3", "Mensaje 4", "Mensaje 5"), notifier.snapshot());
+        assertEquals(List.of("Mensaje 5"), notifier.recent(1));
+        assertEquals(3, notifier.size());
+        assertEquals(5, notifier.getRecordedCount());
+    }
+
+    /**
+     * Verifica que una copia tomada antes de nuevas escrituras no se modifique.
+     */
+    @Test
+    public void testSnapshotIsStable() {
+        RingBufferNotifier notifier = new RingBufferNotifier(2);
+        notifier.update("A");
+        List<String> before = notifier.snapshot();
+        notifier.update("B");
+        notifier.update("C");
+
+        assertEquals(List.of("A"), before);
+        int count = 0;
+        for (String ignored : notifier) count++;
+        assertEquals(2, count);
+    }
+
+    /**
+     * Verifica que con muestreo solo se guarde uno de cada n mensajes.
+     */
+    @Test
+    public void testSampling() {
+        RingBufferNotifier notifier = new RingBufferNotifier(10, 3);
+        for (int i = 0; i < 9; i++) notifier.update("m" + i);
+
+        assertEquals(List.of("m0", "m3", "m6"), notifier.snapshot());
+        assertEquals(9, notifier.getReceivedCount());
+    }
+}
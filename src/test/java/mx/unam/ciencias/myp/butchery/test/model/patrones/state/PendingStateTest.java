@@ -1,6 +1,8 @@
 package mx.unam.ciencias.myp.butchery.test.model.patrones.state;
 import mx.unam.ciencias.myp.butchery.model.patrones.state.PendingState;
 import mx.unam.ciencias.myp.butchery.model.patrones.state.PaidState;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleOutcome;
+import mx.unam.ciencias.myp.butchery.model.patrones.state.SaleStatus;
 
 import mx.unam.ciencias.myp.butchery.model.patrones.state.CanceledState;
 
@@ -123,4 +125,27 @@ public class PendingStateTest {
 
         assertTrue(sale.getState() instanceof CanceledState);
     }
-}
\ No newline at end of file
+
+    /**
+     * Verifica que las transiciones usen las instancias compartidas, regresen su resultado sin
+     * imprimir nada y que una venta pagada rechace cambios.
+     */
+    @Test
+    public void testTransitionsReturnOutcomesWithoutOutput() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+
+        Sale sale = new Sale();
+        Product p = new ProductByUnit("1", "Huevo", 3.0);
+        assertSame(PendingState.INSTANCE, sale.getState());
+        assertEquals(SaleOutcome.ADDED, sale.addProduct(p, 2));
+        assertEquals(SaleOutcome.COMPLETED, sale.finalizeSale());
+        assertSame(PaidState.INSTANCE, sale.getState());
+        assertEquals(SaleStatus.PAID, sale.getStatus());
+
+        assertEquals(SaleOutcome.REJECTED, sale.addProduct(p, 1));
+        assertEquals(SaleOutcome.REJECTED, sale.cancelSale());
+        assertEquals(2.0, sale.getItems().get(p));
+        assertEquals(0, out.size());
+    }
+}
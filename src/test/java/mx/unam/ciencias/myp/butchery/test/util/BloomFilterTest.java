@@ -0,0 +1,34 @@
+package mx.unam.ciencias.myp.butchery.test.util;
+
+import mx.unam.ciencias.myp.butchery.util.BloomFilter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link BloomFilter}.
+ * <p>
+ * Se verifica que no haya falsos negativos y que la proporción de falsos positivos quede cerca de la elegida.
+ * </p>
+ */
+public class BloomFilterTest {
+
+    /**
+     * Verifica que toda cadena agregada se reporte como posible y que pocas cadenas nuevas den falso positivo.
+     */
+    @Test
+    public void testNoFalseNegativesAndBoundedFalsePositives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filter.add("sale-" + i);
+
+        for (int i = 0; i < 10_000; i++) assertTrue(filter.mightContain("sale-" + i));
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other-" + i)) falsePositives++;
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+        assertFalse(filter.isSaturated());
+        filter.add("sale-extra");
+        assertTrue(filter.isSaturated());
+    }
+}
@@ -0,0 +1,71 @@
+package mx.unam.ciencias.myp.butchery.test.util;
+
+import mx.unam.ciencias.myp.butchery.util.CompressedBitSet;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link CompressedBitSet}.
+ * <p>
+ * Se verifica el encendido y apagado de bits, el cálculo de cardinalidad y las operaciones de conjunto (intersección, unión y diferencia), incluyendo bits que caen en palabras distintas.
+ * </p>
+ */
+public class CompressedBitSetTest {
+
+    /**
+     * Crea un conjunto con los bits indicados.
+     */
+    private CompressedBitSet of(int... bits) {
+        CompressedBitSet s = new CompressedBitSet();
+        for (int b : bits) s.set(b);
+        return s;
+    }
+
+    /**
+     * Verifica que {@code set}, {@code get} y {@code clear} funcionen en palabras distintas y que el conjunto quede vacío al apagar todos los bits.
+     */
+    @Test
+    public void testSetGetClear() {
+        CompressedBitSet s = of(3, 64, 1000);
+
+        assertTrue(s.get(3));
+        assertTrue(s.get(64));
+        assertTrue(s.get(1000));
+        assertFalse(s.get(4));
+        assertEquals(3, s.cardinality());
+
+        s.clear(3);
+        s.clear(64);
+        s.clear(1000);
+        assertTrue(s.isEmpty());
+    }
+
+    /**
+     * Verifica las operaciones de conjunto y que no modifiquen a los operandos.
+     */
+    @Test
+    public void testSetAlgebra() {
+        CompressedBitSet a = of(1, 2, 70, 500);
+        CompressedBitSet b = of(2, 70, 71, 9000);
+
+        assertArrayEquals(new int[]{2, 70}, a.and(b).toArray());
+        assertArrayEquals(new int[]{1, 2, 70, 71, 500, 9000}, a.or(b).toArray());
+        assertArrayEquals(new int[]{1, 500}, a.andNot(b).toArray());
+
+        assertArrayEquals(new int[]{1, 2, 70, 500}, a.toArray());
+    }
+
+    /**
+     * Verifica que una copia sea independiente del conjunto original.
+     */
+    @Test
+    public void testCopyIsIndependent() {
+        CompressedBitSet a = of(5);
+        CompressedBitSet copy = a.copy();
+        copy.set(6);
+
+        assertFalse(a.get(6));
+        assertEquals(of(5, 6), copy);
+    }
+}
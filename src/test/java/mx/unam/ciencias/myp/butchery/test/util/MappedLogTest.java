@@ -0,0 +1,83 @@
+package mx.unam.ciencias.myp.butchery.test.util;
+
+import mx.unam.ciencias.myp.butchery.util.MappedLog;
+import mx.unam.ciencias.myp.butchery.util.MappedLogReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link MappedLog} y {@link MappedLogReader}.
+ * <p>
+ * Se verifica que los registros reciban secuencias consecutivas, que un lector pueda empezar en cualquier secuencia y seguir los registros nuevos (incluso cuando el archivo crece), y que al reabrir se descarte un registro corrupto al final.
+ * </p>
+ */
+public class MappedLogTest {
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Verifica que un lector entregue los registros desde la secuencia pedida y siga los que se agregan después, aunque el archivo crezca.
+     */
+    @Test
+    public void testReaderTailsFromSequence() throws Exception {
+        Path file = dir.resolve("changes.cdc");
+        try (MappedLog log = new MappedLog(file, 64)) {
+            for (int i = 1; i <= 3; i++) assertEquals(i, log.append(bytes("r" + i)));
+
+            try (MappedLogReader reader = new MappedLogReader(file, 2)) {
+                List<String> seen = new ArrayList<>();
+                assertEquals(2, reader.poll((seq, ts, payload) -> seen.add(seq + ":" + text(payload)), 10));
+                assertEquals(List.of("2:r2", "3:r3"), seen);
+                assertEquals(0, reader.poll((seq, ts, payload) -> seen.add(text(payload)), 10));
+
+                for (int i = 4; i <= 50; i++) log.append(bytes("r" + i));
+                assertEquals(47, reader.poll((seq, ts, payload) -> seen.add(seq + ":" + text(payload)), 100));
+                assertEquals("50:r50", seen.get(seen.size() - 1));
+                assertEquals(51, reader.getNextSequence());
+            }
+        }
+    }
+
+    /**
+     * Verifica que al reabrir la bitácora se continúe la secuencia y se descarte un registro final cuya suma de verificación no coincide.
+     */
+    @Test
+    public void testReopenRecoversAndDropsCorruptTail() throws Exception {
+        Path file = dir.resolve("changes.cdc");
+        try (MappedLog log = new MappedLog(file, 1024)) {
+            log.append(bytes("uno"));
+            log.append(bytes("dos"));
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[]{42}), 16 + 32 + 24);
+        }
+        try (MappedLog log = new MappedLog(file, 1024)) {
+            assertEquals(1, log.getLastSequence());
+            assertEquals(2, log.append(bytes("tres")));
+        }
+        try (MappedLogReader reader = new MappedLogReader(file, 1)) {
+            List<String> seen = new ArrayList<>();
+            reader.poll((seq, ts, payload) -> seen.add(text(payload)), 10);
+            assertEquals(List.of("uno", "tres"), seen);
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ByteBuffer payload) {
+        return StandardCharsets.UTF_8.decode(payload).toString();
+    }
+}
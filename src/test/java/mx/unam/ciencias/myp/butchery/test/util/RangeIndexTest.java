@@ -0,0 +1,54 @@
+package mx.unam.ciencias.myp.butchery.test.util;
+
+import mx.unam.ciencias.myp.butchery.util.RangeIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link RangeIndex}.
+ * <p>
+ * Se verifica el conteo y recorrido de rangos con límites inclusivos y exclusivos, así como la actualización y eliminación de valores.
+ * </p>
+ */
+public class RangeIndexTest {
+
+    /**
+     * Verifica que el conteo respete los límites inclusivos y exclusivos.
+     */
+    @Test
+    public void testCountRespectsBounds() {
+        RangeIndex index = new RangeIndex();
+        index.put(0, 10.0);
+        index.put(1, 20.0);
+        index.put(2, 20.0);
+        index.put(3, 30.0);
+
+        assertEquals(4, index.count(10, true, 30, true));
+        assertEquals(2, index.count(10, false, 30, false));
+        assertEquals(3, index.count(20, true, Double.POSITIVE_INFINITY, true));
+        assertEquals(0, index.count(21, true, 29, true));
+    }
+
+    /**
+     * Verifica que reemplazar y eliminar valores mantenga el índice ordenado.
+     */
+    @Test
+    public void testPutReplacesAndRemove() {
+        RangeIndex index = new RangeIndex();
+        index.put(0, 5.0);
+        index.put(1, 1.0);
+        index.put(0, 0.5);
+
+        List<Integer> seen = new ArrayList<>();
+        index.forEachInRange(0, true, 10, true, seen::add);
+        assertEquals(List.of(0, 1), seen);
+
+        index.remove(0);
+        assertEquals(1, index.size());
+        assertTrue(Double.isNaN(index.valueOf(0)));
+    }
+}
@@ -0,0 +1,50 @@
+package mx.unam.ciencias.myp.butchery.test.util;
+
+import mx.unam.ciencias.myp.butchery.util.SpaceSaving;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pruebas unitarias para {@link SpaceSaving}.
+ * <p>
+ * Se verifica que los elementos pesados aparezcan primero y que las estimaciones respeten sus cotas de error.
+ * </p>
+ */
+public class SpaceSavingTest {
+
+    /**
+     * Verifica que, con muchos más elementos que contadores, los pesados se encuentren y cada estimación
+     * quede entre el peso real y el peso real más su error.
+     */
+    @Test
+    public void testHeavyHittersWithinErrorBounds() {
+        SpaceSaving<String> summary = new SpaceSaving<>(20);
+        Map<String, Double> exact = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 20_000; i++) {
+            String key = i % 4 == 0 ? "heavy-" + (i / 4) % 3 : "tail-" + random.nextInt(2_000);
+            double weight = 1.0 + random.nextInt(3);
+            summary.offer(key, weight);
+            exact.merge(key, weight, Double::sum);
+        }
+
+        List<SpaceSaving.Entry<String>> top = summary.top(3);
+        assertEquals(3, top.size());
+        for (SpaceSaving.Entry<String> e : top) {
+            assertTrue(e.getKey().startsWith("heavy-"), e.toString());
+        }
+        for (SpaceSaving.Entry<String> e : summary.entries()) {
+            double real = exact.get(e.getKey());
+            assertTrue(e.getEstimate() >= real - 1e-9, e.toString());
+            assertTrue(e.getGuaranteed() <= real + 1e-9, e.toString());
+            assertTrue(e.getError() <= summary.getErrorBound() + 1e-9, e.toString());
+        }
+        assertEquals(exact.values().stream().mapToDouble(Double::doubleValue).sum(), summary.getTotalWeight(), 1e-6);
+    }
+}